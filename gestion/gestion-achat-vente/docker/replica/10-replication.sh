@@ -0,0 +1,5 @@
+#!/bin/sh
+# Base principale de docker-compose.replica.yml : autoriser la réplication en streaming
+# depuis le conteneur réplica (exécuté une fois, à l'initialisation du volume)
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,80 @@
+package com.gestion.benchmark;
+
+import com.gestion.achat.repository.BonReceptionRepository;
+import com.gestion.stock.entity.*;
+import com.gestion.stock.repository.*;
+import com.gestion.stock.service.LotService;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation FIFO/FEFO de {@code LotService.allouerLot} : parcours des lots candidats,
+ * filtrage par dépôt et décrément du lot retenu. Le lot servable est placé en fin de liste
+ * (pire cas : parcours complet), la moitié des lots appartenant à un autre dépôt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class AllocationLotBenchmark {
+
+    private static final int QUANTITE_DEMANDEE = 1_000;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int taille;
+
+    @Param({ "FIFO", "FEFO" })
+    public String methode;
+
+    private LotService service;
+    private Article article;
+    private Depot depot;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        article = StockFixtures.article(methode, true);
+        depot = StockFixtures.depot("DEP-BENCH");
+        Depot autreDepot = StockFixtures.depot("DEP-AUTRE");
+        Emplacement emplacement = StockFixtures.emplacement(depot);
+        Emplacement autreEmplacement = StockFixtures.emplacement(autreDepot);
+
+        List<Lot> lots = StockFixtures.lots(article, emplacement, taille);
+        for (int i = 0; i < lots.size(); i += 2) {
+            lots.get(i).setEmplacement(autreEmplacement);
+        }
+        Lot dernier = lots.get(lots.size() - 1);
+        dernier.setQuantiteInitiale(Integer.MAX_VALUE / 2);
+        dernier.setQuantiteActuelle(Integer.MAX_VALUE / 2);
+
+        LotRepository lotRepository = RepositoryStubs.stub(LotRepository.class)
+                .on("findLotsForAllocation", args -> lots)
+                .saveRenvoieArgument()
+                .build();
+
+        service = new LotService(
+                lotRepository,
+                RepositoryStubs.vide(ArticleRepository.class),
+                RepositoryStubs.vide(BonReceptionRepository.class),
+                RepositoryStubs.vide(EmplacementRepository.class),
+                RepositoryStubs.vide(DepotRepository.class),
+                RepositoryStubs.vide(StockMovementRepository.class),
+                null,
+                RepositoryStubs.vide(SerieRepository.class),
+                null,
+                null);
+    }
+
+    @Benchmark
+    public Lot allouer() {
+        Lot lot = service.allouerLot(article.getId(), depot.getId(), QUANTITE_DEMANDEE, methode);
+        // Restitution pour garder un état stable d'une invocation à l'autre
+        lot.setQuantiteActuelle(lot.getQuantiteActuelle() + QUANTITE_DEMANDEE);
+        lot.setStatut(Lot.LotStatus.DISPONIBLE);
+        return lot;
+    }
+}
@@ -0,0 +1,108 @@
+package com.gestion.benchmark;
+
+import com.gestion.achat.repository.BonCommandeRepository;
+import com.gestion.achat.repository.BonReceptionRepository;
+import com.gestion.stock.entity.*;
+import com.gestion.stock.repository.*;
+import com.gestion.stock.service.MouvementService;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chemin complet d'une entrée / sortie manuelle : parsing des paramètres, construction
+ * du mouvement et mise à jour CUMP du stock ({@code mettreAJourStock}).
+ * Les repositories sont simulés : seule la partie Java (BigDecimal, allocations) est mesurée.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MouvementStockBenchmark {
+
+    private static final int STOCK_INITIAL = 1_000_000;
+
+    private MouvementService service;
+    private Stock stock;
+    private Map<String, String> paramsEntree;
+    private Map<String, String> paramsSortie;
+    private final UUID utilisateurId = UUID.randomUUID();
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        Article article = StockFixtures.article("CUMP", false);
+        Depot depot = StockFixtures.depot("DEP-BENCH");
+        MovementType entree = StockFixtures.type("ENTREE_MANUELLE", MovementType.SensMouvement.ENTREE);
+        MovementType sortie = StockFixtures.type("SORTIE_MANUELLE", MovementType.SensMouvement.SORTIE);
+        stock = StockFixtures.stock(article, depot, STOCK_INITIAL, new BigDecimal("12.5000"));
+
+        StockMovementRepository mouvementRepository = RepositoryStubs.stub(StockMovementRepository.class)
+                .on("countByDateComptable", args -> 41_999L)
+                .saveRenvoieArgument()
+                .build();
+        MovementTypeRepository typeRepository = RepositoryStubs.stub(MovementTypeRepository.class)
+                .on("findById", args -> Optional.of(entree.getId().equals(args[0]) ? entree : sortie))
+                .build();
+        ArticleRepository articleRepository = RepositoryStubs.stub(ArticleRepository.class)
+                .on("findById", args -> Optional.of(article))
+                .build();
+        DepotRepository depotRepository = RepositoryStubs.stub(DepotRepository.class)
+                .on("findById", args -> Optional.of(depot))
+                .build();
+        StockRepository stockRepository = RepositoryStubs.stub(StockRepository.class)
+                .on("findByArticleIdAndDepotId", args -> Optional.of(stock))
+                .saveRenvoieArgument()
+                .build();
+
+        service = new MouvementService(
+                mouvementRepository,
+                typeRepository,
+                articleRepository,
+                depotRepository,
+                RepositoryStubs.vide(LotRepository.class),
+                RepositoryStubs.vide(EmplacementRepository.class),
+                RepositoryStubs.vide(BonReceptionRepository.class),
+                stockRepository,
+                RepositoryStubs.vide(BonCommandeRepository.class),
+                RepositoryStubs.vide(UtilisateurRepository.class));
+
+        paramsEntree = new HashMap<>();
+        paramsEntree.put("typeMouvementId", entree.getId().toString());
+        paramsEntree.put("articleId", article.getId().toString());
+        paramsEntree.put("depotId", depot.getId().toString());
+        paramsEntree.put("quantite", "3");
+        paramsEntree.put("coutUnitaire", "13.2750");
+
+        paramsSortie = new HashMap<>(paramsEntree);
+        paramsSortie.put("typeMouvementId", sortie.getId().toString());
+        paramsSortie.remove("coutUnitaire");
+    }
+
+    /**
+     * Remet le stock à niveau pour que les sorties ne l'épuisent jamais pendant une itération.
+     */
+    @Setup(Level.Iteration)
+    public void reinitialiserStock() {
+        stock.setQuantiteTheorique(STOCK_INITIAL);
+        stock.setQuantitePhysique(STOCK_INITIAL);
+        stock.setValeurStockCump(new BigDecimal("12.5000").multiply(BigDecimal.valueOf(STOCK_INITIAL)));
+    }
+
+    @Benchmark
+    public Map<String, Object> entree() {
+        return service.creerMouvementEntree(paramsEntree, utilisateurId);
+    }
+
+    @Benchmark
+    public Map<String, Object> sortie() {
+        return service.creerMouvementSortie(paramsSortie, utilisateurId);
+    }
+}
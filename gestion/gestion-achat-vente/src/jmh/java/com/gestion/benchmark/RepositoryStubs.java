@@ -0,0 +1,73 @@
+package com.gestion.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Doublures minimalistes des repositories Spring Data pour les benchmarks.
+ * Un proxy JDK répond aux seules méthodes déclarées, sans Mockito ni contexte Spring,
+ * afin que les mesures ne portent que sur le code des services.
+ */
+public final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    public static <T> Stub<T> stub(Class<T> type) {
+        return new Stub<>(type);
+    }
+
+    public static <T> T vide(Class<T> type) {
+        return new Stub<>(type).build();
+    }
+
+    public static final class Stub<T> {
+
+        private final Class<T> type;
+        private final Map<String, Function<Object[], Object>> reponses = new HashMap<>();
+
+        private Stub(Class<T> type) {
+            this.type = type;
+        }
+
+        public Stub<T> on(String methode, Function<Object[], Object> reponse) {
+            reponses.put(methode, reponse);
+            return this;
+        }
+
+        /**
+         * Les méthodes save/saveAll renvoient l'entité reçue, comme Spring Data.
+         */
+        public Stub<T> saveRenvoieArgument() {
+            reponses.put("save", args -> args[0]);
+            reponses.put("saveAll", args -> args[0]);
+            return this;
+        }
+
+        public T build() {
+            InvocationHandler handler = (proxy, method, args) -> {
+                String nom = method.getName();
+                switch (nom) {
+                    case "toString":
+                        return "Stub<" + type.getSimpleName() + ">";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        break;
+                }
+                Function<Object[], Object> reponse = reponses.get(nom);
+                if (reponse == null) {
+                    throw new UnsupportedOperationException(
+                            "Méthode non simulée: " + type.getSimpleName() + "." + nom);
+                }
+                return reponse.apply(args);
+            };
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.gestion.benchmark;
+
+import com.gestion.stock.entity.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Jeux de données déterministes (graine fixe) pour les benchmarks stock.
+ */
+public final class StockFixtures {
+
+    public static final long GRAINE = 20260101L;
+
+    private StockFixtures() {
+    }
+
+    public static CategorieArticle categorie(boolean tracabiliteLot) {
+        CategorieArticle categorie = new CategorieArticle();
+        categorie.setId(UUID.randomUUID());
+        categorie.setCode(tracabiliteLot ? "PERISSABLE" : "STANDARD");
+        categorie.setLibelle(categorie.getCode());
+        categorie.setNecessiteTracabiliteLot(tracabiliteLot);
+        return categorie;
+    }
+
+    public static Article article(String methodeValorisation, boolean gestionParLot) {
+        Article article = new Article();
+        article.setId(UUID.randomUUID());
+        article.setCodeArticle("ART-BENCH-" + methodeValorisation);
+        article.setLibelle("Article benchmark " + methodeValorisation);
+        article.setCategorie(categorie("FEFO".equals(methodeValorisation)));
+        article.setMethodeValorisation(methodeValorisation);
+        article.setGestionParLot(gestionParLot);
+        return article;
+    }
+
+    public static Depot depot(String code) {
+        Site site = new Site();
+        site.setId(UUID.randomUUID());
+        site.setCode("SITE-" + code);
+        site.setNom("Site " + code);
+
+        Depot depot = new Depot();
+        depot.setId(UUID.randomUUID());
+        depot.setSite(site);
+        depot.setCode(code);
+        depot.setNom("Dépôt " + code);
+        return depot;
+    }
+
+    public static Emplacement emplacement(Depot depot) {
+        ZoneStockage zone = new ZoneStockage();
+        zone.setId(UUID.randomUUID());
+        zone.setDepot(depot);
+        zone.setCode("Z-" + depot.getCode());
+        zone.setType("STOCKAGE");
+
+        Emplacement emplacement = new Emplacement();
+        emplacement.setId(UUID.randomUUID());
+        emplacement.setZone(zone);
+        emplacement.setCode("A-01-01-" + depot.getCode());
+        return emplacement;
+    }
+
+    public static MovementType type(String code, MovementType.SensMouvement sens) {
+        MovementType type = new MovementType();
+        type.setId(UUID.randomUUID());
+        type.setCode(code);
+        type.setLibelle(code);
+        type.setSens(sens);
+        return type;
+    }
+
+    /**
+     * Lots triés par date de réception croissante (ordre FIFO), quantités 1..500,
+     * coûts 0,01..99 à 4 décimales, péremption entre J-30 et J+365.
+     */
+    public static List<Lot> lots(Article article, Emplacement emplacement, int nombre) {
+        SplittableRandom random = new SplittableRandom(GRAINE);
+        LocalDate origine = LocalDate.now().minusDays(nombre / 50 + 1);
+        List<Lot> lots = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            int quantite = 1 + random.nextInt(500);
+            Lot lot = new Lot();
+            lot.setId(UUID.randomUUID());
+            lot.setNumeroLot(String.format("LOT-BENCH-%07d", i));
+            lot.setArticle(article);
+            lot.setEmplacement(emplacement);
+            lot.setQuantiteInitiale(quantite);
+            lot.setQuantiteActuelle(quantite);
+            lot.setDateReception(origine.plusDays(i / 50));
+            lot.setDatePeremption(LocalDate.now().plusDays(random.nextInt(-30, 366)));
+            lot.setCoutUnitaire(cout(random));
+            lot.setStatut(Lot.LotStatus.DISPONIBLE);
+            lots.add(lot);
+        }
+        return lots;
+    }
+
+    /**
+     * Mouvements validés, 70 % d'entrées et 30 % de sorties, du plus récent au plus ancien
+     * (ordre de {@code findByArticleIdAndDepotIdOrderByDateMouvementDesc}).
+     */
+    public static List<StockMovement> mouvements(Article article, Depot depot, int nombre) {
+        SplittableRandom random = new SplittableRandom(GRAINE);
+        MovementType entree = type("RECEPTION_FOURNISSEUR", MovementType.SensMouvement.ENTREE);
+        MovementType sortie = type("LIVRAISON_CLIENT", MovementType.SensMouvement.SORTIE);
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<StockMovement> mouvements = new ArrayList<>(nombre);
+        for (int i = 0; i < nombre; i++) {
+            StockMovement mouvement = new StockMovement();
+            mouvement.setId(UUID.randomUUID());
+            mouvement.setReference(String.format("MVT-BENCH-%07d", i));
+            mouvement.setType(random.nextInt(10) < 7 ? entree : sortie);
+            mouvement.setArticle(article);
+            mouvement.setDepot(depot);
+            mouvement.setQuantite(1 + random.nextInt(200));
+            mouvement.setCoutUnitaire(cout(random));
+            mouvement.setDateMouvement(maintenant.minusMinutes(i));
+            mouvement.setDateComptable(maintenant.minusMinutes(i).toLocalDate());
+            mouvement.setStatut(StockMovement.MovementStatus.VALIDE);
+            mouvements.add(mouvement);
+        }
+        return mouvements;
+    }
+
+    public static Stock stock(Article article, Depot depot, int quantite, BigDecimal coutUnitaire) {
+        Stock stock = new Stock();
+        stock.setId(UUID.randomUUID());
+        stock.setArticle(article);
+        stock.setDepot(depot);
+        stock.setQuantiteTheorique(quantite);
+        stock.setQuantitePhysique(quantite);
+        stock.setQuantiteReservee(0);
+        stock.setValeurStockCump(coutUnitaire.multiply(BigDecimal.valueOf(quantite)));
+        return stock;
+    }
+
+    private static BigDecimal cout(SplittableRandom random) {
+        return BigDecimal.valueOf(100 + random.nextInt(990_000), 4);
+    }
+}
@@ -0,0 +1,89 @@
+package com.gestion.benchmark;
+
+import com.gestion.stock.entity.*;
+import com.gestion.stock.repository.*;
+import com.gestion.stock.service.ValorisationService;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valorisation FIFO / FEFO (somme des lots) et recalcul du CUMP depuis l'historique
+ * des mouvements, de 1 000 à 1 000 000 de lignes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx4g" })
+public class ValorisationBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int taille;
+
+    private ValorisationService service;
+    private Article article;
+    private Depot depot;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        article = StockFixtures.article("FIFO", true);
+        depot = StockFixtures.depot("DEP-BENCH");
+        Emplacement emplacement = StockFixtures.emplacement(depot);
+
+        List<Lot> lotsFifo = StockFixtures.lots(article, emplacement, taille);
+        List<Lot> lotsFefo = lotsFifo.stream()
+                .sorted(Comparator.comparing(Lot::getDatePeremption))
+                .toList();
+        List<StockMovement> mouvements = StockFixtures.mouvements(article, depot, taille);
+        Stock stock = StockFixtures.stock(article, depot, taille, new BigDecimal("12.5000"));
+
+        LotRepository lotRepository = RepositoryStubs.stub(LotRepository.class)
+                .on("findLotsForFIFO", args -> lotsFifo)
+                .on("findLotsForFEFO", args -> lotsFefo)
+                .build();
+        StockMovementRepository mouvementRepository = RepositoryStubs.stub(StockMovementRepository.class)
+                .on("findByArticleIdAndDepotIdOrderByDateMouvementDesc", args -> mouvements)
+                .build();
+        StockRepository stockRepository = RepositoryStubs.stub(StockRepository.class)
+                .on("findByArticleIdAndDepotId", args -> Optional.of(stock))
+                .build();
+
+        service = new ValorisationService(
+                stockRepository,
+                mouvementRepository,
+                lotRepository,
+                RepositoryStubs.vide(ArticleRepository.class),
+                RepositoryStubs.vide(HistoriqueCoutRepository.class),
+                RepositoryStubs.vide(ClotureMensuelleRepository.class),
+                RepositoryStubs.vide(DepotRepository.class),
+                null,
+                null);
+    }
+
+    @Benchmark
+    public BigDecimal valorisationFIFO() {
+        return service.calculerValorisationFIFO(article.getId(), depot.getId());
+    }
+
+    @Benchmark
+    public BigDecimal valorisationFEFO() {
+        return service.calculerValorisationFEFO(article.getId(), depot.getId());
+    }
+
+    @Benchmark
+    public BigDecimal cumpDepuisHistorique() {
+        return service.calculerCUMP(article.getId(), depot.getId());
+    }
+
+    @Benchmark
+    public BigDecimal valeurCumpRecalculee() {
+        return service.recalculerCUMPDepuisHistorique(article.getId(), depot.getId());
+    }
+}
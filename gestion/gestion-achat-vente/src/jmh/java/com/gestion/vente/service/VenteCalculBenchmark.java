@@ -0,0 +1,59 @@
+package com.gestion.vente.service;
+
+import com.gestion.benchmark.StockFixtures;
+import com.gestion.vente.dto.LigneVenteRequest;
+import com.gestion.vente.dto.VenteTotals;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul des totaux HT/TVA/TTC d'un devis ({@code calculerLigne} et
+ * {@code calculerTotauxGlobaux}), placé dans le paquetage du service pour accéder
+ * aux méthodes de calcul.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VenteCalculBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int nombreLignes;
+
+    private List<LigneVenteRequest> lignes;
+    private final BigDecimal remiseGlobale = new BigDecimal("5.00");
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        SplittableRandom random = new SplittableRandom(StockFixtures.GRAINE);
+        lignes = new ArrayList<>(nombreLignes);
+        for (int i = 0; i < nombreLignes; i++) {
+            LigneVenteRequest ligne = new LigneVenteRequest();
+            ligne.setArticleId(UUID.randomUUID());
+            ligne.setQuantite(1 + random.nextInt(100));
+            ligne.setPrixUnitaireHt(BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+            ligne.setRemisePourcentage(BigDecimal.valueOf(random.nextInt(16)));
+            ligne.setTvaPourcentage(new BigDecimal("20.00"));
+            lignes.add(ligne);
+        }
+    }
+
+    @Benchmark
+    public VenteTotals calculerLigne() {
+        return VenteService.calculerLigne(lignes.get(0));
+    }
+
+    @Benchmark
+    public VenteTotals calculerTotauxGlobaux() {
+        return VenteService.calculerTotauxGlobaux(lignes, remiseGlobale);
+    }
+}
@@ -0,0 +1,81 @@
+package com.gestion.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Flux {@code COPY ... FROM STDIN (FORMAT csv)} alimenté ligne à ligne, avec un tampon
+ * d'environ 1 Mo envoyé au serveur à chaque remplissage : la mémoire reste constante
+ * quel que soit le volume généré.
+ */
+final class ChargeurCopy implements AutoCloseable {
+
+    private static final int TAILLE_TAMPON = 1 << 20;
+
+    private final String table;
+    private final CopyIn copy;
+    private final StringBuilder tampon = new StringBuilder(TAILLE_TAMPON + 4096);
+    private long lignes;
+
+    ChargeurCopy(Connection connexion, String table, String colonnes) throws SQLException {
+        this.table = table;
+        this.copy = connexion.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + colonnes + ") FROM STDIN WITH (FORMAT csv)");
+    }
+
+    ChargeurCopy ligne(Object... valeurs) throws SQLException {
+        for (int i = 0; i < valeurs.length; i++) {
+            if (i > 0) {
+                tampon.append(',');
+            }
+            ajouter(valeurs[i]);
+        }
+        tampon.append('\n');
+        lignes++;
+        if (tampon.length() >= TAILLE_TAMPON) {
+            envoyer();
+        }
+        return this;
+    }
+
+    long getLignes() {
+        return lignes;
+    }
+
+    private void ajouter(Object valeur) {
+        if (valeur == null) {
+            return; // champ vide non quoté = NULL en CSV
+        }
+        if (valeur instanceof String texte) {
+            tampon.append('"').append(texte.replace("\"", "\"\"")).append('"');
+        } else {
+            tampon.append(valeur);
+        }
+    }
+
+    private void envoyer() throws SQLException {
+        if (tampon.length() == 0) {
+            return;
+        }
+        byte[] octets = tampon.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(octets, 0, octets.length);
+        tampon.setLength(0);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            envoyer();
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+        System.out.printf("  %-28s %,12d lignes%n", table, lignes);
+    }
+}
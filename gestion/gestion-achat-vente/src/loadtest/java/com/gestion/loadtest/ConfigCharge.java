@@ -0,0 +1,55 @@
+package com.gestion.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paramètres en ligne de commande au format {@code --cle=valeur}, avec repli sur les
+ * propriétés système ({@code -Dcle=valeur}) puis sur la valeur par défaut.
+ */
+final class ConfigCharge {
+
+    private final Map<String, String> valeurs = new HashMap<>();
+
+    ConfigCharge(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argument invalide (attendu --cle=valeur): " + arg);
+            }
+            int egal = arg.indexOf('=');
+            if (egal < 0) {
+                valeurs.put(arg.substring(2), "true");
+            } else {
+                valeurs.put(arg.substring(2, egal), arg.substring(egal + 1));
+            }
+        }
+    }
+
+    String texte(String cle, String defaut) {
+        String valeur = valeurs.get(cle);
+        if (valeur == null) {
+            valeur = System.getProperty(cle);
+        }
+        return valeur != null ? valeur : defaut;
+    }
+
+    int entier(String cle, int defaut) {
+        return Integer.parseInt(texte(cle, String.valueOf(defaut)));
+    }
+
+    boolean option(String cle) {
+        return Boolean.parseBoolean(texte(cle, "false"));
+    }
+
+    String jdbcUrl() {
+        return texte("jdbc.url", "jdbc:postgresql://localhost:5432/achat_vente");
+    }
+
+    String jdbcUser() {
+        return texte("jdbc.user", "postgres");
+    }
+
+    String jdbcPassword() {
+        return texte("jdbc.password", "root");
+    }
+}
@@ -0,0 +1,776 @@
+package com.gestion.loadtest;
+
+import com.gestion.stock.service.PositionStockService;
+import com.gestion.stock.service.ProjectionStockService;
+import com.gestion.stock.service.ReapprovisionnementService;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Générateur de données synthétiques pour une base PostgreSQL locale.
+ *
+ * Toutes les tables volumineuses sont chargées par {@code COPY} ; les stocks, les quantités
+ * réservées et les historiques de clôture sont ensuite recalculés côté base en requêtes
+ * ensemblistes. Les triggers sont désactivés pendant le chargement
+ * ({@code session_replication_role = replica}, nécessite un rôle superutilisateur) ; ce qu'ils
+ * auraient alimenté est reconstruit en fin de chargement :
+ * <ul>
+ *   <li>registre {@code references_mouvements}, en une requête après le COPY des mouvements ;</li>
+ *   <li>versions du référentiel, incrémentées pour invalider les ETags des nœuds en cours ;</li>
+ *   <li>projections, point de commande et positions quotidiennes, par les services de
+ *       l'application eux-mêmes (mêmes requêtes, l'outbox n'ayant reçu aucun événement).</li>
+ * </ul>
+ *
+ * Toutes les lignes générées portent le préfixe {@value #PREFIXE} (codes, références)
+ * et peuvent être supprimées avec {@code --purger}.
+ *
+ * Exemple :
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dexec.args="--articles=20000 --mouvements=5000000"
+ * </pre>
+ */
+public final class GenerateurDonnees {
+
+    static final String PREFIXE = "SYN";
+    static final String UTILISATEUR = "syn.admin";
+    static final String MOT_DE_PASSE = "syn";
+    private static final long GRAINE = 20260101L;
+
+    private static final String[] TYPES_ENTREE = { "RECEPTION_FOURNISSEUR", "RECEPTION_FOURNISSEUR",
+            "RECEPTION_FOURNISSEUR", "RETOUR_CLIENT", "AJUSTEMENT_POSITIF" };
+    private static final String[] TYPES_SORTIE = { "LIVRAISON_CLIENT", "LIVRAISON_CLIENT",
+            "LIVRAISON_CLIENT", "CONSOMMATION_INTERNE", "REBUT", "AJUSTEMENT_NEGATIF" };
+
+    private final SplittableRandom random = new SplittableRandom(GRAINE);
+    private final LocalDate aujourdhui = LocalDate.now();
+
+    private final int nbArticles;
+    private final int nbDepots;
+    private final int nbEmplacementsParDepot;
+    private final int nbLots;
+    private final int nbMouvements;
+    private final int nbReservations;
+    private final int nbClients;
+    private final int nbDevis;
+    private final int nbMois;
+    private final boolean purger;
+    private final ConfigCharge config;
+
+    private final Map<String, UUID> typesMouvement = new HashMap<>();
+    private UUID utilisateurId;
+    private UUID uniteSynthetique;
+    private UUID[] categories;
+    private UUID[] depots;
+    private UUID[] emplacements;
+    private UUID[] articles;
+    private boolean[] articleParLot;
+    private long[] coutArticle; // coût de base, en 1/10000
+    private long[] prixArticle; // prix de vente HT, en centimes
+    private UUID[] lots;
+    private int[] lotEmplacement;
+    private UUID[] clients;
+
+    GenerateurDonnees(ConfigCharge config) {
+        this.config = config;
+        this.nbArticles = config.entier("articles", 5_000);
+        this.nbDepots = config.entier("depots", 10);
+        this.nbEmplacementsParDepot = config.entier("emplacements-par-depot", 100);
+        this.nbLots = config.entier("lots", 200_000);
+        this.nbMouvements = config.entier("mouvements", 2_000_000);
+        this.nbReservations = config.entier("reservations", 50_000);
+        this.nbClients = config.entier("clients", 2_000);
+        this.nbDevis = config.entier("devis", 50_000);
+        this.nbMois = config.entier("mois", 12);
+        this.purger = config.option("purger");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new GenerateurDonnees(new ConfigCharge(args)).executer();
+    }
+
+    void executer() throws SQLException {
+        long debut = System.nanoTime();
+        try (Connection connexion = DriverManager.getConnection(
+                config.jdbcUrl(), config.jdbcUser(), config.jdbcPassword())) {
+            connexion.setAutoCommit(false);
+            executer(connexion, "SET session_replication_role = replica");
+
+            if (purger) {
+                purger(connexion);
+                connexion.commit();
+            }
+            if (existeDeja(connexion)) {
+                throw new IllegalStateException(
+                        "Des données " + PREFIXE + " existent déjà : relancer avec --purger");
+            }
+
+            System.out.println("Chargement COPY :");
+            chargerTypesMouvement(connexion);
+            genererUtilisateur(connexion);
+            genererReferentiel(connexion);
+            genererArticles(connexion);
+            genererLots(connexion);
+            connexion.commit();
+
+            genererMouvements(connexion);
+            enregistrerReferences(connexion);
+            connexion.commit();
+
+            genererReservations(connexion);
+            genererClients(connexion);
+            genererVentes(connexion);
+            connexion.commit();
+
+            System.out.println("Agrégats :");
+            recalculerStocks(connexion);
+            genererClotures(connexion);
+            connexion.commit();
+
+            executer(connexion, "ANALYZE");
+            connexion.commit();
+        }
+        reconstruireDerives();
+        System.out.printf("Terminé en %d s%n", (System.nanoTime() - debut) / 1_000_000_000L);
+    }
+
+    // ------------------------------------------------------------------
+    // Référentiel
+    // ------------------------------------------------------------------
+
+    private void chargerTypesMouvement(Connection connexion) throws SQLException {
+        try (Statement st = connexion.createStatement();
+                ResultSet rs = st.executeQuery("SELECT code, id FROM types_mouvement")) {
+            while (rs.next()) {
+                typesMouvement.put(rs.getString(1), rs.getObject(2, UUID.class));
+            }
+        }
+        for (String code : TYPES_ENTREE) {
+            type(code);
+        }
+        for (String code : TYPES_SORTIE) {
+            type(code);
+        }
+    }
+
+    private UUID type(String code) {
+        UUID id = typesMouvement.get(code);
+        if (id == null) {
+            throw new IllegalStateException("Type de mouvement absent (schema_stock.sql non chargé ?): " + code);
+        }
+        return id;
+    }
+
+    private void genererUtilisateur(Connection connexion) throws SQLException {
+        utilisateurId = UUID.randomUUID();
+        try (PreparedStatement ps = connexion.prepareStatement(
+                "INSERT INTO utilisateurs (id, username, email, password, nom, prenom, role, actif) " +
+                        "VALUES (?, ?, ?, ?, 'Synthetique', 'Admin', 'ADMIN', TRUE)")) {
+            ps.setObject(1, utilisateurId);
+            ps.setString(2, UTILISATEUR);
+            ps.setString(3, UTILISATEUR + "@synthetique.local");
+            ps.setString(4, MOT_DE_PASSE);
+            ps.executeUpdate();
+        }
+    }
+
+    private void genererReferentiel(Connection connexion) throws SQLException {
+        UUID uniteId = UUID.randomUUID();
+        UUID categorieStandard = UUID.randomUUID();
+        UUID categoriePerissable = UUID.randomUUID();
+        try (PreparedStatement ps = connexion.prepareStatement(
+                "INSERT INTO unites_mesure (id, code, libelle, type) VALUES (?, ?, 'Unité synthétique', 'QUANTITE')")) {
+            ps.setObject(1, uniteId);
+            ps.setString(2, PREFIXE + "-U");
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = connexion.prepareStatement(
+                "INSERT INTO categories_articles (id, code, libelle, necessite_tracabilite_lot, methode_valorisation) " +
+                        "VALUES (?, ?, ?, ?, ?)")) {
+            ps.setObject(1, categorieStandard);
+            ps.setString(2, PREFIXE + "-STD");
+            ps.setString(3, "Synthétique standard");
+            ps.setBoolean(4, false);
+            ps.setString(5, "CUMP");
+            ps.addBatch();
+            ps.setObject(1, categoriePerissable);
+            ps.setString(2, PREFIXE + "-PER");
+            ps.setString(3, "Synthétique périssable");
+            ps.setBoolean(4, true);
+            ps.setString(5, "FEFO");
+            ps.addBatch();
+            ps.executeBatch();
+        }
+        uniteSynthetique = uniteId;
+        categories = new UUID[] { categorieStandard, categoriePerissable };
+
+        int nbSites = Math.max(1, nbDepots / 5);
+        UUID[] sites = new UUID[nbSites];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "sites", "id, code, nom, ville, pays, actif")) {
+            for (int i = 0; i < nbSites; i++) {
+                sites[i] = UUID.randomUUID();
+                copy.ligne(sites[i], String.format("%s-SITE-%03d", PREFIXE, i), "Site synthétique " + i,
+                        "Ville " + i, "Madagascar", true);
+            }
+        }
+
+        depots = new UUID[nbDepots];
+        UUID[] zones = new UUID[nbDepots];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "depots", "id, site_id, code, nom, type, actif")) {
+            for (int i = 0; i < nbDepots; i++) {
+                depots[i] = UUID.randomUUID();
+                copy.ligne(depots[i], sites[i % nbSites], String.format("%s-DEP-%03d", PREFIXE, i),
+                        "Dépôt synthétique " + i, "GENERAL", true);
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "zones_stockage", "id, depot_id, code, libelle, type")) {
+            for (int i = 0; i < nbDepots; i++) {
+                zones[i] = UUID.randomUUID();
+                copy.ligne(zones[i], depots[i], PREFIXE + "-Z1", "Zone stockage", "STOCKAGE");
+            }
+        }
+
+        emplacements = new UUID[nbDepots * nbEmplacementsParDepot];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "emplacements",
+                "id, zone_id, code, allee, travee, niveau, position, actif")) {
+            for (int i = 0; i < emplacements.length; i++) {
+                int rang = i % nbEmplacementsParDepot;
+                String allee = String.format("%02d", rang / 100);
+                String travee = String.format("%02d", (rang / 10) % 10);
+                String niveau = String.format("%02d", rang % 10);
+                emplacements[i] = UUID.randomUUID();
+                copy.ligne(emplacements[i], zones[i / nbEmplacementsParDepot],
+                        PREFIXE + "-" + allee + "-" + travee + "-" + niveau, allee, travee, niveau, "01", true);
+            }
+        }
+    }
+
+    private void genererArticles(Connection connexion) throws SQLException {
+        articles = new UUID[nbArticles];
+        articleParLot = new boolean[nbArticles];
+        coutArticle = new long[nbArticles];
+        prixArticle = new long[nbArticles];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "articles",
+                "id, code_article, libelle, categorie_id, unite_mesure_id, gestion_par_lot, duree_vie_jours, " +
+                        "stock_minimum, stock_maximum, stock_securite, methode_valorisation, cout_standard, " +
+                        "prix_vente_ht, tva_pourcentage, actif, obsolete")) {
+            for (int i = 0; i < nbArticles; i++) {
+                int profil = random.nextInt(10);
+                String methode = profil < 3 ? "FEFO" : profil < 6 ? "FIFO" : "CUMP";
+                boolean perissable = "FEFO".equals(methode);
+                articles[i] = UUID.randomUUID();
+                articleParLot[i] = !"CUMP".equals(methode);
+                coutArticle[i] = 5_000 + random.nextInt(5_000_000);
+                prixArticle[i] = coutArticle[i] * (120 + random.nextInt(80)) / 10_000;
+                int minimum = 10 + random.nextInt(200);
+                copy.ligne(articles[i], String.format("%s-ART-%07d", PREFIXE, i), "Article synthétique " + i,
+                        categories[perissable ? 1 : 0], uniteSynthetique, articleParLot[i],
+                        perissable ? 30 + random.nextInt(365) : null,
+                        minimum, minimum * 10, minimum / 2, methode, BigDecimal.valueOf(coutArticle[i], 4),
+                        BigDecimal.valueOf(prixArticle[i], 2), "20.00", true, random.nextInt(100) == 0);
+            }
+        }
+    }
+
+    /**
+     * Le lot i appartient à l'article {@code i % nbArticles} : les lots d'un article se
+     * retrouvent sans table d'index (i, i + nbArticles, i + 2 * nbArticles, ...).
+     */
+    private void genererLots(Connection connexion) throws SQLException {
+        lots = new UUID[nbLots];
+        lotEmplacement = new int[nbLots];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "lots",
+                "id, numero_lot, article_id, quantite_initiale, quantite_actuelle, date_fabrication, " +
+                        "date_reception, date_peremption, statut, cout_unitaire, emplacement_id")) {
+            for (int i = 0; i < nbLots; i++) {
+                int article = i % nbArticles;
+                int initiale = 50 + random.nextInt(950);
+                int actuelle = random.nextInt(initiale + 1);
+                LocalDate reception = aujourdhui.minusDays(random.nextInt(nbMois * 30 + 1));
+                LocalDate peremption = articleParLot[article] ? reception.plusDays(30 + random.nextInt(400)) : null;
+                lots[i] = UUID.randomUUID();
+                lotEmplacement[i] = random.nextInt(emplacements.length);
+                copy.ligne(lots[i], String.format("%s-LOT-%08d", PREFIXE, i), articles[article], initiale, actuelle,
+                        reception.minusDays(random.nextInt(30)), reception, peremption,
+                        actuelle == 0 ? "EPUISE" : "DISPONIBLE", cout(article), emplacements[lotEmplacement[i]]);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Mouvements et réservations
+    // ------------------------------------------------------------------
+
+    /**
+     * 60 % d'entrées, 40 % de sorties, répartis uniformément sur {@code nbMois} mois.
+     * La popularité des articles est asymétrique (quelques articles concentrent
+     * l'essentiel des mouvements), ce qui donne une classification ABC réaliste.
+     */
+    private void genererMouvements(Connection connexion) throws SQLException {
+        LocalDateTime fin = LocalDateTime.now();
+        long secondes = nbMois * 30L * 24 * 3600;
+        int lotsParArticle = Math.max(1, nbLots / nbArticles);
+        // Partitions mensuelles couvrant l'historique généré (sinon partition par défaut)
+        try (Statement statement = connexion.createStatement()) {
+            for (int mois = 0; mois <= nbMois + 1; mois++) {
+                statement.execute("SELECT creer_partition_mouvements(DATE '" + aujourdhui.minusMonths(mois) + "')");
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "mouvements_stock",
+                "id, reference, type_mouvement_id, article_id, depot_id, emplacement_id, quantite, cout_unitaire, " +
+                        "lot_id, date_mouvement, date_comptable, utilisateur_id, motif, statut, modifiable")) {
+            for (int i = 0; i < nbMouvements; i++) {
+                double r = random.nextDouble();
+                int article = (int) (nbArticles * r * r);
+                boolean entree = random.nextInt(10) < 6;
+                String code = entree ? TYPES_ENTREE[random.nextInt(TYPES_ENTREE.length)]
+                        : TYPES_SORTIE[random.nextInt(TYPES_SORTIE.length)];
+
+                UUID lot = null;
+                int emplacement;
+                if (articleParLot[article] && nbLots > 0) {
+                    int indexLot = article + nbArticles * random.nextInt(lotsParArticle);
+                    if (indexLot >= nbLots) {
+                        indexLot = article % nbLots;
+                    }
+                    lot = lots[indexLot];
+                    emplacement = lotEmplacement[indexLot];
+                } else {
+                    emplacement = random.nextInt(emplacements.length);
+                }
+                UUID depot = depots[emplacement / nbEmplacementsParDepot];
+
+                LocalDateTime date = fin.minusSeconds(random.nextLong(secondes));
+                copy.ligne(UUID.randomUUID(), String.format("%s-MVT-%09d", PREFIXE, i), type(code), articles[article],
+                        depot, emplacements[emplacement], 1 + random.nextInt(entree ? 200 : 80), cout(article), lot,
+                        date, date.toLocalDate(), utilisateurId, code, "VALIDE", false);
+            }
+        }
+    }
+
+    private void genererReservations(Connection connexion) throws SQLException {
+        String[] statuts = { "ACTIVE", "ACTIVE", "PRELEVEE", "PRELEVEE", "PRELEVEE", "ANNULEE", "EXPIREE" };
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "reservations_stock",
+                "id, reference, article_id, depot_id, quantite_reservee, quantite_prelevee, commande_client_id, " +
+                        "date_reservation, date_expiration, statut, utilisateur_id")) {
+            for (int i = 0; i < nbReservations; i++) {
+                double r = random.nextDouble();
+                int article = (int) (nbArticles * r * r);
+                String statut = statuts[random.nextInt(statuts.length)];
+                int quantite = 1 + random.nextInt(20);
+                LocalDateTime date = LocalDateTime.now().minusMinutes(random.nextInt(nbMois * 30 * 24 * 60));
+                copy.ligne(UUID.randomUUID(), String.format("%s-RES-%08d", PREFIXE, i), articles[article],
+                        depots[random.nextInt(nbDepots)], quantite, "PRELEVEE".equals(statut) ? quantite : 0,
+                        UUID.randomUUID(), date, date.plusHours(24), statut, utilisateurId);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Ventes : devis -> commandes -> factures
+    // ------------------------------------------------------------------
+
+    private void genererClients(Connection connexion) throws SQLException {
+        clients = new UUID[nbClients];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "clients",
+                "id, code, nom, email, ville, pays, actif, plafond_remise, plafond_credit, conditions_paiement")) {
+            for (int i = 0; i < nbClients; i++) {
+                clients[i] = UUID.randomUUID();
+                copy.ligne(clients[i], String.format("%s-CLI-%06d", PREFIXE, i), "Client synthétique " + i,
+                        "client" + i + "@synthetique.local", "Ville " + (i % 20), "Madagascar", true, "10.00",
+                        BigDecimal.valueOf(1_000_000L + random.nextInt(50_000_000), 2), "NET30");
+            }
+        }
+    }
+
+    /**
+     * Chaque devis est rejoué à partir de sa propre graine : les six passes COPY
+     * (en-têtes et lignes de devis, commandes et factures) retrouvent les mêmes lignes
+     * sans rien garder en mémoire.
+     */
+    private void genererVentes(Connection connexion) throws SQLException {
+        UUID[] idsDevis = new UUID[nbDevis];
+        UUID[] idsCommandes = new UUID[nbDevis];
+        for (int i = 0; i < nbDevis; i++) {
+            idsDevis[i] = UUID.randomUUID();
+            idsCommandes[i] = UUID.randomUUID();
+        }
+
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "devis_vente",
+                "id, reference, client_id, date_devis, validite_jours, statut, total_ht, total_tva, total_ttc, " +
+                        "remise_globale, cree_par, created_at")) {
+            for (int i = 0; i < nbDevis; i++) {
+                DevisSynthetique devis = new DevisSynthetique(i);
+                copy.ligne(idsDevis[i], String.format("%s-DEV-%08d", PREFIXE, i), clients[devis.client], devis.date,
+                        15, devis.statutDevis, centimes(devis.totalHt), centimes(devis.totalTtc - devis.totalHt),
+                        centimes(devis.totalTtc), "0", utilisateurId, devis.date);
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "lignes_devis_vente",
+                "id, devis_id, article_id, quantite, prix_unitaire_ht, remise_pourcentage, tva_pourcentage, " +
+                        "total_ht, total_ttc")) {
+            for (int i = 0; i < nbDevis; i++) {
+                DevisSynthetique devis = new DevisSynthetique(i);
+                for (int l = 0; l < devis.articles.length; l++) {
+                    copy.ligne(UUID.randomUUID(), idsDevis[i], articles[devis.articles[l]], devis.quantites[l],
+                            centimes(prixArticle[devis.articles[l]]), devis.remises[l], "20.00",
+                            centimes(devis.lignesHt[l]), centimes(devis.lignesTtc[l]));
+                }
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "commandes_clients",
+                "id, reference, devis_id, client_id, depot_livraison_id, date_commande, statut, total_ht, total_tva, " +
+                        "total_ttc, remise_globale, mode_reservation, cree_par, created_at")) {
+            for (int i = 0; i < nbDevis; i++) {
+                DevisSynthetique devis = new DevisSynthetique(i);
+                if (devis.statutCommande == null) {
+                    continue;
+                }
+                LocalDateTime date = devis.date.plusDays(1);
+                copy.ligne(idsCommandes[i], String.format("%s-CMD-%08d", PREFIXE, i), idsDevis[i],
+                        clients[devis.client], depots[devis.depot], date, devis.statutCommande,
+                        centimes(devis.totalHt), centimes(devis.totalTtc - devis.totalHt), centimes(devis.totalTtc),
+                        "0", "IMMEDIATE", utilisateurId, date);
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "lignes_commandes_clients",
+                "id, commande_id, article_id, quantite, prix_unitaire_ht, remise_pourcentage, tva_pourcentage, " +
+                        "total_ht, total_ttc, statut")) {
+            for (int i = 0; i < nbDevis; i++) {
+                DevisSynthetique devis = new DevisSynthetique(i);
+                if (devis.statutCommande == null) {
+                    continue;
+                }
+                String statutLigne = "CONFIRMEE".equals(devis.statutCommande) ? "RESERVEE" : "LIVREE";
+                for (int l = 0; l < devis.articles.length; l++) {
+                    copy.ligne(UUID.randomUUID(), idsCommandes[i], articles[devis.articles[l]], devis.quantites[l],
+                            centimes(prixArticle[devis.articles[l]]), devis.remises[l], "20.00",
+                            centimes(devis.lignesHt[l]), centimes(devis.lignesTtc[l]), statutLigne);
+                }
+            }
+        }
+
+        UUID[] idsFactures = new UUID[nbDevis];
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "factures_vente",
+                "id, reference, commande_id, client_id, date_facture, statut, total_ht, total_tva, total_ttc, created_at")) {
+            for (int i = 0; i < nbDevis; i++) {
+                DevisSynthetique devis = new DevisSynthetique(i);
+                if (!"FACTUREE".equals(devis.statutCommande)) {
+                    continue;
+                }
+                idsFactures[i] = UUID.randomUUID();
+                LocalDateTime date = devis.date.plusDays(3);
+                copy.ligne(idsFactures[i], String.format("%s-FAC-%08d", PREFIXE, i), idsCommandes[i],
+                        clients[devis.client], date.toLocalDate(), devis.payee ? "PAYEE" : "EMISE",
+                        centimes(devis.totalHt), centimes(devis.totalTtc - devis.totalHt), centimes(devis.totalTtc),
+                        date);
+            }
+        }
+        try (ChargeurCopy copy = new ChargeurCopy(connexion, "lignes_factures_vente",
+                "id, facture_id, article_id, quantite, prix_unitaire_ht, remise_pourcentage, tva_pourcentage, " +
+                        "total_ht, total_ttc")) {
+            for (int i = 0; i < nbDevis; i++) {
+                if (idsFactures[i] == null) {
+                    continue;
+                }
+                DevisSynthetique devis = new DevisSynthetique(i);
+                for (int l = 0; l < devis.articles.length; l++) {
+                    copy.ligne(UUID.randomUUID(), idsFactures[i], articles[devis.articles[l]], devis.quantites[l],
+                            centimes(prixArticle[devis.articles[l]]), devis.remises[l], "20.00",
+                            centimes(devis.lignesHt[l]), centimes(devis.lignesTtc[l]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Devis rejouable : même graine, mêmes lignes et mêmes montants (en centimes).
+     */
+    private final class DevisSynthetique {
+        final int client;
+        final int depot;
+        final LocalDateTime date;
+        final String statutDevis;
+        final String statutCommande;
+        final boolean payee;
+        final int[] articles;
+        final int[] quantites;
+        final int[] remises;
+        final long[] lignesHt;
+        final long[] lignesTtc;
+        long totalHt;
+        long totalTtc;
+
+        DevisSynthetique(int index) {
+            SplittableRandom r = new SplittableRandom(GRAINE ^ (index * 0x9E3779B97F4A7C15L));
+            client = r.nextInt(nbClients);
+            depot = r.nextInt(nbDepots);
+            date = LocalDateTime.now().minusMinutes(r.nextInt(nbMois * 30 * 24 * 60));
+            int tirage = r.nextInt(100);
+            statutDevis = tirage < 60 ? "TRANSFORME" : tirage < 75 ? "VALIDE" : tirage < 85 ? "BROUILLON"
+                    : tirage < 95 ? "A_VALIDER" : "ANNULE";
+            if ("TRANSFORME".equals(statutDevis)) {
+                int etape = r.nextInt(10);
+                statutCommande = etape < 7 ? "FACTUREE" : etape < 8 ? "LIVREE" : "CONFIRMEE";
+            } else {
+                statutCommande = null;
+            }
+            payee = r.nextInt(10) < 6;
+
+            int nbLignes = 1 + r.nextInt(10);
+            articles = new int[nbLignes];
+            quantites = new int[nbLignes];
+            remises = new int[nbLignes];
+            lignesHt = new long[nbLignes];
+            lignesTtc = new long[nbLignes];
+            for (int l = 0; l < nbLignes; l++) {
+                double a = r.nextDouble();
+                articles[l] = (int) (nbArticles * a * a);
+                quantites[l] = 1 + r.nextInt(50);
+                remises[l] = r.nextInt(4) == 0 ? 5 * (1 + r.nextInt(3)) : 0;
+                long brut = prixArticle[articles[l]] * quantites[l];
+                lignesHt[l] = (brut * (100 - remises[l]) + 50) / 100;
+                lignesTtc[l] = (lignesHt[l] * 120 + 50) / 100;
+                totalHt += lignesHt[l];
+                totalTtc += lignesTtc[l];
+            }
+        }
+    }
+
+    /**
+     * Inscription au registre des références, que {@code trg_reference_mouvement} n'a pas faite
+     */
+    private void enregistrerReferences(Connection connexion) throws SQLException {
+        int lignes = executer(connexion, """
+                INSERT INTO references_mouvements (reference, mouvement_id, date_comptable)
+                SELECT reference, id, date_comptable
+                FROM mouvements_stock
+                WHERE reference LIKE 'SYN-%'
+                ON CONFLICT (mouvement_id) DO NOTHING
+                """);
+        System.out.printf("  %-28s %,12d lignes%n", "references_mouvements", lignes);
+    }
+
+    // ------------------------------------------------------------------
+    // Agrégats calculés côté base
+    // ------------------------------------------------------------------
+
+    private void recalculerStocks(Connection connexion) throws SQLException {
+        int lignes = executer(connexion, """
+                INSERT INTO stocks (article_id, depot_id, quantite_theorique, quantite_physique, quantite_reservee,
+                                    valeur_stock_cump, date_dernier_mouvement, updated_at)
+                SELECT agg.article_id, agg.depot_id, agg.quantite, agg.quantite, 0,
+                       ROUND(agg.quantite * agg.cump, 2), agg.dernier, CURRENT_TIMESTAMP
+                FROM (
+                    SELECT m.article_id, m.depot_id,
+                           GREATEST(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite ELSE -m.quantite END), 0) AS quantite,
+                           COALESCE(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite * m.cout_unitaire END)
+                                    / NULLIF(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite END), 0), 0) AS cump,
+                           MAX(m.date_mouvement) AS dernier
+                    FROM mouvements_stock m
+                    JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                    WHERE m.reference LIKE 'SYN-%' AND m.statut = 'VALIDE'
+                    GROUP BY m.article_id, m.depot_id
+                ) agg
+                ON CONFLICT (article_id, depot_id) DO UPDATE SET
+                    quantite_theorique = EXCLUDED.quantite_theorique,
+                    quantite_physique = EXCLUDED.quantite_physique,
+                    valeur_stock_cump = EXCLUDED.valeur_stock_cump,
+                    date_dernier_mouvement = EXCLUDED.date_dernier_mouvement,
+                    updated_at = EXCLUDED.updated_at
+                """);
+        System.out.printf("  %-28s %,12d lignes%n", "stocks", lignes);
+
+        int reservees = executer(connexion, """
+                UPDATE stocks s
+                SET quantite_reservee = LEAST(r.total, s.quantite_theorique)
+                FROM (
+                    SELECT article_id, depot_id, SUM(quantite_reservee - quantite_prelevee) AS total
+                    FROM reservations_stock
+                    WHERE reference LIKE 'SYN-%' AND statut = 'ACTIVE'
+                    GROUP BY article_id, depot_id
+                ) r
+                WHERE s.article_id = r.article_id AND s.depot_id = r.depot_id
+                """);
+        System.out.printf("  %-28s %,12d lignes%n", "stocks (réservé)", reservees);
+    }
+
+    /**
+     * Une clôture VALIDEE par mois échu, avec son historique de coûts calculé en une requête
+     * agrégée sur les mouvements cumulés jusqu'à la fin du mois.
+     */
+    private void genererClotures(Connection connexion) throws SQLException {
+        YearMonth courant = YearMonth.from(aujourdhui);
+        int historiques = 0;
+        for (int m = nbMois; m >= 1; m--) {
+            YearMonth periode = courant.minusMonths(m);
+            UUID clotureId = UUID.randomUUID();
+            try (PreparedStatement ps = connexion.prepareStatement("""
+                    INSERT INTO clotures_mensuelles (id, annee, mois, date_debut_periode, date_fin_periode, date_cloture,
+                                                     cloture_par_id, statut, valideur_id, date_validation, commentaires)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, 'VALIDEE', ?, ?, ?)
+                    ON CONFLICT (annee, mois) DO NOTHING
+                    """)) {
+                LocalDateTime dateCloture = periode.plusMonths(1).atDay(2).atStartOfDay();
+                ps.setObject(1, clotureId);
+                ps.setInt(2, periode.getYear());
+                ps.setInt(3, periode.getMonthValue());
+                ps.setDate(4, Date.valueOf(periode.atDay(1)));
+                ps.setDate(5, Date.valueOf(periode.atEndOfMonth()));
+                ps.setObject(6, dateCloture);
+                ps.setObject(7, utilisateurId);
+                ps.setObject(8, utilisateurId);
+                ps.setObject(9, dateCloture);
+                ps.setString(10, PREFIXE);
+                if (ps.executeUpdate() == 0) {
+                    continue; // clôture réelle déjà présente pour ce mois
+                }
+            }
+            try (PreparedStatement ps = connexion.prepareStatement("""
+                    INSERT INTO historique_couts (article_id, depot_id, date_effet, annee, mois, cout_unitaire_moyen,
+                                                  quantite_stock, valeur_stock, methode_valorisation,
+                                                  cloture_mensuelle_id, created_by)
+                    SELECT agg.article_id, agg.depot_id, ?, ?, ?, ROUND(agg.cump, 4), agg.quantite,
+                           ROUND(agg.quantite * agg.cump, 2), agg.methode, ?, ?
+                    FROM (
+                        SELECT m.article_id, m.depot_id, a.methode_valorisation AS methode,
+                               GREATEST(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite ELSE -m.quantite END), 0) AS quantite,
+                               COALESCE(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite * m.cout_unitaire END)
+                                        / NULLIF(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite END), 0), 0) AS cump
+                        FROM mouvements_stock m
+                        JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                        JOIN articles a ON a.id = m.article_id
+                        WHERE m.reference LIKE 'SYN-%' AND m.statut = 'VALIDE' AND m.date_comptable <= ?
+                        GROUP BY m.article_id, m.depot_id, a.methode_valorisation
+                    ) agg
+                    """)) {
+                ps.setDate(1, Date.valueOf(periode.atEndOfMonth()));
+                ps.setInt(2, periode.getYear());
+                ps.setInt(3, periode.getMonthValue());
+                ps.setObject(4, clotureId);
+                ps.setObject(5, utilisateurId);
+                ps.setDate(6, Date.valueOf(periode.atEndOfMonth()));
+                historiques += ps.executeUpdate();
+            }
+        }
+        System.out.printf("  %-28s %,12d lignes%n", "historique_couts", historiques);
+    }
+
+    /**
+     * Tables dérivées des triggers désactivés, reconstruites hors du rôle replica par les
+     * services de l'application (aucun bail : le générateur est seul à les écrire ici).
+     */
+    private void reconstruireDerives() {
+        System.out.println("Tables dérivées :");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                config.jdbcUrl(), config.jdbcUser(), config.jdbcPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        StandardEnvironment environment = new StandardEnvironment();
+
+        int versions = jdbcTemplate.update(
+                "UPDATE versions_referentiel SET version = version + 1, date_maj = CURRENT_TIMESTAMP");
+        System.out.printf("  %-28s %,12d lignes%n", "versions_referentiel", versions);
+
+        new ProjectionStockService(jdbcTemplate, transactionManager, environment, null).reconstruire();
+        System.out.printf("  %-28s %12s%n", "projections", "reconstruites");
+
+        new ReapprovisionnementService(jdbcTemplate, transactionManager, environment, null).reevaluerTout();
+        System.out.printf("  %-28s %,12d lignes%n", "reappro_sous_seuil",
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reappro_sous_seuil", Long.class));
+
+        PositionStockService positions = new PositionStockService(
+                new NamedParameterJdbcTemplate(jdbcTemplate), transactionManager, null);
+        positions.amorcer();
+        System.out.printf("  %-28s %,12d lignes%n", "positions_stock_jour", positions.rattraper(aujourdhui));
+    }
+
+    // ------------------------------------------------------------------
+    // Purge
+    // ------------------------------------------------------------------
+
+    private boolean existeDeja(Connection connexion) throws SQLException {
+        try (Statement st = connexion.createStatement();
+                ResultSet rs = st.executeQuery(
+                        "SELECT EXISTS (SELECT 1 FROM articles WHERE code_article LIKE 'SYN-%') " +
+                                "OR EXISTS (SELECT 1 FROM utilisateurs WHERE username = '" + UTILISATEUR + "')")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private void purger(Connection connexion) throws SQLException {
+        System.out.println("Purge des données " + PREFIXE + " :");
+        String[] requetes = {
+                "DELETE FROM lignes_factures_vente WHERE facture_id IN (SELECT id FROM factures_vente WHERE reference LIKE 'SYN-%')",
+                "DELETE FROM factures_vente WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM lignes_commandes_clients WHERE commande_id IN (SELECT id FROM commandes_clients WHERE reference LIKE 'SYN-%')",
+                "DELETE FROM commandes_clients WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM lignes_devis_vente WHERE devis_id IN (SELECT id FROM devis_vente WHERE reference LIKE 'SYN-%')",
+                "DELETE FROM devis_vente WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM clients WHERE code LIKE 'SYN-%'",
+                "DELETE FROM reservations_stock WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM historique_couts WHERE cloture_mensuelle_id IN (SELECT id FROM clotures_mensuelles WHERE commentaires = 'SYN')",
+                "DELETE FROM clotures_mensuelles WHERE commentaires = 'SYN'",
+                "DELETE FROM mouvements_stock WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM references_mouvements WHERE reference LIKE 'SYN-%'",
+                "DELETE FROM stocks WHERE article_id IN (SELECT id FROM articles WHERE code_article LIKE 'SYN-%')",
+                // Rôle replica : les ON DELETE CASCADE vers les articles et dépôts ne jouent pas
+                "DELETE FROM projection_stock WHERE article_id IN (SELECT id FROM articles WHERE code_article LIKE 'SYN-%')",
+                "DELETE FROM reappro_sous_seuil WHERE article_id IN (SELECT id FROM articles WHERE code_article LIKE 'SYN-%')",
+                "DELETE FROM classification_stock WHERE article_id IN (SELECT id FROM articles WHERE code_article LIKE 'SYN-%')",
+                "DELETE FROM positions_stock_jour WHERE article_id IN (SELECT id FROM articles WHERE code_article LIKE 'SYN-%')",
+                "DELETE FROM positions_stock_totaux_jour WHERE depot_id IN (SELECT id FROM depots WHERE code LIKE 'SYN-%')",
+                "DELETE FROM projection_valorisation_depot WHERE depot_id IN (SELECT id FROM depots WHERE code LIKE 'SYN-%')",
+                "DELETE FROM lots WHERE numero_lot LIKE 'SYN-%'",
+                "DELETE FROM articles WHERE code_article LIKE 'SYN-%'",
+                "DELETE FROM emplacements WHERE code LIKE 'SYN-%'",
+                "DELETE FROM zones_stockage WHERE code LIKE 'SYN-%'",
+                "DELETE FROM depots WHERE code LIKE 'SYN-%'",
+                "DELETE FROM sites WHERE code LIKE 'SYN-%'",
+                "DELETE FROM categories_articles WHERE code LIKE 'SYN-%'",
+                "DELETE FROM unites_mesure WHERE code LIKE 'SYN-%'",
+                "DELETE FROM utilisateurs WHERE username = '" + UTILISATEUR + "'"
+        };
+        for (String requete : requetes) {
+            int lignes = executer(connexion, requete);
+            System.out.printf("  %-28s %,12d lignes%n", requete.substring(12, requete.indexOf(' ', 12)), lignes);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Utilitaires
+    // ------------------------------------------------------------------
+
+    private BigDecimal cout(int article) {
+        return BigDecimal.valueOf(coutArticle[article] * (90 + random.nextInt(21)) / 100, 4);
+    }
+
+    private static BigDecimal centimes(long montant) {
+        return BigDecimal.valueOf(montant, 2);
+    }
+
+    private static int executer(Connection connexion, String sql) throws SQLException {
+        try (Statement st = connexion.createStatement()) {
+            return st.executeUpdate(sql);
+        }
+    }
+}
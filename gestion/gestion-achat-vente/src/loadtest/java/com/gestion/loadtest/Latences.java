@@ -0,0 +1,68 @@
+package com.gestion.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Échantillons de latence par point d'entrée, restitués en percentiles.
+ *
+ * Chaque point d'entrée garde toutes ses mesures (en nanosecondes) dans un tableau
+ * extensible : pour quelques centaines de milliers de requêtes, c'est plus simple et
+ * plus exact qu'un histogramme.
+ */
+final class Latences {
+
+    private final Map<String, Serie> series = new ConcurrentHashMap<>();
+
+    void enregistrer(String pointEntree, long nanos, boolean succes) {
+        series.computeIfAbsent(pointEntree, cle -> new Serie()).ajouter(nanos, succes);
+    }
+
+    void afficher(long dureeTotaleNanos) {
+        double secondes = dureeTotaleNanos / 1e9;
+        System.out.printf("%n%-42s %8s %7s %8s %8s %8s %8s %8s %8s%n",
+                "Point d'entrée", "Requêtes", "Erreurs", "req/s", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "max ms");
+        series.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    long[] mesures = e.getValue().trier();
+                    System.out.printf("%-42s %8d %7d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f%n",
+                            e.getKey(), mesures.length, e.getValue().erreurs.get(), mesures.length / secondes,
+                            percentile(mesures, 50), percentile(mesures, 90), percentile(mesures, 95),
+                            percentile(mesures, 99), mesures.length == 0 ? 0 : mesures[mesures.length - 1] / 1e6);
+                });
+    }
+
+    /** Percentile au rang le plus proche, en millisecondes. */
+    private static double percentile(long[] triees, int p) {
+        if (triees.length == 0) {
+            return 0;
+        }
+        int rang = (int) Math.ceil(p / 100.0 * triees.length) - 1;
+        return triees[Math.max(0, rang)] / 1e6;
+    }
+
+    private static final class Serie {
+        private long[] mesures = new long[1024];
+        private int taille;
+        private final AtomicLong erreurs = new AtomicLong();
+
+        synchronized void ajouter(long nanos, boolean succes) {
+            if (taille == mesures.length) {
+                mesures = Arrays.copyOf(mesures, taille * 2);
+            }
+            mesures[taille++] = nanos;
+            if (!succes) {
+                erreurs.incrementAndGet();
+            }
+        }
+
+        synchronized long[] trier() {
+            long[] copie = Arrays.copyOf(mesures, taille);
+            Arrays.sort(copie);
+            return copie;
+        }
+    }
+}
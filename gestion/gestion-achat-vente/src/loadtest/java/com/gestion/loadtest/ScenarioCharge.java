@@ -0,0 +1,289 @@
+package com.gestion.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Scénario de charge HTTP sur le flux complet réception → réservation → livraison → facturation.
+ *
+ * Chaque utilisateur virtuel ouvre sa propre session ({@code POST /login}) puis enchaîne :
+ * <ol>
+ *   <li>entrée de stock ({@code POST /stock/mouvements/creer-entree})</li>
+ *   <li>création, soumission et validation d'un devis</li>
+ *   <li>transformation en commande avec réservation immédiate</li>
+ *   <li>livraison puis facturation de la commande</li>
+ * </ol>
+ * Les identifiants (articles, dépôts, clients, types de mouvement) sont lus dans la base
+ * alimentée par {@link GenerateurDonnees}. Les latences sont restituées par point d'entrée
+ * (p50/p90/p95/p99).
+ *
+ * Exemple :
+ * <pre>
+ * mvn -Ploadtest compile exec:java -Dexec.mainClass=com.gestion.loadtest.ScenarioCharge \
+ *     -Dexec.args="--url=http://localhost:8085 --utilisateurs=20 --iterations=50"
+ * </pre>
+ */
+public final class ScenarioCharge {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String url;
+    private final int nbUtilisateurs;
+    private final int nbIterations;
+    private final String username;
+    private final String password;
+    private final Latences latences = new Latences();
+    private final AtomicInteger fluxEchoues = new AtomicInteger();
+
+    private UUID utilisateurId;
+    private UUID typeReception;
+    private final List<UUID> articles = new ArrayList<>();
+    private final List<String> prixArticles = new ArrayList<>();
+    private final List<UUID> depots = new ArrayList<>();
+    private final List<UUID> clients = new ArrayList<>();
+
+    ScenarioCharge(ConfigCharge config) {
+        this.url = config.texte("url", "http://localhost:8085");
+        this.nbUtilisateurs = config.entier("utilisateurs", 10);
+        this.nbIterations = config.entier("iterations", 20);
+        this.username = config.texte("username", GenerateurDonnees.UTILISATEUR);
+        this.password = config.texte("password", GenerateurDonnees.MOT_DE_PASSE);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigCharge config = new ConfigCharge(args);
+        ScenarioCharge scenario = new ScenarioCharge(config);
+        scenario.chargerReferentiel(config);
+        scenario.executer();
+    }
+
+    private void chargerReferentiel(ConfigCharge config) throws SQLException {
+        try (Connection connexion = DriverManager.getConnection(
+                config.jdbcUrl(), config.jdbcUser(), config.jdbcPassword())) {
+            utilisateurId = premier(connexion, "SELECT id FROM utilisateurs WHERE username = ?", username);
+            typeReception = premier(connexion, "SELECT id FROM types_mouvement WHERE code = ?", "RECEPTION_FOURNISSEUR");
+            // Articles CUMP sans lot : l'entrée de stock n'a pas besoin de numéro de lot
+            try (PreparedStatement ps = connexion.prepareStatement(
+                    "SELECT id, prix_vente_ht FROM articles WHERE code_article LIKE 'SYN-%' " +
+                            "AND gestion_par_lot = FALSE AND actif = TRUE AND obsolete = FALSE LIMIT 1000");
+                    ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    articles.add(rs.getObject(1, UUID.class));
+                    prixArticles.add(rs.getBigDecimal(2).toPlainString());
+                }
+            }
+            lire(connexion, "SELECT id FROM depots WHERE code LIKE 'SYN-%'", depots);
+            lire(connexion, "SELECT id FROM clients WHERE code LIKE 'SYN-%' LIMIT 1000", clients);
+        }
+        if (articles.isEmpty() || depots.isEmpty() || clients.isEmpty()) {
+            throw new IllegalStateException("Référentiel SYN vide : lancer GenerateurDonnees au préalable");
+        }
+    }
+
+    void executer() throws Exception {
+        System.out.printf("Scénario : %d utilisateurs x %d itérations sur %s%n", nbUtilisateurs, nbIterations, url);
+        ExecutorService pool = Executors.newFixedThreadPool(nbUtilisateurs);
+        long debut = System.nanoTime();
+        try {
+            List<Future<?>> resultats = new ArrayList<>();
+            for (int u = 0; u < nbUtilisateurs; u++) {
+                int numero = u;
+                resultats.add(pool.submit(() -> {
+                    utilisateurVirtuel(numero);
+                    return null;
+                }));
+            }
+            for (Future<?> resultat : resultats) {
+                resultat.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        latences.afficher(System.nanoTime() - debut);
+        System.out.printf("%nFlux complets échoués : %d / %d%n", fluxEchoues.get(), nbUtilisateurs * nbIterations);
+    }
+
+    private void utilisateurVirtuel(int numero) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        SplittableRandom random = new SplittableRandom(numero);
+
+        HttpResponse<String> login = formulaire(client, "POST /login", "/login",
+                Map.of("username", username, "password", password));
+        if (login.statusCode() != 302 || login.headers().firstValue("Location").orElse("").contains("login")) {
+            throw new IllegalStateException("Connexion refusée pour " + username + " (HTTP " + login.statusCode() + ")");
+        }
+
+        for (int i = 0; i < nbIterations; i++) {
+            try {
+                flux(client, random);
+            } catch (EchecFlux e) {
+                fluxEchoues.incrementAndGet();
+            }
+        }
+    }
+
+    private void flux(HttpClient client, SplittableRandom random) throws Exception {
+        int indexArticle = random.nextInt(articles.size());
+        UUID article = articles.get(indexArticle);
+        UUID depot = depots.get(random.nextInt(depots.size()));
+        int quantite = 1 + random.nextInt(10);
+
+        Map<String, String> entree = new LinkedHashMap<>();
+        entree.put("typeMouvementId", typeReception.toString());
+        entree.put("articleId", article.toString());
+        entree.put("depotId", depot.toString());
+        entree.put("quantite", String.valueOf(quantite * 2));
+        entree.put("coutUnitaire", "10.00");
+        entree.put("motif", "Scénario de charge");
+        HttpResponse<String> reception = formulaire(client, "POST /stock/mouvements/creer-entree",
+                "/stock/mouvements/creer-entree", entree);
+        verifierRedirection(reception, "/stock/mouvements/details/");
+
+        Map<String, Object> ligne = new LinkedHashMap<>();
+        ligne.put("articleId", article);
+        ligne.put("quantite", quantite);
+        ligne.put("prixUnitaireHt", prixArticles.get(indexArticle));
+        Map<String, Object> devis = new LinkedHashMap<>();
+        devis.put("clientId", clients.get(random.nextInt(clients.size())));
+        devis.put("creePar", utilisateurId);
+        devis.put("lignes", List.of(ligne));
+        UUID devisId = id(json(client, "POST /api/ventes/devis", "/api/ventes/devis", devis));
+
+        verifierRedirection(formulaire(client, "POST /ventes/devis/{id}/soumettre",
+                "/ventes/devis/" + devisId + "/soumettre", Map.of()), "/ventes/devis/");
+        json(client, "POST /api/ventes/devis/{id}/valider",
+                "/api/ventes/devis/" + devisId + "/valider?validePar=" + utilisateurId, null);
+
+        Map<String, Object> commande = new LinkedHashMap<>();
+        commande.put("depotLivraisonId", depot);
+        commande.put("modeReservation", "IMMEDIATE");
+        commande.put("creePar", utilisateurId);
+        UUID commandeId = id(json(client, "POST /api/ventes/devis/{id}/commande",
+                "/api/ventes/devis/" + devisId + "/commande", commande));
+
+        UUID livraisonId = id(json(client, "POST /api/ventes/commandes/{id}/livrer",
+                "/api/ventes/commandes/" + commandeId + "/livrer", Map.of("utilisateurId", utilisateurId)));
+        json(client, "POST /api/ventes/commandes/{id}/facturer",
+                "/api/ventes/commandes/" + commandeId + "/facturer?livraisonId=" + livraisonId, null);
+    }
+
+    // ------------------------------------------------------------------
+    // HTTP
+    // ------------------------------------------------------------------
+
+    private HttpResponse<String> formulaire(HttpClient client, String pointEntree, String chemin,
+            Map<String, String> champs) throws Exception {
+        String corps = champs.entrySet().stream()
+                .map(e -> encoder(e.getKey()) + "=" + encoder(e.getValue()))
+                .collect(Collectors.joining("&"));
+        HttpRequest requete = HttpRequest.newBuilder(URI.create(url + chemin))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(corps))
+                .build();
+        return envoyer(client, pointEntree, requete);
+    }
+
+    private JsonNode json(HttpClient client, String pointEntree, String chemin, Object corps) throws Exception {
+        HttpRequest requete = HttpRequest.newBuilder(URI.create(url + chemin))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(corps == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(corps)))
+                .build();
+        HttpResponse<String> reponse = envoyer(client, pointEntree, requete);
+        if (reponse.statusCode() >= 300) {
+            throw new EchecFlux();
+        }
+        return JSON.readTree(reponse.body());
+    }
+
+    private HttpResponse<String> envoyer(HttpClient client, String pointEntree, HttpRequest requete)
+            throws Exception {
+        long debut = System.nanoTime();
+        HttpResponse<String> reponse = client.send(requete, HttpResponse.BodyHandlers.ofString());
+        long duree = System.nanoTime() - debut;
+        latences.enregistrer(pointEntree, duree, reponse.statusCode() < 400);
+        return reponse;
+    }
+
+    /** Les contrôleurs de vues signalent leurs erreurs par une redirection vers une autre page. */
+    private static void verifierRedirection(HttpResponse<String> reponse, String prefixeAttendu) {
+        String location = reponse.headers().firstValue("Location").orElse("");
+        if (reponse.statusCode() != 302 || !location.contains(prefixeAttendu)) {
+            throw new EchecFlux();
+        }
+    }
+
+    private static UUID id(JsonNode noeud) {
+        JsonNode id = noeud.get("id");
+        if (id == null || id.isNull()) {
+            throw new EchecFlux();
+        }
+        return UUID.fromString(id.asText());
+    }
+
+    private static String encoder(String valeur) {
+        return URLEncoder.encode(valeur, StandardCharsets.UTF_8);
+    }
+
+    // ------------------------------------------------------------------
+    // JDBC
+    // ------------------------------------------------------------------
+
+    private static UUID premier(Connection connexion, String sql, String parametre) throws SQLException {
+        try (PreparedStatement ps = connexion.prepareStatement(sql)) {
+            ps.setString(1, parametre);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("Aucune ligne pour : " + sql + " [" + parametre + "]");
+                }
+                return rs.getObject(1, UUID.class);
+            }
+        }
+    }
+
+    private static void lire(Connection connexion, String sql, List<UUID> cible) throws SQLException {
+        try (PreparedStatement ps = connexion.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                cible.add(rs.getObject(1, UUID.class));
+            }
+        }
+    }
+
+    /** Étape en échec : le flux en cours est abandonné, l'utilisateur virtuel passe au suivant. */
+    private static final class EchecFlux extends RuntimeException {
+        EchecFlux() {
+            super(null, null, false, false);
+        }
+    }
+}
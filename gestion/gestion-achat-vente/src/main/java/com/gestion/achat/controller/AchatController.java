@@ -1,13 +1,17 @@
 package com.gestion.achat.controller;
 
 import java.time.LocalDate;
-import java.util.Map;
 import java.util.UUID;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpSession;
 
+import com.gestion.achat.dto.BonCommandeDTO;
+import com.gestion.achat.dto.BonReceptionDTO;
+import com.gestion.achat.dto.DemandeAchatDTO;
+import com.gestion.achat.dto.FactureAchatDTO;
+import com.gestion.achat.dto.ProformaDTO;
 import com.gestion.achat.entity.*;
 import com.gestion.achat.enums.StatutDemande;
 import com.gestion.achat.repository.BonCommandeRepository;
@@ -46,7 +50,7 @@ public class AchatController {
         throw new RuntimeException("Accès refusé. Votre rôle est : " + role + ". Rôles autorisés : " + String.join(", ", allowedRoles));
     }
     @PostMapping("/demandes")
-    public ResponseEntity<DemandeAchat> creerDemande(@RequestBody DemandeAchat demande, HttpSession session) {
+    public ResponseEntity<DemandeAchatDTO> creerDemande(@RequestBody DemandeAchat demande, HttpSession session) {
         // Seul un utilisateur connecté peut créer
         if (session.getAttribute("userId") == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
@@ -61,20 +65,21 @@ public class AchatController {
         log.info("Nouvelle DA créée par l'utilisateur ID: {} pour l'article ID: {}", 
         session.getAttribute("userId"), demande.getProduitId());
                 
-        return ResponseEntity.status(HttpStatus.CREATED).body(nouvelleDA);
+        return ResponseEntity.status(HttpStatus.CREATED).body(DemandeAchatDTO.from(nouvelleDA));
     }
     @PostMapping("/selectionner-offre/{daId}")
-    public ResponseEntity<Proforma> selectionner(@PathVariable UUID daId, HttpSession session) {
+    public ResponseEntity<ProformaDTO> selectionner(@PathVariable UUID daId, HttpSession session) {
         // Seul l'ACHETEUR peut sélectionner l'offre après négociation
         checkAuth(session, "ADMIN", "ACHETEUR","RESPONSABLE_ACHATS");
-        return ResponseEntity.ok(achatService.selectionnerMeilleureOffre(daId));
+        return ResponseEntity.ok(ProformaDTO.resume(achatService.selectionnerMeilleureOffre(daId)));
     }
 
     @PostMapping("/bons-commande/generer/{proformaId}")
-    public ResponseEntity<BonCommande> genererBC(@PathVariable UUID proformaId, HttpSession session) {
+    public ResponseEntity<BonCommandeDTO> genererBC(@PathVariable UUID proformaId, HttpSession session) {
         // Rôle ACHETEUR : transformation DA -> BC
         checkAuth(session, "ADMIN", "ACHETEUR","RESPONSABLE_ACHATS");
-        return ResponseEntity.status(HttpStatus.CREATED).body(achatService.genererBonCommande(proformaId));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(BonCommandeDTO.resume(achatService.genererBonCommande(proformaId)));
     }
 
     @PatchMapping("/bons-commande/{bcId}/valider")
@@ -94,21 +99,21 @@ public class AchatController {
     }
 
     @PostMapping("/bons-commande/{bcId}/recevoir")
-    public ResponseEntity<BonReception> recevoir(@PathVariable UUID bcId, @RequestParam boolean conforme, HttpSession session) {
+    public ResponseEntity<BonReceptionDTO> recevoir(@PathVariable UUID bcId, @RequestParam boolean conforme, HttpSession session) {
         // Magasiniers
         checkAuth(session, "ADMIN", "GESTIONNAIRE_STOCK", "RESPONSABLE_STOCK", "ACHETEUR","RESPONSABLE_ACHATS");
         BonReception br = achatService.enregistrerReception(bcId, conforme, "");
         stockService.creerEntreeStockFromReception(br.getId(), UUID.fromString(session.getAttribute("userId").toString()));
-        return ResponseEntity.ok(br);
+        return ResponseEntity.ok(BonReceptionDTO.resume(br));
     }
     @PostMapping("/bons-commande/{bcId}/facturer")
-    public ResponseEntity<FactureAchat> facturer(@PathVariable UUID bcId, @RequestParam String numFacture, HttpSession session) {
+    public ResponseEntity<FactureAchatDTO> facturer(@PathVariable UUID bcId, @RequestParam String numFacture, HttpSession session) {
         // Rôle COMPTABLE ou DAF pour rapprochement 3-way match
         checkAuth(session, "ADMIN", "COMPTABLE", "DAF","RESPONSABLE_ACHATS");
-        return ResponseEntity.ok(achatService.enregistrerFacture(bcId, numFacture, LocalDate.now()));
+        return ResponseEntity.ok(FactureAchatDTO.from(achatService.enregistrerFacture(bcId, numFacture, LocalDate.now())));
     }
     @PostMapping("/proformas")
-    public ResponseEntity<Proforma> creerProforma(@RequestBody Proforma proforma, HttpSession session) {
+    public ResponseEntity<ProformaDTO> creerProforma(@RequestBody Proforma proforma, HttpSession session) {
         // Seul l'acheteur ou l'admin peut saisir les offres reçues
         checkAuth(session, "ADMIN", "ACHETEUR", "RESPONSABLE_ACHATS");
         
@@ -116,42 +121,24 @@ public class AchatController {
         
         // Sauvegarde simple via repository
         Proforma nouveauProforma = proformaRepo.save(proforma);
-        return ResponseEntity.status(HttpStatus.CREATED).body(nouveauProforma);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ProformaDTO.resume(nouveauProforma));
     }
     @GetMapping("/proformas/{id}")
-    public ResponseEntity<Proforma> getProformaById(@PathVariable UUID id) {
-        return proformaRepo.findById(id)
+    public ResponseEntity<ProformaDTO> getProformaById(@PathVariable UUID id) {
+        return proformaRepo.findDetailById(id)
+                .map(ProformaDTO::detail)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     @GetMapping("/factures/{id}")
     public ResponseEntity<?> getFactureById(@PathVariable UUID id) {
-        // 1. On cherche la facture
-        java.util.Optional<FactureAchat> factureOpt = factureRepo.findById(id);
-        
-        // 2. Si elle n'existe pas, on sort tout de suite
-        if (factureOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Facture non trouvée");
-        }
-
-        // 3. Si elle existe, on construit le DTO manuellement
-        FactureAchat f = factureOpt.get();
-        java.util.Map<String, Object> dto = new java.util.HashMap<>();
-        
-        dto.put("id", f.getId());
-        dto.put("numeroFacture", f.getNumeroFactureFournisseur());
-        dto.put("dateFacture", f.getDateFacture());
-        // On descend dans les relations pour récupérer le nom du fournisseur
-        dto.put("fournisseurNom", f.getBonCommande().getProforma().getFournisseur().getNom());
-        dto.put("referenceBc", f.getBonCommande().getReferenceBc());
-        dto.put("montantTotal", f.getMontantTotalTtc());
-        dto.put("estPayee", f.isEstPayee());
-
-        // 4. On retourne le JSON
-        return ResponseEntity.ok(dto);
+        // Une seule requête : facture, BC et fournisseur projetés ensemble
+        return factureRepo.findDetailsById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Facture non trouvée"));
     }
     @PostMapping("/factures")
-    public ResponseEntity<FactureAchat> creerFacture(@RequestBody FactureAchat facture, HttpSession session) {
+    public ResponseEntity<FactureAchatDTO> creerFacture(@RequestBody FactureAchat facture, HttpSession session) {
         // 1. Vérification des droits (Comptable ou DAF)
         checkAuth(session, "ADMIN", "COMPTABLE", "DAF","RESPONSABLE_ACHATS");
         
@@ -169,50 +156,27 @@ public class AchatController {
         log.info("Facture {} créée pour le BC {} - Statut: À RÉGLER", 
                 facture.getNumeroFactureFournisseur(), bc.getReferenceBc());
                 
-        return ResponseEntity.status(HttpStatus.CREATED).body(nouvelleFacture);
+        return ResponseEntity.status(HttpStatus.CREATED).body(FactureAchatDTO.from(nouvelleFacture));
     }
         // À ajouter dans AchatController.java
     @GetMapping("/bons-commande/{id}")
-    public ResponseEntity<BonCommande> getBonCommandeById(@PathVariable UUID id, HttpSession session) {
+    public ResponseEntity<BonCommandeDTO> getBonCommandeById(@PathVariable UUID id, HttpSession session) {
         // Optionnel : vérifier si l'utilisateur est connecté
         if (session.getAttribute("userId") == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        return bonCommandeRepository.findById(id) // Assure-toi que cette méthode existe dans ton Service
+        return bonCommandeRepository.findDetailById(id)
+                .map(BonCommandeDTO::detail)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     @GetMapping("/receptions/{id}")
-    public ResponseEntity<?> getReceptionDetail(@PathVariable UUID id) {
-        return bonReceptionRepo.findById(id).map(br -> {
-            Map<String, Object> dto = new java.util.HashMap<>();
-            dto.put("id", br.getId());
-            dto.put("dateReception", br.getDateReception());
-            dto.put("observations", br.getObservations());
-            dto.put("conforme", br.isConforme());
-
-            // Navigation vers le Bon de Commande
-            Map<String, Object> bc = new java.util.HashMap<>();
-            bc.put("referenceBc", br.getBonCommande().getReferenceBc());
-            
-            // Navigation vers le Fournisseur
-            Map<String, Object> fournisseur = new java.util.HashMap<>();
-            fournisseur.put("nom", br.getBonCommande().getProforma().getFournisseur().getNom());
-            
-            // Navigation vers la Demande (pour le produit et la quantité)
-            Map<String, Object> da = new java.util.HashMap<>();
-            da.put("produitId", br.getBonCommande().getProforma().getDemandeAchat().getProduitId());
-            da.put("quantiteDemandee", br.getBonCommande().getProforma().getDemandeAchat().getQuantiteDemandee());
-
-            // Assemblage du DTO
-            Map<String, Object> proforma = new java.util.HashMap<>();
-            proforma.put("fournisseur", fournisseur);
-            proforma.put("demandeAchat", da);
-            bc.put("proforma", proforma);
-            dto.put("bonCommande", bc);
-
-            return ResponseEntity.ok(dto);
-        }).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<BonReceptionDTO> getReceptionDetail(@PathVariable UUID id) {
+        // BC, proforma, fournisseur et demande chargés par la même requête
+        return bonReceptionRepo.findDetailById(id)
+                .map(BonReceptionDTO::detail)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
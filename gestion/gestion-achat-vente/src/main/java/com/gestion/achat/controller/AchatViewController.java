@@ -1,18 +1,26 @@
 package com.gestion.achat.controller;
 
 import com.gestion.achat.entity.*;
+import com.gestion.achat.enums.StatutFinance;
 import com.gestion.achat.repository.*;
+import com.gestion.login.config.Pagination;
 import com.gestion.stock.repository.ArticleRepository;
 
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Controller
@@ -71,12 +79,30 @@ public class AchatViewController {
         return "achat/details-demande"; 
     }
     @GetMapping("/bons-commande/liste")
-    public String listeBonsCommande(Model model, HttpSession session) {
+    public String listeBonsCommande(Model model, HttpSession session,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "50") int size,
+                                    @RequestParam(required = false) UUID fournisseurId,
+                                    @RequestParam(required = false) StatutFinance statut,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate depuis) {
         // Un simple DEMANDEUR n'a pas accès à la liste globale des BC
         if (!isAuthenticated(session, "ADMIN", "ACHETEUR", "RESPONSABLE_ACHATS", "DAF", "DG", "COMPTABLE")) {
             return "redirect:/login";
         }
-        model.addAttribute("bcs", bcRepo.findAllByOrderByDateEmissionDesc());
+        // Filtres appliqués en base : le total et les pages portent sur toute la liste filtrée
+        model.addAttribute("bcs", bcRepo.rechercher(fournisseurId, statut,
+                depuis != null ? depuis.atStartOfDay() : null,
+                Pagination.page(page, size, Sort.by(Sort.Direction.DESC, "dateEmission"))));
+        model.addAttribute("fournisseurs", fournisseurRepo.findAll(Sort.by("nom")));
+        model.addAttribute("fournisseurId", fournisseurId);
+        model.addAttribute("statut", statut);
+        model.addAttribute("depuis", depuis);
+        // Les liens de pagination reprennent les filtres
+        model.addAttribute("urlListe", UriComponentsBuilder.fromPath("/achats/bons-commande/liste")
+                .queryParamIfPresent("fournisseurId", Optional.ofNullable(fournisseurId))
+                .queryParamIfPresent("statut", Optional.ofNullable(statut))
+                .queryParamIfPresent("depuis", Optional.ofNullable(depuis))
+                .toUriString());
         return "achat/bc-liste";
     }
 
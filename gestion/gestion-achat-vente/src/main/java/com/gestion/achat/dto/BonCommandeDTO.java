@@ -0,0 +1,38 @@
+package com.gestion.achat.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.achat.entity.BonCommande;
+import com.gestion.achat.enums.StatutFinance;
+
+/**
+ * Bon de commande exposé par l'API : {@link #detail} attend le graphe
+ * proforma / fournisseur / demande chargé par {@code BonCommandeRepository.findDetailById}
+ */
+public record BonCommandeDTO(
+    UUID id,
+    String referenceBc,
+    StatutFinance statutFinance,
+    BigDecimal montantTotalTtc,
+    LocalDateTime dateEmission,
+    LocalDate dateLivraisonEstimee,
+    UUID proformaId,
+    ProformaDTO proforma
+) {
+    public static BonCommandeDTO resume(BonCommande bc) {
+        return of(bc, null);
+    }
+
+    public static BonCommandeDTO detail(BonCommande bc) {
+        return of(bc, ProformaDTO.detail(bc.getProforma()));
+    }
+
+    private static BonCommandeDTO of(BonCommande bc, ProformaDTO proforma) {
+        return new BonCommandeDTO(bc.getId(), bc.getReferenceBc(), bc.getStatutFinance(), bc.getMontantTotalTtc(),
+            bc.getDateEmission(), bc.getDateLivraisonEstimee(),
+            bc.getProforma() != null ? bc.getProforma().getId() : null, proforma);
+    }
+}
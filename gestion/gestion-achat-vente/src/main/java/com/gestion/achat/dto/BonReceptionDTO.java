@@ -0,0 +1,32 @@
+package com.gestion.achat.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.achat.entity.BonReception;
+
+/**
+ * Bon de réception exposé par l'API : {@link #detail} attend le graphe chargé par
+ * {@code BonReceptionRepository.findDetailById}
+ */
+public record BonReceptionDTO(
+    UUID id,
+    LocalDateTime dateReception,
+    boolean conforme,
+    String observations,
+    UUID bonCommandeId,
+    BonCommandeDTO bonCommande
+) {
+    public static BonReceptionDTO resume(BonReception br) {
+        return of(br, null);
+    }
+
+    public static BonReceptionDTO detail(BonReception br) {
+        return of(br, BonCommandeDTO.detail(br.getBonCommande()));
+    }
+
+    private static BonReceptionDTO of(BonReception br, BonCommandeDTO bonCommande) {
+        return new BonReceptionDTO(br.getId(), br.getDateReception(), br.isConforme(), br.getObservations(),
+            br.getBonCommande() != null ? br.getBonCommande().getId() : null, bonCommande);
+    }
+}
@@ -0,0 +1,21 @@
+package com.gestion.achat.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.achat.entity.DemandeAchat;
+import com.gestion.achat.enums.StatutDemande;
+
+public record DemandeAchatDTO(
+    UUID id,
+    UUID produitId,
+    Integer quantiteDemandee,
+    String motif,
+    StatutDemande statut,
+    LocalDateTime dateDemande
+) {
+    public static DemandeAchatDTO from(DemandeAchat da) {
+        return da == null ? null : new DemandeAchatDTO(da.getId(), da.getProduitId(), da.getQuantiteDemandee(),
+            da.getMotif(), da.getStatut(), da.getDateDemande());
+    }
+}
@@ -0,0 +1,21 @@
+package com.gestion.achat.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.gestion.achat.entity.FactureAchat;
+
+public record FactureAchatDTO(
+    UUID id,
+    String numeroFactureFournisseur,
+    BigDecimal montantTotalTtc,
+    boolean estPayee,
+    LocalDate dateFacture,
+    UUID bonCommandeId
+) {
+    public static FactureAchatDTO from(FactureAchat f) {
+        return new FactureAchatDTO(f.getId(), f.getNumeroFactureFournisseur(), f.getMontantTotalTtc(), f.isEstPayee(),
+            f.getDateFacture(), f.getBonCommande() != null ? f.getBonCommande().getId() : null);
+    }
+}
@@ -2,12 +2,15 @@ package com.gestion.achat.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
 
 public record FactureDetailsDTO(
+    @JsonProperty("id") UUID id,
     @JsonProperty("numeroFacture") String numeroFacture,
-    @JsonProperty("dateFacture") String dateFacture,
+    @JsonProperty("dateFacture") LocalDate dateFacture,
     @JsonProperty("fournisseurNom") String fournisseurNom,
     @JsonProperty("referenceBc") String referenceBc,
     @JsonProperty("montantTotal") BigDecimal montantTotal,
     @JsonProperty("estPayee") boolean estPayee
-) {}
\ No newline at end of file
+) {}
@@ -0,0 +1,16 @@
+package com.gestion.achat.dto;
+
+import java.util.UUID;
+
+import com.gestion.achat.entity.Fournisseur;
+
+public record FournisseurDTO(
+    UUID id,
+    String nom,
+    String email,
+    String telephone
+) {
+    public static FournisseurDTO from(Fournisseur f) {
+        return f == null ? null : new FournisseurDTO(f.getId(), f.getNom(), f.getEmail(), f.getTelephone());
+    }
+}
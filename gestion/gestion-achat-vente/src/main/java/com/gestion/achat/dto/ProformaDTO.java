@@ -0,0 +1,44 @@
+package com.gestion.achat.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.achat.entity.Proforma;
+
+/**
+ * Proforma exposé par l'API.
+ *
+ * {@link #resume} ne lit que les identifiants des associations (aucun chargement) ;
+ * {@link #detail} attend un proforma chargé avec fournisseur et demande
+ * ({@code ProformaRepository.findDetailById}).
+ */
+public record ProformaDTO(
+    UUID id,
+    UUID demandeAchatId,
+    UUID fournisseurId,
+    BigDecimal prixUnitaireHt,
+    BigDecimal tvaPourcentage,
+    Integer delaiLivraisonJours,
+    boolean estSelectionne,
+    String documentUrl,
+    LocalDateTime dateReception,
+    FournisseurDTO fournisseur,
+    DemandeAchatDTO demandeAchat
+) {
+    public static ProformaDTO resume(Proforma p) {
+        return of(p, null, null);
+    }
+
+    public static ProformaDTO detail(Proforma p) {
+        return of(p, FournisseurDTO.from(p.getFournisseur()), DemandeAchatDTO.from(p.getDemandeAchat()));
+    }
+
+    private static ProformaDTO of(Proforma p, FournisseurDTO fournisseur, DemandeAchatDTO demandeAchat) {
+        return new ProformaDTO(p.getId(),
+            p.getDemandeAchat() != null ? p.getDemandeAchat().getId() : null,
+            p.getFournisseur() != null ? p.getFournisseur().getId() : null,
+            p.getPrixUnitaireHt(), p.getTvaPourcentage(), p.getDelaiLivraisonJours(), p.isEstSelectionne(),
+            p.getDocumentUrl(), p.getDateReception(), fournisseur, demandeAchat);
+    }
+}
@@ -1,11 +1,16 @@
 package com.gestion.achat.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.gestion.achat.entity.BonCommande;
@@ -14,11 +19,28 @@ import com.gestion.achat.enums.StatutFinance;
 @Repository
 public interface BonCommandeRepository extends JpaRepository<BonCommande, UUID> {
     Optional<BonCommande> findByReferenceBc(String referenceBc);
+
+    @Query("SELECT b FROM BonCommande b JOIN FETCH b.proforma p JOIN FETCH p.fournisseur " +
+           "LEFT JOIN FETCH p.demandeAchat WHERE b.id = :id")
+    Optional<BonCommande> findDetailById(@Param("id") UUID id);
     
     @Query("SELECT b FROM BonCommande b WHERE b.statutFinance = 'EN_ATTENTE_VALIDATION'")
     List<BonCommande> findPendingValidations();
 
-    List<BonCommande> findAllByOrderByDateEmissionDesc();
+    /**
+     * Liste des BC filtrée en base (critères null ignorés), paginée
+     */
+    @EntityGraph(attributePaths = {"proforma", "proforma.fournisseur"})
+    @Query("""
+            SELECT b FROM BonCommande b
+            WHERE (:fournisseurId IS NULL OR b.proforma.fournisseur.id = :fournisseurId)
+              AND (:statut IS NULL OR b.statutFinance = :statut)
+              AND (:depuis IS NULL OR b.dateEmission >= :depuis)
+            """)
+    Page<BonCommande> rechercher(@Param("fournisseurId") UUID fournisseurId,
+                                 @Param("statut") StatutFinance statut,
+                                 @Param("depuis") LocalDateTime depuis,
+                                 Pageable pageable);
 
     List<BonCommande> findByStatutFinance(StatutFinance enAttenteValidation);
 }
\ No newline at end of file
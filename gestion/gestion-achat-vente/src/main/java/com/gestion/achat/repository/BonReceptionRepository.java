@@ -61,5 +61,9 @@ public interface BonReceptionRepository extends JpaRepository<BonReception, UUID
 
     Optional<BonReception> findByBonCommandeId(UUID bonCommandeId);
 
+    @Query("SELECT br FROM BonReception br JOIN FETCH br.bonCommande bc JOIN FETCH bc.proforma p " +
+            "JOIN FETCH p.fournisseur LEFT JOIN FETCH p.demandeAchat WHERE br.id = :id")
+    Optional<BonReception> findDetailById(@Param("id") UUID id);
+
     boolean existsByBonCommandeId(UUID id);
 }
@@ -1,11 +1,15 @@
 package com.gestion.achat.repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.gestion.achat.dto.FactureDetailsDTO;
 import com.gestion.achat.entity.FactureAchat;
 
 @Repository
@@ -13,4 +17,9 @@ public interface FactureAchatRepository extends JpaRepository<FactureAchat, UUID
     List<FactureAchat> findByEstPayeeFalse();
 
     boolean existsByBonCommandeId(UUID id);
+
+    @Query("SELECT new com.gestion.achat.dto.FactureDetailsDTO(f.id, f.numeroFactureFournisseur, f.dateFacture, " +
+           "fo.nom, b.referenceBc, f.montantTotalTtc, f.estPayee) " +
+           "FROM FactureAchat f JOIN f.bonCommande b JOIN b.proforma p JOIN p.fournisseur fo WHERE f.id = :id")
+    Optional<FactureDetailsDTO> findDetailsById(@Param("id") UUID id);
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.gestion.achat.entity.Proforma;
@@ -18,4 +20,7 @@ public interface ProformaRepository extends JpaRepository<Proforma, UUID> {
     // TROUVER LE MOINS CHER :
     // On cherche le proforma lié à la DA, trié par prix croissant, et on prend le premier.
     Optional<Proforma> findFirstByDemandeAchatIdOrderByPrixUnitaireHtAsc(UUID demandeAchatId);
+
+    @Query("SELECT p FROM Proforma p LEFT JOIN FETCH p.fournisseur LEFT JOIN FETCH p.demandeAchat WHERE p.id = :id")
+    Optional<Proforma> findDetailById(@Param("id") UUID id);
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import com.gestion.achat.enums.StatutFinance;
 import com.gestion.achat.repository.BonCommandeRepository;
 import com.gestion.achat.repository.BonReceptionRepository;
 import com.gestion.achat.repository.FactureAchatRepository;
+import com.gestion.login.config.LectureReplica;
 import com.gestion.stock.entity.Article;
 import com.gestion.stock.entity.Stock;
 import com.gestion.stock.repository.ArticleRepository;
@@ -77,6 +78,7 @@ public class FinanceController {
 
     // --- DASHBOARD GÉNÉRAL (DAF) ---
     @GetMapping("/daf")
+    @LectureReplica
     public String dashboardDaf(Model model, HttpSession session) {
         requireRole(session, "ADMIN", "DAF", "FINANCE");
 
@@ -155,6 +157,7 @@ public class FinanceController {
         return "finance/daf-dashboard";
     }
     @GetMapping("/fournisseurs")
+    @LectureReplica
     public String dashboardFournisseurs(Model model, HttpSession session) {
         requireRole(session, "ADMIN", "DAF", "FINANCE");
 
@@ -217,6 +220,7 @@ public class FinanceController {
 
     // --- TRÉSORERIE (FLUX RÉELS) ---
     @GetMapping("/tresorerie")
+    @LectureReplica
     public String dashboardTresorerie(Model model, HttpSession session) {
         requireRole(session, "ADMIN", "DAF", "FINANCE");
 
@@ -256,6 +260,7 @@ public class FinanceController {
 
     // --- AUTRES MODULES (STOCKS & VENTES) ---
     @GetMapping("/clients")
+    @LectureReplica
     public String dashboardClients(@RequestParam(defaultValue = "6") Integer months, Model model, HttpSession session) {
         requireRole(session, "ADMIN", "DAF", "FINANCE");
         
@@ -305,6 +310,7 @@ public class FinanceController {
         return "finance/clients-dashboard";
     }
     @GetMapping("/stock")
+    @LectureReplica
     public String dashboardStock(Model model, HttpSession session) {
         requireRole(session, "ADMIN", "DAF", "FINANCE");
 
@@ -360,6 +366,7 @@ public class FinanceController {
         int aCommander, BigDecimal coutPrevu, String urgence) {}
 
     @GetMapping("/audit")
+    @LectureReplica
     public String auditComplet(Model model) {
         List<BonCommande> tousLesBC = bonCommandeRepository.findAll();
         List<BonReception> toutesReceptions = bonReceptionRepository.findAll();
@@ -0,0 +1,14 @@
+package com.gestion.login.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Endpoint de consultation (tableaux de bord, rapports) dont les lectures en transaction
+ * {@code readOnly} peuvent être servies par le réplica (voir {@link RoutageDataSource}).
+ * Sur une classe, s'applique à toutes ses méthodes de mapping.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LectureReplica {
+}
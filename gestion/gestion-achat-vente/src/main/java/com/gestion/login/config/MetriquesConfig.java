@@ -0,0 +1,57 @@
+package com.gestion.login.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Métriques propres à l'application, en complément de celles de l'actuator
+ * ({@code spring.data.repository.invocations}, {@code hikaricp.connections.*},
+ * {@code http.server.requests}) et des opérations métier annotées
+ * {@code @Timed("gestion.operation")}. Export Prometheus sur le port de management
+ * ({@code management.server.*}).
+ */
+@Configuration
+public class MetriquesConfig {
+
+    /**
+     * Saturation de chaque pool Hikari (connexions actives / taille maximale) : à 1, les
+     * requêtes suivantes attendent une connexion ({@code hikaricp.connections.pending}).
+     * Les pools sont retrouvés derrière les datasources enveloppées (requêtes lentes, routage).
+     */
+    @Bean
+    public MeterBinder saturationPoolsHikari(ObjectProvider<DataSource> dataSources) {
+        return registry -> {
+            Set<HikariDataSource> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+            dataSources.orderedStream()
+                    .map(dataSource -> DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+                            HikariDataSource.class))
+                    .filter(Objects::nonNull)
+                    .forEach(pools::add);
+            pools.forEach(pool -> Gauge.builder("gestion.hikari.saturation", pool, MetriquesConfig::saturation)
+                    .tag("pool", String.valueOf(pool.getPoolName()))
+                    .description("Connexions actives rapportées à la taille maximale du pool")
+                    .register(registry));
+        };
+    }
+
+    private static double saturation(HikariDataSource pool) {
+        HikariPoolMXBean mxBean = pool.getHikariPoolMXBean();
+        if (mxBean == null || pool.getMaximumPoolSize() <= 0) {
+            return 0;
+        }
+        return (double) mxBean.getActiveConnections() / pool.getMaximumPoolSize();
+    }
+}
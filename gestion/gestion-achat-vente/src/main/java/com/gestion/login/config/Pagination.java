@@ -0,0 +1,28 @@
+package com.gestion.login.config;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Pagination des pages de liste (journal des mouvements, commandes, factures, devis, BC).
+ *
+ * Les listes sont toujours paginées côté serveur : la taille demandée est bornée à
+ * {@link #TAILLE_MAX} pour qu'un {@code ?size=} arbitraire ne recharge pas toute la table
+ * en mémoire avant le rendu.
+ */
+public final class Pagination {
+
+    public static final int TAILLE_DEFAUT = 50;
+    public static final int TAILLE_MAX = 200;
+
+    private Pagination() {
+    }
+
+    public static PageRequest page(int page, int taille) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(taille, 1), TAILLE_MAX));
+    }
+
+    public static PageRequest page(int page, int taille, Sort tri) {
+        return page(page, taille).withSort(tri);
+    }
+}
@@ -0,0 +1,79 @@
+package com.gestion.login.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Base principale + réplica de lecture ({@code gestion.replica.actif=true}).
+ *
+ * Remplace la datasource auto-configurée : le pool principal reprend
+ * {@code spring.datasource.*}, le pool réplica {@code gestion.replica.*} (identifiants de la
+ * base principale par défaut). JPA et JdbcTemplate utilisent la datasource {@code @Primary},
+ * qui aiguille chaque connexion (voir {@link RoutageDataSource}).
+ *
+ * La session Hibernate rend sa connexion à la fin de chaque transaction : avec
+ * l'open-in-view, une requête qui enchaîne une lecture sur le réplica puis une écriture
+ * reprend une connexion aiguillée à nouveau au lieu de garder celle du réplica.
+ *
+ * Sans réplica (valeur par défaut), cette configuration est inactive et rien ne change.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gestion.replica.actif", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaireDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primaire");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setJdbcUrl(environment.getRequiredProperty("gestion.replica.url"));
+        dataSource.setUsername(environment.getProperty("gestion.replica.username", properties.determineUsername()));
+        dataSource.setPassword(environment.getProperty("gestion.replica.password", properties.determinePassword()));
+        dataSource.setMaximumPoolSize(environment.getProperty("gestion.replica.pool-max", Integer.class, 10));
+        dataSource.setReadOnly(true);
+        // Le réplica absent au démarrage ne doit pas empêcher l'application de démarrer
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setConnectionTimeout(environment.getProperty("gestion.replica.connexion-timeout-ms", Long.class, 2000L));
+        return dataSource;
+    }
+
+    @Bean
+    public RoutageDataSource routageDataSource(@Qualifier("primaireDataSource") DataSource primaireDataSource,
+                                               @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               Environment environment) {
+        return new RoutageDataSource(primaireDataSource, replicaDataSource,
+                environment.getProperty("gestion.replica.retard-max-ms", Long.class, 2000L),
+                environment.getProperty("gestion.replica.verification-ms", Long.class, 2000L));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutageDataSource routageDataSource) {
+        return new LazyConnectionDataSourceProxy(routageDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer liberationConnexionApresTransaction() {
+        return proprietes -> proprietes.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
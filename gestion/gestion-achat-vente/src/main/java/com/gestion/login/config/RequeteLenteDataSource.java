@@ -0,0 +1,147 @@
+package com.gestion.login.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Datasource instrumentée : chronomètre chaque exécution JDBC (JPA comme JdbcTemplate) et
+ * transmet à {@link RequetesLentes} celles qui dépassent {@code gestion.requetes-lentes.seuil-ms},
+ * avec leurs paramètres (réduits à leur type et longueur à l'enregistrement). Sous le seuil, le coût se limite au relevé des paramètres et à une
+ * mesure de temps : rien n'est journalisé.
+ */
+public class RequeteLenteDataSource extends DelegatingDataSource {
+
+    private final long seuilNanos;
+    private final ObjectProvider<RequetesLentes> requetesLentes;
+
+    public RequeteLenteDataSource(DataSource cible, long seuilMs, ObjectProvider<RequetesLentes> requetesLentes) {
+        super(cible);
+        this.seuilNanos = seuilMs * 1_000_000L;
+        this.requetesLentes = requetesLentes;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return envelopper(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return envelopper(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection envelopper(Connection connexion) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, methode, args) -> switch (methode.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "prepareStatement" -> envelopper(invoquer(connexion, methode, args),
+                            PreparedStatement.class, (String) args[0], (Connection) proxy);
+                    case "prepareCall" -> envelopper(invoquer(connexion, methode, args),
+                            CallableStatement.class, (String) args[0], (Connection) proxy);
+                    case "createStatement" -> envelopper(invoquer(connexion, methode, args), Statement.class, null,
+                            (Connection) proxy);
+                    default -> invoquer(connexion, methode, args);
+                });
+    }
+
+    /**
+     * @param connexion connexion instrumentée, rendue par {@code getConnection()} : les statements
+     *                  créés à partir d'elle sont chronométrés eux aussi
+     */
+    private Object envelopper(Object statement, Class<? extends Statement> type, String sql, Connection connexion) {
+        Execution execution = new Execution(sql);
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                (proxy, methode, args) -> {
+                    String nom = methode.getName();
+                    if (nom.startsWith("execute")) {
+                        return chronometrer(statement, methode, args, execution);
+                    }
+                    if (nom.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        execution.parametres.put(index, nom.equals("setNull") ? null : args[1]);
+                    } else if (nom.equals("clearParameters")) {
+                        execution.parametres.clear();
+                    } else if (nom.equals("addBatch")) {
+                        execution.lots++;
+                        if (args != null && args.length == 1 && args[0] instanceof String sqlLot) {
+                            execution.sqlLot = sqlLot;
+                        }
+                    } else if (nom.equals("clearBatch")) {
+                        execution.lots = 0;
+                    } else if (nom.equals("getConnection")) {
+                        return connexion;
+                    } else if (nom.equals("equals")) {
+                        return proxy == args[0];
+                    } else if (nom.equals("hashCode")) {
+                        return System.identityHashCode(proxy);
+                    }
+                    return invoquer(statement, methode, args);
+                });
+    }
+
+    private Object chronometrer(Object statement, Method methode, Object[] args, Execution execution)
+            throws Throwable {
+        long debut = System.nanoTime();
+        try {
+            return invoquer(statement, methode, args);
+        } finally {
+            long duree = System.nanoTime() - debut;
+            if (duree >= seuilNanos) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String texte ? texte
+                        : execution.sql != null ? execution.sql : execution.sqlLot;
+                if (sql != null) {
+                    requetesLentes.getObject().enregistrer(sql, execution.listeParametres(), execution.lots,
+                            duree / 1_000_000L, obtainTargetDataSource());
+                }
+            }
+            if (methode.getName().equals("executeBatch")) {
+                execution.lots = 0;
+            }
+        }
+    }
+
+    private static Object invoquer(Object cible, Method methode, Object[] args) throws Throwable {
+        try {
+            return methode.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * État d'un statement : texte préparé et derniers paramètres liés
+     */
+    private static final class Execution {
+
+        private final String sql;
+        private final TreeMap<Integer, Object> parametres = new TreeMap<>();
+        private String sqlLot;
+        private int lots;
+
+        private Execution(String sql) {
+            this.sql = sql;
+        }
+
+        private List<Object> listeParametres() {
+            int max = parametres.isEmpty() ? 0 : parametres.lastKey();
+            List<Object> liste = new ArrayList<>(max);
+            for (int i = 1; i <= max; i++) {
+                liste.add(parametres.get(i));
+            }
+            return liste;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.gestion.login.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes SQL lentes capturées par {@link RequeteLenteDataSource} : texte, repository et
+ * méthode appelante, plan {@code EXPLAIN} récupéré en arrière-plan.
+ *
+ * Les valeurs liées ne sont pas conservées (identifiants de session, attributs sérialisés,
+ * empreintes de mot de passe) : seuls leur type et leur longueur sont gardés. Les valeurs
+ * ne servent qu'à l'EXPLAIN, le temps de son exécution.
+ *
+ * Les {@code gestion.requetes-lentes.capacite} dernières sont gardées en mémoire (tampon
+ * circulaire, par nœud) et consultables par {@code GET /api/admin/requetes-lentes}. Le plan
+ * d'un même texte SQL est réutilisé pendant 10 minutes : une requête lente répétée ne
+ * déclenche pas un EXPLAIN à chaque exécution.
+ */
+@Component
+@Slf4j
+public class RequetesLentes {
+
+    /** Repository Spring Data en cours d'appel sur le thread (voir {@link RequetesLentesConfig}) */
+    private static final ThreadLocal<String> REPOSITORY_COURANT = new ThreadLocal<>();
+
+    private final int capacite;
+    private final boolean explainActif;
+    private final Deque<Capture> captures = new ArrayDeque<>();
+    private final Cache<String, String> plans = Caffeine.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+    private final ThreadPoolExecutor explains;
+
+    public RequetesLentes(Environment environment) {
+        this.capacite = environment.getProperty("gestion.requetes-lentes.capacite", Integer.class, 200);
+        this.explainActif = environment.getProperty("gestion.requetes-lentes.explain", Boolean.class, true);
+        // File bornée : sous une rafale de requêtes lentes, les EXPLAIN en trop sont abandonnés
+        this.explains = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(50),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "requetes-lentes-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void arreter() {
+        explains.shutdownNow();
+    }
+
+    static String entrerRepository(String appel) {
+        String precedent = REPOSITORY_COURANT.get();
+        REPOSITORY_COURANT.set(appel);
+        return precedent;
+    }
+
+    static void sortirRepository(String precedent) {
+        if (precedent == null) {
+            REPOSITORY_COURANT.remove();
+        } else {
+            REPOSITORY_COURANT.set(precedent);
+        }
+    }
+
+    /**
+     * Enregistrer une requête lente, sur le thread qui l'a exécutée (pile d'appel disponible)
+     *
+     * @param cible datasource non instrumentée, pour l'EXPLAIN
+     */
+    void enregistrer(String sql, List<Object> parametres, int lots, long dureeMs, DataSource cible) {
+        Capture capture = new Capture(LocalDateTime.now(), dureeMs, sql,
+                parametres.stream().map(RequetesLentes::decrire).toList(), lots,
+                REPOSITORY_COURANT.get(), appelant(), Thread.currentThread().getName(), MDC.get("correlationId"));
+        synchronized (captures) {
+            if (captures.size() >= capacite) {
+                captures.removeFirst();
+            }
+            captures.addLast(capture);
+        }
+        log.warn("Requête lente ({} ms) {} depuis {}: {}", dureeMs,
+                capture.repository != null ? capture.repository : "-", capture.appelant, abreger(sql, 300));
+
+        if (explainActif && explicable(sql)) {
+            String plan = plans.getIfPresent(sql);
+            if (plan != null) {
+                capture.plan = plan;
+            } else {
+                explains.execute(() -> expliquer(capture, parametres, cible));
+            }
+        }
+    }
+
+    private void expliquer(Capture capture, List<Object> parametres, DataSource cible) {
+        try (Connection connexion = cible.getConnection();
+             PreparedStatement ps = connexion.prepareStatement("EXPLAIN (ANALYZE off) " + capture.sql)) {
+            ps.setQueryTimeout(5);
+            for (int i = 0; i < parametres.size(); i++) {
+                ps.setObject(i + 1, parametres.get(i));
+            }
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+            capture.plan = plan.toString();
+            plans.put(capture.sql, capture.plan);
+        } catch (Exception e) {
+            capture.plan = "EXPLAIN impossible: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Seules les requêtes planifiables sont expliquées (sans ANALYZE : rien n'est exécuté)
+     */
+    private static boolean explicable(String sql) {
+        String debut = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return debut.startsWith("select") || debut.startsWith("with") || debut.startsWith("insert")
+                || debut.startsWith("update") || debut.startsWith("delete") || debut.startsWith("values");
+    }
+
+    /**
+     * Première méthode de l'application dans la pile (service, contrôleur, job), hors proxies
+     */
+    private static String appelant() {
+        return StackWalker.getInstance().walk(pile -> pile
+                .filter(f -> f.getClassName().startsWith("com.gestion.")
+                        && !f.getClassName().startsWith(RequetesLentes.class.getPackageName())
+                        && !f.getClassName().contains("$$"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1)
+                        + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("-"));
+    }
+
+    /**
+     * Requêtes lentes capturées, les plus récentes d'abord
+     */
+    public List<Map<String, Object>> getRequetesLentes(int limite) {
+        List<Capture> copie;
+        synchronized (captures) {
+            copie = new ArrayList<>(captures);
+        }
+        Collections.reverse(copie);
+        return copie.stream().limit(limite).map(Capture::toMap).toList();
+    }
+
+    /**
+     * Vider le tampon
+     *
+     * @return nombre de captures supprimées
+     */
+    public int vider() {
+        synchronized (captures) {
+            int nombre = captures.size();
+            captures.clear();
+            return nombre;
+        }
+    }
+
+    /**
+     * Type et longueur d'une valeur liée, jamais la valeur elle-même
+     */
+    static String decrire(Object valeur) {
+        if (valeur == null) {
+            return "null";
+        }
+        if (valeur instanceof byte[] octets) {
+            return "byte[" + octets.length + "]";
+        }
+        if (valeur instanceof CharSequence texte) {
+            return valeur.getClass().getSimpleName() + "(" + texte.length() + ")";
+        }
+        return valeur.getClass().getSimpleName();
+    }
+
+    private static String abreger(String texte, int longueur) {
+        return texte.length() <= longueur ? texte : texte.substring(0, longueur) + "…";
+    }
+
+    private static final class Capture {
+
+        private final LocalDateTime date;
+        private final long dureeMs;
+        private final String sql;
+        private final List<String> parametres;
+        private final int lots;
+        private final String repository;
+        private final String appelant;
+        private final String thread;
+        private final String correlationId;
+        private volatile String plan;
+
+        private Capture(LocalDateTime date, long dureeMs, String sql, List<String> parametres, int lots,
+                        String repository, String appelant, String thread, String correlationId) {
+            this.date = date;
+            this.dureeMs = dureeMs;
+            this.sql = sql;
+            this.parametres = parametres;
+            this.lots = lots;
+            this.repository = repository;
+            this.appelant = appelant;
+            this.thread = thread;
+            this.correlationId = correlationId;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("date", date);
+            map.put("dureeMs", dureeMs);
+            map.put("sql", sql);
+            map.put("parametres", parametres);
+            map.put("lots", lots);
+            map.put("repository", repository);
+            map.put("appelant", appelant);
+            map.put("thread", thread);
+            map.put("correlationId", correlationId);
+            map.put("plan", plan);
+            return map;
+        }
+    }
+}
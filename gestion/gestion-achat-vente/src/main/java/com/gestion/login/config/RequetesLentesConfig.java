@@ -0,0 +1,69 @@
+package com.gestion.login.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * Capture des requêtes lentes ({@code gestion.requetes-lentes.actif}), à la place de
+ * {@code show-sql} et des logs TRACE des paramètres.
+ *
+ * <ul>
+ *   <li>la datasource principale ({@code dataSource}, auto-configurée ou celle de
+ *       {@link ReplicaConfig}) est enveloppée dans une {@link RequeteLenteDataSource} ;</li>
+ *   <li>chaque repository Spring Data note sur le thread la méthode en cours
+ *       ({@code StockRepository.findByArticleId}), reprise dans la capture.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "gestion.requetes-lentes.actif", havingValue = "true", matchIfMissing = true)
+public class RequetesLentesConfig {
+
+    @Bean
+    public static BeanPostProcessor requetesLentesDataSource(Environment environment,
+                                                             ObjectProvider<RequetesLentes> requetesLentes) {
+        long seuilMs = environment.getProperty("gestion.requetes-lentes.seuil-ms", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof RequeteLenteDataSource)) {
+                    return new RequeteLenteDataSource(dataSource, seuilMs, requetesLentes);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor requetesLentesRepositories() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> fabrique) {
+                    fabrique.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> {
+                                String repository = information.getRepositoryInterface().getSimpleName();
+                                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                                    String precedent = RequetesLentes.entrerRepository(
+                                            repository + "." + invocation.getMethod().getName());
+                                    try {
+                                        return invocation.proceed();
+                                    } finally {
+                                        RequetesLentes.sortirRepository(precedent);
+                                    }
+                                });
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+}
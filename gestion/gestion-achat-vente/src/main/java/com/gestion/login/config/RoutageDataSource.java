@@ -0,0 +1,165 @@
+package com.gestion.login.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aiguillage des connexions entre la base principale et le réplica de lecture.
+ *
+ * Une connexion part sur le réplica seulement si la transaction courante est
+ * {@code readOnly} et qu'elle est ouverte par un service de l'application
+ * ({@code @Transactional(readOnly = true)}) ou pendant un endpoint {@link LectureReplica}.
+ * Tout le reste (écritures, lectures hors transaction, lectures par défaut des repositories
+ * dans un traitement d'écriture) reste sur la base principale.
+ *
+ * Le retard du réplica est mesuré toutes les {@code gestion.replica.verification-ms} ;
+ * au-delà de {@code gestion.replica.retard-max-ms}, ou si le réplica ne répond pas, les
+ * lectures reviennent sur la base principale jusqu'à la mesure suivante correcte.
+ *
+ * Utilisé derrière un {@code LazyConnectionDataSourceProxy} (voir {@link ReplicaConfig}) :
+ * la connexion réelle n'est choisie qu'à la première requête SQL, une fois la transaction
+ * et son attribut {@code readOnly} établis.
+ */
+@Slf4j
+public class RoutageDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> ENDPOINT_LECTURE = new ThreadLocal<>();
+
+    private static final String SQL_RETARD = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final DataSource primaire;
+    private final DataSource replica;
+    private final long retardMaxMs;
+    private final long verificationMs;
+
+    private volatile boolean replicaUtilisable;
+    private volatile long retardMs = -1;
+    private volatile String derniereErreur;
+
+    private TacheLocale tache;
+
+    public RoutageDataSource(DataSource primaire, DataSource replica, long retardMaxMs, long verificationMs) {
+        this.primaire = primaire;
+        this.replica = replica;
+        this.retardMaxMs = retardMaxMs;
+        this.verificationMs = verificationMs;
+    }
+
+    /**
+     * Début / fin d'un endpoint {@link LectureReplica} sur le thread courant
+     */
+    public static void debuterLecture() {
+        ENDPOINT_LECTURE.set(Boolean.TRUE);
+    }
+
+    public static void terminerLecture() {
+        ENDPOINT_LECTURE.remove();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        verifier();
+        tache = TacheLocale.demarrer("replica-retard", verificationMs, this::verifier);
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (tache != null) {
+            tache.arreter();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!versReplica()) {
+            return primaire.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            signalerIndisponible(e.getMessage());
+            return primaire.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primaire.getConnection(username, password);
+    }
+
+    private boolean versReplica() {
+        if (!replicaUtilisable || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(ENDPOINT_LECTURE.get())) {
+            return true;
+        }
+        // Transaction ouverte par un service de l'application (pas un repository ni un contrôleur)
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        return transaction != null && transaction.startsWith("com.gestion.") && transaction.contains(".service.");
+    }
+
+    /**
+     * Mesurer le retard de réapplication du réplica et mettre à jour son utilisabilité
+     */
+    void verifier() {
+        try (Connection connexion = replica.getConnection();
+             Statement statement = connexion.createStatement();
+             ResultSet rs = statement.executeQuery(SQL_RETARD)) {
+            rs.next();
+            long retard = rs.getLong(1);
+            retardMs = retard;
+            boolean utilisable = retard <= retardMaxMs;
+            if (utilisable != replicaUtilisable) {
+                if (utilisable) {
+                    log.info("Réplica de lecture utilisable (retard {} ms)", retard);
+                } else {
+                    log.warn("Réplica en retard de {} ms (max {} ms), lectures sur la base principale",
+                            retard, retardMaxMs);
+                }
+            }
+            replicaUtilisable = utilisable;
+            derniereErreur = null;
+        } catch (Exception e) {
+            signalerIndisponible(e.getMessage());
+        }
+    }
+
+    private void signalerIndisponible(String message) {
+        if (replicaUtilisable) {
+            log.warn("Réplica indisponible, lectures sur la base principale: {}", message);
+        }
+        replicaUtilisable = false;
+        derniereErreur = message;
+    }
+
+    /**
+     * État du réplica (utilisable, dernier retard mesuré, dernière erreur)
+     */
+    public Map<String, Object> getEtat() {
+        Map<String, Object> etat = new HashMap<>();
+        etat.put("utilisable", replicaUtilisable);
+        etat.put("retardMs", retardMs);
+        etat.put("retardMaxMs", retardMaxMs);
+        etat.put("derniereErreur", derniereErreur);
+        return etat;
+    }
+}
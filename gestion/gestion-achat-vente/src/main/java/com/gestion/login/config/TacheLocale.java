@@ -0,0 +1,58 @@
+package com.gestion.login.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rafraîchissement périodique propre à un nœud, sur un thread dédié : retard du réplica,
+ * versions du référentiel, derniers accès de session. Chaque nœud doit l'exécuter pour
+ * son propre état en mémoire, et un passage lent ne retarde pas les {@code @Scheduled}.
+ *
+ * Les traitements qui écrivent des données partagées n'utilisent pas cette classe : ils
+ * passent par {@code @Scheduled} et {@link com.gestion.stock.service.BailJobService}, pour
+ * n'être exécutés que par un seul nœud.
+ */
+@Slf4j
+public final class TacheLocale {
+
+    private final String nom;
+    private final ScheduledExecutorService executeur;
+
+    private TacheLocale(String nom, ScheduledExecutorService executeur) {
+        this.nom = nom;
+        this.executeur = executeur;
+    }
+
+    /**
+     * Lancer {@code passage} toutes les {@code intervalleMs} (délai fixe entre deux passages).
+     * Une exception est journalisée sans interrompre les passages suivants.
+     *
+     * @param nom nom du thread, repris dans les journaux
+     */
+    public static TacheLocale demarrer(String nom, long intervalleMs, Runnable passage) {
+        ScheduledExecutorService executeur = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, nom);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executeur.scheduleWithFixedDelay(() -> {
+            try {
+                passage.run();
+            } catch (Exception e) {
+                log.error("Tâche locale {} en erreur: {}", nom, e.getMessage(), e);
+            }
+        }, intervalleMs, intervalleMs, TimeUnit.MILLISECONDS);
+        return new TacheLocale(nom, executeur);
+    }
+
+    /**
+     * Arrêter les passages (un passage en cours est interrompu)
+     */
+    public void arreter() {
+        executeur.shutdownNow();
+        log.debug("Tâche locale {} arrêtée", nom);
+    }
+}
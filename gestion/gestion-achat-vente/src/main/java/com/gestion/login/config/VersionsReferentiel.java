@@ -0,0 +1,173 @@
+package com.gestion.login.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Requêtes conditionnelles des API de référentiel (articles, emplacements, clients).
+ *
+ * Chaque groupe de tables porte un compteur ({@code versions_referentiel}, schéma stock
+ * PARTIE 24) incrémenté par trigger à chaque écriture. Les versions sont relues toutes les
+ * {@code gestion.referentiel.intervalle-ms} (une seule petite requête par nœud) et servent
+ * d'ETag :
+ * <ul>
+ *   <li>{@code If-None-Match} à jour : 304 servi depuis la mémoire, sans requête SQL ;</li>
+ *   <li>sinon la réponse est chargée une fois par version et par clé, puis servie depuis le
+ *       cache local aux autres utilisateurs.</li>
+ * </ul>
+ * Une écriture faite sur un autre nœud est visible ici au plus tard après un intervalle.
+ * Les chargements doivent lire la base principale (pas d'endpoint {@link LectureReplica}) :
+ * une réponse lue sur un réplica en retard serait gardée sous la nouvelle version.
+ */
+@Component
+@Slf4j
+public class VersionsReferentiel {
+
+    public static final String ARTICLES = "articles";
+    public static final String EMPLACEMENTS = "emplacements";
+    public static final String CLIENTS = "clients";
+
+    // Le navigateur garde la réponse mais la revalide à chaque usage (If-None-Match)
+    private static final CacheControl REVALIDATION = CacheControl.noCache().cachePrivate();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final Cache<String, Object> reponses;
+
+    private TacheLocale tache;
+
+    public VersionsReferentiel(JdbcTemplate jdbcTemplate, Environment environment) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.environment = environment;
+        this.reponses = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty("gestion.referentiel.cache-taille", Long.class, 2000L))
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        long intervalle = environment.getProperty("gestion.referentiel.intervalle-ms", Long.class, 1000L);
+        passage();
+        tache = TacheLocale.demarrer("versions-referentiel", intervalle, this::passage);
+        log.info("Versions du référentiel relues toutes les {} ms", intervalle);
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (tache != null) {
+            tache.arreter();
+        }
+    }
+
+    private void passage() {
+        try {
+            actualiser();
+        } catch (Exception e) {
+            log.error("Erreur de lecture des versions du référentiel: {}", e.getMessage(), e);
+        }
+    }
+
+    private void actualiser() {
+        jdbcTemplate.query("SELECT groupe, version FROM versions_referentiel",
+                rs -> {
+                    versions.put(rs.getString("groupe"), rs.getLong("version"));
+                });
+    }
+
+    /**
+     * Écriture du référentiel sur ce nœud : les versions sont relues dès le commit, pour que
+     * l'utilisateur qui vient de modifier une fiche ne reçoive pas un 304 sur l'ancienne.
+     */
+    public void signalerEcriture() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    passage();
+                }
+            });
+        } else {
+            passage();
+        }
+    }
+
+    /**
+     * Réponse conditionnelle : 304 si le client a déjà la version courante des groupes,
+     * sinon le corps chargé une fois par version et par clé (404 si le chargement rend null).
+     *
+     * @param cle     identifie la réponse à version égale (endpoint et paramètres)
+     * @param groupes groupes de tables dont dépend la réponse
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> reponse(WebRequest requete, String cle, Supplier<T> chargement, String... groupes) {
+        for (String groupe : groupes) {
+            if (!versions.containsKey(groupe)) {
+                // Version inconnue (table absente, base injoignable au démarrage) : ni ETag ni cache
+                T corps = chargement.get();
+                return corps != null ? ResponseEntity.ok(corps) : ResponseEntity.notFound().build();
+            }
+        }
+        String etag = etag(groupes);
+        if (nonModifie(requete.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATION).build();
+        }
+        T corps = (T) reponses.get(etag + " " + cle, k -> chargement.get());
+        if (corps == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATION).body(corps);
+    }
+
+    private String etag(String... groupes) {
+        StringJoiner valeur = new StringJoiner("-", "W/\"", "\"");
+        for (String groupe : groupes) {
+            valeur.add(groupe + "." + versions.get(groupe));
+        }
+        return valeur.toString();
+    }
+
+    /**
+     * Comparaison faible de If-None-Match (liste d'ETags ou *)
+     */
+    static boolean nonModifie(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String attendu = etag.substring(2);
+        for (String candidat : ifNoneMatch.split(",")) {
+            String valeur = candidat.trim();
+            if (valeur.equals("*")) {
+                return true;
+            }
+            if (valeur.startsWith("W/")) {
+                valeur = valeur.substring(2);
+            }
+            if (valeur.equals(attendu)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -11,11 +11,14 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
     
     private final SessionInterceptor sessionInterceptor;
+    private final LectureReplicaInterceptor lectureReplicaInterceptor;
     
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(sessionInterceptor)
                 .addPathPatterns("/**")
                 .excludePathPatterns("/login", "/error", "/css/**", "/js/**", "/images/**");
+        registry.addInterceptor(lectureReplicaInterceptor)
+                .addPathPatterns("/**");
     }
 }
\ No newline at end of file
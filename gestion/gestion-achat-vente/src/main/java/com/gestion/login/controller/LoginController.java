@@ -1,5 +1,6 @@
 package com.gestion.login.controller;
 
+import com.gestion.login.session.SessionStore;
 import com.gestion.stock.entity.Utilisateur;
 import com.gestion.stock.repository.UtilisateurRepository;
 import jakarta.servlet.http.HttpSession;
@@ -11,8 +12,6 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -21,7 +20,7 @@ import java.util.Optional;
 public class LoginController {
     
     private final UtilisateurRepository utilisateurRepository;
-    private static final Map<String, HttpSession> activeSessions = new HashMap<>();
+    private final SessionStore sessionStore;
     
     @GetMapping("/login")
     public String showLoginPage(
@@ -62,18 +61,14 @@ public class LoginController {
                 return "login";
             }
             
-            // Nettoyage session existante
-            if (activeSessions.containsKey(utilisateur.getUsername())) {
-                try { activeSessions.get(utilisateur.getUsername()).invalidate(); } catch (Exception e) {}
-            }
-            
             // --- SYNC AVEC LE LAYOUT ---
             session.setAttribute("userId", utilisateur.getId());
             session.setAttribute("username", utilisateur.getUsername());
             session.setAttribute("userRole", utilisateur.getRole().name()); // ADMIN, DAF, etc.
             session.setAttribute("userFullName", utilisateur.getPrenom() + " " + utilisateur.getNom());
             
-            activeSessions.put(utilisateur.getUsername(), session);
+            // Une seule session par utilisateur, tous nœuds confondus
+            sessionStore.supprimerAutresSessions(utilisateur.getUsername(), session.getId());
             
             return "redirect:/dashboard";
             
@@ -122,7 +117,6 @@ public class LoginController {
     @GetMapping("/logout")
     public String logout(HttpSession session) {
         if (session != null) {
-            activeSessions.remove((String) session.getAttribute("username"));
             session.invalidate();
         }
         return "redirect:/login?logout=true";
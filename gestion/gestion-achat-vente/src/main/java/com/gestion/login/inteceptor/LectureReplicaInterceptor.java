@@ -0,0 +1,34 @@
+package com.gestion.login.inteceptor;
+
+import com.gestion.login.config.LectureReplica;
+import com.gestion.login.config.RoutageDataSource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Marque le thread de la requête pendant un endpoint {@link LectureReplica} : ses lectures
+ * en transaction {@code readOnly} peuvent partir sur le réplica.
+ */
+@Component
+public class LectureReplicaInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod methode
+                && (methode.hasMethodAnnotation(LectureReplica.class)
+                    || AnnotatedElementUtils.hasAnnotation(methode.getBeanType(), LectureReplica.class))) {
+            RoutageDataSource.debuterLecture();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RoutageDataSource.terminerLecture();
+    }
+}
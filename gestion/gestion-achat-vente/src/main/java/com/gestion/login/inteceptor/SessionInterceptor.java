@@ -4,13 +4,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
+import java.util.UUID;
+
 @Component
 @Slf4j
 public class SessionInterceptor implements HandlerInterceptor {
 
+    public static final String HEADER_CORRELATION = "X-Correlation-Id";
+
     @Override
     public boolean preHandle(HttpServletRequest request,
             HttpServletResponse response,
@@ -18,6 +23,14 @@ public class SessionInterceptor implements HandlerInterceptor {
 
         String requestURI = request.getRequestURI();
 
+        // Identifiant de corrélation, repris par les logs et les tâches de fond
+        String correlationId = request.getHeader(HEADER_CORRELATION);
+        if (correlationId == null || correlationId.isBlank() || correlationId.length() > 64) {
+            correlationId = UUID.randomUUID().toString();
+        }
+        MDC.put("correlationId", correlationId);
+        response.setHeader(HEADER_CORRELATION, correlationId);
+
         // URLs publiques (pas besoin de session)
         if (requestURI.equals("/login") ||
                 requestURI.equals("/loginManager") ||
@@ -38,6 +51,7 @@ public class SessionInterceptor implements HandlerInterceptor {
             response.sendRedirect("/login");
             return false;
         }
+        MDC.put("userId", session.getAttribute("userId").toString());
 
         // Vérifier les permissions par rôle (optionnel)
         String userRole = (String) session.getAttribute("userRole");
@@ -50,6 +64,15 @@ public class SessionInterceptor implements HandlerInterceptor {
         return true;
     }
 
+    @Override
+    public void afterCompletion(HttpServletRequest request,
+            HttpServletResponse response,
+            Object handler,
+            Exception ex) {
+        MDC.remove("correlationId");
+        MDC.remove("userId");
+    }
+
     private boolean hasPermission(String uri, String userRole) {
         // Logique de permissions basée sur les rôles
         if (userRole == null)
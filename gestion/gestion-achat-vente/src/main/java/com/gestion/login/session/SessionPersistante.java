@@ -0,0 +1,188 @@
+package com.gestion.login.session;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session HTTP persistée dans {@code sessions_utilisateurs}.
+ *
+ * Une même instance est partagée par les requêtes concurrentes du nœud tant qu'elle est
+ * dans le cache local de {@link SessionStore}. Chaque modification d'attribut est écrite
+ * immédiatement (une redirection peut arriver sur un autre nœud) ; le dernier accès est
+ * seulement noté, puis écrit par lots. {@code version} est la version de la ligne en base
+ * sur laquelle repose la copie locale des attributs.
+ */
+public class SessionPersistante implements HttpSession {
+
+    private final String id;
+    private final long creationTime;
+    private final Map<String, Object> attributs;
+    private final SessionStore store;
+    private final ServletContext servletContext;
+
+    private volatile long lastAccessedTime;
+    private volatile int maxInactiveInterval;
+    private volatile boolean invalide;
+    private volatile boolean persistee;
+    private volatile long version;
+    private final boolean nouvelle;
+
+    SessionPersistante(String id, long creationTime, long lastAccessedTime, int maxInactiveInterval,
+                       Map<String, Object> attributs, boolean persistee, long version, SessionStore store,
+                       ServletContext servletContext) {
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.attributs = new ConcurrentHashMap<>(attributs);
+        this.persistee = persistee;
+        this.version = version;
+        this.nouvelle = !persistee;
+        this.store = store;
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getCreationTime() {
+        verifierValide();
+        return creationTime;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        verifierValide();
+        return lastAccessedTime;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        this.maxInactiveInterval = interval;
+        if (persistee) {
+            store.enregistrer(this, null);
+        }
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        verifierValide();
+        return attributs.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        verifierValide();
+        return Collections.enumeration(new ArrayList<>(attributs.keySet()));
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        verifierValide();
+        if (value == null) {
+            removeAttribute(name);
+            return;
+        }
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("Attribut de session non sérialisable: " + name);
+        }
+        attributs.put(name, value);
+        store.enregistrer(this, name);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        verifierValide();
+        if (attributs.remove(name) != null) {
+            store.enregistrer(this, name);
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        verifierValide();
+        invalide = true;
+        store.supprimer(id);
+    }
+
+    @Override
+    public boolean isNew() {
+        verifierValide();
+        return nouvelle;
+    }
+
+    boolean isInvalide() {
+        return invalide;
+    }
+
+    boolean isPersistee() {
+        return persistee;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    void marquerPersistee(long version) {
+        this.persistee = true;
+        this.version = version;
+    }
+
+    /**
+     * Repartir des attributs en base (écrits par un autre nœud) en gardant la modification
+     * locale de {@code nom} (valeur courante, ou suppression si absente)
+     */
+    void fusionner(Map<String, Object> enBase, long versionBase, String nom) {
+        Map<String, Object> fusion = new HashMap<>(enBase);
+        if (nom != null) {
+            Object valeur = attributs.get(nom);
+            if (valeur != null) {
+                fusion.put(nom, valeur);
+            } else {
+                fusion.remove(nom);
+            }
+        }
+        attributs.putAll(fusion);
+        attributs.keySet().retainAll(fusion.keySet());
+        this.version = versionBase;
+    }
+
+    void marquerInvalide() {
+        this.invalide = true;
+    }
+
+    void noterAcces(long instant) {
+        this.lastAccessedTime = instant;
+    }
+
+    boolean estExpiree(long maintenant) {
+        return invalide || (maxInactiveInterval > 0 && maintenant - lastAccessedTime > maxInactiveInterval * 1000L);
+    }
+
+    Map<String, Object> copieAttributs() {
+        return new HashMap<>(attributs);
+    }
+
+    private void verifierValide() {
+        if (invalide) {
+            throw new IllegalStateException("Session invalidée: " + id);
+        }
+    }
+}
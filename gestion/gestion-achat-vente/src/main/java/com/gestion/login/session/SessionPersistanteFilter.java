@@ -0,0 +1,147 @@
+package com.gestion.login.session;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Remplace la session du conteneur par une {@link SessionPersistante} : l'intercepteur
+ * d'authentification, les contrôleurs et les vues ({@code ${session.userRole}}) continuent
+ * d'utiliser {@code HttpSession} sans changement, quel que soit le nœud qui sert la requête.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 50)
+@RequiredArgsConstructor
+public class SessionPersistanteFilter extends OncePerRequestFilter {
+
+    private final SessionStore sessionStore;
+    private final Environment environment;
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(new RequeteSessionPersistante(request, response), response);
+    }
+
+    private String nomCookie() {
+        return environment.getProperty("gestion.sessions.cookie", "GESTION_SESSION");
+    }
+
+    private final class RequeteSessionPersistante extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+        private final String idDemande;
+        private SessionPersistante session;
+        private boolean chargee;
+
+        RequeteSessionPersistante(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+            this.idDemande = lireCookie(request);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.isInvalide()) {
+                return session;
+            }
+            if (!chargee) {
+                chargee = true;
+                if (idDemande != null) {
+                    session = sessionStore.charger(idDemande, getServletContext());
+                    if (session != null) {
+                        return session;
+                    }
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            session = sessionStore.creer(getServletContext());
+            ecrireCookie(session.getId());
+            return session;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return idDemande;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            HttpSession courante = getSession(false);
+            return idDemande != null && courante != null && idDemande.equals(courante.getId());
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return idDemande != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        @Override
+        public String changeSessionId() {
+            HttpSession courante = getSession(false);
+            if (courante == null) {
+                throw new IllegalStateException("Aucune session à renouveler");
+            }
+            SessionPersistante nouvelle = sessionStore.creer(getServletContext());
+            ((SessionPersistante) courante).copieAttributs().forEach(nouvelle::setAttribute);
+            courante.invalidate();
+            session = nouvelle;
+            ecrireCookie(nouvelle.getId());
+            return nouvelle.getId();
+        }
+
+        private String lireCookie(HttpServletRequest request) {
+            Cookie[] cookies = request.getCookies();
+            if (cookies == null) {
+                return null;
+            }
+            for (Cookie cookie : cookies) {
+                if (nomCookie().equals(cookie.getName()) && !cookie.getValue().isBlank()) {
+                    return cookie.getValue();
+                }
+            }
+            return null;
+        }
+
+        private void ecrireCookie(String id) {
+            ResponseCookie cookie = ResponseCookie.from(nomCookie(), id)
+                    .path("/")
+                    .httpOnly(true)
+                    .secure(isSecure())
+                    .sameSite("Lax")
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.gestion.login.session;
+
+import com.gestion.login.config.TacheLocale;
+import com.gestion.stock.service.BailJobService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stockage des sessions HTTP dans PostgreSQL ({@code sessions_utilisateurs}, PARTIE 23).
+ *
+ * <ul>
+ *   <li>cache local par nœud de {@code gestion.sessions.cache-secondes} : la plupart des
+ *       requêtes ne lisent pas la base ; une déconnexion faite sur un autre nœud est vue
+ *       au plus tard à l'expiration de l'entrée ;</li>
+ *   <li>attributs écrits à chaque modification (connexion, messages flash) : INSERT à la
+ *       création, puis UPDATE conditionné par la version lue. Une copie périmée du cache ne
+ *       recrée pas une session supprimée (déconnexion, connexion ailleurs) et n'écrase pas
+ *       les attributs écrits entre-temps par un autre nœud ;</li>
+ *   <li>dernier accès regroupé : noté en mémoire, puis écrit par un seul batch toutes les
+ *       {@code gestion.sessions.ecriture-acces-ms} ;</li>
+ *   <li>une session par utilisateur à l'échelle du cluster : la connexion supprime les
+ *       autres sessions du même identifiant ;</li>
+ *   <li>purge des sessions expirées par un traitement planifié exécuté par un seul nœud.</li>
+ * </ul>
+ * Les attributs relus en base ne sont désérialisés que pour les classes de {@link #FILTRE}.
+ */
+@Service
+@Slf4j
+public class SessionStore {
+
+    static final String CRON_PURGE = "0 */15 * * * *"; // Toutes les 15 minutes
+
+    private static final String SQL_INSERER = """
+            INSERT INTO sessions_utilisateurs (id, utilisateur_id, username, attributs, inactivite_max,
+                                               date_creation, dernier_acces, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    // Ne touche que la version sur laquelle repose la copie locale : 0 ligne = session
+    // supprimée ou modifiée entre-temps par un autre nœud
+    private static final String SQL_METTRE_A_JOUR = """
+            UPDATE sessions_utilisateurs SET
+                utilisateur_id = ?,
+                username = ?,
+                attributs = ?,
+                inactivite_max = ?,
+                dernier_acces = GREATEST(dernier_acces, ?),
+                version = version + 1
+            WHERE id = ? AND version = ?
+            """;
+
+    private static final int ESSAIS_MAX = 3;
+
+    /**
+     * Classes admises à la désérialisation des attributs : JDK courant, classes de
+     * l'application et messages flash de Spring MVC ; profondeur et taille bornées.
+     */
+    static final ObjectInputFilter FILTRE = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;maxrefs=10000;maxbytes=1048576;maxarray=100000;"
+                    + "java.lang.*;java.util.*;java.util.concurrent.*;java.time.*;java.math.*;"
+                    + "com.gestion.**;"
+                    + "org.springframework.web.servlet.FlashMap;org.springframework.util.LinkedMultiValueMap;"
+                    + "!*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+    private final Cache<String, SessionPersistante> cacheLocal;
+    private final Map<String, Long> accesEnAttente = new ConcurrentHashMap<>();
+    private final SecureRandom aleatoire = new SecureRandom();
+
+    private TacheLocale tache;
+
+    public SessionStore(JdbcTemplate jdbcTemplate, Environment environment, BailJobService bailJobService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.environment = environment;
+        this.bailJobService = bailJobService;
+        this.cacheLocal = Caffeine.newBuilder()
+                .maximumSize(environment.getProperty("gestion.sessions.cache-taille", Long.class, 10000L))
+                .expireAfterWrite(Duration.ofSeconds(
+                        environment.getProperty("gestion.sessions.cache-secondes", Long.class, 10L)))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        long intervalle = environment.getProperty("gestion.sessions.ecriture-acces-ms", Long.class, 30000L);
+        tache = TacheLocale.demarrer("sessions-acces", intervalle, this::passage);
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (tache != null) {
+            tache.arreter();
+        }
+        passage();
+    }
+
+    private void passage() {
+        try {
+            ecrireAcces();
+        } catch (Exception e) {
+            log.error("Erreur d'écriture des derniers accès de session: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Nouvelle session, écrite en base au premier attribut (les visites anonymes de la
+     * page de connexion ne coûtent aucune écriture).
+     */
+    public SessionPersistante creer(ServletContext servletContext) {
+        byte[] octets = new byte[32];
+        aleatoire.nextBytes(octets);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+        long maintenant = System.currentTimeMillis();
+        int inactiviteMax = environment.getProperty("gestion.sessions.inactivite-minutes", Integer.class, 30) * 60;
+        SessionPersistante session = new SessionPersistante(id, maintenant, maintenant, inactiviteMax,
+                Map.of(), false, 0L, this, servletContext);
+        cacheLocal.put(id, session);
+        return session;
+    }
+
+    /**
+     * Session valide de cet identifiant (cache local, sinon base), ou null
+     */
+    public SessionPersistante charger(String id, ServletContext servletContext) {
+        long maintenant = System.currentTimeMillis();
+        SessionPersistante session = cacheLocal.getIfPresent(id);
+        if (session == null) {
+            session = lire(id, servletContext);
+            if (session == null) {
+                return null;
+            }
+            cacheLocal.put(id, session);
+        }
+        if (session.estExpiree(maintenant)) {
+            supprimer(id);
+            return null;
+        }
+        session.noterAcces(maintenant);
+        if (session.isPersistee()) {
+            accesEnAttente.put(id, maintenant);
+        }
+        return session;
+    }
+
+    private SessionPersistante lire(String id, ServletContext servletContext) {
+        List<SessionPersistante> sessions = jdbcTemplate.query("""
+                SELECT attributs, inactivite_max, date_creation, dernier_acces, version
+                FROM sessions_utilisateurs
+                WHERE id = ?
+                """, (rs, i) -> new SessionPersistante(id,
+                rs.getTimestamp(3).getTime(),
+                rs.getTimestamp(4).getTime(),
+                rs.getInt(2),
+                deserialiser(rs.getBytes(1)),
+                true, rs.getLong(5), this, servletContext), id);
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+
+    /**
+     * Écrire la session après modification de l'attribut {@code nom} (null : seule la durée
+     * d'inactivité a changé).
+     *
+     * Si la ligne a changé depuis la lecture, les attributs en base sont repris et la
+     * modification locale réappliquée ; si elle a disparu, la session est invalidée ici aussi.
+     */
+    void enregistrer(SessionPersistante session, String nom) {
+        synchronized (session) {
+            if (session.isInvalide()) {
+                return;
+            }
+            if (!session.isPersistee()) {
+                inserer(session);
+                return;
+            }
+            for (int essai = 0; essai < ESSAIS_MAX; essai++) {
+                if (mettreAJour(session)) {
+                    return;
+                }
+                List<Object[]> lignes = jdbcTemplate.query(
+                        "SELECT attributs, version FROM sessions_utilisateurs WHERE id = ?",
+                        (rs, i) -> new Object[] {deserialiser(rs.getBytes(1)), rs.getLong(2)},
+                        session.getId());
+                if (lignes.isEmpty()) {
+                    oublier(session.getId(), session);
+                    log.info("Session {} supprimée sur un autre nœud, invalidée localement", session.getId());
+                    return;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> enBase = (Map<String, Object>) lignes.get(0)[0];
+                session.fusionner(enBase, (Long) lignes.get(0)[1], nom);
+            }
+            throw new RuntimeException("Session modifiée en parallèle, écriture abandonnée: " + session.getId());
+        }
+    }
+
+    private void inserer(SessionPersistante session) {
+        Map<String, Object> attributs = session.copieAttributs();
+        Object utilisateurId = attributs.get("userId");
+        jdbcTemplate.update(SQL_INSERER,
+                session.getId(),
+                utilisateurId instanceof UUID ? utilisateurId : null,
+                attributs.get("username") instanceof String username ? username : null,
+                serialiser(attributs),
+                session.getMaxInactiveInterval(),
+                new Timestamp(session.getCreationTime()),
+                new Timestamp(session.getLastAccessedTime()));
+        session.marquerPersistee(0L);
+    }
+
+    private boolean mettreAJour(SessionPersistante session) {
+        Map<String, Object> attributs = session.copieAttributs();
+        Object utilisateurId = attributs.get("userId");
+        long version = session.getVersion();
+        int lignes = jdbcTemplate.update(SQL_METTRE_A_JOUR,
+                utilisateurId instanceof UUID ? utilisateurId : null,
+                attributs.get("username") instanceof String username ? username : null,
+                serialiser(attributs),
+                session.getMaxInactiveInterval(),
+                new Timestamp(session.getLastAccessedTime()),
+                session.getId(),
+                version);
+        if (lignes == 0) {
+            return false;
+        }
+        session.marquerPersistee(version + 1);
+        accesEnAttente.remove(session.getId());
+        return true;
+    }
+
+    /**
+     * Supprimer une session (déconnexion, expiration)
+     */
+    public void supprimer(String id) {
+        oublier(id, cacheLocal.getIfPresent(id));
+        jdbcTemplate.update("DELETE FROM sessions_utilisateurs WHERE id = ?", id);
+    }
+
+    private void oublier(String id, SessionPersistante session) {
+        if (session != null) {
+            session.marquerInvalide();
+        }
+        cacheLocal.invalidate(id);
+        accesEnAttente.remove(id);
+    }
+
+    /**
+     * Supprimer les autres sessions d'un utilisateur, sur tous les nœuds
+     *
+     * @return nombre de sessions supprimées
+     */
+    public int supprimerAutresSessions(String username, String idCourant) {
+        List<String> ids = jdbcTemplate.queryForList(
+                "DELETE FROM sessions_utilisateurs WHERE username = ? AND id <> ? RETURNING id",
+                String.class, username, idCourant);
+        ids.forEach(id -> oublier(id, cacheLocal.getIfPresent(id)));
+        if (!ids.isEmpty()) {
+            log.info("{} session(s) précédente(s) de {} fermée(s)", ids.size(), username);
+        }
+        return ids.size();
+    }
+
+    /**
+     * Écrire les derniers accès notés depuis le passage précédent, en un seul batch
+     *
+     * @return nombre de sessions mises à jour
+     */
+    public int ecrireAcces() {
+        if (accesEnAttente.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> lignes = new ArrayList<>();
+        for (String id : new ArrayList<>(accesEnAttente.keySet())) {
+            Long instant = accesEnAttente.remove(id);
+            if (instant != null) {
+                Timestamp acces = new Timestamp(instant);
+                lignes.add(new Object[] {acces, id, acces});
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE sessions_utilisateurs SET dernier_acces = ? WHERE id = ? AND dernier_acces < ?", lignes);
+        return lignes.size();
+    }
+
+    /**
+     * Purger les sessions expirées (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_PURGE)
+    public void purgerExpirees() {
+        bailJobService.executer("sessions-expirees", CRON_PURGE, fragment -> jdbcTemplate.update("""
+                DELETE FROM sessions_utilisateurs
+                WHERE dernier_acces < CURRENT_TIMESTAMP - make_interval(secs => inactivite_max)
+                """));
+    }
+
+    /**
+     * Sessions ouvertes sur l'ensemble des nœuds (utilisateurs connectés)
+     */
+    public List<Map<String, Object>> getSessionsActives() {
+        return jdbcTemplate.query("""
+                SELECT username, utilisateur_id, date_creation, dernier_acces
+                FROM sessions_utilisateurs
+                WHERE username IS NOT NULL
+                  AND dernier_acces >= CURRENT_TIMESTAMP - make_interval(secs => inactivite_max)
+                ORDER BY dernier_acces DESC
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("username", rs.getString(1));
+            map.put("utilisateurId", rs.getObject(2, UUID.class));
+            map.put("dateCreation", rs.getTimestamp(3).toLocalDateTime());
+            map.put("dernierAcces", rs.getTimestamp(4).toLocalDateTime());
+            return map;
+        });
+    }
+
+    static byte[] serialiser(Map<String, Object> attributs) {
+        try (ByteArrayOutputStream octets = new ByteArrayOutputStream();
+             ObjectOutputStream sortie = new ObjectOutputStream(octets)) {
+            sortie.writeObject(new HashMap<>(attributs));
+            sortie.flush();
+            return octets.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Sérialisation de la session impossible: " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> deserialiser(byte[] octets) {
+        try (ObjectInputStream entree = new ObjectInputStream(new ByteArrayInputStream(octets))) {
+            entree.setObjectInputFilter(FILTRE);
+            return (Map<String, Object>) entree.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Session illisible (classe modifiée entre deux versions, ou refusée par le filtre) : considérée vide
+            log.warn("Session illisible, attributs ignorés: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.gestion.stock.controller.admin;
+
+import com.gestion.stock.entity.TacheAsynchrone;
+import com.gestion.stock.service.ClassificationStockService;
+import com.gestion.stock.service.TacheAsynchroneService;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Recalcul de la classification ABC / XYZ des stocks.
+ */
+@RestController
+@RequestMapping("/api/admin/classification")
+@RequiredArgsConstructor
+public class ClassificationApiController {
+
+    private final ClassificationStockService classificationStockService;
+    private final TacheAsynchroneService tacheService;
+
+    private boolean hasAnyRole(HttpSession session, String... roles) {
+        String userRole = (String) session.getAttribute("userRole");
+        if (userRole == null) return false;
+        return Arrays.asList(roles).contains(userRole);
+    }
+
+    /**
+     * Recalculer la classification ABC / XYZ d'un dépôt (ou de tous)
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> recalculerClassification(@RequestParam(required = false) UUID depotId,
+                                                                        HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN", "RESPONSABLE_STOCK")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        TacheAsynchrone tache = tacheService.soumettre(TacheAsynchrone.TypeTache.CLASSIFICATION_STOCK,
+                depotId, utilisateurId,
+                contexte -> classificationStockService.recalculer(depotId) + " article(s) classé(s)");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tacheService.etat(tache));
+    }
+}
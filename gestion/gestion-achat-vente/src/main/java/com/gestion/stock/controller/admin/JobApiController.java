@@ -0,0 +1,45 @@
+package com.gestion.stock.controller.admin;
+
+import com.gestion.stock.service.BailJobService;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Traitements planifiés exécutés sous bail ({@link BailJobService}).
+ */
+@RestController
+@RequestMapping("/api/admin/jobs")
+@RequiredArgsConstructor
+public class JobApiController {
+
+    private final BailJobService bailJobService;
+
+    private boolean hasAnyRole(HttpSession session, String... roles) {
+        String userRole = (String) session.getAttribute("userRole");
+        if (userRole == null) return false;
+        return Arrays.asList(roles).contains(userRole);
+    }
+
+    /**
+     * Baux en cours et historique des exécutions (nœud, durée, lignes)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getJobs(@RequestParam(required = false) String nom,
+                                                       @RequestParam(defaultValue = "100") int limite,
+                                                       HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> jobs = new HashMap<>();
+        jobs.put("baux", bailJobService.getBaux());
+        jobs.put("executions", bailJobService.getHistorique(nom, Math.min(limite, 1000)));
+        return ResponseEntity.ok(jobs);
+    }
+}
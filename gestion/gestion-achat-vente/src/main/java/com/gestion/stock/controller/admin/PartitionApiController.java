@@ -0,0 +1,58 @@
+package com.gestion.stock.controller.admin;
+
+import com.gestion.stock.entity.TacheAsynchrone;
+import com.gestion.stock.service.PartitionMouvementService;
+import com.gestion.stock.service.TacheAsynchroneService;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Partitions mensuelles de {@code mouvements_stock} : consultation et détachement vers l'archive.
+ */
+@RestController
+@RequestMapping("/api/admin/partitions")
+@RequiredArgsConstructor
+public class PartitionApiController {
+
+    private final PartitionMouvementService partitionMouvementService;
+    private final TacheAsynchroneService tacheService;
+
+    private boolean hasAnyRole(HttpSession session, String... roles) {
+        String userRole = (String) session.getAttribute("userRole");
+        if (userRole == null) return false;
+        return Arrays.asList(roles).contains(userRole);
+    }
+
+    /**
+     * Partitions mensuelles attachées de mouvements_stock
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getPartitions(HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(partitionMouvementService.getPartitions());
+    }
+
+    /**
+     * Détacher les partitions des périodes clôturées et validées hors fenêtre chaude
+     */
+    @PostMapping("/detachement")
+    public ResponseEntity<Map<String, Object>> detacherPartitions(HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        TacheAsynchrone tache = tacheService.soumettre(TacheAsynchrone.TypeTache.ARCHIVAGE_MOUVEMENTS,
+                null, utilisateurId, contexte -> String.join(", ", partitionMouvementService.detacherPeriodesValidees()));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tacheService.etat(tache));
+    }
+}
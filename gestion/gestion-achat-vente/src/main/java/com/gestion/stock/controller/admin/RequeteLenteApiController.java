@@ -0,0 +1,55 @@
+package com.gestion.stock.controller.admin;
+
+import com.gestion.login.config.RequetesLentes;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Requêtes SQL lentes capturées sur ce nœud ({@link RequetesLentes}).
+ */
+@RestController
+@RequestMapping("/api/admin/requetes-lentes")
+@RequiredArgsConstructor
+public class RequeteLenteApiController {
+
+    private final RequetesLentes requetesLentes;
+
+    private boolean hasAnyRole(HttpSession session, String... roles) {
+        String userRole = (String) session.getAttribute("userRole");
+        if (userRole == null) return false;
+        return Arrays.asList(roles).contains(userRole);
+    }
+
+    /**
+     * Requêtes lentes les plus récentes (type des paramètres, appelant, plan EXPLAIN)
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getRequetesLentes(@RequestParam(defaultValue = "50") int limite,
+                                                                       HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(requetesLentes.getRequetesLentes(Math.min(limite, 1000)));
+    }
+
+    /**
+     * Vider le tampon des requêtes lentes (après ajout d'un index, par exemple)
+     */
+    @DeleteMapping
+    public ResponseEntity<Map<String, Object>> viderRequetesLentes(HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("supprimees", requetesLentes.vider());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,18 +1,24 @@
 // ArticleApiController.java
 package com.gestion.stock.controller.article;
 
+import com.gestion.login.config.VersionsReferentiel;
 import com.gestion.stock.dto.ArticleDto;
-import com.gestion.stock.entity.Article;
+import com.gestion.stock.dto.ArticleReferentielDTO;
 import com.gestion.stock.service.ArticleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
+/**
+ * API du catalogue articles. Les réponses portent l'ETag de la version du groupe
+ * {@link VersionsReferentiel#ARTICLES} : un navigateur qui a déjà la version reçoit un 304.
+ */
 @RestController
 @RequestMapping("/api/articles")
 @RequiredArgsConstructor
@@ -20,6 +26,7 @@ import java.util.stream.Collectors;
 public class ArticleApiController {
     
     private final ArticleService articleService;
+    private final VersionsReferentiel versionsReferentiel;
     
     /**
      * Recherche d'articles pour autocomplétion
@@ -27,73 +34,41 @@ public class ArticleApiController {
     @GetMapping("/search")
     public ResponseEntity<List<ArticleDto>> searchArticles(
             @RequestParam String q,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest requete) {
         
-        log.info("Recherche articles: {}", q);
-        
-        List<Article> articles = articleService.searchArticles(q, limit);
-        
-        List<ArticleDto> dtos = articles.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(dtos);
+        log.debug("Recherche articles: {}", q);
+        String terme = q.trim().toLowerCase(Locale.ROOT);
+        int taille = Math.min(Math.max(limit, 1), 50);
+        return versionsReferentiel.reponse(requete, "articles/search " + taille + " " + terme,
+                () -> articleService.searchArticlesDto(terme, taille), VersionsReferentiel.ARTICLES);
     }
     
     /**
      * Récupérer un article par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ArticleDto> getArticleById(@PathVariable UUID id) {
-        try {
-            Article article = articleService.getArticleById(id);
-            return ResponseEntity.ok(convertToDto(article));
-        } catch (Exception e) {
-            log.error("Article non trouvé: {}", id, e);
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<ArticleDto> getArticleById(@PathVariable UUID id, WebRequest requete) {
+        return versionsReferentiel.reponse(requete, "articles/" + id,
+                () -> articleService.getArticleDtoById(id).orElse(null), VersionsReferentiel.ARTICLES);
     }
     
     /**
      * Récupérer les articles actifs
      */
     @GetMapping("/actifs")
-    public ResponseEntity<List<ArticleDto>> getArticlesActifs() {
-        List<Article> articles = articleService.getArticlesActifs();
-        
-        List<ArticleDto> dtos = articles.stream()
-                .map(this::convertToDto)
-                .limit(20) // Limiter pour les besoins d'autocomplétion
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ArticleDto>> getArticlesActifs(WebRequest requete) {
+        // Limité pour les besoins d'autocomplétion
+        return versionsReferentiel.reponse(requete, "articles/actifs",
+                () -> articleService.getArticlesActifsDto(20), VersionsReferentiel.ARTICLES);
     }
-    
+
     /**
-     * Convertir Article en ArticleDto
+     * Liste complète pour les listes de choix (devis, entrée de stock), gardée par le navigateur
      */
-    private ArticleDto convertToDto(Article article) {
-        return ArticleDto.builder()
-                .id(article.getId())
-                .codeArticle(article.getCodeArticle())
-                .codeBarre(article.getCodeBarre())
-                .libelle(article.getLibelle())
-                .description(article.getDescription())
-                .gestionParLot(article.isGestionParLot())
-                .gestionParSerie(article.isGestionParSerie())
-                .stockMinimum(article.getStockMinimum())
-                .stockMaximum(article.getStockMaximum())
-                .stockSecurite(article.getStockSecurite())
-                .methodeValorisation(article.getMethodeValorisation())
-                .coutStandard(article.getCoutStandard())
-                .prixVenteHt(article.getPrixVenteHt())
-                .tvaPourcentage(article.getTvaPourcentage())
-                .actif(article.isActif())
-                .obsolete(article.isObsolete())
-                .createdAt(article.getCreatedAt())
-                .updatedAt(article.getUpdatedAt())
-                .createdBy(article.getCreatedBy())
-                .updatedBy(article.getUpdatedBy())
-                .build();
+    @GetMapping("/referentiel")
+    public ResponseEntity<List<ArticleReferentielDTO>> getReferentiel(WebRequest requete) {
+        return versionsReferentiel.reponse(requete, "articles/referentiel",
+                articleService::getReferentielArticles, VersionsReferentiel.ARTICLES);
     }
-}
\ No newline at end of file
+}
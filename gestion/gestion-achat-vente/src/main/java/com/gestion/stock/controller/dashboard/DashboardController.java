@@ -1,6 +1,8 @@
 // DashboardController.java - Version avec clôture et historique
 package com.gestion.stock.controller.dashboard;
 
+import com.gestion.login.config.LectureReplica;
+import com.gestion.stock.dto.MouvementDashboardDTO;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
 import com.gestion.stock.service.*;
@@ -28,6 +30,7 @@ import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/main/dashboard")
+@LectureReplica
 @RequiredArgsConstructor
 @Slf4j
 public class DashboardController {
@@ -45,6 +48,9 @@ public class DashboardController {
     private final DepotRepository depotRepository;
     private final UtilisateurRepository utilisateurRepository;
     private final StockRepository stockRepository;
+    private final TacheAsynchroneService tacheService;
+    private final ProjectionStockService projectionStockService;
+    private final EtatStockADateService etatStockADateService;
 
     private boolean hasAnyRole(HttpSession session, String... roles) {
         String userRole = (String) session.getAttribute("userRole");
@@ -263,11 +269,17 @@ public class DashboardController {
         return valorisationService.getSyntheseValorisation();
     }
 
+    @GetMapping("/api/valorisation/depots")
+    @ResponseBody
+    public List<Map<String, Object>> getValorisationParDepotApi() {
+        return projectionStockService.getValorisationParDepot();
+    }
+
     @GetMapping("/api/mouvements/recent")
     @ResponseBody
-    public List<StockMovement> getMouvementsRecentsApi(
+    public List<MouvementDashboardDTO> getMouvementsRecentsApi(
             @RequestParam(defaultValue = "10") int limit) {
-        return stockService.getDerniersMouvements(limit);
+        return stockService.getDerniersMouvementsDashboard(limit);
     }
 
     @GetMapping("/api/valorisation/detail")
@@ -289,30 +301,18 @@ public class DashboardController {
 
         Map<String, Object> response = new HashMap<>();
 
-        // Récupérer les mouvements des X derniers jours
-        LocalDateTime dateDebut = LocalDateTime.now().minusDays(jours);
-        List<StockMovement> mouvements = stockMovementRepository.findByDateMouvementBetween(
-                dateDebut, LocalDateTime.now());
+        // Nombre de mouvements par jour, lu dans la projection journalière
+        LocalDate dateDebut = LocalDate.now().minusDays(jours - 1);
+        Map<LocalDate, Map<String, Long>> parJour = projectionStockService.getMouvementsParJour(dateDebut);
 
-        // Grouper par jour
         Map<LocalDate, Long> entreesParJour = new LinkedHashMap<>();
         Map<LocalDate, Long> sortiesParJour = new LinkedHashMap<>();
 
-        // Initialiser tous les jours
         for (int i = jours - 1; i >= 0; i--) {
             LocalDate date = LocalDate.now().minusDays(i);
-            entreesParJour.put(date, 0L);
-            sortiesParJour.put(date, 0L);
-        }
-
-        // Compter les mouvements par jour
-        for (StockMovement mvt : mouvements) {
-            LocalDate date = mvt.getDateMouvement().toLocalDate();
-            if (mvt.getType().getSens() == MovementType.SensMouvement.ENTREE) {
-                entreesParJour.put(date, entreesParJour.getOrDefault(date, 0L) + 1);
-            } else {
-                sortiesParJour.put(date, sortiesParJour.getOrDefault(date, 0L) + 1);
-            }
+            Map<String, Long> compteurs = parJour.getOrDefault(date, Map.of());
+            entreesParJour.put(date, compteurs.getOrDefault("ENTREE", 0L));
+            sortiesParJour.put(date, compteurs.getOrDefault("SORTIE", 0L));
         }
 
         // Préparer les labels (dates)
@@ -497,6 +497,9 @@ public class DashboardController {
                     "periode", cloture.getPeriodeFormat(),
                     "valeurStockTotal", cloture.getValeurStockTotal(),
                     "nombreArticles", cloture.getNombreArticles()));
+            // Rapports générés en tâche de fond : suivi via /api/taches/{id}
+            tacheService.getDerniereTache(cloture.getId())
+                    .ifPresent(tache -> response.put("tacheRapportsId", tache.getId()));
 
             return ResponseEntity.ok(response);
 
@@ -728,6 +731,33 @@ public class DashboardController {
         return response;
     }
 
+    /**
+     * API état du stock à date : quantité, valeur et CUMP par article / dépôt
+     */
+    @GetMapping("/api/historique/stock/date")
+    @ResponseBody
+    public Map<String, Object> getEtatStockAtDateApi(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) UUID articleId,
+            @RequestParam(required = false) UUID depotId) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Map<String, Object>> etats = etatStockADateService.getEtatStock(date, articleId, depotId);
+            response.put("success", true);
+            response.put("date", date);
+            response.put("etats", etats);
+            response.put("total", etats.size());
+        } catch (Exception e) {
+            log.error("Erreur calcul de l'état du stock à date", e);
+            response.put("success", false);
+            response.put("message", e.getMessage());
+        }
+
+        return response;
+    }
+
     /**
      * API pour liste des périodes de clôture avec filtres
      */
@@ -1,5 +1,6 @@
 package com.gestion.stock.controller.dashboard;
 
+import com.gestion.login.config.LectureReplica;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
 import com.gestion.stock.service.ValorisationDetailService;
@@ -23,6 +24,7 @@ import java.util.*;
 
 @Controller
 @RequestMapping("/stock/valorisation")
+@LectureReplica
 @RequiredArgsConstructor
 @Slf4j
 public class ValorisationDetailController {
@@ -1,5 +1,6 @@
 package com.gestion.stock.controller.inventaires;
 
+import com.gestion.login.config.LectureReplica;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.service.InventaireService;
 
@@ -198,6 +199,7 @@ public class InventaireController {
 
             String observations = params.get("observations");
             String modeSaisie = params.get("modeSaisie"); // MANUEL, PAR_LOT, PAR_EMP
+            String classeAbc = params.get("classeAbc"); // A, B, C : inventaire tournant par classe
 
             // Création de l'inventaire
             Inventaire inventaire = inventaireService.creerInventaire(
@@ -209,7 +211,8 @@ public class InventaireController {
                     dateFin,
                     utilisateurId,
                     observations,
-                    modeSaisie);
+                    modeSaisie,
+                    classeAbc != null && !classeAbc.isEmpty() ? classeAbc : null);
 
             redirectAttributes.addFlashAttribute("success",
                     "Inventaire créé: " + inventaire.getReference() +
@@ -932,6 +935,7 @@ public class InventaireController {
      * Dashboard des inventaires
      */
     @GetMapping("/dashboard")
+    @LectureReplica
     public String dashboardInventaires(
             Model model,
             HttpSession session,
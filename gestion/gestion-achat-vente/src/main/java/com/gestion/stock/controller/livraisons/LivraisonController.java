@@ -1,6 +1,7 @@
 // LivraisonController.java (complété)
 package com.gestion.stock.controller.livraisons;
 
+import com.gestion.stock.dto.ReservationDTO;
 import com.gestion.stock.entity.Depot;
 import com.gestion.stock.entity.ReservationStock;
 import com.gestion.stock.entity.Stock;
@@ -298,13 +299,13 @@ public class LivraisonController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // Récupérer toutes les réservations pour cette commande
-            List<ReservationStock> reservations = reservationStockRepository
-                    .findByCommandeClientId(commandeClientId);
+            // Récupérer toutes les réservations pour cette commande (projection, sans entités)
+            List<ReservationDTO> reservations = reservationStockRepository
+                    .findDTOByCommandeClientId(commandeClientId);
 
             // Filtrer celles qui sont actives
-            List<ReservationStock> reservationsActives = reservations.stream()
-                    .filter(r -> ReservationStock.ReservationStatus.ACTIVE.equals(r.getStatut()))
+            List<ReservationDTO> reservationsActives = reservations.stream()
+                    .filter(r -> ReservationStock.ReservationStatus.ACTIVE.name().equals(r.getStatut()))
                     .collect(Collectors.toList());
 
             if (reservationsActives.isEmpty()) {
@@ -1,9 +1,12 @@
 package com.gestion.stock.controller.lots;
 
-import com.gestion.stock.entity.Emplacement;
+import com.gestion.login.config.VersionsReferentiel;
+import com.gestion.stock.dto.EmplacementDisponibleDTO;
 import com.gestion.stock.service.EmplacementService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -14,12 +17,20 @@ import java.util.UUID;
 public class EmplacementApiController {
 
     private final EmplacementService emplacementService;
+    private final VersionsReferentiel versionsReferentiel;
 
+    /**
+     * Emplacements dont la capacité admet la charge : dépend des emplacements et des
+     * dimensions de l'article, d'où l'ETag sur les deux groupes
+     */
     @GetMapping("/disponibles")
-    public List<Emplacement> getEmplacementsDisponibles(
+    public ResponseEntity<List<EmplacementDisponibleDTO>> getEmplacementsDisponibles(
             @RequestParam UUID articleId,
-            @RequestParam Integer quantity) {
+            @RequestParam Integer quantity,
+            WebRequest requete) {
         
-        return emplacementService.findEmplacementsDisponibles(articleId, quantity);
+        return versionsReferentiel.reponse(requete, "emplacements/disponibles " + articleId + " " + quantity,
+                () -> emplacementService.findEmplacementsDisponiblesDTO(articleId, quantity),
+                VersionsReferentiel.EMPLACEMENTS, VersionsReferentiel.ARTICLES);
     }
-}
\ No newline at end of file
+}
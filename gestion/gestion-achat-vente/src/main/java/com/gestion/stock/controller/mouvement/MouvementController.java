@@ -1,6 +1,7 @@
 // MouvementController.java
 package com.gestion.stock.controller.mouvement;
 
+import com.gestion.login.config.Pagination;
 import com.gestion.stock.service.*;
 import jakarta.servlet.http.HttpSession;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +11,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -103,7 +106,7 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
 
         // Configurer pagination
         Sort.Direction direction = "asc".equalsIgnoreCase(ordre) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, tri));
+        Pageable pageable = Pagination.page(page, size, Sort.by(direction, tri));
 
         // Récupérer les mouvements
         Page<Map<String, Object>> pageMouvements = mouvementService.rechercherMouvements(
@@ -126,8 +129,8 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
         model.addAttribute("dateFin", dateFin);
         model.addAttribute("tri", tri);
         model.addAttribute("ordre", ordre);
-        model.addAttribute("page", page);
-        model.addAttribute("size", size);
+        model.addAttribute("page", pageable.getPageNumber());
+        model.addAttribute("size", pageable.getPageSize());
         model.addAttribute("totalPages", pageMouvements.getTotalPages());
         model.addAttribute("totalElements", pageMouvements.getTotalElements());
 
@@ -156,18 +159,8 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
         "MANAGER", "ADMIN")) {
             return "redirect:/access-denied";
         }
-    
-        List<Article> articles = articleService.getArticlesActifs();
-        log.info("=== DEBUG ARTICLES ===");
-        log.info("Nombre d'articles: {}", articles.size());
-
-        for (Article article : articles) {
-            log.info("Article: ID={} (type: {}), Code={}, Libellé={}",
-                    article.getId(),
-                    article.getId() != null ? article.getId().getClass().getName() : "null",
-                    article.getCodeArticle(),
-                    article.getLibelle());
-        }
+
+        // Les articles de la fenêtre de sélection viennent de /api/articles/referentiel (ETag)
 
         // Types de mouvement d'entrée
         List<MovementType> typesEntree = mouvementService.getTypesMouvementEntree();
@@ -183,7 +176,6 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
         }
 
         model.addAttribute("typesEntree", typesEntree);
-        model.addAttribute("articles", articles);
         model.addAttribute("depots", depotService.getDepotsActifs());
         model.addAttribute("aujourdhui", LocalDate.now());
 
@@ -249,7 +241,6 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
         }
 
         model.addAttribute("typesSortie", typesSortie);
-        model.addAttribute("articles", articleService.getArticlesActifs());
         model.addAttribute("depots", depotService.getDepotsActifs());
         model.addAttribute("aujourdhui", LocalDate.now());
 
@@ -620,6 +611,39 @@ public String detailMouvement(@PathVariable UUID id, Model model) {
         return response;
     }
 
+    /**
+     * API d'audit : mouvements saisis par un utilisateur sur une période (archives comprises).
+     * Réservée à l'administration, au responsable stock et au contrôle financier.
+     */
+    @GetMapping("/api/audit")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getJournalAudit(
+            @RequestParam UUID utilisateurId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            HttpSession session) {
+
+        Map<String, Object> response = new HashMap<>();
+        if (!hasAnyRole(session, "ADMIN", "RESPONSABLE_STOCK", "DAF", "COMPTABLE")) {
+            response.put("success", false);
+            response.put("error", "Permission refusée");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+
+        try {
+            List<Map<String, Object>> mouvements = mouvementService.getJournalUtilisateur(utilisateurId, debut, fin);
+            response.put("mouvements", mouvements);
+            response.put("total", mouvements.size());
+            response.put("success", true);
+        } catch (Exception e) {
+            log.error("Erreur journal d'audit", e);
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * API pour rechercher des réservations
      */
@@ -0,0 +1,38 @@
+package com.gestion.stock.controller.notifications;
+
+import com.gestion.stock.service.DiffusionNotificationService;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Consultation des digests de notifications de l'utilisateur connecté.
+ */
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+public class NotificationApiController {
+
+    private final DiffusionNotificationService diffusionNotificationService;
+
+    @GetMapping("/digests")
+    public List<Map<String, Object>> getDigests(@RequestParam(defaultValue = "20") int limite,
+                                                HttpSession session) {
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        return diffusionNotificationService.getDigests(utilisateurId, Math.min(limite, 100));
+    }
+
+    @PostMapping("/digests/{digestId}/lu")
+    public ResponseEntity<Void> marquerLu(@PathVariable UUID digestId, HttpSession session) {
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        if (diffusionNotificationService.marquerLu(digestId, utilisateurId) == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -303,12 +303,7 @@ public class ReservationController {
     @GetMapping("/api/par-commande/{commandeId}")
     @ResponseBody
     public List<ReservationDTO> getReservationsByCommande(@PathVariable String commandeId) {
-        List<ReservationStock> reservations = reservationService
-                .getReservationsByCommande(UUID.fromString(commandeId));
-
-        return reservations.stream()
-                .map(reservationService::toDTO)
-                .collect(Collectors.toList());
+        return reservationService.getReservationsDTOByCommande(UUID.fromString(commandeId));
     }
 
     /**
@@ -320,12 +315,7 @@ public class ReservationController {
             @RequestParam String articleId,
             @RequestParam String depotId) {
 
-        List<ReservationStock> reservations = reservationService
-                .getReservationsActives(UUID.fromString(articleId), UUID.fromString(depotId));
-
-        return reservations.stream()
-                .map(reservationService::toDTO)
-                .collect(Collectors.toList());
+        return reservationService.getReservationsActivesDTO(UUID.fromString(articleId), UUID.fromString(depotId));
     }
 
     /**
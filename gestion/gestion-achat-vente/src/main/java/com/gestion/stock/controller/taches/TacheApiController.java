@@ -0,0 +1,108 @@
+package com.gestion.stock.controller.taches;
+
+import com.gestion.stock.entity.TacheAsynchrone;
+import com.gestion.stock.repository.TacheAsynchroneRepository;
+import com.gestion.stock.service.NotificationService;
+import com.gestion.stock.service.ProjectionStockService;
+import com.gestion.stock.service.TacheAsynchroneService;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Suivi des tâches de fond (polling) et soumission des traitements de stock.
+ */
+@RestController
+@RequestMapping("/api/taches")
+@RequiredArgsConstructor
+public class TacheApiController {
+
+    private final TacheAsynchroneService tacheService;
+    private final TacheAsynchroneRepository tacheRepository;
+    private final NotificationService notificationService;
+    private final ProjectionStockService projectionStockService;
+
+    private boolean hasAnyRole(HttpSession session, String... roles) {
+        String userRole = (String) session.getAttribute("userRole");
+        if (userRole == null) return false;
+        return Arrays.asList(roles).contains(userRole);
+    }
+
+    /**
+     * État d'une tâche : statut, progression et résultat (soumetteur ou ADMIN)
+     */
+    @GetMapping("/{tacheId}")
+    public ResponseEntity<Map<String, Object>> getTache(@PathVariable UUID tacheId, HttpSession session) {
+        return reponseTache(tacheService.getTache(tacheId), session);
+    }
+
+    /**
+     * Dernière tâche liée à un objet métier, ex: rapports d'une clôture (soumetteur ou ADMIN)
+     */
+    @GetMapping("/reference/{referenceId}")
+    public ResponseEntity<Map<String, Object>> getDerniereTache(@PathVariable UUID referenceId, HttpSession session) {
+        return reponseTache(tacheService.getDerniereTache(referenceId), session);
+    }
+
+    private ResponseEntity<Map<String, Object>> reponseTache(Optional<TacheAsynchrone> tache, HttpSession session) {
+        if (tache.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Object utilisateurId = session.getAttribute("userId");
+        boolean soumetteur = utilisateurId != null && utilisateurId.equals(tache.get().getUtilisateurId());
+        if (!soumetteur && !hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(tacheService.etat(tache.get()));
+    }
+
+    /**
+     * Tâches récentes de l'utilisateur connecté
+     */
+    @GetMapping("/mes-taches")
+    public List<Map<String, Object>> getMesTaches(HttpSession session) {
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        return tacheRepository.findTop50ByUtilisateurIdOrderByDateCreationDesc(utilisateurId).stream()
+                .map(tacheService::etat)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lancer les vérifications de stock (critiques, péremptions, obsolètes) en arrière-plan
+     */
+    @PostMapping("/verifications-stock")
+    public ResponseEntity<Map<String, Object>> lancerVerifications(HttpSession session) {
+        if (!hasAnyRole(session, "RESPONSABLE_STOCK", "MANAGER", "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        TacheAsynchrone tache = tacheService.soumettre(TacheAsynchrone.TypeTache.VERIFICATIONS_STOCK,
+                null, utilisateurId, contexte -> {
+                    notificationService.effectuerVerificationsPeriodiques();
+                    return null;
+                });
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tacheService.etat(tache));
+    }
+
+    /**
+     * Reconstruire les projections de stock (après import massif ou reprise de données)
+     */
+    @PostMapping("/projections/reconstruction")
+    public ResponseEntity<Map<String, Object>> reconstruireProjections(HttpSession session) {
+        if (!hasAnyRole(session, "ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        UUID utilisateurId = (UUID) session.getAttribute("userId");
+        TacheAsynchrone tache = tacheService.soumettre(TacheAsynchrone.TypeTache.RECONSTRUCTION_PROJECTIONS,
+                null, utilisateurId, contexte -> {
+                    projectionStockService.reconstruire();
+                    return null;
+                });
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tacheService.etat(tache));
+    }
+}
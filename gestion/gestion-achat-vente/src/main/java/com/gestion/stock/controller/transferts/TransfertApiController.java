@@ -1,9 +1,12 @@
 package com.gestion.stock.controller.transferts;
 
+import com.gestion.stock.dto.ArticleDisponibleDTO;
 import com.gestion.stock.dto.LigneTransfertDTO;
+import com.gestion.stock.dto.LotDisponibleDTO;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
 import com.gestion.stock.service.ArticleService;
+import com.gestion.stock.service.StockEnTransitService;
 import com.gestion.stock.service.TransfertService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +28,7 @@ public class TransfertApiController {
     private final LigneTransfertRepository ligneTransfertRepository;
     private final StockMovementRepository stockMovementRepository;
     private final ArticleService articleService;
+    private final StockEnTransitService stockEnTransitService;
 
     /**
      * Vérifier disponibilité pour un transfert
@@ -57,55 +61,22 @@ public class TransfertApiController {
      * Obtenir les articles disponibles dans un dépôt
      */
     @GetMapping("/depot/{depotId}/articles-disponibles")
-    public ResponseEntity<List<Map<String, Object>>> getArticlesDisponibles(
+    public ResponseEntity<List<ArticleDisponibleDTO>> getArticlesDisponibles(
             @PathVariable UUID depotId) {
         
-        List<Stock> stocks = stockRepository.findByDepotIdAndQuantiteDisponibleGreaterThan(depotId, 0);
-        
-        List<Map<String, Object>> articles = stocks.stream()
-            .map(stock -> {
-                Map<String, Object> articleInfo = new HashMap<>();
-                articleInfo.put("id", stock.getArticle().getId());
-                articleInfo.put("codeArticle", stock.getArticle().getCodeArticle());
-                articleInfo.put("libelle", stock.getArticle().getLibelle());
-                articleInfo.put("categorieId", stock.getArticle().getCategorie().getId());
-                articleInfo.put("categorie", stock.getArticle().getCategorie().getLibelle());
-                articleInfo.put("stockDisponible", stock.getQuantiteDisponible());
-                articleInfo.put("stockMinimum", stock.getArticle().getStockMinimum());
-                articleInfo.put("uniteMesure", stock.getArticle().getUniteMesure().getCode());
-                articleInfo.put("coutUnitaire", stock.getCoutUnitaireMoyen());
-                return articleInfo;
-            })
-            .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(articles);
+        return ResponseEntity.ok(stockRepository.findArticlesDisponiblesByDepotId(depotId, 0));
     }
     
     /**
      * Obtenir les lots disponibles pour un article dans un dépôt
      */
     @GetMapping("/articles/{articleId}/depots/{depotId}/lots-disponibles")
-    public ResponseEntity<List<Map<String, Object>>> getLotsDisponibles(
+    public ResponseEntity<List<LotDisponibleDTO>> getLotsDisponibles(
             @PathVariable UUID articleId, 
             @PathVariable UUID depotId) {
         
-        List<Lot> lots = lotRepository.findByArticleIdAndDepotIdAndStatut(
-            articleId, depotId, Lot.LotStatus.DISPONIBLE);
-        
-        List<Map<String, Object>> lotsInfo = lots.stream()
-            .map(lot -> {
-                Map<String, Object> info = new HashMap<>();
-                info.put("id", lot.getId());
-                info.put("numeroLot", lot.getNumeroLot());
-                info.put("quantiteActuelle", lot.getQuantiteActuelle());
-                info.put("datePeremption", lot.getDatePeremption());
-                info.put("coutUnitaire", lot.getCoutUnitaire());
-                info.put("statut", lot.getStatut());
-                return info;
-            })
-            .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(lotsInfo);
+        return ResponseEntity.ok(lotRepository.findDisponiblesDTOByArticleIdAndDepotId(
+            articleId, depotId, Lot.LotStatus.DISPONIBLE));
     }
     
     /**
@@ -115,19 +86,37 @@ public class TransfertApiController {
     public ResponseEntity<Map<String, Object>> getTransfertDetails(
             @PathVariable UUID transfertId) {
         
-        Transfert transfert = transfertRepository.findById(transfertId)
-            .orElseThrow(() -> new RuntimeException("Transfert non trouvé"));
-        
-        List<LigneTransfert> lignes = ligneTransfertRepository.findByTransfertId(transfertId);
-        
+        // Trois requêtes projetées : en-tête, lignes, mouvements associés
         Map<String, Object> details = new HashMap<>();
-        details.put("transfert", transfert);
-        details.put("lignes", lignes);
-        
-        // Récupérer les mouvements associés
-        List<StockMovement> mouvements = stockMovementRepository.findByTransfertId(transfertId);
-        details.put("mouvements", mouvements);
+        details.put("transfert", transfertRepository.findDetailById(transfertId)
+            .orElseThrow(() -> new RuntimeException("Transfert non trouvé")));
+        details.put("lignes", ligneTransfertRepository.findDetailsByTransfertId(transfertId));
+        details.put("mouvements", stockMovementRepository.findDashboardByTransfertId(transfertId));
         
         return ResponseEntity.ok(details);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Stock en transit d'un article par dépôt destination et date prévue
+     */
+    @GetMapping("/en-transit/articles/{articleId}")
+    public ResponseEntity<List<Map<String, Object>>> getEnTransit(@PathVariable UUID articleId) {
+        return ResponseEntity.ok(stockEnTransitService.getEnTransit(articleId));
+    }
+    
+    /**
+     * Disponibilité réseau d'un article : disponible et en transit par dépôt
+     */
+    @GetMapping("/articles/{articleId}/disponibilite-reseau")
+    public ResponseEntity<List<Map<String, Object>>> getDisponibiliteReseau(@PathVariable UUID articleId) {
+        return ResponseEntity.ok(stockEnTransitService.getDisponibiliteReseau(articleId));
+    }
+    
+    /**
+     * Transit dont la date d'arrivée prévue est dépassée
+     */
+    @GetMapping("/en-retard")
+    public ResponseEntity<List<Map<String, Object>>> getEnRetard() {
+        return ResponseEntity.ok(stockEnTransitService.getEnRetard());
+    }
+}
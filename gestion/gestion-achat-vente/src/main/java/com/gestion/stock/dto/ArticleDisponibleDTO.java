@@ -0,0 +1,35 @@
+package com.gestion.stock.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.UUID;
+
+/**
+ * Article disponible dans un dépôt (formulaire de transfert), lu par une seule requête
+ * sur stocks, articles, catégories et unités
+ */
+public record ArticleDisponibleDTO(
+    UUID id,
+    String codeArticle,
+    String libelle,
+    UUID categorieId,
+    String categorie,
+    Integer stockDisponible,
+    Integer stockMinimum,
+    String uniteMesure,
+    BigDecimal coutUnitaire
+) {
+
+    /**
+     * Constructeur de la requête JPQL : disponible et CUMP calculés comme dans {@code Stock}
+     */
+    public ArticleDisponibleDTO(UUID id, String codeArticle, String libelle, UUID categorieId, String categorie,
+                                Integer quantiteTheorique, Integer quantiteReservee, Integer stockMinimum,
+                                String uniteMesure, BigDecimal valeurStockCump) {
+        this(id, codeArticle, libelle, categorieId, categorie,
+            quantiteTheorique - (quantiteReservee != null ? quantiteReservee : 0),
+            stockMinimum, uniteMesure,
+            quantiteTheorique == 0 || valeurStockCump == null ? BigDecimal.ZERO
+                : valeurStockCump.divide(BigDecimal.valueOf(quantiteTheorique), 4, RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,19 @@
+package com.gestion.stock.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Article tel qu'affiché dans les listes de choix des formulaires (devis, entrée de stock),
+ * servi par {@code GET /api/articles/referentiel} avec ETag
+ */
+public record ArticleReferentielDTO(
+    UUID id,
+    String codeArticle,
+    String libelle,
+    String categorie,
+    boolean gestionParLot,
+    BigDecimal prixVenteHt,
+    BigDecimal tvaPourcentage,
+    boolean actif
+) {}
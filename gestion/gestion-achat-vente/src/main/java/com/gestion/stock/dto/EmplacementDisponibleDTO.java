@@ -0,0 +1,22 @@
+package com.gestion.stock.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Emplacement actif pouvant accueillir une quantité d'article
+ */
+public record EmplacementDisponibleDTO(
+    UUID id,
+    String code,
+    String allee,
+    String travee,
+    String niveau,
+    String position,
+    BigDecimal capacitePoidsKg,
+    BigDecimal capaciteVolumeM3,
+    UUID zoneId,
+    String zoneCode,
+    UUID depotId,
+    String depotNom
+) {}
@@ -0,0 +1,21 @@
+package com.gestion.stock.dto;
+
+import java.util.UUID;
+
+/**
+ * Ligne d'un transfert pour l'API de détail (article, lot et emplacements aplatis)
+ */
+public record LigneTransfertDetailDTO(
+    UUID id,
+    UUID articleId,
+    String codeArticle,
+    String libelle,
+    Integer quantiteDemandee,
+    Integer quantiteExpediee,
+    Integer quantiteRecue,
+    UUID lotId,
+    String numeroLot,
+    String emplacementSource,
+    String emplacementDestination,
+    String notes
+) {}
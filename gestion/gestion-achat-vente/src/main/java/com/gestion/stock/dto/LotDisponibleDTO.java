@@ -0,0 +1,19 @@
+package com.gestion.stock.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.gestion.stock.entity.Lot;
+
+/**
+ * Lot disponible pour un transfert, sans charger article, emplacement ni réception
+ */
+public record LotDisponibleDTO(
+    UUID id,
+    String numeroLot,
+    Integer quantiteActuelle,
+    LocalDate datePeremption,
+    BigDecimal coutUnitaire,
+    Lot.LotStatus statut
+) {}
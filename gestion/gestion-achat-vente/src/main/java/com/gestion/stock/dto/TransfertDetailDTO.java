@@ -0,0 +1,28 @@
+package com.gestion.stock.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.stock.entity.Transfert;
+
+/**
+ * En-tête d'un transfert pour l'API de détail
+ */
+public record TransfertDetailDTO(
+    UUID id,
+    String reference,
+    UUID depotSourceId,
+    String depotSourceNom,
+    UUID depotDestinationId,
+    String depotDestinationNom,
+    LocalDateTime dateDemande,
+    LocalDate dateExpedition,
+    LocalDate dateReceptionPrevue,
+    LocalDateTime dateReceptionReelle,
+    Transfert.TransfertStatut statut,
+    String motif,
+    UUID demandeurId,
+    UUID valideurId,
+    LocalDateTime dateValidation
+) {}
@@ -3,6 +3,7 @@ package com.gestion.stock.entity;
 import com.gestion.achat.entity.*;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.PartitionKey;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -21,7 +22,8 @@ public class StockMovement {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
     
-    @Column(unique = true, nullable = false)
+    // Unique : table partitionnée, l'unicité globale est vérifiée par le registre references_mouvements
+    @Column(nullable = false)
     private String reference; // MVT-2026-000001
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -72,6 +74,8 @@ public class StockMovement {
     @Column(name = "date_mouvement", nullable = false)
     private LocalDateTime dateMouvement;
     
+    // Clé de partition : ajoutée par Hibernate aux UPDATE/DELETE pour cibler une seule partition
+    @PartitionKey
     @Column(name = "date_comptable", nullable = false)
     private LocalDate dateComptable;
     
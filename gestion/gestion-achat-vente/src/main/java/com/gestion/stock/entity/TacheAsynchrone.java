@@ -0,0 +1,100 @@
+package com.gestion.stock.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "taches_asynchrones", indexes = {
+    @Index(name = "idx_taches_statut", columnList = "statut"),
+    @Index(name = "idx_taches_reference", columnList = "reference_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TacheAsynchrone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private TypeTache type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StatutTache statut;
+
+    // Objet métier concerné (clôture, article, ...)
+    @Column(name = "reference_id")
+    private UUID referenceId;
+
+    @Column(name = "utilisateur_id")
+    private UUID utilisateurId;
+
+    @Column(name = "correlation_id", nullable = false, length = 64)
+    private String correlationId;
+
+    // 0 à 100
+    @Column(nullable = false)
+    private Integer progression;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Column(columnDefinition = "TEXT")
+    private String resultat;
+
+    @Column(name = "date_creation", nullable = false, updatable = false)
+    private LocalDateTime dateCreation;
+
+    @Column(name = "date_debut")
+    private LocalDateTime dateDebut;
+
+    @Column(name = "date_fin")
+    private LocalDateTime dateFin;
+
+    // Nœud dont le pool exécute la tâche, et son dernier signe de vie
+    @Column(length = 255)
+    private String noeud;
+
+    @Column(name = "date_pulsation")
+    private LocalDateTime datePulsation;
+
+    /**
+     * Types de tâches de fond ; chaque type dispose de son propre pool borné
+     * (concurrence par défaut, surchargeable par {@code gestion.taches.<type>.concurrence}).
+     */
+    public enum TypeTache {
+        RAPPORTS_CLOTURE("Rapports de clôture", 1),
+        VERIFICATIONS_STOCK("Vérifications périodiques du stock", 1),
+        RECONSTRUCTION_PROJECTIONS("Reconstruction des projections de stock", 1),
+        ARCHIVAGE_MOUVEMENTS("Archivage des mouvements des périodes validées", 1),
+        CLASSIFICATION_STOCK("Classification ABC / XYZ", 1);
+
+        private final String libelle;
+        private final int concurrence;
+
+        TypeTache(String libelle, int concurrence) {
+            this.libelle = libelle;
+            this.concurrence = concurrence;
+        }
+
+        public String getLibelle() { return libelle; }
+        public int getConcurrence() { return concurrence; }
+    }
+
+    public enum StatutTache {
+        EN_ATTENTE,      // Soumise, en file d'attente
+        EN_COURS,        // En cours d'exécution
+        TERMINEE,        // Terminée avec succès
+        ECHEC            // Terminée en erreur ou interrompue
+    }
+
+    public boolean isTerminee() {
+        return statut == StatutTache.TERMINEE || statut == StatutTache.ECHEC;
+    }
+}
@@ -0,0 +1,49 @@
+package com.gestion.stock.job;
+
+import com.gestion.stock.service.BailJobService;
+import com.gestion.stock.service.PeremptionService;
+import com.gestion.stock.service.ReservationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MaintenanceStockJob {
+    
+    private final PeremptionService peremptionService;
+    private final ReservationService reservationService;
+    private final BailJobService bailJobService;
+    private final Environment environment;
+    
+    static final String CRON_PEREMPTIONS = "0 0 2 * * *"; // Tous les jours à 2h du matin
+    static final String CRON_RESERVATIONS = "0 5 * * * *"; // Toutes les heures
+    
+    /**
+     * Bloquer les lots périmés et calculer les alertes J+7 / J+15 / J+30
+     * Exécuté tous les jours à 2h, par un seul nœud
+     */
+    @Scheduled(cron = CRON_PEREMPTIONS)
+    public void verifierLotsPerimes() {
+        bailJobService.executer("lots-perimes", CRON_PEREMPTIONS, fragment -> {
+            Map<String, Object> resultat = peremptionService.executerBalayage();
+            return ((Number) resultat.getOrDefault("lotsPerimes", 0)).intValue();
+        });
+    }
+    
+    /**
+     * Passer les réservations actives échues en EXPIREE
+     * Exécuté toutes les heures, fragmenté par article entre les nœuds
+     */
+    @Scheduled(cron = CRON_RESERVATIONS)
+    public void expirerReservations() {
+        int fragments = environment.getProperty("gestion.jobs.fragments-reservations", Integer.class, 4);
+        bailJobService.executerFragmente("reservations-expirees", CRON_RESERVATIONS, fragments,
+                reservationService::expirerReservations);
+    }
+}
@@ -2,6 +2,8 @@ package com.gestion.stock.job;
 
 import com.gestion.stock.entity.Transfert;
 import com.gestion.stock.repository.TransfertRepository;
+import com.gestion.stock.service.BailJobService;
+import com.gestion.stock.service.StockEnTransitService;
 import com.gestion.stock.service.TransfertService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
@@ -18,38 +21,48 @@ public class TransfertJob {
     
     private final TransfertRepository transfertRepository;
     private final TransfertService transfertService;
+    private final StockEnTransitService stockEnTransitService;
+    private final BailJobService bailJobService;
+    
+    static final String CRON_RETARDS = "0 0 8 * * *"; // Tous les jours à 8h
+    static final String CRON_A_EXPEDIER = "0 0 9 * * *"; // Tous les jours à 9h
     
     /**
-     * Vérifier les transferts expédiés non réceptionnés depuis longtemps
-     * Exécuté tous les jours à 8h
+     * Vérifier le stock en transit dont la date d'arrivée prévue est dépassée
+     * Exécuté tous les jours à 8h (lecture du registre de transit, sans parcours des transferts),
+     * par un seul nœud
      */
-    @Scheduled(cron = "0 0 8 * * *") // Tous les jours à 8h
+    @Scheduled(cron = CRON_RETARDS)
     public void checkTransfertsEnRetard() {
+        bailJobService.executer("transferts-en-retard", CRON_RETARDS, fragment -> verifierRetards());
+    }
+    
+    private int verifierRetards() {
         log.info("Vérification des transferts en retard");
         
-        // Transferts expédiés depuis plus de 7 jours non réceptionnés
-        LocalDateTime dateLimite = LocalDateTime.now().minusDays(7);
+        List<Map<String, Object>> retards = stockEnTransitService.getEnRetard();
         
-        List<Transfert> transfertsEnRetard = transfertRepository
-            .findByStatutAndDateExpeditionBefore(
-                Transfert.TransfertStatut.EXPEDIE, 
-                dateLimite.toLocalDate());
-        
-        for (Transfert transfert : transfertsEnRetard) {
-            log.warn("Transfert {} expédié le {} non réceptionné", 
-                    transfert.getReference(), transfert.getDateExpedition());
+        for (Map<String, Object> retard : retards) {
+            log.warn("Transit en retard vers {} : {} x {} attendu(s) le {} ({} transfert(s))",
+                    retard.get("depotNom"), retard.get("quantite"), retard.get("codeArticle"),
+                    retard.get("datePrevue"), retard.get("nombreTransferts"));
             
             // Envoyer notification au responsable
             // notificationService.sendTransfertRetardNotification(transfert);
         }
+        return retards.size();
     }
     
     /**
      * Notification des transferts à expédier aujourd'hui
-     * Exécuté tous les jours à 9h
+     * Exécuté tous les jours à 9h, par un seul nœud
      */
-    @Scheduled(cron = "0 0 9 * * *") // Tous les jours à 9h
+    @Scheduled(cron = CRON_A_EXPEDIER)
     public void notifyTransfertsAExpedier() {
+        bailJobService.executer("transferts-a-expedier", CRON_A_EXPEDIER, fragment -> notifierAExpedier());
+    }
+    
+    private int notifierAExpedier() {
         log.info("Notification des transferts à expédier");
         
         List<Transfert> transfertsAExpedier = transfertRepository
@@ -64,5 +77,6 @@ public class TransfertJob {
                 // notificationService.sendTransfertExpeditionReminder(transfert);
             }
         }
+        return transfertsAExpedier.size();
     }
 }
\ No newline at end of file
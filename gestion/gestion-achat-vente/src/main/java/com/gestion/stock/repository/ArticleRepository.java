@@ -1,5 +1,7 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.ArticleDto;
+import com.gestion.stock.dto.ArticleReferentielDTO;
 import com.gestion.stock.entity.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -84,4 +86,27 @@ public interface ArticleRepository extends JpaRepository<Article, UUID> {
            "LOWER(a.libelle) LIKE LOWER(CONCAT('%', :query, '%'))) " +
            "ORDER BY a.codeArticle")
     List<Article> findTop10ByCodeArticleContainingOrLibelleContainingAndActifTrue(@Param("query") String query);
+
+    String SELECT_DTO = "SELECT new com.gestion.stock.dto.ArticleDto(a.id, a.codeArticle, a.codeBarre, a.libelle, " +
+            "a.description, a.gestionParLot, a.gestionParSerie, a.stockMinimum, a.stockMaximum, a.stockSecurite, " +
+            "a.methodeValorisation, a.coutStandard, a.prixVenteHt, a.tvaPourcentage, a.actif, a.obsolete, " +
+            "a.createdAt, a.updatedAt, a.createdBy, a.updatedBy) FROM Article a ";
+
+    @Query(SELECT_DTO + "WHERE a.id = :id")
+    Optional<ArticleDto> findDtoById(@Param("id") UUID id);
+
+    @Query(SELECT_DTO + "WHERE a.actif = true ORDER BY a.libelle")
+    List<ArticleDto> findDtoActifs(Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE (LOWER(a.codeArticle) LIKE LOWER(CONCAT('%', :search, '%')) " +
+            "OR LOWER(a.libelle) LIKE LOWER(CONCAT('%', :search, '%')) " +
+            "OR LOWER(a.codeBarre) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+            "AND a.actif = true " +
+            "ORDER BY a.libelle")
+    List<ArticleDto> searchDtoActifs(@Param("search") String search, Pageable pageable);
+
+    @Query("SELECT new com.gestion.stock.dto.ArticleReferentielDTO(a.id, a.codeArticle, a.libelle, c.libelle, " +
+            "a.gestionParLot, a.prixVenteHt, a.tvaPourcentage, a.actif) " +
+            "FROM Article a LEFT JOIN a.categorie c ORDER BY a.codeArticle")
+    List<ArticleReferentielDTO> findReferentiel();
 }
\ No newline at end of file
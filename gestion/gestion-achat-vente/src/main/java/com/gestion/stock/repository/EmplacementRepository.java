@@ -1,10 +1,12 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.EmplacementDisponibleDTO;
 import com.gestion.stock.entity.Emplacement;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,4 +28,18 @@ public interface EmplacementRepository extends JpaRepository<Emplacement, UUID>
     @Query("SELECT e FROM Emplacement e WHERE e.actif = true " +
             "AND NOT EXISTS (SELECT 1 FROM Lot l WHERE l.emplacement.id = e.id AND l.quantiteActuelle > 0)")
     List<Emplacement> findEmplacementsVides();
+
+    /**
+     * Emplacements actifs dont la capacité (poids, volume) admet la charge demandée ;
+     * une capacité ou une charge inconnue ne restreint pas
+     */
+    @Query("SELECT new com.gestion.stock.dto.EmplacementDisponibleDTO(e.id, e.code, e.allee, e.travee, e.niveau, " +
+            "e.position, e.capacitePoidsKg, e.capaciteVolumeM3, z.id, z.code, d.id, d.nom) " +
+            "FROM Emplacement e LEFT JOIN e.zone z LEFT JOIN z.depot d " +
+            "WHERE e.actif = true " +
+            "AND (:poidsKg IS NULL OR e.capacitePoidsKg IS NULL OR e.capacitePoidsKg >= :poidsKg) " +
+            "AND (:volumeM3 IS NULL OR e.capaciteVolumeM3 IS NULL OR e.capaciteVolumeM3 >= :volumeM3) " +
+            "ORDER BY e.code")
+    List<EmplacementDisponibleDTO> findDisponiblesDTO(@Param("poidsKg") BigDecimal poidsKg,
+                                                      @Param("volumeM3") BigDecimal volumeM3);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.LigneTransfertDetailDTO;
 import com.gestion.stock.entity.LigneTransfert;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,6 +14,13 @@ public interface LigneTransfertRepository extends JpaRepository<LigneTransfert,
 
     List<LigneTransfert> findByTransfertId(UUID transfertId);
 
+    @Query("SELECT new com.gestion.stock.dto.LigneTransfertDetailDTO(lt.id, a.id, a.codeArticle, a.libelle, " +
+            "lt.quantiteDemandee, lt.quantiteExpediee, lt.quantiteRecue, l.id, l.numeroLot, es.code, ed.code, lt.notes) " +
+            "FROM LigneTransfert lt JOIN lt.article a LEFT JOIN lt.lot l " +
+            "LEFT JOIN lt.emplacementSource es LEFT JOIN lt.emplacementDestination ed " +
+            "WHERE lt.transfert.id = :transfertId ORDER BY a.codeArticle")
+    List<LigneTransfertDetailDTO> findDetailsByTransfertId(@Param("transfertId") UUID transfertId);
+
     List<LigneTransfert> findByArticleId(UUID articleId);
 
     List<LigneTransfert> findByLotId(UUID lotId);
@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.LotDisponibleDTO;
 import com.gestion.stock.dto.LotSearchCriteria;
 import com.gestion.stock.entity.Article;
 import com.gestion.stock.entity.Lot;
@@ -233,6 +234,16 @@ public interface LotRepository extends JpaRepository<Lot, UUID>, JpaSpecificatio
                      @Param("depotId") UUID depotId,
                      @Param("statut") Lot.LotStatus statut);
 
+       @Query("SELECT new com.gestion.stock.dto.LotDisponibleDTO(l.id, l.numeroLot, l.quantiteActuelle, " +
+                     "l.datePeremption, l.coutUnitaire, l.statut) " +
+                     "FROM Lot l JOIN l.emplacement e JOIN e.zone z " +
+                     "WHERE l.article.id = :articleId AND z.depot.id = :depotId AND l.statut = :statut " +
+                     "AND l.quantiteActuelle > 0 ORDER BY l.datePeremption NULLS LAST, l.dateReception")
+       List<LotDisponibleDTO> findDisponiblesDTOByArticleIdAndDepotId(
+                     @Param("articleId") UUID articleId,
+                     @Param("depotId") UUID depotId,
+                     @Param("statut") Lot.LotStatus statut);
+
        @Query("SELECT l FROM Lot l WHERE l.article = :article " +
                      "AND l.statut = :statut " +
                      "AND l.quantiteActuelle >= :quantite")
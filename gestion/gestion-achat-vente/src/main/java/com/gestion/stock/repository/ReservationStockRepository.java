@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.ReservationDTO;
 import com.gestion.stock.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -13,6 +14,19 @@ import java.util.UUID;
 public interface ReservationStockRepository extends JpaRepository<ReservationStock, UUID> {
     
     List<ReservationStock> findByCommandeClientId(UUID commandeClientId);
+
+    String SELECT_DTO = "SELECT new com.gestion.stock.dto.ReservationDTO(r.id, r.reference, a.id, a.codeArticle, " +
+           "a.libelle, d.id, d.code, d.nom, r.quantiteReservee, COALESCE(r.quantitePrelevee, 0), " +
+           "r.quantiteReservee - COALESCE(r.quantitePrelevee, 0), l.id, l.numeroLot, r.commandeClientId, " +
+           "r.ligneCommandeId, r.dateReservation, r.dateExpiration, CAST(r.statut AS String), r.utilisateurId, " +
+           "r.createdAt) FROM ReservationStock r JOIN r.article a JOIN r.depot d LEFT JOIN r.lot l ";
+
+    @Query(SELECT_DTO + "WHERE r.commandeClientId = :commandeClientId ORDER BY r.dateReservation")
+    List<ReservationDTO> findDTOByCommandeClientId(@Param("commandeClientId") UUID commandeClientId);
+
+    @Query(SELECT_DTO + "WHERE a.id = :articleId AND d.id = :depotId AND r.statut = 'ACTIVE' ORDER BY r.dateReservation")
+    List<ReservationDTO> findDTOActivesByArticleIdAndDepotId(@Param("articleId") UUID articleId,
+                                                             @Param("depotId") UUID depotId);
     
     List<ReservationStock> findByArticleIdAndDepotIdAndStatut(UUID articleId, UUID depotId, 
                                                              ReservationStock.ReservationStatus statut);
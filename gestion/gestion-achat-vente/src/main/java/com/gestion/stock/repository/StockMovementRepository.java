@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.MouvementDashboardDTO;
 import com.gestion.stock.entity.MovementType;
 import com.gestion.stock.entity.StockMovement;
 
@@ -24,6 +25,28 @@ public interface StockMovementRepository
 
        StockMovement findByReference(String reference);
 
+       // Journal complet (vue mouvements_stock_journal) : mouvements chauds et archive froide
+       // des périodes validées. Lecture seule.
+       @Query(value = "SELECT * FROM mouvements_stock_journal WHERE id = :id", nativeQuery = true)
+       Optional<StockMovement> findJournalById(@Param("id") UUID id);
+
+       @Query(value = "SELECT * FROM mouvements_stock_journal WHERE article_id = :articleId " +
+                     "ORDER BY date_mouvement DESC LIMIT :limite", nativeQuery = true)
+       List<StockMovement> findJournalArticle(@Param("articleId") UUID articleId, @Param("limite") int limite);
+
+       @Query(value = "SELECT * FROM mouvements_stock_journal WHERE article_id = :articleId " +
+                     "AND statut = 'VALIDE' ORDER BY date_mouvement DESC LIMIT :limite", nativeQuery = true)
+       List<StockMovement> findJournalArticleValide(@Param("articleId") UUID articleId, @Param("limite") int limite);
+
+       @Query(value = "SELECT * FROM mouvements_stock_journal WHERE lot_id = :lotId " +
+                     "ORDER BY date_mouvement DESC", nativeQuery = true)
+       List<StockMovement> findJournalLot(@Param("lotId") UUID lotId);
+
+       @Query(value = "SELECT * FROM mouvements_stock_journal WHERE utilisateur_id = :utilisateurId " +
+                     "AND date_comptable BETWEEN :debut AND :fin ORDER BY date_mouvement DESC", nativeQuery = true)
+       List<StockMovement> findJournalUtilisateur(@Param("utilisateurId") UUID utilisateurId,
+                     @Param("debut") LocalDate debut, @Param("fin") LocalDate fin);
+
        List<StockMovement> findByArticleIdAndDepotIdOrderByDateMouvementDesc(UUID articleId, UUID depotId);
 
        List<StockMovement> findByBonReceptionId(UUID bonReceptionId);
@@ -62,6 +85,17 @@ public interface StockMovementRepository
        // NEW: Method to get recent movements
        List<StockMovement> findTop10ByOrderByDateMouvementDesc();
 
+       String SELECT_MOUVEMENT_DASHBOARD = "SELECT new com.gestion.stock.dto.MouvementDashboardDTO(m.reference, " +
+                     "CAST(t.sens AS String), t.libelle, a.codeArticle, a.libelle, d.code, d.nom, m.quantite, " +
+                     "m.coutUnitaire, m.quantite * m.coutUnitaire, m.dateMouvement, CAST(m.statut AS String)) " +
+                     "FROM StockMovement m JOIN m.type t JOIN m.article a JOIN m.depot d ";
+
+       @Query(SELECT_MOUVEMENT_DASHBOARD + "ORDER BY m.dateMouvement DESC")
+       List<MouvementDashboardDTO> findDerniersDashboard(Pageable pageable);
+
+       @Query(SELECT_MOUVEMENT_DASHBOARD + "WHERE m.transfert.id = :transfertId ORDER BY m.dateMouvement")
+       List<MouvementDashboardDTO> findDashboardByTransfertId(@Param("transfertId") UUID transfertId);
+
        // NEW: Get movements by date range
        List<StockMovement> findByDateMouvementBetween(LocalDateTime start, LocalDateTime end);
 
@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.ArticleDisponibleDTO;
 import com.gestion.stock.entity.Stock;
 
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -110,11 +112,26 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
         @Query("SELECT s FROM Stock s WHERE s.article.id IN :articleIds")
         List<Stock> findByArticleIdIn(@Param("articleIds") List<UUID> articleIds);
 
+        // Disponible par article et dépôt actif : [0] articleId, [1] depotId, [2] quantiteDisponible
+        @Query("SELECT s.article.id, s.depot.id, s.quantiteTheorique - COALESCE(s.quantiteReservee, 0) " +
+                        "FROM Stock s WHERE s.article.id IN :articleIds AND s.depot.actif = true " +
+                        "AND s.quantiteTheorique > COALESCE(s.quantiteReservee, 0)")
+        List<Object[]> findDisponibilitesByArticleIdIn(@Param("articleIds") Collection<UUID> articleIds);
+
         @Query("SELECT s FROM Stock s WHERE s.depot.id = :depotId AND (s.quantiteTheorique - s.quantiteReservee) > :quantite")
         List<Stock> findByDepotIdAndQuantiteDisponibleGreaterThan(
                         @Param("depotId") UUID depotId,
                         @Param("quantite") int quantite);
 
+        @Query("SELECT new com.gestion.stock.dto.ArticleDisponibleDTO(a.id, a.codeArticle, a.libelle, c.id, c.libelle, " +
+                        "s.quantiteTheorique, s.quantiteReservee, a.stockMinimum, u.code, s.valeurStockCump) " +
+                        "FROM Stock s JOIN s.article a LEFT JOIN a.categorie c LEFT JOIN a.uniteMesure u " +
+                        "WHERE s.depot.id = :depotId AND (s.quantiteTheorique - s.quantiteReservee) > :quantite " +
+                        "ORDER BY a.libelle")
+        List<ArticleDisponibleDTO> findArticlesDisponiblesByDepotId(
+                        @Param("depotId") UUID depotId,
+                        @Param("quantite") int quantite);
+
         @Query("SELECT s FROM Stock s WHERE s.quantiteTheorique < :seuil")
         List<Stock> findByQuantiteTheoriqueLessThan(@Param("seuil") Integer seuil);
 
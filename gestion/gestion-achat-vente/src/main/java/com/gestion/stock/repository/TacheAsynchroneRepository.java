@@ -0,0 +1,74 @@
+package com.gestion.stock.repository;
+
+import com.gestion.stock.entity.TacheAsynchrone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface TacheAsynchroneRepository extends JpaRepository<TacheAsynchrone, UUID> {
+
+        Optional<TacheAsynchrone> findFirstByReferenceIdOrderByDateCreationDesc(UUID referenceId);
+
+        List<TacheAsynchrone> findTop50ByUtilisateurIdOrderByDateCreationDesc(UUID utilisateurId);
+
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.statut = 'EN_COURS', t.dateDebut = :date " +
+                        "WHERE t.id = :id AND t.statut = 'EN_ATTENTE'")
+        int demarrer(@Param("id") UUID id, @Param("date") LocalDateTime date);
+
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.progression = :progression, t.message = :message " +
+                        "WHERE t.id = :id AND t.statut = 'EN_COURS'")
+        int mettreAJourProgression(@Param("id") UUID id,
+                        @Param("progression") Integer progression,
+                        @Param("message") String message);
+
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.statut = :statut, t.progression = :progression, " +
+                        "t.message = :message, t.resultat = :resultat, t.dateFin = :date " +
+                        "WHERE t.id = :id")
+        int terminer(@Param("id") UUID id,
+                        @Param("statut") TacheAsynchrone.StatutTache statut,
+                        @Param("progression") Integer progression,
+                        @Param("message") String message,
+                        @Param("resultat") String resultat,
+                        @Param("date") LocalDateTime date);
+
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.datePulsation = :date " +
+                        "WHERE t.noeud = :noeud AND t.statut IN ('EN_ATTENTE', 'EN_COURS')")
+        int pulser(@Param("noeud") String noeud, @Param("date") LocalDateTime date);
+
+        // Tâches orphelines : celles de ce nœud au redémarrage, et celles dont la pulsation a expiré
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.statut = 'ECHEC', t.message = :message, t.dateFin = :date " +
+                        "WHERE t.statut IN ('EN_ATTENTE', 'EN_COURS') " +
+                        "AND (t.noeud = :noeud OR COALESCE(t.datePulsation, t.dateCreation) < :limite)")
+        int marquerInterrompues(@Param("noeud") String noeud,
+                        @Param("limite") LocalDateTime limite,
+                        @Param("message") String message,
+                        @Param("date") LocalDateTime date);
+
+        @Modifying
+        @Transactional
+        @Query("UPDATE TacheAsynchrone t SET t.statut = 'ECHEC', t.message = :message, t.dateFin = :date " +
+                        "WHERE t.statut IN ('EN_ATTENTE', 'EN_COURS') " +
+                        "AND COALESCE(t.datePulsation, t.dateCreation) < :limite")
+        int marquerExpirees(@Param("limite") LocalDateTime limite,
+                        @Param("message") String message,
+                        @Param("date") LocalDateTime date);
+}
@@ -1,5 +1,6 @@
 package com.gestion.stock.repository;
 
+import com.gestion.stock.dto.TransfertDetailDTO;
 import com.gestion.stock.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -7,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -27,6 +29,12 @@ public interface TransfertRepository extends JpaRepository<Transfert, UUID> {
         @Query("SELECT t FROM Transfert t WHERE t.depotSource.id = :depotId OR t.depotDestination.id = :depotId")
         List<Transfert> findByDepotId(@Param("depotId") UUID depotId);
 
+        @Query("SELECT new com.gestion.stock.dto.TransfertDetailDTO(t.id, t.reference, ds.id, ds.nom, dd.id, dd.nom, " +
+                        "t.dateDemande, t.dateExpedition, t.dateReceptionPrevue, t.dateReceptionReelle, t.statut, " +
+                        "t.motif, t.demandeurId, t.valideurId, t.dateValidation) " +
+                        "FROM Transfert t LEFT JOIN t.depotSource ds LEFT JOIN t.depotDestination dd WHERE t.id = :id")
+        Optional<TransfertDetailDTO> findDetailById(@Param("id") UUID id);
+
         @Query("SELECT COUNT(t) FROM Transfert t WHERE t.statut = :statut")
         long countByStatut(@Param("statut") Transfert.TransfertStatut statut);
 
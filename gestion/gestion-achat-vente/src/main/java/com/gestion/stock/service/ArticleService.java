@@ -1,6 +1,9 @@
 // ArticleService.java
 package com.gestion.stock.service;
 
+import com.gestion.login.config.VersionsReferentiel;
+import com.gestion.stock.dto.ArticleDto;
+import com.gestion.stock.dto.ArticleReferentielDTO;
 import com.gestion.stock.entity.Article;
 import com.gestion.stock.entity.CategorieArticle;
 import com.gestion.stock.entity.Lot;
@@ -13,6 +16,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +38,7 @@ public class ArticleService {
     private final LotRepository lotRepository;
     private final StockMovementRepository mouvementRepository;
     private final StockMovementRepository stockMovementRepository;
+    private final VersionsReferentiel versionsReferentiel;
 
     // Injection avec @Lazy pour éviter la dépendance circulaire
     @Autowired
@@ -274,6 +279,7 @@ public class ArticleService {
         article.setUpdatedAt(LocalDateTime.now());
 
         Article articleSauvegarde = articleRepository.save(article);
+        versionsReferentiel.signalerEcriture();
         log.info("Article {}: {}", isCreation ? "créé" : "modifié", articleSauvegarde.getCodeArticle());
 
         return articleSauvegarde;
@@ -284,6 +290,7 @@ public class ArticleService {
         Article article = getArticleById(articleId);
         article.setActif(!article.isActif());
         articleRepository.save(article);
+        versionsReferentiel.signalerEcriture();
 
         log.info("Article {} {}: {}", article.getCodeArticle(),
                 article.isActif() ? "activé" : "désactivé", articleId);
@@ -294,7 +301,7 @@ public class ArticleService {
     }
 
     public List<StockMovement> getHistoriqueArticle(UUID articleId, int jours) {
-        return mouvementRepository.getHistoriqueArticle(articleId, jours);
+        return mouvementRepository.findJournalArticleValide(articleId, jours);
     }
 
     public List<CategorieArticle> getCategoriesActives() {
@@ -440,6 +447,32 @@ public class ArticleService {
         return result;
     }
 
+    /**
+     * Recherche d'articles actifs pour l'API d'autocomplétion, projetée en base
+     */
+    public List<ArticleDto> searchArticlesDto(String searchTerm, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(limit, 1));
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            return articleRepository.searchDtoActifs(searchTerm.trim(), page);
+        }
+        return articleRepository.findDtoActifs(page);
+    }
+
+    public List<ArticleDto> getArticlesActifsDto(int limit) {
+        return articleRepository.findDtoActifs(PageRequest.of(0, Math.max(limit, 1)));
+    }
+
+    public Optional<ArticleDto> getArticleDtoById(UUID id) {
+        return articleRepository.findDtoById(id);
+    }
+
+    /**
+     * Tous les articles (actifs ou non) pour les listes de choix des formulaires
+     */
+    public List<ArticleReferentielDTO> getReferentielArticles() {
+        return articleRepository.findReferentiel();
+    }
+
     // Ajoutez cette méthode dans ArticleService.java
     public List<Article> searchArticles(String searchTerm, int limit) {
         // Utiliser la méthode du repository si elle existe
@@ -0,0 +1,317 @@
+package com.gestion.stock.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exécution unique des traitements planifiés quand plusieurs nœuds tournent derrière
+ * le répartiteur de charge (baux {@code jobs_baux}, PARTIE 22 du schéma).
+ *
+ * Chaque nœud déclenche ses {@code @Scheduled} comme avant, puis passe par ce service :
+ * le créneau (heure cron de déclenchement, identique sur tous les nœuds) n'est pris que
+ * par un seul d'entre eux, par un {@code INSERT ... ON CONFLICT DO UPDATE ... WHERE}
+ * atomique. Un créneau terminé n'est plus repris ; un bail expiré (nœud disparu) peut
+ * l'être. Les traitements fragmentés (par plage d'articles ou de dépôts) prennent un bail
+ * par fragment : les nœuds se répartissent le travail d'un même créneau.
+ *
+ * Chaque exécution est historisée dans {@code jobs_executions} (durée, lignes traitées).
+ *
+ * Les traitements à intervalle court (consommation de l'outbox toutes les secondes) n'ont
+ * pas de créneau : un nœud détient leur bail tant qu'il le renouvelle, un autre le reprend
+ * à son expiration ({@link #executerPeriodique}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BailJobService {
+
+    /** Écart d'horloge toléré entre nœuds pour rattacher un déclenchement à son créneau */
+    private static final int TOLERANCE_SECONDES = 60;
+
+    private static final String SQL_ACQUERIR = """
+            INSERT INTO jobs_baux AS b (nom, fragment, detenteur, expire_le, creneau, date_maj)
+            VALUES (?, ?, ?, CURRENT_TIMESTAMP + make_interval(mins => ?), ?, CURRENT_TIMESTAMP)
+            ON CONFLICT (nom, fragment) DO UPDATE SET
+                detenteur = EXCLUDED.detenteur,
+                expire_le = EXCLUDED.expire_le,
+                creneau = EXCLUDED.creneau,
+                date_maj = EXCLUDED.date_maj
+            WHERE (b.creneau_termine IS NULL OR b.creneau_termine < EXCLUDED.creneau)
+              AND (b.expire_le IS NULL OR b.expire_le < CURRENT_TIMESTAMP)
+            RETURNING b.nom
+            """;
+
+    private static final String SQL_TENIR = """
+            INSERT INTO jobs_baux AS b (nom, fragment, detenteur, expire_le, date_maj)
+            VALUES (?, 0, ?, CURRENT_TIMESTAMP + make_interval(secs => ?), CURRENT_TIMESTAMP)
+            ON CONFLICT (nom, fragment) DO UPDATE SET
+                detenteur = EXCLUDED.detenteur,
+                expire_le = EXCLUDED.expire_le,
+                date_maj = EXCLUDED.date_maj
+            WHERE b.detenteur = EXCLUDED.detenteur
+               OR b.detenteur IS NULL
+               OR b.expire_le < CURRENT_TIMESTAMP
+            RETURNING b.nom
+            """;
+
+    private static final String SQL_LIBERER = """
+            UPDATE jobs_baux SET
+                detenteur = NULL,
+                expire_le = NULL,
+                creneau_termine = CASE WHEN ? THEN creneau ELSE creneau_termine END,
+                date_maj = CURRENT_TIMESTAMP
+            WHERE nom = ? AND fragment = ? AND detenteur = ?
+            """;
+
+    /**
+     * Fragment d'un traitement : index parmi {@code nombre}. Le prédicat répartit les
+     * lignes par hachage de la colonne (article, dépôt) pour des fragments équilibrés.
+     */
+    public record Fragment(int index, int nombre) {
+
+        public String predicat(String colonne) {
+            return nombre <= 1 ? "TRUE"
+                    : "mod(abs(hashtext(" + colonne + "::text)), " + nombre + ") = " + index;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+
+    private final String noeud = ManagementFactory.getRuntimeMXBean().getName();
+
+    /** Baux périodiques détenus : nom → prochain renouvellement (System.nanoTime) */
+    private final Map<String, Long> bauxDetenus = new ConcurrentHashMap<>();
+    /** Baux périodiques d'un autre nœud : nom → prochaine tentative (System.nanoTime) */
+    private final Map<String, Long> prochainesTentatives = new ConcurrentHashMap<>();
+
+    /**
+     * Exécuter un traitement non fragmenté si ce nœud obtient le créneau.
+     *
+     * @param cron        expression du {@code @Scheduled} appelant (détermine le créneau)
+     * @param traitement  retourne le nombre de lignes traitées
+     * @return true si le traitement a été exécuté par ce nœud
+     */
+    public boolean executer(String nom, String cron, ToIntFunction<Fragment> traitement) {
+        return executerFragmente(nom, cron, 1, traitement) > 0;
+    }
+
+    /**
+     * Exécuter les fragments d'un traitement dont ce nœud obtient le bail. Les fragments
+     * sont parcourus à partir d'un rang aléatoire pour que les nœuds ne se disputent pas
+     * toujours les mêmes.
+     *
+     * @return nombre de fragments exécutés par ce nœud
+     */
+    public int executerFragmente(String nom, String cron, int fragments, ToIntFunction<Fragment> traitement) {
+        LocalDateTime creneau = creneau(cron);
+        int debut = fragments > 1 ? ThreadLocalRandom.current().nextInt(fragments) : 0;
+        int executes = 0;
+        for (int i = 0; i < fragments; i++) {
+            Fragment fragment = new Fragment((debut + i) % fragments, fragments);
+            if (!acquerir(nom, fragment.index(), creneau)) {
+                continue;
+            }
+            executes++;
+            executerSousBail(nom, fragment, creneau, traitement);
+        }
+        if (executes == 0) {
+            log.debug("Traitement {} ({}) pris par un autre nœud", nom, creneau);
+        }
+        return executes;
+    }
+
+    private void executerSousBail(String nom, Fragment fragment, LocalDateTime creneau,
+                                  ToIntFunction<Fragment> traitement) {
+        long execution = debuterExecution(nom, fragment, creneau);
+        long debut = System.currentTimeMillis();
+        boolean succes = false;
+        try {
+            int lignes = traitement.applyAsInt(fragment);
+            succes = true;
+            long duree = System.currentTimeMillis() - debut;
+            terminerExecution(execution, "TERMINEE", lignes, duree, null);
+            log.info("Traitement {} [{}/{}] terminé sur {} : {} ligne(s) en {} ms",
+                    nom, fragment.index() + 1, fragment.nombre(), noeud, lignes, duree);
+        } catch (Exception e) {
+            terminerExecution(execution, "ECHEC", null, System.currentTimeMillis() - debut, e.getMessage());
+            log.error("Traitement {} [{}/{}] en échec: {}", nom, fragment.index() + 1, fragment.nombre(),
+                    e.getMessage(), e);
+        } finally {
+            jdbcTemplate.update(SQL_LIBERER, succes, nom, fragment.index(), noeud);
+        }
+    }
+
+    /**
+     * Exécuter un passage d'un traitement à intervalle court si ce nœud en détient le bail.
+     *
+     * Le bail dure {@code gestion.jobs.duree-bail-periodique-secondes} ; il est renouvelé
+     * (et les autres nœuds retentent de le prendre) tous les tiers de cette durée, pas à chaque
+     * passage. Sans historique par passage : une erreur remonte à l'appelant. Un passage plus
+     * long que le bail peut chevaucher celui du nœud qui le reprend : les traitements concernés
+     * gardent leur verrou consultatif.
+     *
+     * @return true si le passage a été exécuté par ce nœud
+     */
+    public boolean executerPeriodique(String nom, Runnable traitement) {
+        if (!detenir(nom)) {
+            return false;
+        }
+        traitement.run();
+        return true;
+    }
+
+    private boolean detenir(String nom) {
+        long maintenant = System.nanoTime();
+        Long renouvellement = bauxDetenus.get(nom);
+        if (renouvellement != null && maintenant - renouvellement < 0) {
+            return true;
+        }
+        Long tentative = prochainesTentatives.get(nom);
+        if (renouvellement == null && tentative != null && maintenant - tentative < 0) {
+            return false;
+        }
+        int duree = environment.getProperty("gestion.jobs.duree-bail-periodique-secondes", Integer.class, 30);
+        long tiers = TimeUnit.SECONDS.toNanos(duree) / 3;
+        boolean obtenu = !jdbcTemplate.queryForList(SQL_TENIR, String.class, nom, noeud, duree).isEmpty();
+        if (obtenu) {
+            if (renouvellement == null) {
+                log.info("Traitement {} pris en charge par {}", nom, noeud);
+            }
+            bauxDetenus.put(nom, maintenant + tiers);
+            prochainesTentatives.remove(nom);
+        } else {
+            if (renouvellement != null) {
+                log.warn("Traitement {} repris par un autre nœud", nom);
+            }
+            bauxDetenus.remove(nom);
+            prochainesTentatives.put(nom, maintenant + tiers);
+        }
+        return obtenu;
+    }
+
+    /**
+     * Rendre les baux périodiques à l'arrêt : un autre nœud les reprend sans attendre l'expiration
+     */
+    @PreDestroy
+    void libererBauxPeriodiques() {
+        for (String nom : bauxDetenus.keySet()) {
+            try {
+                jdbcTemplate.update("UPDATE jobs_baux SET detenteur = NULL, expire_le = NULL, " +
+                        "date_maj = CURRENT_TIMESTAMP WHERE nom = ? AND fragment = 0 AND detenteur = ?", nom, noeud);
+            } catch (Exception e) {
+                log.warn("Bail {} non libéré: {}", nom, e.getMessage());
+            }
+        }
+        bauxDetenus.clear();
+    }
+
+    private boolean acquerir(String nom, int fragment, LocalDateTime creneau) {
+        int dureeBail = environment.getProperty("gestion.jobs.duree-bail-minutes", Integer.class, 60);
+        return !jdbcTemplate.queryForList(SQL_ACQUERIR, String.class,
+                nom, fragment, noeud, dureeBail, Timestamp.valueOf(creneau)).isEmpty();
+    }
+
+    private long debuterExecution(String nom, Fragment fragment, LocalDateTime creneau) {
+        KeyHolder cle = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO jobs_executions (nom, fragment, nombre_fragments, noeud, creneau) " +
+                    "VALUES (?, ?, ?, ?, ?)", new String[] {"id"});
+            ps.setString(1, nom);
+            ps.setInt(2, fragment.index());
+            ps.setInt(3, fragment.nombre());
+            ps.setString(4, noeud);
+            ps.setTimestamp(5, Timestamp.valueOf(creneau));
+            return ps;
+        }, cle);
+        return cle.getKey().longValue();
+    }
+
+    private void terminerExecution(long execution, String statut, Integer lignes, long duree, String message) {
+        jdbcTemplate.update("""
+                UPDATE jobs_executions
+                SET statut = ?, lignes_traitees = ?, duree_ms = ?, message = ?, date_fin = CURRENT_TIMESTAMP
+                WHERE id = ?
+                """, statut, lignes, duree, message, execution);
+    }
+
+    /**
+     * Créneau d'un déclenchement : heure cron la plus récente, à l'écart d'horloge près
+     * (les périodes cron doivent dépasser deux fois la tolérance). Hors cron (lancement
+     * manuel), la minute courante.
+     */
+    LocalDateTime creneau(String cron) {
+        LocalDateTime maintenant = LocalDateTime.now().withNano(0);
+        LocalDateTime creneau = CronExpression.parse(cron).next(maintenant.minusSeconds(TOLERANCE_SECONDES));
+        if (creneau == null || creneau.isAfter(maintenant.plusSeconds(TOLERANCE_SECONDES))) {
+            return maintenant.withSecond(0);
+        }
+        return creneau;
+    }
+
+    /**
+     * Baux en cours et derniers créneaux exécutés
+     */
+    public List<Map<String, Object>> getBaux() {
+        return jdbcTemplate.query("""
+                SELECT nom, fragment, detenteur, expire_le, creneau, creneau_termine
+                FROM jobs_baux
+                ORDER BY nom, fragment
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("nom", rs.getString(1));
+            map.put("fragment", rs.getInt(2));
+            map.put("detenteur", rs.getString(3));
+            map.put("expireLe", rs.getTimestamp(4));
+            map.put("creneau", rs.getTimestamp(5));
+            map.put("creneauTermine", rs.getTimestamp(6));
+            return map;
+        });
+    }
+
+    /**
+     * Historique des exécutions (tous traitements si nom null)
+     */
+    public List<Map<String, Object>> getHistorique(String nom, int limite) {
+        return jdbcTemplate.query("""
+                SELECT nom, fragment, nombre_fragments, noeud, creneau, statut, lignes_traitees,
+                       duree_ms, message, date_debut, date_fin
+                FROM jobs_executions
+                WHERE (CAST(? AS VARCHAR) IS NULL OR nom = ?)
+                ORDER BY date_debut DESC
+                LIMIT ?
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("nom", rs.getString(1));
+            map.put("fragment", rs.getInt(2));
+            map.put("nombreFragments", rs.getInt(3));
+            map.put("noeud", rs.getString(4));
+            map.put("creneau", rs.getTimestamp(5));
+            map.put("statut", rs.getString(6));
+            map.put("lignesTraitees", rs.getObject(7));
+            map.put("dureeMs", rs.getObject(8));
+            map.put("message", rs.getString(9));
+            map.put("dateDebut", rs.getTimestamp(10));
+            map.put("dateFin", rs.getTimestamp(11));
+            return map;
+        }, nom, nom, limite);
+    }
+}
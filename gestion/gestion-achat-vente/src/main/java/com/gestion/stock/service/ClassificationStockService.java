@@ -0,0 +1,275 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Classification ABC / XYZ par article et dépôt, persistée dans {@code classification_stock}.
+ *
+ * <ul>
+ *   <li>ABC : Pareto sur la valeur du stock du dépôt (cumul ≤ 80 % → A, ≤ 95 % → B, sinon C),
+ *       rang et cumul calculés par fonctions de fenêtrage ;</li>
+ *   <li>XYZ : coefficient de variation des sorties hebdomadaires sur
+ *       {@code gestion.classification.semaines} semaines (≤ 0,5 → X, ≤ 1 → Y, sinon ou sans
+ *       demande → Z), moyenne et variance calculées en une agrégation.</li>
+ * </ul>
+ * Recalcul complet chaque nuit, et incrémental chaque heure pour les seuls dépôts ayant eu
+ * des mouvements depuis leur dernier calcul ; chaque créneau n'est exécuté que par un nœud
+ * ({@link BailJobService}). Les rapports et les inventaires tournants par classe
+ * ({@link InventaireService}) lisent la table sans recalcul.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassificationStockService {
+
+    private static final String SQL_CLASSIFIER = """
+            WITH stocks_perimetre AS (
+                SELECT s.article_id, s.depot_id,
+                       COALESCE(s.quantite_theorique, 0) AS quantite,
+                       COALESCE(s.valeur_stock_cump, 0) AS valeur
+                FROM stocks s
+                WHERE (CAST(:depotId AS UUID) IS NULL OR s.depot_id = :depotId)
+            ), pareto AS (
+                SELECT sp.*,
+                       ROW_NUMBER() OVER w AS rang,
+                       SUM(valeur) OVER (PARTITION BY depot_id) AS total,
+                       SUM(valeur) OVER (w ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW) AS cumul
+                FROM stocks_perimetre sp
+                WINDOW w AS (PARTITION BY depot_id ORDER BY valeur DESC, article_id)
+            ), sorties_semaine AS (
+                SELECT m.article_id, m.depot_id, date_trunc('week', m.date_comptable) AS semaine,
+                       SUM(m.quantite) AS quantite
+                FROM mouvements_stock_journal m
+                JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                WHERE t.sens = 'SORTIE' AND m.statut = 'VALIDE' AND m.date_comptable >= :debut
+                  AND (CAST(:depotId AS UUID) IS NULL OR m.depot_id = :depotId)
+                GROUP BY 1, 2, 3
+            ), demande AS (
+                SELECT article_id, depot_id,
+                       SUM(quantite) AS total,
+                       SUM(quantite::NUMERIC * quantite) AS carres
+                FROM sorties_semaine
+                GROUP BY article_id, depot_id
+            ), calcul AS (
+                SELECT p.article_id, p.depot_id, p.rang, p.quantite, p.valeur,
+                       CASE WHEN p.total > 0 THEN p.valeur * 100 / p.total ELSE 0 END AS part,
+                       CASE WHEN p.total > 0 THEN p.cumul * 100 / p.total ELSE 100 END AS part_cumulee,
+                       COALESCE(d.total, 0) AS sorties,
+                       COALESCE(d.total, 0)::NUMERIC / :semaines AS moyenne,
+                       SQRT(GREATEST(COALESCE(d.carres, 0) / :semaines
+                                     - POWER(COALESCE(d.total, 0)::NUMERIC / :semaines, 2), 0)) AS ecart
+                FROM pareto p
+                LEFT JOIN demande d ON d.article_id = p.article_id AND d.depot_id = p.depot_id
+            )
+            INSERT INTO classification_stock (article_id, depot_id, classe_abc, classe_xyz, rang, quantite,
+                    valeur_stock, part_valeur, part_cumulee, sorties_periode, demande_moyenne, ecart_type,
+                    coefficient_variation, date_calcul)
+            SELECT article_id, depot_id,
+                   CASE WHEN part_cumulee <= :seuilA THEN 'A' WHEN part_cumulee <= :seuilB THEN 'B' ELSE 'C' END,
+                   CASE WHEN moyenne = 0 THEN 'Z'
+                        WHEN ecart / moyenne <= :seuilX THEN 'X'
+                        WHEN ecart / moyenne <= :seuilY THEN 'Y' ELSE 'Z' END,
+                   rang, quantite, valeur, part, part_cumulee, sorties, moyenne, ecart,
+                   CASE WHEN moyenne > 0 THEN ecart / moyenne END,
+                   CURRENT_TIMESTAMP
+            FROM calcul
+            ON CONFLICT (article_id, depot_id) DO UPDATE SET
+                classe_abc = EXCLUDED.classe_abc,
+                classe_xyz = EXCLUDED.classe_xyz,
+                rang = EXCLUDED.rang,
+                quantite = EXCLUDED.quantite,
+                valeur_stock = EXCLUDED.valeur_stock,
+                part_valeur = EXCLUDED.part_valeur,
+                part_cumulee = EXCLUDED.part_cumulee,
+                sorties_periode = EXCLUDED.sorties_periode,
+                demande_moyenne = EXCLUDED.demande_moyenne,
+                ecart_type = EXCLUDED.ecart_type,
+                coefficient_variation = EXCLUDED.coefficient_variation,
+                date_calcul = EXCLUDED.date_calcul
+            """;
+
+    private static final String SQL_DEPOTS_MODIFIES = """
+            SELECT d.id
+            FROM depots d
+            LEFT JOIN (SELECT depot_id, MAX(date_calcul) AS date_calcul
+                       FROM classification_stock GROUP BY depot_id) c ON c.depot_id = d.id
+            WHERE c.depot_id IS NULL
+               OR EXISTS (SELECT 1 FROM mouvements_stock m
+                          WHERE m.depot_id = d.id AND m.date_mouvement > c.date_calcul)
+            """;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+
+    static final String CRON_COMPLET = "0 30 1 * * *"; // Tous les jours à 1h30
+    static final String CRON_INCREMENTAL = "0 45 * * * *"; // Toutes les heures
+
+    /**
+     * Recalcul complet (la variabilité évolue même sans mouvement), un seul nœud par créneau
+     */
+    @Scheduled(cron = CRON_COMPLET)
+    public void recalculerTout() {
+        bailJobService.executer("classification-complete", CRON_COMPLET, fragment -> recalculer(null));
+    }
+
+    /**
+     * Recalcul des dépôts modifiés depuis leur dernier calcul, un seul nœud par créneau
+     */
+    @Scheduled(cron = CRON_INCREMENTAL)
+    public void recalculerIncremental() {
+        bailJobService.executer("classification-incrementale", CRON_INCREMENTAL,
+                fragment -> recalculerDepotsModifies());
+    }
+
+    /**
+     * Recalculer la classification d'un dépôt (ou de tous si null).
+     *
+     * @return nombre de couples article / dépôt classés
+     */
+    public int recalculer(UUID depotId) {
+        int semaines = environment.getProperty("gestion.classification.semaines", Integer.class, 26);
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("depotId", depotId)
+                .addValue("debut", Date.valueOf(LocalDate.now().minusWeeks(semaines)))
+                .addValue("semaines", semaines)
+                .addValue("seuilA", environment.getProperty("gestion.classification.seuil-a", BigDecimal.class, new BigDecimal("80")))
+                .addValue("seuilB", environment.getProperty("gestion.classification.seuil-b", BigDecimal.class, new BigDecimal("95")))
+                .addValue("seuilX", environment.getProperty("gestion.classification.seuil-x", BigDecimal.class, new BigDecimal("0.5")))
+                .addValue("seuilY", environment.getProperty("gestion.classification.seuil-y", BigDecimal.class, BigDecimal.ONE));
+
+        long debut = System.currentTimeMillis();
+        Integer classes = new TransactionTemplate(transactionManager).execute(status -> {
+            // Couples disparus du périmètre
+            namedJdbcTemplate.update("""
+                    DELETE FROM classification_stock c
+                    WHERE (CAST(:depotId AS UUID) IS NULL OR c.depot_id = :depotId)
+                      AND NOT EXISTS (SELECT 1 FROM stocks s
+                                      WHERE s.article_id = c.article_id AND s.depot_id = c.depot_id)
+                    """, parametres);
+            return namedJdbcTemplate.update(SQL_CLASSIFIER, parametres);
+        });
+        log.info("Classification ABC/XYZ {}: {} ligne(s) en {} ms",
+                depotId != null ? "du dépôt " + depotId : "complète", classes, System.currentTimeMillis() - debut);
+        return classes != null ? classes : 0;
+    }
+
+    /**
+     * Recalcul incrémental : dépôts jamais classés ou ayant eu des mouvements depuis leur calcul.
+     */
+    public int recalculerDepotsModifies() {
+        List<UUID> depots = namedJdbcTemplate.getJdbcTemplate().queryForList(SQL_DEPOTS_MODIFIES, UUID.class);
+        int total = 0;
+        for (UUID depotId : depots) {
+            total += recalculer(depotId);
+        }
+        return total;
+    }
+
+    /**
+     * Classification d'un dépôt (ou de tous), par rang de valeur.
+     * Mêmes clés que les anciennes analyses ABC, complétées des indicateurs XYZ.
+     */
+    public List<Map<String, Object>> getClassification(UUID depotId) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource("depotId", depotId);
+        return namedJdbcTemplate.query("""
+                SELECT c.*, a.code_article, a.libelle, d.nom AS depot_nom
+                FROM classification_stock c
+                JOIN articles a ON a.id = c.article_id
+                JOIN depots d ON d.id = c.depot_id
+                WHERE (CAST(:depotId AS UUID) IS NULL OR c.depot_id = :depotId)
+                ORDER BY d.nom, c.rang
+                """, parametres, (rs, i) -> {
+            Map<String, Object> item = new HashMap<>();
+            int quantite = rs.getInt("quantite");
+            long sorties = rs.getLong("sorties_periode");
+            item.put("articleId", rs.getObject("article_id", UUID.class));
+            item.put("depotId", rs.getObject("depot_id", UUID.class));
+            item.put("articleCode", rs.getString("code_article"));
+            item.put("articleLibelle", rs.getString("libelle"));
+            item.put("depot", rs.getString("depot_nom"));
+            item.put("rang", rs.getInt("rang"));
+            item.put("quantite", quantite);
+            item.put("valeurStock", rs.getBigDecimal("valeur_stock"));
+            item.put("pourcentageValeur", rs.getBigDecimal("part_valeur"));
+            item.put("pourcentageCumule", rs.getBigDecimal("part_cumulee"));
+            item.put("classeABC", rs.getString("classe_abc"));
+            item.put("classeXYZ", rs.getString("classe_xyz"));
+            item.put("classe", rs.getString("classe_abc") + rs.getString("classe_xyz"));
+            item.put("sortiesPeriode", sorties);
+            item.put("demandeMoyenne", rs.getBigDecimal("demande_moyenne"));
+            item.put("ecartType", rs.getBigDecimal("ecart_type"));
+            item.put("coefficientVariation", rs.getBigDecimal("coefficient_variation"));
+            item.put("rotation", quantite > 0
+                    ? BigDecimal.valueOf(sorties).divide(BigDecimal.valueOf(quantite), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO);
+            item.put("dateCalcul", rs.getTimestamp("date_calcul").toLocalDateTime());
+            return item;
+        });
+    }
+
+    /**
+     * Rotation par article / dépôt sur les {@code periodeMois} derniers mois (sorties / stock),
+     * en une agrégation : articles actifs en stock, par rotation décroissante.
+     */
+    public List<Map<String, Object>> getRotation(int periodeMois) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("debut", Date.valueOf(LocalDate.now().minusMonths(periodeMois)));
+        return namedJdbcTemplate.query("""
+                WITH sorties AS (
+                    SELECT m.article_id, m.depot_id, SUM(m.quantite) AS quantite
+                    FROM mouvements_stock_journal m
+                    JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                    WHERE t.sens = 'SORTIE' AND m.statut = 'VALIDE' AND m.date_comptable >= :debut
+                    GROUP BY m.article_id, m.depot_id
+                )
+                SELECT a.code_article, a.libelle, d.nom AS depot_nom, s.quantite_theorique,
+                       COALESCE(so.quantite, 0) AS sorties
+                FROM stocks s
+                JOIN articles a ON a.id = s.article_id AND a.actif = TRUE
+                JOIN depots d ON d.id = s.depot_id
+                LEFT JOIN sorties so ON so.article_id = s.article_id AND so.depot_id = s.depot_id
+                WHERE s.quantite_theorique > 0
+                ORDER BY COALESCE(so.quantite, 0)::NUMERIC / s.quantite_theorique DESC, a.code_article
+                """, parametres, (rs, i) -> {
+            Map<String, Object> rotation = new HashMap<>();
+            int stockMoyen = rs.getInt("quantite_theorique");
+            long sorties = rs.getLong("sorties");
+            rotation.put("articleCode", rs.getString("code_article"));
+            rotation.put("articleLibelle", rs.getString("libelle"));
+            rotation.put("depot", rs.getString("depot_nom"));
+            rotation.put("stockMoyen", stockMoyen);
+            rotation.put("sorties", sorties);
+            rotation.put("rotation", BigDecimal.valueOf(sorties)
+                    .divide(BigDecimal.valueOf(stockMoyen), 2, RoundingMode.HALF_UP));
+            rotation.put("periodeMois", periodeMois);
+            return rotation;
+        });
+    }
+
+    /**
+     * Articles d'une classe ABC dans un dépôt (sélection des inventaires tournants par classe)
+     */
+    public List<UUID> getArticlesParClasse(UUID depotId, String classeABC) {
+        return namedJdbcTemplate.queryForList("""
+                SELECT article_id FROM classification_stock
+                WHERE depot_id = :depotId AND classe_abc = :classe
+                ORDER BY rang
+                """, new MapSqlParameterSource("depotId", depotId).addValue("classe", classeABC), UUID.class);
+    }
+}
@@ -2,6 +2,7 @@ package com.gestion.stock.service;
 
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -16,7 +17,6 @@ import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +34,8 @@ public class ClotureService {
     private final ValorisationService valorisationService;
     private final ReportingService reportingService;
     private final UtilisateurRepository utilisateurRepository;
+    private final TacheAsynchroneService tacheService;
+    private final EtatStockADateService etatStockADateService;
 
     private static final DateTimeFormatter FORMATTER_MOIS = DateTimeFormatter.ofPattern("MM/yyyy");
 
@@ -85,6 +87,7 @@ public class ClotureService {
      * Exécuter la clôture mensuelle complète
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "cloture"}, histogram = true)
     public ClotureMensuelle executerCloture(UUID clotureId, UUID utilisateurId) {
         log.info("Exécution clôture ID: {} par utilisateur: {}", clotureId, utilisateurId);
 
@@ -115,6 +118,11 @@ public class ClotureService {
             int totalHistoriques = 0;
             BigDecimal valeurTotaleStock = BigDecimal.ZERO;
 
+            // L'instantané vaut à la fin de période : les mouvements datés après (saisis entre la
+            // fin du mois et l'exécution de la clôture) sont retranchés du stock courant
+            Map<List<UUID>, EtatStockADateService.Solde> posterieurs =
+                    etatStockADateService.getMouvementsPosterieurs(cloture.getDateFinPeriode());
+
             // 4. Pour chaque article, calculer et sauvegarder l'historique
             for (Map.Entry<UUID, Map<UUID, Stock>> entry : stocksByArticle.entrySet()) {
                 UUID articleId = entry.getKey();
@@ -124,8 +132,10 @@ public class ClotureService {
                 for (Stock stock : entry.getValue().values()) {
                     try {
                         // Calculer la valorisation selon la méthode
+                        EtatStockADateService.Solde apres = posterieurs.getOrDefault(
+                                List.of(articleId, stock.getDepot().getId()), EtatStockADateService.Solde.NUL);
                         BigDecimal valorisation = calculerValorisationPourCloture(
-                                article, stock, cloture.getDateFinPeriode());
+                                article, stock, cloture.getDateFinPeriode()).subtract(apres.valeur());
 
                         // Créer l'historique
                         HistoriqueCout historique = HistoriqueCout.builder()
@@ -133,7 +143,7 @@ public class ClotureService {
                                 .depot(stock.getDepot())
                                 .dateEffet(cloture.getDateFinPeriode())
                                 .coutUnitaireMoyen(stock.getCoutUnitaireMoyen())
-                                .quantiteStock(stock.getQuantiteTheorique())
+                                .quantiteStock(stock.getQuantiteTheorique() - apres.quantite())
                                 .valeurStock(valorisation)
                                 .methodeValorisation(article.getMethodeValorisation())
                                 .clotureMensuelle(cloture)
@@ -188,8 +198,9 @@ public class ClotureService {
             log.info("Clôture {} terminée avec succès. Valeur totale: {} Ar",
                     cloture.getPeriodeFormat(), valeurTotaleStock);
 
-            // 8. Générer les rapports (asynchrone)
-            CompletableFuture.runAsync(() -> genererRapportsCloture(clotureFinalisee, utilisateurId));
+            // 8. Générer les rapports en tâche de fond (démarrée après le commit)
+            tacheService.soumettre(TacheAsynchrone.TypeTache.RAPPORTS_CLOTURE, clotureFinalisee.getId(),
+                    utilisateurId, contexte -> genererRapportsCloture(clotureFinalisee.getId(), contexte));
 
             return cloture;
 
@@ -307,6 +318,7 @@ public class ClotureService {
      * Valider une clôture (par la direction)
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "cloture.validation"}, histogram = true)
     public ClotureMensuelle validerCloture(UUID clotureId, UUID valideurId, String commentaires) {
         ClotureMensuelle cloture = clotureRepository.findById(clotureId)
                 .orElseThrow(() -> new RuntimeException("Clôture non trouvée"));
@@ -348,35 +360,33 @@ public class ClotureService {
     }
 
     /**
-     * Générer les rapports de clôture (asynchrone)
+     * Générer les rapports de clôture (tâche de fond RAPPORTS_CLOTURE)
      */
-    private void genererRapportsCloture(ClotureMensuelle cloture, UUID utilisateurId) {
-        try {
-            log.info("Génération des rapports pour la clôture {}", cloture.getPeriodeFormat());
-
-            List<String> rapports = new ArrayList<>();
+    private String genererRapportsCloture(UUID clotureId, TacheAsynchroneService.ContexteTache contexte) {
+        ClotureMensuelle cloture = clotureRepository.findById(clotureId)
+                .orElseThrow(() -> new RuntimeException("Clôture non trouvée"));
+        log.info("Génération des rapports pour la clôture {}", cloture.getPeriodeFormat());
 
-            // 1. Rapport de valorisation
-            String rapportValorisation = genererRapportValorisation(cloture);
-            rapports.add(rapportValorisation);
+        List<String> rapports = new ArrayList<>();
 
-            // 2. Rapport des écarts
-            String rapportEcart = genererRapportEcart(cloture);
-            rapports.add(rapportEcart);
+        // 1. Rapport de valorisation
+        contexte.progression(0, "Rapport de valorisation");
+        rapports.add(genererRapportValorisation(cloture));
 
-            // 3. Rapport des mouvements
-            String rapportMouvements = genererRapportMouvements(cloture);
-            rapports.add(rapportMouvements);
+        // 2. Rapport des écarts
+        contexte.progression(33, "Rapport des écarts");
+        rapports.add(genererRapportEcart(cloture));
 
-            // Sauvegarder les chemins des rapports
-            cloture.setRapportGeneres(String.join(";", rapports));
-            clotureRepository.save(cloture);
+        // 3. Rapport des mouvements
+        contexte.progression(66, "Rapport des mouvements");
+        rapports.add(genererRapportMouvements(cloture));
 
-            log.info("Rapports générés avec succès pour {}", cloture.getPeriodeFormat());
+        // Sauvegarder les chemins des rapports
+        cloture.setRapportGeneres(String.join(";", rapports));
+        clotureRepository.save(cloture);
 
-        } catch (Exception e) {
-            log.error("Erreur lors de la génération des rapports: {}", e.getMessage(), e);
-        }
+        log.info("Rapports générés avec succès pour {}", cloture.getPeriodeFormat());
+        return cloture.getRapportGeneres();
     }
 
     /**
@@ -412,10 +422,12 @@ public class ClotureService {
     }
 
     /**
-     * Obtenir le coût unitaire à une date donnée
+     * Obtenir le coût unitaire à une date donnée (instantané de clôture + mouvements du mois)
      */
     public Optional<BigDecimal> getCoutUnitaireAtDate(UUID articleId, UUID depotId, LocalDate date) {
-        return historiqueRepository.findCoutUnitaireAtDate(articleId, depotId, date);
+        return etatStockADateService.getEtatArticle(articleId, depotId, date)
+                .map(etat -> (BigDecimal) etat.get("coutUnitaire"))
+                .or(() -> historiqueRepository.findCoutUnitaireAtDate(articleId, depotId, date));
     }
 
     /**
@@ -0,0 +1,227 @@
+package com.gestion.stock.service;
+
+import com.gestion.stock.service.NotificationService.Alerte;
+import com.gestion.stock.service.NotificationService.NotificationType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * File persistée des notifications et diffusion par digests.
+ *
+ * Chaque notification est enregistrée par destinataire sous une clé de déduplication
+ * (type + article + dépôt + jour) : une vérification périodique qui retrouve la même
+ * condition le même jour incrémente {@code occurrences} au lieu de notifier à nouveau.
+ *
+ * Un diffuseur planifié vide la file par lots ({@code FOR UPDATE SKIP LOCKED}) et produit
+ * un seul digest par utilisateur et par passage : une rafale d'alertes après une grosse
+ * réception donne quelques digests, pas des milliers de messages. Chaque créneau n'est
+ * exécuté que par un nœud ({@link BailJobService}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DiffusionNotificationService {
+
+    private static final int LIGNES_DIGEST_MAX = 50;
+
+    static final String CRON_DIFFUSION = "0 */5 * * * *"; // Toutes les 5 minutes
+    static final String CRON_PURGE = "0 40 3 * * *"; // Tous les jours à 3h40
+
+    private static final String SQL_ENFILER =
+            "INSERT INTO notifications (utilisateur_id, type, niveau, cle_deduplication, jour, " +
+            "                           article_id, depot_id, message) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (utilisateur_id, cle_deduplication) DO UPDATE SET " +
+            "    occurrences = notifications.occurrences + 1, " +
+            "    date_derniere_occurrence = CURRENT_TIMESTAMP, " +
+            "    message = CASE WHEN notifications.statut = 'EN_ATTENTE' " +
+            "                   THEN EXCLUDED.message ELSE notifications.message END";
+
+    private static final String SQL_DIFFUSER = """
+            WITH candidats AS (
+                SELECT id, utilisateur_id FROM notifications
+                WHERE statut = 'EN_ATTENTE'
+                ORDER BY date_creation
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+            ), digests AS (
+                SELECT utilisateur_id, gen_random_uuid() AS id FROM candidats GROUP BY utilisateur_id
+            ), diffusees AS (
+                UPDATE notifications n
+                SET statut = 'DIFFUSEE', digest_id = d.id, date_diffusion = CURRENT_TIMESTAMP
+                FROM candidats c
+                JOIN digests d ON d.utilisateur_id = c.utilisateur_id
+                WHERE n.id = c.id
+                RETURNING n.digest_id, n.utilisateur_id, n.type, n.niveau, n.message, n.occurrences
+            )
+            INSERT INTO notifications_digests (id, utilisateur_id, niveau, nombre_notifications, contenu)
+            SELECT digest_id, utilisateur_id,
+                   CASE WHEN BOOL_OR(niveau = 'danger') THEN 'danger'
+                        WHEN BOOL_OR(niveau = 'warning') THEN 'warning' ELSE 'info' END,
+                   COUNT(*),
+                   ARRAY_TO_STRING((ARRAY_AGG(
+                       '[' || type || '] ' || message
+                       || CASE WHEN occurrences > 1 THEN ' (x' || occurrences || ')' ELSE '' END
+                       ORDER BY CASE niveau WHEN 'danger' THEN 0 WHEN 'warning' THEN 1 ELSE 2 END, type
+                   ))[1:%d], E'\\n')
+                   || CASE WHEN COUNT(*) > %d THEN E'\\n... et ' || (COUNT(*) - %d) || ' autre(s)' ELSE '' END
+            FROM diffusees
+            GROUP BY digest_id, utilisateur_id
+            RETURNING utilisateur_id, nombre_notifications
+            """.formatted(LIGNES_DIGEST_MAX, LIGNES_DIGEST_MAX, LIGNES_DIGEST_MAX);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+
+    /**
+     * Diffuser la file en attente (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_DIFFUSION)
+    public void diffuserPlanifie() {
+        if (actif()) {
+            bailJobService.executer("notifications-diffusion", CRON_DIFFUSION, fragment -> diffuser());
+        }
+    }
+
+    /**
+     * Purger les notifications au-delà de la rétention (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_PURGE)
+    public void purgerPlanifie() {
+        if (actif()) {
+            bailJobService.executer("notifications-purge", CRON_PURGE, fragment -> purger());
+        }
+    }
+
+    private boolean actif() {
+        return environment.getProperty("gestion.notifications.actif", Boolean.class, true);
+    }
+
+    /**
+     * Enregistrer des alertes pour chaque destinataire, en un seul batch JDBC.
+     * Participe à la transaction appelante si elle existe.
+     *
+     * @return nombre de lignes écrites (nouvelles ou fusionnées)
+     */
+    public int enfiler(NotificationType type, List<Alerte> alertes, List<UUID> destinataires) {
+        return enfiler(type, type.getNiveau(), alertes, destinataires);
+    }
+
+    /**
+     * Enregistrer des alertes avec un niveau autre que celui du type (notifications personnalisées)
+     */
+    public int enfiler(NotificationType type, String niveau, List<Alerte> alertes, List<UUID> destinataires) {
+        if (alertes.isEmpty() || destinataires.isEmpty()) {
+            return 0;
+        }
+        LocalDate jour = LocalDate.now();
+        List<Object[]> lignes = new ArrayList<>(alertes.size() * destinataires.size());
+        for (Alerte alerte : alertes) {
+            String cle = cleDeduplication(type, alerte, jour);
+            for (UUID utilisateurId : destinataires) {
+                lignes.add(new Object[] {
+                        utilisateurId, type.name(), niveau, cle, Date.valueOf(jour),
+                        alerte.articleId(), alerte.depotId(), alerte.message()
+                });
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_ENFILER, lignes);
+        log.debug("Notifications [{}]: {} alerte(s) pour {} destinataire(s)",
+                type.getLibelle(), alertes.size(), destinataires.size());
+        return lignes.size();
+    }
+
+    /**
+     * Vider la file : un digest par utilisateur et par lot de {@code gestion.notifications.taille-lot}.
+     *
+     * @return nombre de digests produits
+     */
+    public synchronized int diffuser() {
+        int tailleLot = environment.getProperty("gestion.notifications.taille-lot", Integer.class, 5000);
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            List<Map<String, Object>> digests = template.execute(status ->
+                    jdbcTemplate.queryForList(SQL_DIFFUSER, tailleLot));
+            if (digests == null || digests.isEmpty()) {
+                break;
+            }
+            total += digests.size();
+            int notifications = digests.stream()
+                    .mapToInt(digest -> ((Number) digest.get("nombre_notifications")).intValue())
+                    .sum();
+            log.info("{} digest(s) diffusé(s) regroupant {} notification(s)", digests.size(), notifications);
+            if (notifications < tailleLot) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Derniers digests d'un utilisateur
+     */
+    public List<Map<String, Object>> getDigests(UUID utilisateurId, int limite) {
+        return jdbcTemplate.query("""
+                SELECT id, niveau, nombre_notifications, contenu, lu, date_creation
+                FROM notifications_digests
+                WHERE utilisateur_id = ?
+                ORDER BY date_creation DESC
+                LIMIT ?
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", rs.getObject(1, UUID.class));
+            map.put("niveau", rs.getString(2));
+            map.put("nombreNotifications", rs.getInt(3));
+            map.put("contenu", rs.getString(4));
+            map.put("lu", rs.getBoolean(5));
+            map.put("dateCreation", rs.getTimestamp(6).toLocalDateTime());
+            return map;
+        }, utilisateurId, limite);
+    }
+
+    public int marquerLu(UUID digestId, UUID utilisateurId) {
+        return jdbcTemplate.update("UPDATE notifications_digests SET lu = TRUE WHERE id = ? AND utilisateur_id = ?",
+                digestId, utilisateurId);
+    }
+
+    /**
+     * Supprimer les notifications diffusées et les digests lus au-delà de la rétention.
+     * Les clés des jours passés ne servent plus à la déduplication.
+     */
+    public int purger() {
+        int retention = environment.getProperty("gestion.notifications.retention-jours", Integer.class, 30);
+        Date limite = Date.valueOf(LocalDate.now().minusDays(retention));
+        int notifications = jdbcTemplate.update(
+                "DELETE FROM notifications WHERE statut = 'DIFFUSEE' AND jour < ?", limite);
+        int digests = jdbcTemplate.update(
+                "DELETE FROM notifications_digests WHERE lu AND date_creation < ?", limite);
+        if (notifications + digests > 0) {
+            log.info("Purge des notifications: {} notification(s), {} digest(s)", notifications, digests);
+        }
+        return notifications + digests;
+    }
+
+    private static String cleDeduplication(NotificationType type, Alerte alerte, LocalDate jour) {
+        StringBuilder cle = new StringBuilder(type.name())
+                .append('|').append(alerte.articleId() != null ? alerte.articleId() : "-")
+                .append('|').append(alerte.depotId() != null ? alerte.depotId() : "-");
+        if (alerte.discriminant() != null) {
+            String discriminant = alerte.discriminant();
+            cle.append('|').append(discriminant.length() > 100 ? discriminant.substring(0, 100) : discriminant);
+        }
+        return cle.append('|').append(jour).toString();
+    }
+}
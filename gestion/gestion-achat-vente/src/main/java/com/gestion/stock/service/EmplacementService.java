@@ -1,5 +1,7 @@
 package com.gestion.stock.service;
 
+import com.gestion.login.config.VersionsReferentiel;
+import com.gestion.stock.dto.EmplacementDisponibleDTO;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +21,7 @@ public class EmplacementService {
     private final ZoneStockageRepository zoneStockageRepository;
     private final DepotRepository depotRepository;
     private final ArticleRepository articleRepository;
+    private final VersionsReferentiel versionsReferentiel;
 
     /**
      * Trouver tous les emplacements actifs
@@ -78,7 +81,9 @@ public class EmplacementService {
             throw new IllegalArgumentException("Un emplacement avec ce code existe déjà dans cette zone");
         }
 
-        return emplacementRepository.save(emplacement);
+        Emplacement cree = emplacementRepository.save(emplacement);
+        versionsReferentiel.signalerEcriture();
+        return cree;
     }
 
     /**
@@ -105,7 +110,9 @@ public class EmplacementService {
         existing.setCapaciteVolumeM3(emplacement.getCapaciteVolumeM3());
         existing.setActif(emplacement.isActif());
 
-        return emplacementRepository.save(existing);
+        Emplacement modifie = emplacementRepository.save(existing);
+        versionsReferentiel.signalerEcriture();
+        return modifie;
     }
 
     /**
@@ -121,6 +128,7 @@ public class EmplacementService {
         
         emplacement.setActif(false);
         emplacementRepository.save(emplacement);
+        versionsReferentiel.signalerEcriture();
     }
 
     /**
@@ -161,4 +169,16 @@ public List<Emplacement> findEmplacementsDisponibles(UUID articleId, Integer qua
             .collect(Collectors.toList());
 }
 
+    /**
+     * Emplacements disponibles pour l'API : même règle de capacité que
+     * {@link #verifierCapacite}, appliquée dans la requête
+     */
+    public List<EmplacementDisponibleDTO> findEmplacementsDisponiblesDTO(UUID articleId, Integer quantity) {
+        Article article = articleRepository.findById(articleId)
+                .orElseThrow(() -> new RuntimeException("Article non trouvé"));
+        BigDecimal quantite = BigDecimal.valueOf(quantity);
+        return emplacementRepository.findDisponiblesDTO(
+                article.getPoidsKg() != null ? article.getPoidsKg().multiply(quantite) : null,
+                article.getVolumeM3() != null ? article.getVolumeM3().multiply(quantite) : null);
+    }
 }
\ No newline at end of file
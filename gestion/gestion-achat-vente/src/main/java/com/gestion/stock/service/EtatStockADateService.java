@@ -0,0 +1,182 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Stock et valeur « à date » : état d'un article / dépôt à n'importe quelle date passée.
+ *
+ * Le calcul part de l'instantané {@code historique_couts} de la dernière clôture
+ * (CLOTUREE ou VALIDEE) dont la fin de période précède la date demandée, puis applique
+ * en une seule requête agrégée les mouvements validés dont la date comptable est comprise
+ * entre cette fin de période et la date. Toute question « à date » est ainsi bornée à
+ * un mois de mouvements au plus ; sans clôture antérieure, le journal est repris depuis
+ * l'origine.
+ *
+ * L'instantané vaut à la fin de période, même si la clôture est exécutée plus tard :
+ * {@link ClotureService} retranche du stock courant les mouvements datés après la fin de
+ * période ({@link #getMouvementsPosterieurs}), que les deltas ci-dessous rajoutent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EtatStockADateService {
+
+    private static final String SQL_ETAT_A_DATE = """
+            WITH cloture AS (
+                SELECT id, date_fin_periode
+                FROM clotures_mensuelles
+                WHERE statut IN ('CLOTUREE', 'VALIDEE') AND date_fin_periode <= :date
+                ORDER BY date_fin_periode DESC
+                LIMIT 1
+            ), instantane AS (
+                SELECT h.article_id, h.depot_id, h.quantite_stock, h.valeur_stock, h.cout_unitaire_moyen
+                FROM historique_couts h
+                JOIN cloture c ON c.id = h.cloture_mensuelle_id
+                WHERE (CAST(:articleId AS UUID) IS NULL OR h.article_id = :articleId)
+                  AND (CAST(:depotId AS UUID) IS NULL OR h.depot_id = :depotId)
+            ), deltas AS (
+                SELECT m.article_id, m.depot_id,
+                       SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite ELSE -m.quantite END) AS quantite,
+                       SUM(CASE WHEN t.sens = 'ENTREE' THEN m.valeur_mouvement ELSE -m.valeur_mouvement END) AS valeur,
+                       COUNT(*) AS nombre_mouvements
+                FROM mouvements_stock_journal m
+                JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                WHERE m.statut = 'VALIDE'
+                  AND m.date_comptable <= :date
+                  AND m.date_comptable > COALESCE((SELECT date_fin_periode FROM cloture), DATE '-infinity')
+                  AND (CAST(:articleId AS UUID) IS NULL OR m.article_id = :articleId)
+                  AND (CAST(:depotId AS UUID) IS NULL OR m.depot_id = :depotId)
+                GROUP BY m.article_id, m.depot_id
+            )
+            SELECT COALESCE(i.article_id, d.article_id) AS article_id,
+                   COALESCE(i.depot_id, d.depot_id) AS depot_id,
+                   a.code_article, a.libelle, dp.nom AS depot_nom,
+                   (SELECT date_fin_periode FROM cloture) AS date_instantane,
+                   COALESCE(i.quantite_stock, 0) AS quantite_instantane,
+                   COALESCE(i.valeur_stock, 0) AS valeur_instantane,
+                   i.cout_unitaire_moyen AS cout_instantane,
+                   COALESCE(i.quantite_stock, 0) + COALESCE(d.quantite, 0) AS quantite,
+                   COALESCE(i.valeur_stock, 0) + COALESCE(d.valeur, 0) AS valeur,
+                   COALESCE(d.nombre_mouvements, 0) AS nombre_mouvements
+            FROM instantane i
+            FULL JOIN deltas d ON d.article_id = i.article_id AND d.depot_id = i.depot_id
+            JOIN articles a ON a.id = COALESCE(i.article_id, d.article_id)
+            JOIN depots dp ON dp.id = COALESCE(i.depot_id, d.depot_id)
+            ORDER BY a.code_article, dp.nom
+            """;
+
+    private static final String SQL_MOUVEMENTS_POSTERIEURS = """
+            SELECT m.article_id, m.depot_id,
+                   SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite ELSE -m.quantite END) AS quantite,
+                   COALESCE(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.valeur_mouvement
+                                     ELSE -m.valeur_mouvement END), 0) AS valeur
+            FROM mouvements_stock_journal m
+            JOIN types_mouvement t ON t.id = m.type_mouvement_id
+            WHERE m.statut = 'VALIDE' AND m.date_comptable > :date
+            GROUP BY m.article_id, m.depot_id
+            """;
+
+    /**
+     * Solde net (entrées - sorties) des mouvements validés d'un article / dépôt
+     */
+    public record Solde(int quantite, BigDecimal valeur) {
+
+        public static final Solde NUL = new Solde(0, BigDecimal.ZERO);
+    }
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * État du stock à la fin de la journée {@code date}.
+     *
+     * @param articleId article (facultatif, tous si null)
+     * @param depotId   dépôt (facultatif, tous si null)
+     */
+    public List<Map<String, Object>> getEtatStock(LocalDate date, UUID articleId, UUID depotId) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("date", Date.valueOf(date))
+                .addValue("articleId", articleId)
+                .addValue("depotId", depotId);
+
+        long debut = System.currentTimeMillis();
+        List<Map<String, Object>> etats = namedJdbcTemplate.query(SQL_ETAT_A_DATE, parametres, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            int quantite = rs.getInt("quantite");
+            BigDecimal valeur = rs.getBigDecimal("valeur");
+            BigDecimal coutInstantane = rs.getBigDecimal("cout_instantane");
+            Date dateInstantane = rs.getDate("date_instantane");
+
+            map.put("articleId", rs.getObject("article_id", UUID.class));
+            map.put("depotId", rs.getObject("depot_id", UUID.class));
+            map.put("codeArticle", rs.getString("code_article"));
+            map.put("libelle", rs.getString("libelle"));
+            map.put("depotNom", rs.getString("depot_nom"));
+            map.put("date", date);
+            map.put("dateInstantane", dateInstantane != null ? dateInstantane.toLocalDate() : null);
+            map.put("quantiteInstantane", rs.getInt("quantite_instantane"));
+            map.put("valeurInstantane", rs.getBigDecimal("valeur_instantane"));
+            map.put("nombreMouvements", rs.getInt("nombre_mouvements"));
+            map.put("quantite", quantite);
+            map.put("valeur", valeur.setScale(2, RoundingMode.HALF_UP));
+            // CUMP à date : valeur / quantité, sinon dernier coût connu de l'instantané
+            map.put("coutUnitaire", quantite > 0
+                    ? valeur.divide(BigDecimal.valueOf(quantite), 4, RoundingMode.HALF_UP)
+                    : coutInstantane);
+            return map;
+        });
+        log.debug("État du stock au {}: {} ligne(s) en {} ms", date, etats.size(),
+                System.currentTimeMillis() - debut);
+        return etats;
+    }
+
+    /**
+     * Solde des mouvements validés datés après {@code date}, par article / dépôt
+     * (clé : [articleId, depotId]). Retranché du stock courant, il donne le stock à cette date.
+     */
+    public Map<List<UUID>, Solde> getMouvementsPosterieurs(LocalDate date) {
+        Map<List<UUID>, Solde> soldes = new HashMap<>();
+        namedJdbcTemplate.query(SQL_MOUVEMENTS_POSTERIEURS, new MapSqlParameterSource("date", Date.valueOf(date)),
+                rs -> {
+                    soldes.put(List.of(rs.getObject("article_id", UUID.class), rs.getObject("depot_id", UUID.class)),
+                            new Solde(rs.getInt("quantite"), rs.getBigDecimal("valeur")));
+                });
+        return soldes;
+    }
+
+    /**
+     * État d'un article dans un dépôt à la fin de la journée {@code date}.
+     */
+    public Optional<Map<String, Object>> getEtatArticle(UUID articleId, UUID depotId, LocalDate date) {
+        return getEtatStock(date, articleId, depotId).stream().findFirst();
+    }
+
+    /**
+     * Totaux à date (quantité et valeur), tous articles du périmètre confondus.
+     */
+    public Map<String, Object> getTotaux(LocalDate date, UUID depotId) {
+        List<Map<String, Object>> etats = getEtatStock(date, null, depotId);
+        long quantite = 0;
+        BigDecimal valeur = BigDecimal.ZERO;
+        for (Map<String, Object> etat : etats) {
+            quantite += (Integer) etat.get("quantite");
+            valeur = valeur.add((BigDecimal) etat.get("valeur"));
+        }
+        Map<String, Object> totaux = new HashMap<>();
+        totaux.put("date", date);
+        totaux.put("depotId", depotId);
+        totaux.put("nombreLignes", etats.size());
+        totaux.put("quantite", quantite);
+        totaux.put("valeur", valeur);
+        return totaux;
+    }
+}
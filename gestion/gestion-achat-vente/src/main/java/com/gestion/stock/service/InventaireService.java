@@ -34,6 +34,7 @@ public class InventaireService {
     private final ZoneStockageRepository zoneStockageRepository;
     private final CategorieArticleRepository categorieArticleRepository;
     private final EmplacementRepository emplacementRepository;
+    private final ClassificationStockService classificationStockService;
 
     /**
      * Créer une nouvelle campagne d'inventaire
@@ -47,9 +48,10 @@ public class InventaireService {
             LocalDate dateFin,
             UUID responsableId,
             String observations,
-            String modeSaisie) {
+            String modeSaisie,
+            String classeAbc) {
 
-        log.info("Création inventaire type: {}, dépôt: {}", type, depotId);
+        log.info("Création inventaire type: {}, dépôt: {}, classe: {}", type, depotId, classeAbc);
 
         // Générer référence
         String reference = "INV-" + LocalDate.now().getYear() +
@@ -77,7 +79,7 @@ public class InventaireService {
         Inventaire inventaireSauvegarde = inventaireRepository.save(inventaire);
 
         // Initialiser les lignes d'inventaire
-        initialiserLignesInventaire(inventaireSauvegarde.getId(), depotId, zoneId, categorieId);
+        initialiserLignesInventaire(inventaireSauvegarde.getId(), depotId, zoneId, categorieId, classeAbc);
 
         log.info("Inventaire créé: {} avec {} lignes", reference,
                 ligneInventaireRepository.findByInventaireId(inventaireSauvegarde.getId()).size());
@@ -86,16 +88,18 @@ public class InventaireService {
     }
 
     /**
-     * Initialiser les lignes d'inventaire avec le stock théorique
+     * Initialiser les lignes d'inventaire avec le stock théorique.
+     * Avec une classe ABC (inventaire tournant), seuls les articles de cette classe dans le
+     * dépôt sont comptés, d'après la classification persistée.
      */
     @Transactional
     public void initialiserLignesInventaire(UUID inventaireId, UUID depotId,
-            UUID zoneId, UUID categorieId) {
+            UUID zoneId, UUID categorieId, String classeAbc) {
 
         log.info("Initialisation lignes inventaire: {}", inventaireId);
 
         // Récupérer les stocks selon les critères
-        List<Stock> stocks = getStocksPourInventaire(depotId, zoneId, categorieId);
+        List<Stock> stocks = getStocksPourInventaire(depotId, zoneId, categorieId, classeAbc);
         Inventaire inventaire = inventaireRepository.findById(inventaireId).orElseThrow();
 
         for (Stock stock : stocks) {
@@ -476,7 +480,16 @@ public class InventaireService {
     /**
      * Méthodes utilitaires
      */
-    private List<Stock> getStocksPourInventaire(UUID depotId, UUID zoneId, UUID categorieId) {
+    private List<Stock> getStocksPourInventaire(UUID depotId, UUID zoneId, UUID categorieId, String classeAbc) {
+        if (classeAbc != null) {
+            if (depotId == null) {
+                throw new RuntimeException("Un dépôt est requis pour un inventaire par classe ABC");
+            }
+            Set<UUID> articles = new HashSet<>(classificationStockService.getArticlesParClasse(depotId, classeAbc));
+            return stockRepository.findByDepotId(depotId).stream()
+                    .filter(stock -> articles.contains(stock.getArticle().getId()))
+                    .toList();
+        }
         if (depotId != null) {
             return stockRepository.findByDepotId(depotId);
         }
@@ -665,6 +678,7 @@ public class InventaireService {
         return stats;
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getStatistiquesInventaires() {
         Map<String, Object> stats = new HashMap<>();
 
@@ -807,6 +821,7 @@ public class InventaireService {
         return nbSynchronises;
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getStatistiquesGlobales(Integer mois, Integer annee) {
         Map<String, Object> stats = new HashMap<>();
         
@@ -855,6 +870,7 @@ public class InventaireService {
 /**
  * Récupérer le top 5 des écarts d'inventaire pour une période donnée
  */
+@Transactional(readOnly = true)
 public List<Map<String, Object>> getTopEcartsInventaire(Integer mois, Integer annee) {
     List<Map<String, Object>> topEcarts = new ArrayList<>();
     
@@ -882,6 +898,7 @@ public List<Map<String, Object>> getTopEcartsInventaire(Integer mois, Integer an
     /**
  * Récupérer l'évolution mensuelle des inventaires pour une année donnée
  */
+@Transactional(readOnly = true)
 public Map<String, Object> getEvolutionInventaires(Integer annee) {
     Map<String, Object> evolution = new HashMap<>();
     
@@ -1078,6 +1095,7 @@ public Map<String, Object> getEvolutionInventaires(Integer annee) {
     /**
  * Récupérer la répartition des inventaires par statut
  */
+@Transactional(readOnly = true)
 public Map<String, Object> getRepartitionParStatut() {
     Map<String, Object> repartition = new HashMap<>();
     
@@ -10,13 +10,13 @@ import com.gestion.stock.repository.specification.LotSpecifications;
 import com.gestion.stock.repository.specification.SerieSpecifications;
 import com.gestion.achat.repository.*;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -46,6 +46,7 @@ public class LotService {
     private final StockService stockService;
     private final SerieRepository serieRepository;
     private final EmplacementService emplacementService;
+    private final PeremptionService peremptionService;
 
     public Lot findById(UUID lotId) {
         List<Lot> lots = lotRepository.findAll();
@@ -64,7 +65,7 @@ public class LotService {
     }
 
     public List<StockMovement> findByLotId(UUID lotId) {
-        return mouvementRepository.findByLotId(lotId);
+        return mouvementRepository.findJournalLot(lotId);
     }
 
     public Serie findSerieById(UUID serieId) {
@@ -104,42 +105,12 @@ public class LotService {
     }
 
     /**
-     * Vérifier et bloquer les lots périmés (batch quotidien)
+     * Vérifier et bloquer les lots périmés (batch quotidien, planifié par MaintenanceStockJob)
      */
-    @Scheduled(cron = "0 0 2 * * ?") // Tous les jours à 2h du matin
-    @Transactional
     public void verifierLotsPerimes() {
         log.info("Début vérification lots périmés");
-
-        LocalDate aujourdhui = LocalDate.now();
-
-        // 1. Bloquer les lots périmés
-        List<Lot> lotsPerimes = lotRepository.findByDatePeremptionLessThanEqual(aujourdhui);
-
-        int compteurPerimes = 0;
-        for (Lot lot : lotsPerimes) {
-            if (lot.getStatut() == Lot.LotStatus.DISPONIBLE) {
-                lot.setStatut(Lot.LotStatus.PERIME);
-                lotRepository.save(lot);
-                compteurPerimes++;
-
-                log.warn("Lot périmé bloqué: {} - Article: {}",
-                        lot.getNumeroLot(), lot.getArticle().getCodeArticle());
-            }
-        }
-
-        // 2. Alerter pour les lots proches péremption (7 jours)
-        LocalDate limiteAlerte = aujourdhui.plusDays(7);
-        List<Lot> lotsProchePeremption = lotRepository.findLotsProchePeremption(limiteAlerte);
-
-        for (Lot lot : lotsProchePeremption) {
-            long joursRestants = aujourdhui.until(lot.getDatePeremption()).getDays();
-            log.info("ALERTE: Lot proche péremption: {} - Date: {} - Jours restants: {}",
-                    lot.getNumeroLot(), lot.getDatePeremption(), joursRestants);
-        }
-
-        log.info("Vérification lots terminée: {} lots périmés, {} lots en alerte",
-                compteurPerimes, lotsProchePeremption.size());
+        // Traitement ensembliste par tranches, sans chargement des entités
+        peremptionService.executerBalayage();
     }
 
     /**
@@ -561,7 +532,7 @@ public class LotService {
     }
 
     public List<StockMovement> getMouvementsLot(UUID lotId) {
-        return mouvementRepository.findMouvementsByLotId(lotId);
+        return mouvementRepository.findJournalLot(lotId);
     }
 
     public String exporterLots(String format, String statut) {
@@ -803,6 +774,7 @@ public class LotService {
     }
 
     // Allouer un lot (FIFO/FEFO)
+    @Timed(value = "gestion.operation", extraTags = {"operation", "allocation.lot"}, histogram = true)
     public Lot allouerLot(UUID articleId, UUID depotId, Integer quantite, String methode) {
         List<Lot> lotsDisponibles = lotRepository.findLotsForAllocation(articleId, methode);
 
@@ -924,6 +896,7 @@ public class LotService {
      * Retourne le détail des lots utilisés et le coût total de sortie
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "allocation.fefo"}, histogram = true)
     public Map<String, Object> sortirStockFEFO(UUID articleId, UUID depotId, Integer quantiteASortir, String motif) {
         log.info("Sortie FEFO - Article: {}, Dépôt: {}, Quantité: {}", articleId, depotId, quantiteASortir);
         
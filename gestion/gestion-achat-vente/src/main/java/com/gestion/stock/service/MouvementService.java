@@ -6,6 +6,7 @@ import com.gestion.achat.entity.BonCommande;
 import com.gestion.achat.entity.BonReception;
 import com.gestion.achat.repository.BonCommandeRepository;
 import com.gestion.achat.repository.BonReceptionRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -135,6 +136,7 @@ public class MouvementService {
      * Créer un mouvement d'entrée
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "mouvement.entree"}, histogram = true)
     public Map<String, Object> creerMouvementEntree(Map<String, String> params, UUID utilisateurId) {
         log.info("Création mouvement entrée par utilisateur: {}", utilisateurId);
         log.info("Paramètres reçus: {}", params);
@@ -240,6 +242,7 @@ public class MouvementService {
     }
 
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "mouvement.sortie"}, histogram = true)
     public Map<String, Object> creerMouvementSortie(Map<String, String> params, UUID utilisateurId) {
         log.info("Création mouvement sortie par utilisateur: {}", utilisateurId);
         log.info("Paramètres reçus: {}", params);
@@ -496,10 +499,20 @@ public class MouvementService {
     }
 
     /**
-     * Obtenir les détails d'un mouvement
+     * Journal d'audit d'un utilisateur sur une période (mouvements chauds et archivés)
+     */
+    public List<Map<String, Object>> getJournalUtilisateur(UUID utilisateurId, LocalDate debut, LocalDate fin) {
+        return mouvementRepository.findJournalUtilisateur(utilisateurId, debut, fin).stream()
+                .map(this::convertirMouvementEnMap)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Obtenir les détails d'un mouvement (y compris archivé)
      */
     public Map<String, Object> getDetailsMouvement(UUID id) {
         StockMovement mouvement = mouvementRepository.findById(id)
+                .or(() -> mouvementRepository.findJournalById(id)) // période archivée
                 .orElseThrow(() -> new RuntimeException("Mouvement non trouvé"));
 
         Map<String, Object> details = convertirMouvementEnMap(mouvement);
@@ -527,6 +540,7 @@ public class MouvementService {
      * Annuler un mouvement
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "mouvement.annulation"}, histogram = true)
     public void annulerMouvement(UUID id, String motif, UUID utilisateurId) {
         StockMovement mouvement = mouvementRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Mouvement non trouvé"));
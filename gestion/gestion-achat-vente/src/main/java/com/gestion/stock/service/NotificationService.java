@@ -8,10 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -19,8 +16,10 @@ import java.util.*;
 @Slf4j
 public class NotificationService {
 
-    private final LotService lotService;
     private final StockService stockService;
+    private final ProjectionStockService projectionStockService;
+    private final PeremptionService peremptionService;
+    private final DiffusionNotificationService diffusionNotificationService;
     private final UtilisateurRepository utilisateurRepository;
 
     /**
@@ -34,7 +33,8 @@ public class NotificationService {
         COMMANDE_EN_RETARD("Commande en retard", "warning"),
         INVENTAIRE_PLANIFIE("Inventaire planifié", "info"),
         AJUSTEMENT_A_VALIDER("Ajustement à valider", "warning"),
-        TRANSFERT_A_EXPEDIER("Transfert à expédier", "info");
+        TRANSFERT_A_EXPEDIER("Transfert à expédier", "info"),
+        PERSONNALISEE("Notification", "info");
         
         private final String libelle;
         private final String niveau;
@@ -49,22 +49,37 @@ public class NotificationService {
     }
 
     /**
-     * Envoyer une notification
+     * Condition signalée : la clé de déduplication est formée du type, de l'article, du dépôt,
+     * du discriminant éventuel et du jour.
+     */
+    public record Alerte(UUID articleId, UUID depotId, String discriminant, String message) {
+    }
+
+    /**
+     * Envoyer une notification (mise en file, diffusée par digest)
      */
     public void envoyerNotification(NotificationType type, String message, 
                                    List<UUID> destinataires, Map<String, Object> donnees) {
-        log.info("Notification [{}]: {} à {} destinataires", 
-                type.getLibelle(), message, destinataires.size());
-        
-        // Ici, on pourrait :
-        // 1. Sauvegarder dans une table de notifications
-        // 2. Envoyer par email
-        // 3. Envoyer par notification push
-        // 4. Intégrer avec un système de messagerie
-        
-        for (UUID utilisateurId : destinataires) {
-            sauvegarderNotification(type, message, utilisateurId, donnees);
+        log.info("Notification [{}] à {} destinataires", type.getLibelle(), destinataires.size());
+
+        Alerte alerte = new Alerte(
+                donnees.get("articleId") instanceof UUID articleId ? articleId : null,
+                donnees.get("depotId") instanceof UUID depotId ? depotId : null,
+                donnees.get("cle") instanceof String cle ? cle : null,
+                message);
+        diffusionNotificationService.enfiler(type, List.of(alerte), destinataires);
+    }
+
+    /**
+     * Signaler un ensemble de conditions de même type (une ligne par condition et destinataire)
+     */
+    public void signaler(NotificationType type, List<Alerte> alertes, List<UUID> destinataires) {
+        if (alertes.isEmpty()) {
+            return;
         }
+        int lignes = diffusionNotificationService.enfiler(type, alertes, destinataires);
+        log.info("Notification [{}]: {} condition(s), {} ligne(s) en file",
+                type.getLibelle(), alertes.size(), lignes);
     }
 
     /**
@@ -74,87 +89,75 @@ public class NotificationService {
     public void verifierStocksCritiques() {
         log.info("Vérification des stocks critiques");
         
-        // Récupérer les stocks critiques (quantité < stock minimum)
-        List<Map<String, Object>> stocksCritiques = stockService.getStocksCritiques();
+        // Stocks critiques (quantité < stock minimum), lus dans la projection maintenue par événements
+        List<Map<String, Object>> stocksCritiques = projectionStockService.getStocksEnAlerte();
         
         if (!stocksCritiques.isEmpty()) {
             // Trouver les responsables concernés
             List<UUID> responsables = trouverResponsablesStocks();
-            
-            // Préparer le message
-            StringBuilder message = new StringBuilder();
-            message.append("STOCKS CRITIQUES - ").append(stocksCritiques.size()).append(" articles concernés:\n");
-            
-            for (Map<String, Object> stock : stocksCritiques) {
-                message.append("- ").append(stock.get("codeArticle"))
-                       .append(" (").append(stock.get("libelle")).append("): ")
-                       .append(stock.get("quantite")).append("/").append(stock.get("stockMinimum"))
-                       .append(" au dépôt ").append(stock.get("depotNom")).append("\n");
-            }
-            
-            envoyerNotification(NotificationType.STOCK_CRITIQUE, message.toString(), 
-                              responsables, Map.of("stocks", stocksCritiques));
+
+            // Une condition par article / dépôt : déjà signalée aujourd'hui, elle n'est pas renvoyée
+            List<Alerte> alertes = stocksCritiques.stream()
+                    .map(stock -> new Alerte((UUID) stock.get("articleId"), (UUID) stock.get("depotId"), null,
+                            stock.get("codeArticle") + " (" + stock.get("libelle") + "): "
+                                    + stock.get("quantite") + "/" + stock.get("stockMinimum")
+                                    + " au dépôt " + stock.get("depotNom")))
+                    .toList();
+
+            signaler(NotificationType.STOCK_CRITIQUE, alertes, responsables);
         }
     }
 
     /**
-     * Vérifier et notifier les péremptions
+     * Vérifier et notifier les péremptions (lecture seule : le blocage des lots périmés
+     * relève du balayage planifié, voir MaintenanceStockJob)
      */
-    @Transactional
     public void verifierPéremptions() {
         log.info("Vérification des péremptions");
-        
-        // Récupérer les lots proches de la péremption (7 jours)
-        List<Lot> lotsProches = lotService.getLotsProchePeremption(7);
-        
-        if (!lotsProches.isEmpty()) {
-            List<UUID> responsables = trouverResponsablesStocks();
-            
-            // Grouper par niveau d'urgence
-            Map<String, List<Lot>> lotsParUrgence = new HashMap<>();
-            lotsParUrgence.put("Déjà périmés", new ArrayList<>());
-            lotsParUrgence.put("1-7 jours", new ArrayList<>());
-            lotsParUrgence.put("8-30 jours", new ArrayList<>());
-            
-            for (Lot lot : lotsProches) {
-                if (lot.getDatePeremption() != null) {
-                    long joursRestants = ChronoUnit.DAYS.between(
-                            LocalDate.now(), lot.getDatePeremption());
-                    
-                    if (joursRestants < 0) {
-                        lotsParUrgence.get("Déjà périmés").add(lot);
-                    } else if (joursRestants <= 7) {
-                        lotsParUrgence.get("1-7 jours").add(lot);
-                    } else if (joursRestants <= 30) {
-                        lotsParUrgence.get("8-30 jours").add(lot);
-                    }
-                }
-            }
-            
-            // Envoyer des notifications spécifiques
-            for (Map.Entry<String, List<Lot>> entry : lotsParUrgence.entrySet()) {
-                if (!entry.getValue().isEmpty()) {
-                    String niveau = entry.getKey().equals("Déjà périmés") ? "danger" : "warning";
-                    NotificationType type = entry.getKey().equals("Déjà périmés") ? 
-                            NotificationType.LOT_PERIME : NotificationType.LOT_PEREMPTION_PROCH;
-                    
-                    StringBuilder message = new StringBuilder();
-                    message.append(entry.getKey()).append(": ").append(entry.getValue().size()).append(" lots\n");
-                    
-                    for (Lot lot : entry.getValue()) {
-                        long joursRestants = lot.getDatePeremption() != null ? 
-                                ChronoUnit.DAYS.between(LocalDate.now(), lot.getDatePeremption()) : 0;
-                        message.append("- Lot ").append(lot.getNumeroLot())
-                               .append(" (").append(lot.getArticle().getCodeArticle()).append("): ")
-                               .append(lot.getQuantiteActuelle()).append(" unités, ")
-                               .append(Math.abs(joursRestants)).append(" jour(s) ").append(joursRestants < 0 ? "dépassé(s)" : "restant(s)")
-                               .append("\n");
-                    }
-                    
-                    envoyerNotification(type, message.toString(), responsables, 
-                            Map.of("lots", entry.getValue(), "urgence", entry.getKey()));
-                }
-            }
+
+        // Lots périmés en stock puis alertes J+7 / J+15 / J+30 (requêtes ensemblistes)
+        Map<String, Object> balayage = peremptionService.consulterAlertes(LocalDate.now());
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> tranches = (List<Map<String, Object>>) balayage.get("alertes");
+        int lotsPerimes = (Integer) balayage.get("lotsPerimes");
+
+        if (lotsPerimes == 0 && tranches.isEmpty()) {
+            return;
+        }
+        List<UUID> responsables = trouverResponsablesStocks();
+
+        if (lotsPerimes > 0) {
+            StringBuilder message = new StringBuilder();
+            message.append("Déjà périmés: ").append(lotsPerimes).append(" lots en stock (")
+                   .append(balayage.get("quantite")).append(" unités, valeur ")
+                   .append(balayage.get("valeur")).append(")\n");
+            ajouterExemples(message, balayage.get("exemples"), lotsPerimes);
+
+            envoyerNotification(NotificationType.LOT_PERIME, message.toString(), responsables,
+                    Map.of("cle", "PERIMES"));
+        }
+
+        for (Map<String, Object> tranche : tranches) {
+            int nombreLots = (Integer) tranche.get("nombreLots");
+            StringBuilder message = new StringBuilder();
+            message.append(tranche.get("libelle")).append(": ").append(nombreLots).append(" lots (")
+                   .append(tranche.get("quantite")).append(" unités, valeur ")
+                   .append(tranche.get("valeur")).append(")\n");
+            ajouterExemples(message, tranche.get("exemples"), nombreLots);
+
+            envoyerNotification(NotificationType.LOT_PEREMPTION_PROCH, message.toString(), responsables,
+                    Map.of("cle", tranche.get("tranche")));
+        }
+    }
+
+    private void ajouterExemples(StringBuilder message, Object exemples, int total) {
+        @SuppressWarnings("unchecked")
+        List<String> lignes = (List<String>) exemples;
+        for (String ligne : lignes) {
+            message.append("- Lot ").append(ligne).append("\n");
+        }
+        if (total > lignes.size()) {
+            message.append("... et ").append(total - lignes.size()).append(" autre(s)\n");
         }
     }
 
@@ -170,26 +173,15 @@ public class NotificationService {
         
         if (!stocksObsolètes.isEmpty()) {
             List<UUID> responsables = trouverResponsablesStocks();
-            
-            BigDecimal valeurTotale = BigDecimal.ZERO;
-            StringBuilder message = new StringBuilder();
-            message.append("STOCKS OBSOLÈTES - ").append(stocksObsolètes.size()).append(" articles:\n");
-            
-            for (Map<String, Object> stock : stocksObsolètes) {
-                message.append("- ").append(stock.get("codeArticle"))
-                       .append(" (").append(stock.get("libelle")).append("): ")
-                       .append(stock.get("quantite")).append(" unités depuis ")
-                       .append(stock.get("dernierMouvement")).append("\n");
-                
-                if (stock.get("valeur") != null) {
-                    valeurTotale = valeurTotale.add((BigDecimal) stock.get("valeur"));
-                }
-            }
-            
-            message.append("\nValeur totale: ").append(valeurTotale).append(" Ar");
-            
-            envoyerNotification(NotificationType.STOCK_OBSOLETE, message.toString(), 
-                              responsables, Map.of("stocks", stocksObsolètes, "valeur", valeurTotale));
+
+            List<Alerte> alertes = stocksObsolètes.stream()
+                    .map(stock -> new Alerte((UUID) stock.get("articleId"), (UUID) stock.get("depotId"), null,
+                            stock.get("codeArticle") + " (" + stock.get("libelle") + "): "
+                                    + stock.get("quantite") + " unités depuis " + stock.get("dernierMouvement")
+                                    + (stock.get("valeur") != null ? ", valeur " + stock.get("valeur") + " Ar" : "")))
+                    .toList();
+
+            signaler(NotificationType.STOCK_OBSOLETE, alertes, responsables);
         }
     }
 
@@ -207,17 +199,6 @@ public class NotificationService {
                 .toList();
     }
 
-    /**
-     * Sauvegarder une notification dans la base de données
-     */
-    private void sauvegarderNotification(NotificationType type, String message, 
-                                        UUID utilisateurId, Map<String, Object> donnees) {
-        // Implémentation de la sauvegarde
-        // Cela créerait une entrée dans une table notifications
-        log.debug("Notification sauvegardée pour utilisateur {}: {} - {}", 
-                utilisateurId, type.getLibelle(), message);
-    }
-
     /**
      * Vérifications périodiques (à appeler via un scheduler)
      */
@@ -237,23 +218,24 @@ public class NotificationService {
     }
 
     /**
-     * Envoyer une notification personnalisée
+     * Envoyer une notification personnalisée (mise en file, diffusée par digest).
+     * La clé de déduplication reprend {@code donnees.cle} si présente, sinon le titre :
+     * la même notification renvoyée le même jour incrémente ses occurrences.
+     *
+     * @param niveau info, warning ou danger (info par défaut)
      */
     public void notifierUtilisateur(UUID utilisateurId, String titre, String message, 
                                    String niveau, Map<String, Object> donnees) {
         log.info("Notification personnalisée à {}: {}", utilisateurId, titre);
-        
-        // Sauvegarder la notification
-        sauvegarderNotificationPersonnalisee(utilisateurId, titre, message, niveau, donnees);
-        
-        // Optionnel: envoyer un email
-        // envoyerEmailNotification(utilisateurId, titre, message);
-    }
 
-    private void sauvegarderNotificationPersonnalisee(UUID utilisateurId, String titre, 
-                                                     String message, String niveau, 
-                                                     Map<String, Object> donnees) {
-        // Implémentation de la sauvegarde
-        log.debug("Notification personnalisée sauvegardée pour {}: {}", utilisateurId, titre);
+        Alerte alerte = new Alerte(
+                donnees.get("articleId") instanceof UUID articleId ? articleId : null,
+                donnees.get("depotId") instanceof UUID depotId ? depotId : null,
+                donnees.get("cle") instanceof String cle ? cle : titre,
+                titre + ": " + message);
+        String niveauNotification = niveau != null && List.of("info", "warning", "danger").contains(niveau)
+                ? niveau : NotificationType.PERSONNALISEE.getNiveau();
+        diffusionNotificationService.enfiler(NotificationType.PERSONNALISEE, niveauNotification,
+                List.of(alerte), List.of(utilisateurId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Maintenance des partitions mensuelles de {@code mouvements_stock} (PARTIE 16 du schéma).
+ *
+ * <ul>
+ *   <li>création anticipée des partitions des {@code gestion.partitions.mois-avance} prochains
+ *       mois, au démarrage puis chaque nuit : les insertions ne tombent jamais dans la
+ *       partition par défaut ;</li>
+ *   <li>archivage des partitions des périodes couvertes par une clôture VALIDEE, au-delà de
+ *       {@code gestion.partitions.mois-chauds} mois : détachées puis réécrites de façon compacte
+ *       dans {@code archives_stock.mouvements_stock} (PARTIE 17). La table chaude reste bornée
+ *       à quelques mois ouverts ; historique article, traçabilité lot et audit lisent la vue
+ *       {@code mouvements_stock_journal} qui réunit les deux.</li>
+ * </ul>
+ * Les requêtes filtrées sur {@code date_comptable} ne lisent que les partitions concernées.
+ * La maintenance de nuit n'est exécutée que par un nœud ({@link BailJobService}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMouvementService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+
+    static final String CRON_MAINTENANCE = "0 15 1 * * *"; // Tous les jours à 1h15
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        try {
+            creerPartitionsAVenir();
+        } catch (Exception e) {
+            log.error("Partitions des mouvements indisponibles (schéma PARTIE 16 appliqué ?): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Partitions à venir et archivage des périodes validées (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_MAINTENANCE)
+    public void maintenir() {
+        bailJobService.executer("partitions-mouvements", CRON_MAINTENANCE, fragment -> {
+            int creees = creerPartitionsAVenir();
+            if (environment.getProperty("gestion.partitions.detachement-auto", Boolean.class, true)) {
+                return creees + detacherPeriodesValidees().size();
+            }
+            return creees;
+        });
+    }
+
+    /**
+     * Créer les partitions manquantes du mois courant et des mois suivants.
+     *
+     * @return nombre de partitions créées
+     */
+    public int creerPartitionsAVenir() {
+        int moisAvance = environment.getProperty("gestion.partitions.mois-avance", Integer.class, 3);
+        Integer creees = new TransactionTemplate(transactionManager).execute(status ->
+                jdbcTemplate.queryForObject("SELECT creer_partitions_mouvements(?)", Integer.class, moisAvance));
+        if (creees != null && creees > 0) {
+            log.info("{} partition(s) de mouvements créée(s)", creees);
+        }
+        return creees != null ? creees : 0;
+    }
+
+    /**
+     * Détacher la partition d'une période clôturée et validée.
+     *
+     * @return nom de la table archivée, ou null si la partition n'est plus attachée
+     */
+    public String detacherPeriode(int annee, int mois) {
+        String table = new TransactionTemplate(transactionManager).execute(status ->
+                jdbcTemplate.queryForObject("SELECT detacher_partition_mouvements(?, ?)", String.class, annee, mois));
+        if (table != null) {
+            log.info("Partition des mouvements {}/{} détachée et archivée dans {}", String.format("%02d", mois), annee, table);
+        }
+        return table;
+    }
+
+    /**
+     * Détacher toutes les périodes VALIDEE plus anciennes que la fenêtre chaude.
+     *
+     * @return tables détachées
+     */
+    public List<String> detacherPeriodesValidees() {
+        int moisChauds = environment.getProperty("gestion.partitions.mois-chauds", Integer.class, 3);
+        LocalDate limite = LocalDate.now().withDayOfMonth(1).minusMonths(moisChauds);
+
+        List<Map<String, Object>> periodes = jdbcTemplate.queryForList("""
+                SELECT c.annee, c.mois
+                FROM clotures_mensuelles c
+                WHERE c.statut = 'VALIDEE' AND c.date_fin_periode < ?
+                  AND to_regclass('public.mouvements_stock_' || to_char(make_date(c.annee, c.mois, 1), 'YYYY_MM')) IS NOT NULL
+                ORDER BY c.annee, c.mois
+                """, Date.valueOf(limite));
+
+        List<String> detachees = new ArrayList<>();
+        for (Map<String, Object> periode : periodes) {
+            int annee = ((Number) periode.get("annee")).intValue();
+            int mois = ((Number) periode.get("mois")).intValue();
+            try {
+                String table = detacherPeriode(annee, mois);
+                if (table != null) {
+                    detachees.add(table);
+                }
+            } catch (Exception e) {
+                log.error("Détachement de la période {}/{} impossible: {}", mois, annee, e.getMessage());
+            }
+        }
+        return detachees;
+    }
+
+    /**
+     * Partitions attachées avec leur borne et leur volume estimé
+     */
+    public List<Map<String, Object>> getPartitions() {
+        return jdbcTemplate.query("""
+                SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), c.reltuples::bigint,
+                       pg_total_relation_size(c.oid)
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'mouvements_stock'::regclass
+                ORDER BY c.relname
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("nom", rs.getString(1));
+            map.put("bornes", rs.getString(2));
+            map.put("lignesEstimees", Math.max(0, rs.getLong(3)));
+            map.put("taille", rs.getLong(4));
+            return map;
+        });
+    }
+}
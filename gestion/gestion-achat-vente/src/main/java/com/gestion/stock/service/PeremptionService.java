@@ -0,0 +1,218 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Moteur de péremption ensembliste.
+ *
+ * Le passage DISPONIBLE → PERIME se fait par tranches de {@code gestion.peremption.taille-tranche}
+ * lots, chacune en un seul {@code UPDATE ... RETURNING} dans sa propre transaction
+ * ({@code FOR UPDATE SKIP LOCKED} : un lot verrouillé par une sortie en cours est repris au
+ * passage suivant). Seuls les lots encore DISPONIBLE sont ciblés, le balayage peut donc être
+ * relancé sans effet de bord. Aucune entité n'est chargée en mémoire.
+ *
+ * Les alertes J+7 / J+15 / J+30 sont calculées par une seule requête groupée.
+ * {@link #consulterAlertes(LocalDate)} en donne la synthèse sans modifier aucun lot
+ * (notifications) : seul le balayage planifié change les statuts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PeremptionService {
+
+    public static final String TRANCHE_J7 = "J7";
+    public static final String TRANCHE_J15 = "J15";
+    public static final String TRANCHE_J30 = "J30";
+
+    private static final int EXEMPLES_MAX = 20;
+
+    private static final String SQL_PERIMER =
+            "UPDATE lots l SET statut = 'PERIME' " +
+            "FROM (SELECT id FROM lots " +
+            "      WHERE statut = 'DISPONIBLE' AND date_peremption <= ? " +
+            "      ORDER BY date_peremption, id LIMIT ? " +
+            "      FOR UPDATE SKIP LOCKED) cible, articles a " +
+            "WHERE l.id = cible.id AND a.id = l.article_id " +
+            "RETURNING l.numero_lot, a.code_article, l.date_peremption, l.quantite_actuelle, " +
+            "          l.quantite_actuelle * l.cout_unitaire AS valeur";
+
+    private static final String SQL_TRANCHES =
+            "SELECT CASE WHEN l.date_peremption <= ? THEN 'J7' " +
+            "            WHEN l.date_peremption <= ? THEN 'J15' ELSE 'J30' END AS tranche, " +
+            "       COUNT(*) AS nombre_lots, " +
+            "       COUNT(DISTINCT l.article_id) AS nombre_articles, " +
+            "       COALESCE(SUM(l.quantite_actuelle), 0) AS quantite, " +
+            "       COALESCE(SUM(l.quantite_actuelle * l.cout_unitaire), 0) AS valeur, " +
+            "       MIN(l.date_peremption) AS premiere_peremption, " +
+            "       (ARRAY_AGG(l.numero_lot || ' (' || a.code_article || '): ' || l.quantite_actuelle " +
+            "                  || ' unités, ' || (l.date_peremption - ?) || ' jour(s) restant(s)' " +
+            "                  ORDER BY l.date_peremption, l.numero_lot))[1:" + EXEMPLES_MAX + "] AS exemples " +
+            "FROM lots l " +
+            "JOIN articles a ON a.id = l.article_id " +
+            "WHERE l.statut = 'DISPONIBLE' AND l.quantite_actuelle > 0 " +
+            "  AND l.date_peremption > ? AND l.date_peremption <= ? " +
+            "GROUP BY 1 " +
+            "ORDER BY premiere_peremption";
+
+    private static final String SQL_PERIMES_EN_STOCK =
+            "SELECT COUNT(*) AS nombre_lots, " +
+            "       COALESCE(SUM(l.quantite_actuelle), 0) AS quantite, " +
+            "       COALESCE(SUM(l.quantite_actuelle * l.cout_unitaire), 0) AS valeur, " +
+            "       (ARRAY_AGG(l.numero_lot || ' (' || a.code_article || '): ' || l.quantite_actuelle " +
+            "                  || ' unités, DLC ' || l.date_peremption " +
+            "                  ORDER BY l.date_peremption, l.numero_lot))[1:" + EXEMPLES_MAX + "] AS exemples " +
+            "FROM lots l " +
+            "JOIN articles a ON a.id = l.article_id " +
+            "WHERE l.quantite_actuelle > 0 " +
+            "  AND (l.statut = 'PERIME' OR (l.statut = 'DISPONIBLE' AND l.date_peremption <= ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+
+    /**
+     * Bloquer tous les lots disponibles dont la DLC est atteinte à la date donnée.
+     *
+     * @return synthèse : nombre de lots, quantité et valeur bloquées, tranches exécutées,
+     *         premiers lots concernés
+     */
+    public Map<String, Object> perimerLots(LocalDate dateReference) {
+        int tailleTranche = environment.getProperty("gestion.peremption.taille-tranche", Integer.class, 500);
+        TransactionTemplate transaction = nouvelleTransaction();
+
+        int lotsPerimes = 0;
+        int tranches = 0;
+        long quantite = 0;
+        BigDecimal valeur = BigDecimal.ZERO;
+        List<String> exemples = new ArrayList<>();
+        long debut = System.currentTimeMillis();
+
+        while (true) {
+            List<Map<String, Object>> bloques = transaction.execute(status ->
+                    jdbcTemplate.queryForList(SQL_PERIMER, Date.valueOf(dateReference), tailleTranche));
+            if (bloques == null || bloques.isEmpty()) {
+                break;
+            }
+            tranches++;
+            lotsPerimes += bloques.size();
+            for (Map<String, Object> lot : bloques) {
+                quantite += ((Number) lot.get("quantite_actuelle")).longValue();
+                valeur = valeur.add((BigDecimal) lot.get("valeur"));
+                if (exemples.size() < EXEMPLES_MAX) {
+                    exemples.add(lot.get("numero_lot") + " (" + lot.get("code_article") + "): "
+                            + lot.get("quantite_actuelle") + " unités, DLC " + lot.get("date_peremption"));
+                }
+                log.debug("Lot périmé bloqué: {} - Article: {}", lot.get("numero_lot"), lot.get("code_article"));
+            }
+            if (bloques.size() < tailleTranche) {
+                break;
+            }
+        }
+
+        if (lotsPerimes > 0) {
+            log.warn("{} lot(s) périmé(s) bloqué(s) en {} tranche(s) ({} unités, valeur {}) en {} ms",
+                    lotsPerimes, tranches, quantite, valeur, System.currentTimeMillis() - debut);
+        }
+
+        Map<String, Object> resultat = new HashMap<>();
+        resultat.put("dateReference", dateReference);
+        resultat.put("lotsPerimes", lotsPerimes);
+        resultat.put("tranches", tranches);
+        resultat.put("quantite", quantite);
+        resultat.put("valeur", valeur);
+        resultat.put("exemples", exemples);
+        return resultat;
+    }
+
+    /**
+     * Lots disponibles proches de la péremption, par tranche J+7 / J+15 / J+30
+     * (lots déjà périmés exclus : ils relèvent de {@link #perimerLots(LocalDate)}).
+     */
+    public List<Map<String, Object>> getTranchesAlerte(LocalDate dateReference) {
+        Date reference = Date.valueOf(dateReference);
+        return jdbcTemplate.query(SQL_TRANCHES, (rs, rowNum) -> {
+            Map<String, Object> tranche = new HashMap<>();
+            tranche.put("tranche", rs.getString("tranche"));
+            tranche.put("libelle", libelle(rs.getString("tranche")));
+            tranche.put("nombreLots", rs.getInt("nombre_lots"));
+            tranche.put("nombreArticles", rs.getInt("nombre_articles"));
+            tranche.put("quantite", rs.getLong("quantite"));
+            tranche.put("valeur", rs.getBigDecimal("valeur"));
+            tranche.put("premierePeremption", rs.getDate("premiere_peremption").toLocalDate());
+            Array exemples = rs.getArray("exemples");
+            tranche.put("exemples", exemples != null
+                    ? Arrays.asList((String[]) exemples.getArray()) : List.of());
+            return tranche;
+        },
+                Date.valueOf(dateReference.plusDays(7)),
+                Date.valueOf(dateReference.plusDays(15)),
+                reference,
+                reference,
+                Date.valueOf(dateReference.plusDays(30)));
+    }
+
+    /**
+     * Synthèse en lecture seule : lots périmés encore en stock (bloqués, ou dont la DLC est
+     * atteinte avant le prochain balayage) et tranches J+7 / J+15 / J+30.
+     * Même forme que {@link #executerBalayage()}.
+     */
+    public Map<String, Object> consulterAlertes(LocalDate dateReference) {
+        Map<String, Object> resultat = jdbcTemplate.queryForObject(SQL_PERIMES_EN_STOCK, (rs, rowNum) -> {
+            Map<String, Object> perimes = new HashMap<>();
+            perimes.put("dateReference", dateReference);
+            perimes.put("lotsPerimes", rs.getInt("nombre_lots"));
+            perimes.put("quantite", rs.getLong("quantite"));
+            perimes.put("valeur", rs.getBigDecimal("valeur"));
+            Array exemples = rs.getArray("exemples");
+            perimes.put("exemples", exemples != null
+                    ? Arrays.asList((String[]) exemples.getArray()) : List.of());
+            return perimes;
+        }, Date.valueOf(dateReference));
+        resultat.put("alertes", getTranchesAlerte(dateReference));
+        return resultat;
+    }
+
+    /**
+     * Passage quotidien : blocage des lots périmés puis calcul des alertes.
+     */
+    public Map<String, Object> executerBalayage() {
+        LocalDate aujourdhui = LocalDate.now();
+        Map<String, Object> resultat = perimerLots(aujourdhui);
+        List<Map<String, Object>> tranches = getTranchesAlerte(aujourdhui);
+        resultat.put("alertes", tranches);
+
+        int lotsEnAlerte = tranches.stream()
+                .mapToInt(tranche -> (Integer) tranche.get("nombreLots"))
+                .sum();
+        log.info("Vérification lots terminée: {} lots périmés, {} lots en alerte (J+30)",
+                resultat.get("lotsPerimes"), lotsEnAlerte);
+        return resultat;
+    }
+
+    private static String libelle(String tranche) {
+        switch (tranche) {
+            case TRANCHE_J7: return "1-7 jours";
+            case TRANCHE_J15: return "8-15 jours";
+            default: return "16-30 jours";
+        }
+    }
+
+    private TransactionTemplate nouvelleTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -0,0 +1,328 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Positions de stock quotidiennes (PARTIE 19 du schéma).
+ *
+ * Chaque soir à 23h50 (un seul nœud, {@link BailJobService}), la position courante de chaque
+ * article / dépôt est comparée à sa dernière ligne connue : seules les positions modifiées
+ * sont écrites (report implicite des autres), ainsi qu'un total par dépôt. Les jours manqués
+ * depuis le dernier instantané (nœuds arrêtés, créneau perdu) sont rattrapés au passage
+ * suivant, chacun à son état de fin de journée. Au premier démarrage, l'historique est
+ * amorcé depuis les instantanés de clôture.
+ *
+ * Stock moyen pondéré par la durée, rotation, couverture et courbes d'évolution se lisent
+ * sur ces lignes, en proportion du nombre de jours et non du volume de mouvements.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PositionStockService {
+
+    /**
+     * État en fin de journée :jour = stock courant moins les mouvements validés postérieurs
+     * (vide pour le jour courant, sauf mouvements datés à l'avance). La valeur déduit la
+     * valeur des mouvements, sans rejouer les revalorisations du CUMP.
+     */
+    private static final String SQL_ETAT_JOUR = """
+            WITH posterieurs AS (
+                SELECT m.article_id, m.depot_id,
+                       SUM(CASE WHEN t.sens = 'ENTREE' THEN m.quantite ELSE -m.quantite END) AS quantite,
+                       COALESCE(SUM(CASE WHEN t.sens = 'ENTREE' THEN m.valeur_mouvement
+                                         ELSE -m.valeur_mouvement END), 0) AS valeur
+                FROM mouvements_stock_journal m
+                JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                WHERE m.statut = 'VALIDE' AND m.date_comptable > :jour
+                GROUP BY m.article_id, m.depot_id
+            ), etat AS (
+                SELECT st.article_id, st.depot_id,
+                       COALESCE(st.quantite_theorique, 0) - COALESCE(p.quantite, 0) AS quantite_theorique,
+                       COALESCE(st.valeur_stock_cump, 0) - COALESCE(p.valeur, 0) AS valeur_stock_cump
+                FROM stocks st
+                LEFT JOIN posterieurs p ON p.article_id = st.article_id AND p.depot_id = st.depot_id
+            )
+            """;
+
+    private static final String SQL_POSITIONS_MODIFIEES = SQL_ETAT_JOUR + """
+            INSERT INTO positions_stock_jour (article_id, depot_id, jour, quantite, valeur)
+            SELECT s.article_id, s.depot_id, :jour,
+                   COALESCE(s.quantite_theorique, 0), COALESCE(s.valeur_stock_cump, 0)
+            FROM etat s
+            LEFT JOIN LATERAL (
+                SELECT p.quantite, p.valeur
+                FROM positions_stock_jour p
+                WHERE p.article_id = s.article_id AND p.depot_id = s.depot_id AND p.jour < :jour
+                ORDER BY p.jour DESC
+                LIMIT 1
+            ) precedente ON TRUE
+            WHERE precedente.quantite IS NULL
+               OR precedente.quantite <> COALESCE(s.quantite_theorique, 0)
+               OR precedente.valeur <> COALESCE(s.valeur_stock_cump, 0)
+            ON CONFLICT (article_id, depot_id, jour) DO UPDATE SET
+                quantite = EXCLUDED.quantite,
+                valeur = EXCLUDED.valeur
+            """;
+
+    private static final String SQL_TOTAUX = SQL_ETAT_JOUR + """
+            INSERT INTO positions_stock_totaux_jour (jour, depot_id, quantite, valeur, nombre_articles)
+            SELECT :jour, s.depot_id, COALESCE(SUM(s.quantite_theorique), 0),
+                   COALESCE(SUM(s.valeur_stock_cump), 0), COUNT(*) FILTER (WHERE s.quantite_theorique > 0)
+            FROM etat s
+            GROUP BY s.depot_id
+            ON CONFLICT (jour, depot_id) DO UPDATE SET
+                quantite = EXCLUDED.quantite,
+                valeur = EXCLUDED.valeur,
+                nombre_articles = EXCLUDED.nombre_articles
+            """;
+
+    private static final String SQL_AMORCER_POSITIONS = """
+            INSERT INTO positions_stock_jour (article_id, depot_id, jour, quantite, valeur)
+            SELECT DISTINCT ON (h.article_id, h.depot_id, c.date_fin_periode)
+                   h.article_id, h.depot_id, c.date_fin_periode, h.quantite_stock, h.valeur_stock
+            FROM historique_couts h
+            JOIN clotures_mensuelles c ON c.id = h.cloture_mensuelle_id
+            WHERE c.statut IN ('CLOTUREE', 'VALIDEE')
+            ORDER BY h.article_id, h.depot_id, c.date_fin_periode, h.date_effet DESC
+            ON CONFLICT DO NOTHING
+            """;
+
+    private static final String SQL_AMORCER_TOTAUX = """
+            INSERT INTO positions_stock_totaux_jour (jour, depot_id, quantite, valeur, nombre_articles)
+            SELECT p.jour, p.depot_id, SUM(p.quantite), SUM(p.valeur), COUNT(*) FILTER (WHERE p.quantite > 0)
+            FROM positions_stock_jour p
+            GROUP BY p.jour, p.depot_id
+            ON CONFLICT DO NOTHING
+            """;
+
+    /** Position au début de période puis changements de la période, pondérés par leur durée */
+    private static final String SQL_STOCK_MOYEN = """
+            WITH positions AS (
+                (SELECT CAST(:debut AS DATE) AS jour, p.quantite, p.valeur
+                 FROM positions_stock_jour p
+                 WHERE p.article_id = :articleId AND p.depot_id = :depotId AND p.jour <= :debut
+                 ORDER BY p.jour DESC
+                 LIMIT 1)
+                UNION ALL
+                SELECT p.jour, p.quantite, p.valeur
+                FROM positions_stock_jour p
+                WHERE p.article_id = :articleId AND p.depot_id = :depotId
+                  AND p.jour > :debut AND p.jour <= :fin
+            ), intervalles AS (
+                SELECT quantite, valeur,
+                       LEAD(jour, 1, CAST(:fin AS DATE) + 1) OVER (ORDER BY jour) - jour AS jours
+                FROM positions
+            )
+            SELECT SUM(quantite::NUMERIC * jours) / NULLIF(SUM(jours), 0) AS stock_moyen,
+                   SUM(valeur * jours) / NULLIF(SUM(jours), 0) AS valeur_moyenne,
+                   COALESCE(SUM(jours), 0) AS jours
+            FROM intervalles
+            """;
+
+    private static final String SQL_SORTIES = """
+            SELECT COALESCE(SUM(m.quantite), 0)
+            FROM mouvements_stock_journal m
+            JOIN types_mouvement t ON t.id = m.type_mouvement_id
+            WHERE t.sens = 'SORTIE' AND m.statut = 'VALIDE'
+              AND m.article_id = :articleId AND m.depot_id = :depotId
+              AND m.date_comptable > :debut AND m.date_comptable <= :fin
+            """;
+
+    /** Total en vigueur à chaque fin de mois (report de la dernière journée connue) */
+    private static final String SQL_EVOLUTION = """
+            SELECT f.fin, COALESCE(SUM(t.quantite), 0) AS quantite, COALESCE(SUM(t.valeur), 0) AS valeur
+            FROM (SELECT LEAST((date_trunc('month', g) + INTERVAL '1 month' - INTERVAL '1 day')::DATE,
+                               CURRENT_DATE) AS fin
+                  FROM generate_series(date_trunc('month', CAST(:debut AS DATE)),
+                                       date_trunc('month', CURRENT_DATE), INTERVAL '1 month') g) f
+            LEFT JOIN LATERAL (
+                SELECT DISTINCT ON (x.depot_id) x.quantite, x.valeur
+                FROM positions_stock_totaux_jour x
+                WHERE x.jour <= f.fin AND (CAST(:depotId AS UUID) IS NULL OR x.depot_id = :depotId)
+                ORDER BY x.depot_id, x.jour DESC
+            ) t ON TRUE
+            GROUP BY f.fin
+            ORDER BY f.fin
+            """;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final BailJobService bailJobService;
+
+    static final String CRON_INSTANTANE = "0 50 23 * * *"; // Tous les jours à 23h50
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        try {
+            amorcer();
+        } catch (Exception e) {
+            log.error("Positions de stock indisponibles (schéma PARTIE 19 appliqué ?): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Instantané du soir et rattrapage des jours manqués, un seul nœud par créneau
+     */
+    @Scheduled(cron = CRON_INSTANTANE)
+    public void instantane() {
+        bailJobService.executer("positions-stock", CRON_INSTANTANE,
+                fragment -> rattraper(LocalDate.now()));
+    }
+
+    /**
+     * Enregistrer chaque jour manquant depuis le dernier instantané, dans l'ordre, puis le
+     * jour donné. Sans instantané antérieur, seul le jour donné est écrit.
+     *
+     * @return nombre de positions écrites
+     */
+    public int rattraper(LocalDate jour) {
+        Date dernier = namedJdbcTemplate.queryForObject(
+                "SELECT MAX(jour) FROM positions_stock_totaux_jour WHERE jour < :jour",
+                new MapSqlParameterSource("jour", Date.valueOf(jour)), Date.class);
+        int positions = 0;
+        if (dernier != null) {
+            LocalDate manquant = dernier.toLocalDate().plusDays(1);
+            if (manquant.isBefore(jour)) {
+                log.warn("Positions de stock manquantes du {} au {}: rattrapage", manquant, jour.minusDays(1));
+            }
+            for (; manquant.isBefore(jour); manquant = manquant.plusDays(1)) {
+                positions += enregistrerPositions(manquant);
+            }
+        }
+        return positions + enregistrerPositions(jour);
+    }
+
+    /**
+     * Amorcer l'historique depuis les instantanés de clôture si la table est vide.
+     */
+    public void amorcer() {
+        Boolean vide = namedJdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM positions_stock_jour)", Boolean.class);
+        if (!Boolean.TRUE.equals(vide)) {
+            return;
+        }
+        int[] lignes = new TransactionTemplate(transactionManager).execute(status -> new int[] {
+                namedJdbcTemplate.getJdbcTemplate().update(SQL_AMORCER_POSITIONS),
+                namedJdbcTemplate.getJdbcTemplate().update(SQL_AMORCER_TOTAUX)
+        });
+        if (lignes != null && lignes[0] > 0) {
+            log.info("Positions de stock amorcées depuis les clôtures: {} position(s), {} total(aux)",
+                    lignes[0], lignes[1]);
+        }
+    }
+
+    /**
+     * Enregistrer la position en fin de journée : lignes modifiées depuis la dernière
+     * position connue et totaux par dépôt.
+     *
+     * @return nombre de positions écrites
+     */
+    public int enregistrerPositions(LocalDate jour) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource("jour", Date.valueOf(jour));
+        long debut = System.currentTimeMillis();
+        Integer positions = new TransactionTemplate(transactionManager).execute(status -> {
+            int lignes = namedJdbcTemplate.update(SQL_POSITIONS_MODIFIEES, parametres);
+            namedJdbcTemplate.update(SQL_TOTAUX, parametres);
+            return lignes;
+        });
+        log.info("Positions de stock du {}: {} ligne(s) modifiée(s) en {} ms",
+                jour, positions, System.currentTimeMillis() - debut);
+        return positions != null ? positions : 0;
+    }
+
+    /**
+     * Rotation d'un article / dépôt sur les {@code periodeMois} derniers mois :
+     * sorties de la période / stock moyen pondéré par la durée, et couverture en jours.
+     */
+    public Map<String, Object> getRotation(UUID articleId, UUID depotId, int periodeMois) {
+        LocalDate fin = LocalDate.now();
+        LocalDate debut = fin.minusMonths(periodeMois);
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("articleId", articleId)
+                .addValue("depotId", depotId)
+                .addValue("debut", Date.valueOf(debut))
+                .addValue("fin", Date.valueOf(fin));
+
+        Map<String, Object> moyenne = namedJdbcTemplate.queryForMap(SQL_STOCK_MOYEN, parametres);
+        Long sorties = namedJdbcTemplate.queryForObject(SQL_SORTIES, parametres, Long.class);
+        long totalSorties = sorties != null ? sorties : 0L;
+        BigDecimal stockMoyen = moyenne.get("stock_moyen") != null
+                ? ((BigDecimal) moyenne.get("stock_moyen")).setScale(2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        int jours = ((Number) moyenne.get("jours")).intValue();
+
+        Integer stockActuel = namedJdbcTemplate.query(
+                "SELECT quantite_theorique FROM stocks WHERE article_id = :articleId AND depot_id = :depotId",
+                parametres, rs -> rs.next() ? rs.getInt(1) : 0);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalSorties", totalSorties);
+        result.put("stockMoyen", stockMoyen);
+        result.put("valeurMoyenne", moyenne.get("valeur_moyenne") != null
+                ? ((BigDecimal) moyenne.get("valeur_moyenne")).setScale(2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        result.put("joursObserves", jours);
+        result.put("rotation", stockMoyen.signum() > 0
+                ? BigDecimal.valueOf(totalSorties).divide(stockMoyen, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        // Couverture : stock actuel / consommation journalière moyenne de la période
+        result.put("couvertureJours", totalSorties > 0 && jours > 0
+                ? BigDecimal.valueOf((long) stockActuel * jours).divide(BigDecimal.valueOf(totalSorties), 1, RoundingMode.HALF_UP)
+                : null);
+        result.put("stockActuel", stockActuel);
+        result.put("periodeMois", periodeMois);
+        return result;
+    }
+
+    /**
+     * Valeur et quantité en stock à chaque fin de mois des {@code mois} derniers mois
+     * (mois courant : dernière position enregistrée), tous dépôts si {@code depotId} est null.
+     */
+    public List<Map<String, Object>> getEvolutionMensuelle(int mois, UUID depotId) {
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("debut", Date.valueOf(LocalDate.now().minusMonths(Math.max(mois - 1, 0))))
+                .addValue("depotId", depotId);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
+        return namedJdbcTemplate.query(SQL_EVOLUTION, parametres, (rs, i) -> {
+            LocalDate fin = rs.getDate("fin").toLocalDate();
+            Map<String, Object> point = new HashMap<>();
+            point.put("periode", fin.format(formatter));
+            point.put("annee", fin.getYear());
+            point.put("mois", fin.getMonthValue());
+            point.put("date", fin);
+            point.put("quantite", rs.getLong("quantite"));
+            point.put("valeur", rs.getBigDecimal("valeur"));
+            return point;
+        });
+    }
+
+    /**
+     * Valeur totale du stock à la fin de la journée {@code jour} (dernier total connu par dépôt).
+     */
+    public BigDecimal getValeurTotale(LocalDate jour) {
+        BigDecimal valeur = namedJdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(t.valeur), 0)
+                FROM (SELECT DISTINCT ON (depot_id) valeur
+                      FROM positions_stock_totaux_jour
+                      WHERE jour <= :jour
+                      ORDER BY depot_id, jour DESC) t
+                """, new MapSqlParameterSource("jour", Date.valueOf(jour)), BigDecimal.class);
+        return valeur != null ? valeur : BigDecimal.ZERO;
+    }
+}
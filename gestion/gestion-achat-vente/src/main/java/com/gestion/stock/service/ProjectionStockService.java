@@ -0,0 +1,346 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Projections de lecture alimentées par l'outbox {@code evenements_stock}.
+ *
+ * Les triggers de {@code mouvements_stock}, {@code lots} et {@code reservations_stock}
+ * écrivent les événements dans la transaction métier. Ce service les consomme par tranches
+ * de transactions terminées ({@code xid < xmin} du snapshot courant : aucune transaction
+ * encore ouverte ne peut y ajouter d'événement) et met à jour de façon incrémentale :
+ * <ul>
+ *   <li>{@code projection_stock} : état par article / dépôt et alerte seuil minimum</li>
+ *   <li>{@code projection_valorisation_depot} : totaux par dépôt, par différence</li>
+ *   <li>{@code projection_mouvements_jour} : activité journalière par sens</li>
+ * </ul>
+ * Les lectures (alertes, tableau de bord) ne recalculent plus rien depuis le journal.
+ * Un seul nœud consomme le flux à la fois (bail périodique de {@link BailJobService}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectionStockService {
+
+    private static final String PROJECTION = "stock";
+    private static final long VERROU = 0x5072_6F6A_5374_6BL; // pg_advisory_xact_lock
+
+    static final String CRON_PURGE = "0 20 * * * *"; // Toutes les heures
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+
+    private volatile boolean actif;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!environment.getProperty("gestion.projections.actif", Boolean.class, true)) {
+            log.info("Projections de stock désactivées");
+            return;
+        }
+        try {
+            Integer checkpoints = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM projections_checkpoint WHERE nom = ?", Integer.class, PROJECTION);
+            if (checkpoints == null || checkpoints == 0) {
+                reconstruire();
+            }
+        } catch (Exception e) {
+            log.error("Projections de stock indisponibles (schéma PARTIE 14 appliqué ?): {}", e.getMessage());
+            return;
+        }
+        actif = true;
+        log.info("Projections de stock actives (intervalle {} ms)",
+                environment.getProperty("gestion.projections.intervalle-ms", Long.class, 1000L));
+    }
+
+    /**
+     * Consommer l'outbox, sur le nœud qui détient le bail
+     */
+    @Scheduled(fixedDelayString = "${gestion.projections.intervalle-ms:1000}",
+            initialDelayString = "${gestion.projections.intervalle-ms:1000}")
+    public void passage() {
+        if (!actif) {
+            return;
+        }
+        try {
+            bailJobService.executerPeriodique("projection-stock", this::traiterEvenements);
+        } catch (Exception e) {
+            log.error("Erreur de mise à jour des projections de stock: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Purger les événements consommés (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_PURGE)
+    public void purgerEvenementsPlanifie() {
+        if (actif) {
+            bailJobService.executer("projection-stock-purge", CRON_PURGE, fragment -> purgerEvenements());
+        }
+    }
+
+    /**
+     * Appliquer les événements des transactions terminées depuis le dernier checkpoint.
+     *
+     * @return nombre d'événements consommés
+     */
+    public synchronized int traiterEvenements() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        return template.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, VERROU);
+            Long depuis = jdbcTemplate.queryForObject(
+                    "SELECT xid_traite FROM projections_checkpoint WHERE nom = ?", Long.class, PROJECTION);
+            Long jusqua = jdbcTemplate.queryForObject(
+                    "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+            if (depuis == null || jusqua == null || jusqua <= depuis) {
+                return 0;
+            }
+
+            int evenements = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM evenements_stock WHERE xid >= ? AND xid < ?",
+                    Integer.class, depuis, jusqua);
+            if (evenements > 0) {
+                appliquerStock(depuis, jusqua);
+                appliquerMouvementsJour(depuis, jusqua, 1);
+                log.debug("Projections de stock: {} événement(s) appliqué(s)", evenements);
+            }
+            jdbcTemplate.update("UPDATE projections_checkpoint SET xid_traite = ?, date_maj = CURRENT_TIMESTAMP " +
+                    "WHERE nom = ?", jusqua, PROJECTION);
+            return evenements;
+        });
+    }
+
+    /**
+     * Reconstruire toutes les projections depuis l'état courant (stocks) et le journal.
+     *
+     * Exécuté en REPEATABLE READ : tout est calculé sur un seul snapshot S, le checkpoint
+     * est placé à xmin(S), et les événements déjà visibles dans S au-delà de ce xmin sont
+     * retranchés de l'activité journalière puisqu'ils seront rejoués par le flux.
+     */
+    public synchronized void reconstruire() {
+        log.info("Reconstruction des projections de stock");
+        long debut = System.currentTimeMillis();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        template.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, VERROU);
+            Long xmin = jdbcTemplate.queryForObject(
+                    "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+
+            jdbcTemplate.update("DELETE FROM projection_stock");
+            jdbcTemplate.update("DELETE FROM projection_valorisation_depot");
+            jdbcTemplate.update("DELETE FROM projection_mouvements_jour");
+
+            jdbcTemplate.update("""
+                    INSERT INTO projection_stock (article_id, depot_id, quantite_theorique, quantite_reservee,
+                                                  quantite_disponible, valeur_stock, stock_minimum, en_alerte, date_maj)
+                    SELECT s.article_id, s.depot_id, COALESCE(s.quantite_theorique, 0), COALESCE(s.quantite_reservee, 0),
+                           COALESCE(s.quantite_disponible, 0), COALESCE(s.valeur_stock_cump, 0), a.stock_minimum,
+                           a.stock_minimum IS NOT NULL AND COALESCE(s.quantite_theorique, 0) < a.stock_minimum,
+                           CURRENT_TIMESTAMP
+                    FROM stocks s
+                    JOIN articles a ON a.id = s.article_id
+                    """);
+            jdbcTemplate.update("""
+                    INSERT INTO projection_valorisation_depot (depot_id, valeur_totale, quantite_totale,
+                                                               nombre_articles_en_stock, nombre_alertes, date_maj)
+                    SELECT depot_id, SUM(valeur_stock), SUM(quantite_theorique),
+                           COUNT(*) FILTER (WHERE quantite_theorique > 0), COUNT(*) FILTER (WHERE en_alerte),
+                           CURRENT_TIMESTAMP
+                    FROM projection_stock
+                    GROUP BY depot_id
+                    """);
+            jdbcTemplate.update("""
+                    INSERT INTO projection_mouvements_jour (jour, sens, nombre_mouvements, quantite, valeur)
+                    SELECT m.date_mouvement::date, t.sens, COUNT(*), SUM(m.quantite), SUM(m.quantite * m.cout_unitaire)
+                    FROM mouvements_stock_journal m
+                    JOIN types_mouvement t ON t.id = m.type_mouvement_id
+                    WHERE m.statut = 'VALIDE'
+                    GROUP BY 1, 2
+                    """);
+            appliquerMouvementsJour(xmin, Long.MAX_VALUE, -1);
+
+            jdbcTemplate.update("""
+                    INSERT INTO projections_checkpoint (nom, xid_traite, date_maj) VALUES (?, ?, CURRENT_TIMESTAMP)
+                    ON CONFLICT (nom) DO UPDATE SET xid_traite = EXCLUDED.xid_traite, date_maj = EXCLUDED.date_maj
+                    """, PROJECTION, xmin);
+        });
+        log.info("Projections de stock reconstruites en {} ms", System.currentTimeMillis() - debut);
+    }
+
+    /**
+     * Recalcule les lignes article / dépôt touchées depuis l'état courant de {@code stocks}
+     * et reporte la différence (nouveau - ancien) sur les totaux par dépôt.
+     */
+    private void appliquerStock(long depuis, long jusqua) {
+        jdbcTemplate.update("""
+                WITH cles AS (
+                    SELECT DISTINCT article_id, depot_id
+                    FROM evenements_stock
+                    WHERE xid >= ? AND xid < ? AND article_id IS NOT NULL AND depot_id IS NOT NULL
+                ), nouveau AS (
+                    SELECT c.article_id, c.depot_id,
+                           COALESCE(s.quantite_theorique, 0) AS quantite_theorique,
+                           COALESCE(s.quantite_reservee, 0) AS quantite_reservee,
+                           COALESCE(s.quantite_disponible, 0) AS quantite_disponible,
+                           COALESCE(s.valeur_stock_cump, 0) AS valeur_stock,
+                           a.stock_minimum,
+                           a.stock_minimum IS NOT NULL AND COALESCE(s.quantite_theorique, 0) < a.stock_minimum AS en_alerte
+                    FROM cles c
+                    JOIN articles a ON a.id = c.article_id
+                    LEFT JOIN stocks s ON s.article_id = c.article_id AND s.depot_id = c.depot_id
+                ), delta AS (
+                    SELECT n.depot_id,
+                           SUM(n.valeur_stock - COALESCE(p.valeur_stock, 0)) AS valeur,
+                           SUM(n.quantite_theorique - COALESCE(p.quantite_theorique, 0)) AS quantite,
+                           SUM((n.quantite_theorique > 0)::int - COALESCE((p.quantite_theorique > 0)::int, 0)) AS articles,
+                           SUM(n.en_alerte::int - COALESCE(p.en_alerte::int, 0)) AS alertes
+                    FROM nouveau n
+                    LEFT JOIN projection_stock p ON p.article_id = n.article_id AND p.depot_id = n.depot_id
+                    GROUP BY n.depot_id
+                ), maj_depot AS (
+                    INSERT INTO projection_valorisation_depot AS v (depot_id, valeur_totale, quantite_totale,
+                                                                   nombre_articles_en_stock, nombre_alertes, date_maj)
+                    SELECT depot_id, valeur, quantite, articles, alertes, CURRENT_TIMESTAMP FROM delta
+                    ON CONFLICT (depot_id) DO UPDATE SET
+                        valeur_totale = v.valeur_totale + EXCLUDED.valeur_totale,
+                        quantite_totale = v.quantite_totale + EXCLUDED.quantite_totale,
+                        nombre_articles_en_stock = v.nombre_articles_en_stock + EXCLUDED.nombre_articles_en_stock,
+                        nombre_alertes = v.nombre_alertes + EXCLUDED.nombre_alertes,
+                        date_maj = EXCLUDED.date_maj
+                )
+                INSERT INTO projection_stock AS p (article_id, depot_id, quantite_theorique, quantite_reservee,
+                                                   quantite_disponible, valeur_stock, stock_minimum, en_alerte, date_maj)
+                SELECT article_id, depot_id, quantite_theorique, quantite_reservee, quantite_disponible,
+                       valeur_stock, stock_minimum, en_alerte, CURRENT_TIMESTAMP
+                FROM nouveau
+                ON CONFLICT (article_id, depot_id) DO UPDATE SET
+                    quantite_theorique = EXCLUDED.quantite_theorique,
+                    quantite_reservee = EXCLUDED.quantite_reservee,
+                    quantite_disponible = EXCLUDED.quantite_disponible,
+                    valeur_stock = EXCLUDED.valeur_stock,
+                    stock_minimum = EXCLUDED.stock_minimum,
+                    en_alerte = EXCLUDED.en_alerte,
+                    date_maj = EXCLUDED.date_maj
+                """, depuis, jusqua);
+    }
+
+    /**
+     * Ajoute (signe = 1) ou retranche (signe = -1) l'activité des mouvements validés / annulés.
+     */
+    private void appliquerMouvementsJour(long depuis, long jusqua, int signe) {
+        jdbcTemplate.update("""
+                INSERT INTO projection_mouvements_jour AS j (jour, sens, nombre_mouvements, quantite, valeur)
+                SELECT date_evenement::date, sens,
+                       ? * SUM(CASE type_evenement WHEN 'MOUVEMENT_VALIDE' THEN 1 ELSE -1 END),
+                       ? * SUM(CASE type_evenement WHEN 'MOUVEMENT_VALIDE' THEN quantite ELSE -quantite END),
+                       ? * SUM(CASE type_evenement WHEN 'MOUVEMENT_VALIDE' THEN valeur ELSE -valeur END)
+                FROM evenements_stock
+                WHERE xid >= ? AND xid < ? AND type_evenement IN ('MOUVEMENT_VALIDE', 'MOUVEMENT_ANNULE')
+                GROUP BY 1, 2
+                ON CONFLICT (jour, sens) DO UPDATE SET
+                    nombre_mouvements = j.nombre_mouvements + EXCLUDED.nombre_mouvements,
+                    quantite = j.quantite + EXCLUDED.quantite,
+                    valeur = j.valeur + EXCLUDED.valeur
+                """, signe, signe, signe, depuis, jusqua);
+    }
+
+    /**
+     * Supprimer les événements consommés plus anciens que la rétention.
+     */
+    public int purgerEvenements() {
+        int jours = environment.getProperty("gestion.projections.retention-jours", Integer.class, 7);
+        int supprimes = jdbcTemplate.update("""
+                DELETE FROM evenements_stock
+                WHERE created_at < CURRENT_TIMESTAMP - make_interval(days => ?)
+                  AND xid < (SELECT MIN(xid_traite) FROM projections_checkpoint)
+                """, jours);
+        if (supprimes > 0) {
+            log.info("{} événement(s) de stock purgé(s)", supprimes);
+        }
+        return supprimes;
+    }
+
+    // ------------------------------------------------------------------
+    // Lectures
+    // ------------------------------------------------------------------
+
+    /**
+     * Stocks sous le seuil minimum (même forme que StockService.getStocksCritiques)
+     */
+    public List<Map<String, Object>> getStocksEnAlerte() {
+        return jdbcTemplate.query("""
+                SELECT a.code_article, a.libelle, p.quantite_theorique, p.stock_minimum, d.nom,
+                       p.article_id, p.depot_id
+                FROM projection_stock p
+                JOIN articles a ON a.id = p.article_id
+                JOIN depots d ON d.id = p.depot_id
+                WHERE p.en_alerte
+                ORDER BY a.code_article, d.nom
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("codeArticle", rs.getString(1));
+            map.put("libelle", rs.getString(2));
+            map.put("quantite", rs.getInt(3));
+            map.put("stockMinimum", rs.getInt(4));
+            map.put("depotNom", rs.getString(5));
+            map.put("articleId", rs.getObject(6, UUID.class));
+            map.put("depotId", rs.getObject(7, UUID.class));
+            return map;
+        });
+    }
+
+    /**
+     * Nombre de mouvements par jour et par sens (ENTREE / SORTIE) depuis une date
+     */
+    public Map<LocalDate, Map<String, Long>> getMouvementsParJour(LocalDate depuis) {
+        Map<LocalDate, Map<String, Long>> resultat = new TreeMap<>();
+        jdbcTemplate.query("SELECT jour, sens, nombre_mouvements FROM projection_mouvements_jour WHERE jour >= ?",
+                rs -> {
+                    resultat.computeIfAbsent(rs.getDate(1).toLocalDate(), jour -> new HashMap<>())
+                            .put(rs.getString(2), rs.getLong(3));
+                }, Date.valueOf(depuis));
+        return resultat;
+    }
+
+    /**
+     * Valorisation courante par dépôt
+     */
+    public List<Map<String, Object>> getValorisationParDepot() {
+        return jdbcTemplate.query("""
+                SELECT d.id, d.code, d.nom, v.valeur_totale, v.quantite_totale,
+                       v.nombre_articles_en_stock, v.nombre_alertes, v.date_maj
+                FROM projection_valorisation_depot v
+                JOIN depots d ON d.id = v.depot_id
+                ORDER BY v.valeur_totale DESC
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("depotId", rs.getObject(1, UUID.class));
+            map.put("depotCode", rs.getString(2));
+            map.put("depotNom", rs.getString(3));
+            map.put("valeurTotale", rs.getBigDecimal(4) != null ? rs.getBigDecimal(4) : BigDecimal.ZERO);
+            map.put("quantiteTotale", rs.getLong(5));
+            map.put("nombreArticlesEnStock", rs.getInt(6));
+            map.put("nombreAlertes", rs.getInt(7));
+            map.put("dateMaj", rs.getTimestamp(8) != null ? rs.getTimestamp(8).toLocalDateTime() : null);
+            return map;
+        });
+    }
+}
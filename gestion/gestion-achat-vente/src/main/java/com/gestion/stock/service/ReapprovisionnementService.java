@@ -0,0 +1,306 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Surveillance du point de commande alimentée par l'outbox {@code evenements_stock}.
+ *
+ * Comme les projections, le service lit les événements des transactions terminées depuis
+ * son propre checkpoint et ne réévalue que les couples article / dépôt touchés : le
+ * disponible est comparé au point de commande (max du stock minimum et du stock de
+ * sécurité) et l'ensemble vivant {@code reappro_sous_seuil} est mis à jour (entrées,
+ * mises à jour, sorties). Le coût suit le volume de changements, pas la taille du catalogue.
+ *
+ * Périodiquement, les besoins sans proposition sont consolidés par article (tous dépôts)
+ * en une {@code DemandeAchat} chacun, en une seule requête ; un article ayant déjà une
+ * demande en attente ou en cours n'en reçoit pas de nouvelle.
+ *
+ * Le flux est consommé par le nœud qui détient le bail périodique ; réévaluation de nuit et
+ * propositions sont des créneaux exécutés par un seul nœud ({@link BailJobService}).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReapprovisionnementService {
+
+    private static final String CHECKPOINT = "reapprovisionnement";
+    private static final long VERROU = 0x5265_6170_7072_6FL; // pg_advisory_xact_lock
+
+    static final String CRON_REEVALUATION = "0 5 0 * * *"; // Tous les jours à 0h05
+    static final String CRON_PROPOSITIONS = "0 */15 * * * *"; // Toutes les 15 minutes
+
+    private static final String CLES_EVENEMENTS = """
+            SELECT DISTINCT article_id, depot_id
+            FROM evenements_stock
+            WHERE xid >= ? AND xid < ? AND article_id IS NOT NULL AND depot_id IS NOT NULL
+            """;
+
+    private static final String CLES_TOUTES = """
+            SELECT article_id, depot_id FROM stocks
+            UNION
+            SELECT article_id, depot_id FROM reappro_sous_seuil
+            """;
+
+    private static final String SQL_EVALUER = """
+            WITH cles AS (
+                %s
+            ), etat AS (
+                SELECT c.article_id, c.depot_id,
+                       COALESCE(s.quantite_disponible, 0) AS disponible,
+                       GREATEST(COALESCE(a.stock_minimum, 0), COALESCE(a.stock_securite, 0)) AS point_commande,
+                       a.stock_maximum
+                FROM cles c
+                JOIN articles a ON a.id = c.article_id AND a.actif = TRUE
+                LEFT JOIN stocks s ON s.article_id = c.article_id AND s.depot_id = c.depot_id
+            ), sous_seuil AS (
+                SELECT e.article_id, e.depot_id, e.disponible, e.point_commande,
+                       CASE WHEN e.stock_maximum > e.point_commande THEN e.stock_maximum
+                            ELSE 2 * e.point_commande END AS cible
+                FROM etat e
+                WHERE e.point_commande > 0 AND e.disponible < e.point_commande
+            ), sorties AS (
+                DELETE FROM reappro_sous_seuil r
+                USING cles c
+                WHERE r.article_id = c.article_id AND r.depot_id = c.depot_id
+                  AND NOT EXISTS (SELECT 1 FROM sous_seuil x
+                                  WHERE x.article_id = r.article_id AND x.depot_id = r.depot_id)
+                RETURNING 1
+            ), entrees AS (
+                INSERT INTO reappro_sous_seuil AS r (article_id, depot_id, quantite_disponible, point_commande,
+                                                     quantite_cible, quantite_a_commander)
+                SELECT article_id, depot_id, disponible, point_commande, cible, GREATEST(cible - disponible, 0)
+                FROM sous_seuil
+                ON CONFLICT (article_id, depot_id) DO UPDATE SET
+                    quantite_disponible = EXCLUDED.quantite_disponible,
+                    point_commande = EXCLUDED.point_commande,
+                    quantite_cible = EXCLUDED.quantite_cible,
+                    quantite_a_commander = EXCLUDED.quantite_a_commander,
+                    date_maj = CURRENT_TIMESTAMP
+                RETURNING (xmax = 0) AS nouveau
+            )
+            SELECT (SELECT COUNT(*) FROM entrees WHERE nouveau) AS entrees,
+                   (SELECT COUNT(*) FROM sorties) AS sorties
+            """;
+
+    private static final String SQL_PROPOSER = """
+            WITH besoins AS (
+                SELECT r.article_id, SUM(r.quantite_a_commander) AS quantite,
+                       STRING_AGG(d.nom || ' (' || r.quantite_disponible || '/' || r.point_commande || ')',
+                                  ', ' ORDER BY d.nom) AS detail
+                FROM reappro_sous_seuil r
+                JOIN depots d ON d.id = r.depot_id
+                WHERE r.demande_achat_id IS NULL
+                  AND NOT EXISTS (SELECT 1 FROM demandes_achat da
+                                  WHERE da.produit_id = r.article_id AND da.statut IN ('EN_ATTENTE', 'EN_COURS'))
+                GROUP BY r.article_id
+                HAVING SUM(r.quantite_a_commander) > 0
+            ), demandes AS (
+                INSERT INTO demandes_achat (produit_id, quantite_demandee, motif, statut, date_demande)
+                SELECT article_id, quantite, 'Réapprovisionnement auto: sous le point de commande - ' || detail,
+                       'EN_ATTENTE', CURRENT_TIMESTAMP
+                FROM besoins
+                RETURNING id, produit_id
+            ), liees AS (
+                UPDATE reappro_sous_seuil r
+                SET demande_achat_id = dm.id
+                FROM demandes dm
+                WHERE r.article_id = dm.produit_id AND r.demande_achat_id IS NULL
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM demandes) AS demandes, (SELECT COUNT(*) FROM liees) AS lignes
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+    private final BailJobService bailJobService;
+
+    private volatile boolean actif;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void demarrer() {
+        if (!environment.getProperty("gestion.reapprovisionnement.actif", Boolean.class, true)) {
+            log.info("Surveillance du point de commande désactivée");
+            return;
+        }
+        try {
+            Integer checkpoints = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM projections_checkpoint WHERE nom = ?", Integer.class, CHECKPOINT);
+            if (checkpoints == null || checkpoints == 0) {
+                reevaluerTout();
+            }
+        } catch (Exception e) {
+            log.error("Surveillance du point de commande indisponible (schéma PARTIE 20 appliqué ?): {}", e.getMessage());
+            return;
+        }
+        actif = true;
+        log.info("Surveillance du point de commande active (intervalle {} ms)",
+                environment.getProperty("gestion.reapprovisionnement.intervalle-ms", Long.class, 5000L));
+    }
+
+    /**
+     * Consommer l'outbox, sur le nœud qui détient le bail
+     */
+    @Scheduled(fixedDelayString = "${gestion.reapprovisionnement.intervalle-ms:5000}",
+            initialDelayString = "${gestion.reapprovisionnement.intervalle-ms:5000}")
+    public void surveiller() {
+        if (!actif) {
+            return;
+        }
+        try {
+            bailJobService.executerPeriodique("reapprovisionnement", this::traiterEvenements);
+        } catch (Exception e) {
+            log.error("Erreur de surveillance du point de commande: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Les seuils des articles n'émettent pas d'événement : réévaluation complète chaque nuit
+     */
+    @Scheduled(cron = CRON_REEVALUATION)
+    public void reevaluerPlanifie() {
+        if (actif) {
+            bailJobService.executer("reapprovisionnement-reevaluation", CRON_REEVALUATION, fragment -> {
+                reevaluerTout();
+                return 0;
+            });
+        }
+    }
+
+    /**
+     * Demandes d'achat consolidées des besoins sans proposition (un seul nœud par créneau)
+     */
+    @Scheduled(cron = CRON_PROPOSITIONS)
+    public void proposerPlanifie() {
+        if (actif && environment.getProperty("gestion.reapprovisionnement.propositions-auto", Boolean.class, true)) {
+            bailJobService.executer("reapprovisionnement-propositions", CRON_PROPOSITIONS,
+                    fragment -> genererPropositions());
+        }
+    }
+
+    /**
+     * Réévaluer les couples touchés par les transactions terminées depuis le checkpoint.
+     *
+     * @return nombre d'événements consommés
+     */
+    public synchronized int traiterEvenements() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, VERROU);
+            Long depuis = jdbcTemplate.queryForObject(
+                    "SELECT xid_traite FROM projections_checkpoint WHERE nom = ?", Long.class, CHECKPOINT);
+            Long jusqua = jdbcTemplate.queryForObject(
+                    "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+            if (depuis == null || jusqua == null || jusqua <= depuis) {
+                return 0;
+            }
+
+            int evenements = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM evenements_stock WHERE xid >= ? AND xid < ?",
+                    Integer.class, depuis, jusqua);
+            if (evenements > 0) {
+                Map<String, Object> bilan = jdbcTemplate.queryForMap(
+                        SQL_EVALUER.formatted(CLES_EVENEMENTS), depuis, jusqua);
+                journaliser(bilan);
+            }
+            jdbcTemplate.update("UPDATE projections_checkpoint SET xid_traite = ?, date_maj = CURRENT_TIMESTAMP " +
+                    "WHERE nom = ?", jusqua, CHECKPOINT);
+            return evenements;
+        });
+    }
+
+    /**
+     * Réévaluer tout le catalogue et placer le checkpoint (initialisation, changement de seuils).
+     */
+    public synchronized void reevaluerTout() {
+        log.info("Évaluation complète du point de commande");
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        template.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, VERROU);
+            Long xmin = jdbcTemplate.queryForObject(
+                    "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+            journaliser(jdbcTemplate.queryForMap(SQL_EVALUER.formatted(CLES_TOUTES)));
+            jdbcTemplate.update("""
+                    INSERT INTO projections_checkpoint (nom, xid_traite, date_maj) VALUES (?, ?, CURRENT_TIMESTAMP)
+                    ON CONFLICT (nom) DO UPDATE SET xid_traite = EXCLUDED.xid_traite, date_maj = EXCLUDED.date_maj
+                    """, CHECKPOINT, xmin);
+        });
+    }
+
+    /**
+     * Créer les demandes d'achat consolidées par article pour les besoins sans proposition.
+     *
+     * @return nombre de demandes d'achat créées
+     */
+    public synchronized int genererPropositions() {
+        Map<String, Object> bilan = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)::text", String.class, VERROU);
+            return jdbcTemplate.queryForMap(SQL_PROPOSER);
+        });
+        int demandes = bilan != null ? ((Number) bilan.get("demandes")).intValue() : 0;
+        if (demandes > 0) {
+            log.info("Réapprovisionnement: {} demande(s) d'achat créée(s) pour {} article(s)/dépôt(s) sous le seuil",
+                    demandes, ((Number) bilan.get("lignes")).intValue());
+        }
+        return demandes;
+    }
+
+    private void journaliser(Map<String, Object> bilan) {
+        long entrees = ((Number) bilan.get("entrees")).longValue();
+        long sorties = ((Number) bilan.get("sorties")).longValue();
+        if (entrees + sorties > 0) {
+            log.info("Point de commande: {} couple(s) passé(s) sous le seuil, {} revenu(s) au-dessus", entrees, sorties);
+        }
+    }
+
+    /**
+     * Couples article / dépôt sous le point de commande.
+     *
+     * Les clés de StockService.getStocksCritiques gardent leur sens : {@code quantite} est la
+     * quantité théorique et {@code stockMinimum} le stock minimum de l'article. Le disponible
+     * et le point de commande comparés ici sont rendus à part ({@code quantiteDisponible},
+     * {@code pointCommande}).
+     *
+     * @param depotId dépôt (facultatif, tous si null)
+     */
+    public List<Map<String, Object>> getArticlesSousSeuil(UUID depotId) {
+        return jdbcTemplate.query("""
+                SELECT a.code_article, a.libelle, COALESCE(s.quantite_theorique, 0), a.stock_minimum, d.nom,
+                       r.article_id, r.depot_id, r.quantite_a_commander, r.demande_achat_id, r.depuis,
+                       r.quantite_disponible, r.point_commande
+                FROM reappro_sous_seuil r
+                JOIN articles a ON a.id = r.article_id
+                JOIN depots d ON d.id = r.depot_id
+                LEFT JOIN stocks s ON s.article_id = r.article_id AND s.depot_id = r.depot_id
+                WHERE (CAST(? AS UUID) IS NULL OR r.depot_id = ?)
+                ORDER BY r.quantite_disponible::NUMERIC / r.point_commande, a.code_article
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("codeArticle", rs.getString(1));
+            map.put("libelle", rs.getString(2));
+            map.put("quantite", rs.getInt(3));
+            map.put("stockMinimum", rs.getObject(4, Integer.class));
+            map.put("depotNom", rs.getString(5));
+            map.put("articleId", rs.getObject(6, UUID.class));
+            map.put("depotId", rs.getObject(7, UUID.class));
+            map.put("quantiteACommander", rs.getInt(8));
+            map.put("demandeAchatId", rs.getObject(9, UUID.class));
+            map.put("depuis", rs.getTimestamp(10).toLocalDateTime());
+            map.put("quantiteDisponible", rs.getInt(11));
+            map.put("pointCommande", rs.getInt(12));
+            return map;
+        }, depotId, depotId);
+    }
+}
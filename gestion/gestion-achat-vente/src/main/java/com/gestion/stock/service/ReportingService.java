@@ -5,17 +5,17 @@ import com.gestion.stock.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(readOnly = true)
 public class ReportingService {
 
     private final StockRepository stockRepository;
@@ -25,6 +25,8 @@ public class ReportingService {
     private final ArticleRepository articleRepository;
     private final DepotRepository depotRepository;
     private final LigneInventaireRepository ligneInventaireRepository;
+    private final ClassificationStockService classificationStockService;
+    private final PositionStockService positionStockService;
 
     public Map<String, Object> getDashboardKPIs() {
         Map<String, Object> kpis = new HashMap<>();
@@ -207,32 +209,11 @@ try {
         }
     }
 
+    /**
+     * Valeur du stock à chaque fin de mois (positions de stock quotidiennes)
+     */
     public List<Map<String, Object>> getEvolutionValeurStock(int mois) {
-        List<Map<String, Object>> evolution = new ArrayList<>();
-
-        // Pour démonstration, créer des données réalistes
-        LocalDate aujourdhui = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-        BigDecimal valeurBase = BigDecimal.valueOf(20000); // Valeur de base
-
-        for (int i = mois - 1; i >= 0; i--) {
-            LocalDate date = aujourdhui.minusMonths(i);
-            YearMonth yearMonth = YearMonth.from(date);
-
-            // Simulation d'évolution réaliste (± 5-15%)
-            double variation = 0.9 + (Math.random() * 0.2); // Entre 0.9 et 1.1
-            BigDecimal valeurMois = valeurBase.multiply(BigDecimal.valueOf(variation));
-
-            Map<String, Object> point = new HashMap<>();
-            point.put("periode", yearMonth.format(formatter));
-            point.put("valeur", valeurMois);
-            point.put("annee", yearMonth.getYear());
-            point.put("mois", yearMonth.getMonthValue());
-
-            evolution.add(point);
-        }
-
-        return evolution;
+        return positionStockService.getEvolutionMensuelle(mois, null);
     }
 
     /**
@@ -265,92 +246,17 @@ try {
     }
 
     /**
-     * Analyse ABC des articles
+     * Analyse ABC des articles (classification persistée, voir {@link ClassificationStockService})
      */
     public List<Map<String, Object>> analyserABC(UUID depotId) {
-        List<Map<String, Object>> analyse = new ArrayList<>();
-
-        List<Stock> stocks = depotId != null ? stockRepository.findByDepotId(depotId) : stockRepository.findAll();
-
-        // Trier par valeur décroissante
-        stocks.sort((s1, s2) -> s2.getValeurStockCump().compareTo(s1.getValeurStockCump()));
-
-        // Calculer la valeur totale
-        BigDecimal valeurTotale = stocks.stream()
-                .map(Stock::getValeurStockCump)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal valeurCumulee = BigDecimal.ZERO;
-
-        for (Stock stock : stocks) {
-            BigDecimal pourcentageValeur = stock.getValeurStockCump()
-                    .divide(valeurTotale, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-
-            valeurCumulee = valeurCumulee.add(stock.getValeurStockCump());
-            BigDecimal pourcentageCumule = valeurCumulee
-                    .divide(valeurTotale, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-
-            // Classification ABC
-            String classeABC = "C";
-            if (pourcentageCumule.compareTo(new BigDecimal("80")) <= 0) {
-                classeABC = "A";
-            } else if (pourcentageCumule.compareTo(new BigDecimal("95")) <= 0) {
-                classeABC = "B";
-            }
-
-            Map<String, Object> item = new HashMap<>();
-            item.put("articleCode", stock.getArticle().getCodeArticle());
-            item.put("articleLibelle", stock.getArticle().getLibelle());
-            item.put("valeurStock", stock.getValeurStockCump());
-            item.put("pourcentageValeur", pourcentageValeur);
-            item.put("pourcentageCumule", pourcentageCumule);
-            item.put("classeABC", classeABC);
-            item.put("quantite", stock.getQuantiteTheorique());
-            item.put("rotation", calculerRotationArticle(stock.getArticle().getId()));
-
-            analyse.add(item);
-        }
-
-        return analyse;
+        return classificationStockService.getClassification(depotId);
     }
 
     /**
      * Rotation de stock par article
      */
     public List<Map<String, Object>> getRotationStock(int periodeMois) {
-        List<Map<String, Object>> rotationData = new ArrayList<>();
-
-        List<Article> articles = articleRepository.findByActifTrue();
-
-        for (Article article : articles) {
-            List<Stock> stocks = stockRepository.findByArticleId(article.getId());
-
-            for (Stock stock : stocks) {
-                Map<String, Object> rotation = calculerRotationArticleDepot(
-                        article.getId(), stock.getDepot().getId(), periodeMois);
-
-                if (rotation != null) {
-                    rotation.put("articleCode", article.getCodeArticle());
-                    rotation.put("articleLibelle", article.getLibelle());
-                    rotation.put("depot", stock.getDepot().getNom());
-                    rotation.put("stockMoyen", stock.getQuantiteTheorique());
-
-                    rotationData.add(rotation);
-                }
-            }
-        }
-
-        // Trier par rotation décroissante
-        rotationData.sort((r1, r2) -> {
-            BigDecimal rot1 = (BigDecimal) r1.get("rotation");
-            BigDecimal rot2 = (BigDecimal) r2.get("rotation");
-            return rot2.compareTo(rot1);
-        });
-
-        return rotationData;
+        return classificationStockService.getRotation(periodeMois);
     }
 
     /**
@@ -481,9 +387,8 @@ try {
 
         // Statistiques de base
         rapport.put("periode", String.format("%02d/%d", mois, annee));
-        rapport.put("valeurStockDebut", calculerValeurStockParMois(annee, mois));
-        rapport.put("valeurStockFin", calculerValeurStockParMois(
-                finMois.getYear(), finMois.getMonthValue()));
+        rapport.put("valeurStockDebut", positionStockService.getValeurTotale(debutMois.minusDays(1)));
+        rapport.put("valeurStockFin", positionStockService.getValeurTotale(finMois));
 
         // Mouvements du mois
         Map<String, Object> statsMouvements = getStatistiquesMouvements(debutMois, finMois);
@@ -589,15 +494,6 @@ try {
         return null;
     }
 
-    private BigDecimal calculerValeurStockParMois(int annee, int mois) {
-        // Simplifié : utiliser la valeur actuelle
-        // Dans une implémentation réelle, utiliser l'historique des coûts
-        return stockRepository.findAll().stream()
-                .map(Stock::getValeurStockCump)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
     private List<Map<String, Object>> getArticlesSurstock() {
         List<Map<String, Object>> surstocks = new ArrayList<>();
 
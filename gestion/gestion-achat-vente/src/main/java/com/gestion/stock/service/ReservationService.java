@@ -4,13 +4,17 @@ package com.gestion.stock.service;
 import com.gestion.stock.dto.ReservationDTO;
 import com.gestion.stock.entity.*;
 import com.gestion.stock.repository.*;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,6 +30,8 @@ public class ReservationService {
     private final LotRepository lotRepository;
     private final StockRepository stockRepository;
     private final SequenceGeneratorService sequenceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockEnTransitService stockEnTransitService;
     
     /**
      * Obtenir une réservation par ID
@@ -48,6 +54,7 @@ public class ReservationService {
      * Réserver du stock pour une commande client
      */
     @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "reservation"}, histogram = true)
     public ReservationStock reserverStock(UUID articleId, UUID depotId, Integer quantite,
                                          UUID commandeClientId, UUID ligneCommandeId,
                                          UUID utilisateurId) {
@@ -107,6 +114,146 @@ public class ReservationService {
         return savedReservation;
     }
     
+    /** Ligne d'une commande à réserver dans un dépôt */
+    public record LigneReservation(UUID articleId, UUID depotId, int quantite, UUID ligneCommandeId) {
+    }
+
+    private record CleStock(UUID articleId, UUID depotId) {
+    }
+
+    private static final String SQL_RESERVER = """
+            WITH demande AS (
+                SELECT * FROM unnest(?, ?, ?) AS d(article_id, depot_id, quantite)
+            ), verrous AS (
+                SELECT s.id FROM stocks s
+                JOIN demande d ON d.article_id = s.article_id AND d.depot_id = s.depot_id
+                ORDER BY s.id
+                FOR UPDATE OF s
+            )
+            UPDATE stocks s
+            SET quantite_reservee = COALESCE(s.quantite_reservee, 0) + d.quantite,
+                updated_at = CURRENT_TIMESTAMP
+            FROM demande d
+            WHERE s.id IN (SELECT id FROM verrous)
+              AND d.article_id = s.article_id AND d.depot_id = s.depot_id
+              AND s.quantite_theorique - COALESCE(s.quantite_reservee, 0) >= d.quantite
+            RETURNING s.article_id, s.depot_id
+            """;
+
+    /** Premier lot FIFO / FEFO assez fourni pour chaque ligne d'un article géré par lot */
+    private static final String SQL_ALLOUER_LOTS = """
+            SELECT d.idx, l.id
+            FROM unnest(?, ?, ?) WITH ORDINALITY AS d(article_id, depot_id, quantite, idx)
+            JOIN articles a ON a.id = d.article_id AND a.gestion_par_lot = TRUE
+            LEFT JOIN LATERAL (
+                SELECT lot.id
+                FROM lots lot
+                JOIN emplacements e ON e.id = lot.emplacement_id
+                JOIN zones_stockage z ON z.id = e.zone_id
+                WHERE lot.article_id = d.article_id AND z.depot_id = d.depot_id
+                  AND lot.statut = 'DISPONIBLE' AND lot.quantite_actuelle >= d.quantite
+                ORDER BY CASE WHEN a.methode_valorisation = 'FEFO' THEN lot.date_peremption END NULLS LAST,
+                         lot.date_reception
+                LIMIT 1
+            ) l ON TRUE
+            """;
+
+    /**
+     * Réserver toutes les lignes d'une commande en une passe.
+     *
+     * Les quantités sont cumulées par article / dépôt puis contrôlées et ajoutées à
+     * {@code quantite_reservee} par une seule mise à jour conditionnelle (lignes de stock
+     * verrouillées dans un ordre fixe) ; lots et références sont obtenus chacun en une
+     * requête et les réservations insérées en batch. Tout ou rien : la moindre ligne
+     * insuffisante annule l'ensemble avec la transaction appelante.
+     *
+     * @return réservations créées, dans l'ordre des lignes
+     */
+    @Transactional
+    @Timed(value = "gestion.operation", extraTags = {"operation", "reservation.commande"}, histogram = true)
+    public List<ReservationStock> reserverCommande(UUID commandeClientId, List<LigneReservation> lignes,
+                                                   UUID utilisateurId) {
+        if (lignes.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. Contrôle et incrément de quantite_reservee, ensemblistes
+        Map<CleStock, Integer> parStock = new LinkedHashMap<>();
+        for (LigneReservation ligne : lignes) {
+            parStock.merge(new CleStock(ligne.articleId(), ligne.depotId()), ligne.quantite(), Integer::sum);
+        }
+        List<CleStock> cles = new ArrayList<>(parStock.keySet());
+        Set<CleStock> reservees = new HashSet<>(interroger(SQL_RESERVER,
+                cles.stream().map(CleStock::articleId).toArray(),
+                cles.stream().map(CleStock::depotId).toArray(),
+                parStock.values().toArray(),
+                (rs, i) -> new CleStock(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class))));
+        if (reservees.size() < cles.size()) {
+            String detail = cles.stream()
+                .filter(cle -> !reservees.contains(cle))
+                .map(cle -> cle.articleId() + " (demandé " + parStock.get(cle) + ")")
+                .collect(Collectors.joining(", "));
+            throw new RuntimeException("Stock insuffisant pour la réservation: " + detail);
+        }
+
+        // 2. Lots des articles gérés par lot
+        Map<Integer, UUID> lots = new HashMap<>();
+        for (Object[] allocation : interroger(SQL_ALLOUER_LOTS,
+                lignes.stream().map(LigneReservation::articleId).toArray(),
+                lignes.stream().map(LigneReservation::depotId).toArray(),
+                lignes.stream().map(LigneReservation::quantite).toArray(),
+                (rs, i) -> new Object[] { rs.getInt(1) - 1, rs.getObject(2, UUID.class) })) {
+            if (allocation[1] == null) {
+                throw new RuntimeException("Aucun lot disponible pour allocation: article "
+                    + lignes.get((Integer) allocation[0]).articleId());
+            }
+            lots.put((Integer) allocation[0], (UUID) allocation[1]);
+        }
+
+        // 3. Réservations, insérées en batch au flush
+        List<Long> sequences = sequenceService.getNextReservationSequences(lignes.size());
+        LocalDateTime maintenant = LocalDateTime.now();
+        List<ReservationStock> reservations = new ArrayList<>(lignes.size());
+        for (int i = 0; i < lignes.size(); i++) {
+            LigneReservation ligne = lignes.get(i);
+            UUID lotId = lots.get(i);
+            reservations.add(ReservationStock.builder()
+                .reference(String.format("RES-%d-%06d", maintenant.getYear(), sequences.get(i)))
+                .article(articleRepository.getReferenceById(ligne.articleId()))
+                .depot(depotRepository.getReferenceById(ligne.depotId()))
+                .quantiteReservee(ligne.quantite())
+                .quantitePrelevee(0)
+                .lot(lotId != null ? lotRepository.getReferenceById(lotId) : null)
+                .commandeClientId(commandeClientId)
+                .ligneCommandeId(ligne.ligneCommandeId())
+                .statut(ReservationStock.ReservationStatus.ACTIVE)
+                .utilisateurId(utilisateurId)
+                .dateReservation(maintenant)
+                .dateExpiration(maintenant.plusHours(24))
+                .createdAt(maintenant)
+                .build());
+        }
+        List<ReservationStock> saved = reservationRepository.saveAll(reservations);
+
+        log.info("Commande {}: {} réservation(s) sur {} article(s)/dépôt(s)",
+            commandeClientId, saved.size(), cles.size());
+        return saved;
+    }
+
+    /**
+     * Requête paramétrée par trois tableaux (articles, dépôts, quantités) passés à unnest
+     */
+    private <T> List<T> interroger(String sql, Object[] articles, Object[] depots, Object[] quantites,
+                                   RowMapper<T> mapper) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("uuid", articles));
+            ps.setArray(2, connection.createArrayOf("uuid", depots));
+            ps.setArray(3, connection.createArrayOf("integer", quantites));
+            return ps;
+        }, mapper);
+    }
+
     /**
      * Allocation de lot selon méthode FIFO/FEFO
      */
@@ -203,6 +350,20 @@ public class ReservationService {
         return reservationRepository.findByCommandeClientId(commandeClientId);
     }
     
+    /**
+     * Réservations d'une commande pour les API, projetées en une requête
+     */
+    public List<ReservationDTO> getReservationsDTOByCommande(UUID commandeClientId) {
+        return reservationRepository.findDTOByCommandeClientId(commandeClientId);
+    }
+    
+    /**
+     * Réservations actives d'un article/dépôt pour les API, projetées en une requête
+     */
+    public List<ReservationDTO> getReservationsActivesDTO(UUID articleId, UUID depotId) {
+        return reservationRepository.findDTOActivesByArticleIdAndDepotId(articleId, depotId);
+    }
+    
     /**
      * Nettoyer les réservations expirées (batch quotidien)
      */
@@ -218,6 +379,22 @@ public class ReservationService {
         return expired.size();
     }
     
+    /**
+     * Passer en EXPIREE les réservations actives échues d'un fragment d'articles, en une
+     * instruction (traitement planifié fragmenté, voir MaintenanceStockJob)
+     *
+     * @return nombre de réservations expirées
+     */
+    public int expirerReservations(BailJobService.Fragment fragment) {
+        int expirees = jdbcTemplate.update(
+            "UPDATE reservations_stock SET statut = 'EXPIREE' " +
+            "WHERE statut = 'ACTIVE' AND date_expiration < CURRENT_TIMESTAMP AND " + fragment.predicat("article_id"));
+        if (expirees > 0) {
+            log.info("{} réservation(s) expirée(s) (fragment {}/{})", expirees, fragment.index() + 1, fragment.nombre());
+        }
+        return expirees;
+    }
+    
     /**
      * Vérifier disponibilité pour réservation
      */
@@ -246,9 +423,13 @@ public class ReservationService {
         result.put("quantiteReservee", quantiteReserveeActive);
         
         if (quantiteDisponibleReelle < quantite) {
+            // Marchandise attendue dans ce dépôt (registre du stock en transit)
+            int enTransit = stockEnTransitService.getQuantitesEnTransit(List.of(articleId))
+                .getOrDefault(articleId, Map.of()).getOrDefault(depotId, 0);
+            result.put("quantiteEnTransit", enTransit);
             result.put("message", 
-                String.format("Stock insuffisant. Disponible: %d, Demandé: %d", 
-                    quantiteDisponibleReelle, quantite));
+                String.format("Stock insuffisant. Disponible: %d, Demandé: %d, En transit: %d", 
+                    quantiteDisponibleReelle, quantite, enTransit));
         } else {
             result.put("message", "Stock disponible");
         }
@@ -6,6 +6,8 @@ import jakarta.persistence.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 public class SequenceGeneratorService {
     
@@ -27,6 +29,19 @@ public class SequenceGeneratorService {
         return getNextSequence("seq_reservation_stock");
     }
     
+    /**
+     * Plusieurs numéros de réservation en un aller-retour (réservation d'une commande entière)
+     */
+    @Transactional
+    public List<Long> getNextReservationSequences(int nombre) {
+        Query query = entityManager.createNativeQuery(
+            "SELECT nextval('seq_reservation_stock') FROM generate_series(1, :nombre)"
+        );
+        query.setParameter("nombre", nombre);
+        List<?> valeurs = query.getResultList();
+        return valeurs.stream().map(valeur -> ((Number) valeur).longValue()).toList();
+    }
+    
     @Transactional
     public synchronized Long getNextTransfertSequence() {
         return getNextSequence("seq_transfert");
@@ -0,0 +1,185 @@
+package com.gestion.stock.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Registre du stock en transit ({@code stock_en_transit}, PARTIE 21 du schéma).
+ *
+ * Alimenté par l'expédition des transferts (même instruction que les mouvements de
+ * sortie, voir TransfertService) et soldé à la réception ou à l'annulation. Les lectures
+ * passent par la clé (article, dépôt destination, date prévue) : disponibilité réseau
+ * d'un article et retards se lisent sans parcourir transferts et lignes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockEnTransitService {
+
+    /**
+     * Solder le transit d'un transfert : suppression des clés entièrement soldées, décrément
+     * (valeur au prorata) des autres. Paramètres : délai par défaut, transfert.
+     */
+    private static final String SQL_SORTIR = """
+            WITH sorties AS (
+                SELECT l.article_id, t.depot_destination_id AS depot_id,
+                       COALESCE(t.date_reception_prevue, t.date_expedition + CAST(? AS INTEGER)) AS date_prevue,
+                       SUM(l.quantite_expedie) AS quantite
+                FROM lignes_transfert l
+                JOIN transferts t ON t.id = l.transfert_id
+                WHERE l.transfert_id = ? AND l.quantite_expedie > 0
+                GROUP BY 1, 2, 3
+            ), soldees AS (
+                DELETE FROM stock_en_transit e
+                USING sorties x
+                WHERE e.article_id = x.article_id AND e.depot_id = x.depot_id AND e.date_prevue = x.date_prevue
+                  AND e.quantite <= x.quantite
+                RETURNING 1
+            ), decrementees AS (
+                UPDATE stock_en_transit e SET
+                    quantite = e.quantite - x.quantite,
+                    valeur = ROUND(e.valeur * (e.quantite - x.quantite) / e.quantite, 2),
+                    nombre_transferts = GREATEST(e.nombre_transferts - 1, 1),
+                    date_maj = CURRENT_TIMESTAMP
+                FROM sorties x
+                WHERE e.article_id = x.article_id AND e.depot_id = x.depot_id AND e.date_prevue = x.date_prevue
+                  AND e.quantite > x.quantite
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM soldees) + (SELECT COUNT(*) FROM decrementees)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Environment environment;
+
+    /**
+     * Délai de transit appliqué quand le transfert n'a pas de date de réception prévue
+     */
+    public int getDelaiDefautJours() {
+        return environment.getProperty("gestion.transit.delai-jours", Integer.class, 7);
+    }
+
+    /**
+     * Date d'arrivée prévue d'une expédition du jour
+     */
+    public LocalDate datePrevue(LocalDate dateReceptionPrevue) {
+        return dateReceptionPrevue != null ? dateReceptionPrevue : LocalDate.now().plusDays(getDelaiDefautJours());
+    }
+
+    /**
+     * Solder le transit d'un transfert expédié (réception ou annulation), dans la transaction appelante
+     *
+     * @return nombre de clés article / dépôt / date mises à jour
+     */
+    public int sortir(UUID transfertId) {
+        Integer cles = jdbcTemplate.queryForObject(SQL_SORTIR, Integer.class, getDelaiDefautJours(), transfertId);
+        return cles != null ? cles : 0;
+    }
+
+    /**
+     * Transit d'un article par dépôt destination et date prévue
+     */
+    public List<Map<String, Object>> getEnTransit(UUID articleId) {
+        return jdbcTemplate.query("""
+                SELECT e.depot_id, d.nom, e.date_prevue, e.quantite, e.valeur, e.nombre_transferts
+                FROM stock_en_transit e
+                JOIN depots d ON d.id = e.depot_id
+                WHERE e.article_id = ?
+                ORDER BY e.date_prevue, d.nom
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("depotId", rs.getObject(1, UUID.class));
+            map.put("depotNom", rs.getString(2));
+            map.put("datePrevue", rs.getDate(3).toLocalDate());
+            map.put("quantite", rs.getInt(4));
+            map.put("valeur", rs.getBigDecimal(5));
+            map.put("nombreTransferts", rs.getInt(6));
+            map.put("enRetard", rs.getDate(3).toLocalDate().isBefore(LocalDate.now()));
+            return map;
+        }, articleId);
+    }
+
+    /**
+     * Quantités en transit par article puis par dépôt destination
+     */
+    public Map<UUID, Map<UUID, Integer>> getQuantitesEnTransit(Collection<UUID> articleIds) {
+        Map<UUID, Map<UUID, Integer>> quantites = new HashMap<>();
+        if (articleIds == null || articleIds.isEmpty()) {
+            return quantites;
+        }
+        jdbcTemplate.query("""
+                SELECT article_id, depot_id, SUM(quantite)
+                FROM stock_en_transit
+                WHERE article_id = ANY(?)
+                GROUP BY article_id, depot_id
+                """, ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", articleIds.toArray())), rs -> {
+            quantites.computeIfAbsent(rs.getObject(1, UUID.class), a -> new HashMap<>())
+                    .put(rs.getObject(2, UUID.class), rs.getInt(3));
+        });
+        return quantites;
+    }
+
+    /**
+     * Disponibilité réseau d'un article : disponible par dépôt actif et quantité en transit vers ce dépôt
+     */
+    public List<Map<String, Object>> getDisponibiliteReseau(UUID articleId) {
+        return jdbcTemplate.query("""
+                WITH transit AS (
+                    SELECT depot_id, SUM(quantite) AS quantite, MIN(date_prevue) AS prochaine_arrivee
+                    FROM stock_en_transit
+                    WHERE article_id = ?
+                    GROUP BY depot_id
+                )
+                SELECT d.id, d.nom, COALESCE(s.quantite_disponible, 0), COALESCE(t.quantite, 0), t.prochaine_arrivee
+                FROM depots d
+                LEFT JOIN stocks s ON s.depot_id = d.id AND s.article_id = ?
+                LEFT JOIN transit t ON t.depot_id = d.id
+                WHERE d.actif = TRUE AND (s.id IS NOT NULL OR t.depot_id IS NOT NULL)
+                ORDER BY d.nom
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("depotId", rs.getObject(1, UUID.class));
+            map.put("depotNom", rs.getString(2));
+            map.put("quantiteDisponible", rs.getInt(3));
+            map.put("quantiteEnTransit", rs.getInt(4));
+            map.put("quantiteTotale", rs.getInt(3) + rs.getInt(4));
+            Date arrivee = rs.getDate(5);
+            map.put("prochaineArrivee", arrivee != null ? arrivee.toLocalDate() : null);
+            return map;
+        }, articleId, articleId);
+    }
+
+    /**
+     * Transit dont la date d'arrivée prévue est dépassée
+     */
+    public List<Map<String, Object>> getEnRetard() {
+        return jdbcTemplate.query("""
+                SELECT a.code_article, a.libelle, d.nom, e.date_prevue, e.quantite, e.valeur,
+                       e.nombre_transferts, e.article_id, e.depot_id
+                FROM stock_en_transit e
+                JOIN articles a ON a.id = e.article_id
+                JOIN depots d ON d.id = e.depot_id
+                WHERE e.date_prevue < CURRENT_DATE
+                ORDER BY e.date_prevue, d.nom, a.code_article
+                """, (rs, i) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("codeArticle", rs.getString(1));
+            map.put("libelle", rs.getString(2));
+            map.put("depotNom", rs.getString(3));
+            map.put("datePrevue", rs.getDate(4).toLocalDate());
+            map.put("quantite", rs.getInt(5));
+            map.put("valeur", rs.getBigDecimal(6));
+            map.put("nombreTransferts", rs.getInt(7));
+            map.put("articleId", rs.getObject(8, UUID.class));
+            map.put("depotId", rs.getObject(9, UUID.class));
+            return map;
+        });
+    }
+}
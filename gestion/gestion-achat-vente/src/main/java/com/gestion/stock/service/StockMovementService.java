@@ -23,6 +23,7 @@ public class StockMovementService {
 
     public StockMovement findById(UUID id) {
         return repository.findById(id)
+                .or(() -> repository.findJournalById(id)) // période archivée
                 .orElseThrow(() -> new RuntimeException("Mouvement introuvable"));
     }
 
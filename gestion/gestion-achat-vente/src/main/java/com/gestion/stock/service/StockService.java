@@ -1,6 +1,7 @@
 package com.gestion.stock.service;
 
 import com.gestion.achat.entity.*;
+import com.gestion.stock.dto.MouvementDashboardDTO;
 import com.gestion.stock.entity.*;
 import com.gestion.achat.repository.*;
 import com.gestion.stock.repository.*;
@@ -8,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
@@ -37,6 +39,7 @@ public class StockService {
         private final BonReceptionRepository bonReceptionRepository;
         private final EmplacementRepository emplacementRepository;
         private final SequenceGeneratorService sequenceService;
+        private final ReapprovisionnementService reapprovisionnementService;
 
         @Transactional
         public StockMovement creerEntreeStockFromReception(UUID bonReceptionId, UUID utilisateurId) {
@@ -316,6 +319,14 @@ public class StockService {
                                 .collect(Collectors.toList());
         }
 
+        /**
+         * Derniers mouvements pour l'API du dashboard, projetés en une requête
+         */
+        public List<MouvementDashboardDTO> getDerniersMouvementsDashboard(int limit) {
+                return stockMovementRepository.findDerniersDashboard(
+                                PageRequest.of(0, Math.min(Math.max(limit, 1), 100)));
+        }
+
         /**
          * Get statistiques des mouvements
          */
@@ -466,10 +477,7 @@ public class StockService {
          * Get historique des mouvements d'un article
          */
         public List<StockMovement> getHistoriqueMouvementsArticle(UUID articleId, int limit) {
-                return stockMovementRepository.findByArticleIdOrderByDateMouvementDesc(articleId)
-                                .stream()
-                                .limit(limit)
-                                .collect(Collectors.toList());
+                return stockMovementRepository.findJournalArticle(articleId, limit);
         }
 
         public List<StockMovement> getDerniersMouvements(int limit, int jours) {
@@ -520,18 +528,8 @@ public class StockService {
         }
 
         public List<Map<String, Object>> getStocksCritiques() {
-                // Retourner les stocks avec quantité < stock minimum
-                return stockRepository.findStocksCritiques().stream()
-                                .map(stock -> {
-                                        Map<String, Object> map = new HashMap<>();
-                                        map.put("codeArticle", stock.getArticle().getCodeArticle());
-                                        map.put("libelle", stock.getArticle().getLibelle());
-                                        map.put("quantite", stock.getQuantiteTheorique());
-                                        map.put("stockMinimum", stock.getArticle().getStockMinimum());
-                                        map.put("depotNom", stock.getDepot().getNom());
-                                        return map;
-                                })
-                                .collect(Collectors.toList());
+                // Ensemble tenu à jour par la surveillance du point de commande (pas de balayage)
+                return reapprovisionnementService.getArticlesSousSeuil(null);
         }
 
         public List<Map<String, Object>> getStocksObsoletes(int jours) {
@@ -542,6 +540,8 @@ public class StockService {
                                         map.put("codeArticle", stock.getArticle().getCodeArticle());
                                         map.put("libelle", stock.getArticle().getLibelle());
                                         map.put("quantite", stock.getQuantiteTheorique());
+                                        map.put("articleId", stock.getArticle().getId());
+                                        map.put("depotId", stock.getDepot().getId());
                                         map.put("dernierMouvement", stock.getDateDernierMouvement());
                                         map.put("valeur", stock.getValeurStockCump());
                                         return map;
@@ -0,0 +1,302 @@
+package com.gestion.stock.service;
+
+import com.gestion.stock.entity.TacheAsynchrone;
+import com.gestion.stock.entity.TacheAsynchrone.StatutTache;
+import com.gestion.stock.entity.TacheAsynchrone.TypeTache;
+import com.gestion.stock.repository.TacheAsynchroneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution des traitements longs hors du thread de requête.
+ *
+ * Chaque {@link TypeTache} dispose d'un pool de threads nommé et borné, indépendant du
+ * pool commun ForkJoin (les {@code parallelStream} de l'application ne sont jamais
+ * affamés). L'état de chaque tâche (statut, progression, message, résultat) est persisté
+ * dans {@code taches_asynchrones} et consultable via {@code /api/taches/{id}} (par le
+ * soumetteur ou un ADMIN).
+ *
+ * Soumise dans une transaction, la tâche ne démarre qu'après le commit : elle voit les
+ * données de l'appelant et n'est jamais lancée si celui-ci est annulé.
+ *
+ * La table est partagée entre les nœuds : chaque tâche porte le nœud qui l'exécute et une
+ * pulsation rafraîchie par ce nœud. Au démarrage, seules les tâches du nœud lui-même sont
+ * marquées interrompues ; celles d'un nœud disparu le sont à l'expiration de leur pulsation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TacheAsynchroneService {
+
+    public static final String MDC_CORRELATION = "correlationId";
+    public static final String MDC_UTILISATEUR = "userId";
+    public static final String MDC_TACHE = "tacheId";
+
+    private final TacheAsynchroneRepository tacheRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final Environment environment;
+
+    private final Map<TypeTache, ThreadPoolExecutor> executeurs = new EnumMap<>(TypeTache.class);
+    private final String noeud = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * Traitement exécuté en arrière-plan ; la valeur retournée est stockée comme résultat.
+     */
+    @FunctionalInterface
+    public interface Travail {
+        String executer(ContexteTache contexte) throws Exception;
+    }
+
+    /**
+     * Contexte propagé au thread d'exécution (utilisateur, corrélation) et point de
+     * publication de la progression.
+     */
+    public final class ContexteTache {
+        private final UUID tacheId;
+        private final UUID utilisateurId;
+        private final String correlationId;
+
+        private ContexteTache(TacheAsynchrone tache) {
+            this.tacheId = tache.getId();
+            this.utilisateurId = tache.getUtilisateurId();
+            this.correlationId = tache.getCorrelationId();
+        }
+
+        public UUID getTacheId() { return tacheId; }
+        public UUID getUtilisateurId() { return utilisateurId; }
+        public String getCorrelationId() { return correlationId; }
+
+        public void progression(int pourcentage, String message) {
+            tacheRepository.mettreAJourProgression(tacheId, Math.max(0, Math.min(99, pourcentage)), message);
+        }
+    }
+
+    @PostConstruct
+    void initialiser() {
+        int fileAttente = environment.getProperty("gestion.taches.file-attente", Integer.class, 100);
+        for (TypeTache type : TypeTache.values()) {
+            int concurrence = environment.getProperty(
+                    "gestion.taches." + type.name().toLowerCase() + ".concurrence", Integer.class,
+                    type.getConcurrence());
+            executeurs.put(type, new ThreadPoolExecutor(concurrence, concurrence, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(fileAttente), fabriqueThreads(type)));
+            log.info("Pool de tâches {} : {} thread(s), file d'attente {}", type, concurrence, fileAttente);
+        }
+    }
+
+    /**
+     * Les tâches EN_ATTENTE / EN_COURS de ce nœud ont été perdues avec son arrêt précédent ;
+     * celles des autres nœuds ne sont reprises que si leur pulsation a expiré.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void marquerTachesInterrompues() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int interrompues = tacheRepository.marquerInterrompues(noeud, limitePulsation(maintenant),
+                "Interrompue par l'arrêt de l'application", maintenant);
+        if (interrompues > 0) {
+            log.warn("{} tâche(s) interrompue(s) par le dernier arrêt marquée(s) en échec", interrompues);
+        }
+    }
+
+    /**
+     * Signe de vie des tâches de ce nœud, et échec de celles dont le nœud ne pulse plus
+     */
+    @Scheduled(fixedDelayString = "${gestion.taches.pulsation-ms:30000}",
+            initialDelayString = "${gestion.taches.pulsation-ms:30000}")
+    public void pulser() {
+        try {
+            LocalDateTime maintenant = LocalDateTime.now();
+            tacheRepository.pulser(noeud, maintenant);
+            int expirees = tacheRepository.marquerExpirees(limitePulsation(maintenant),
+                    "Interrompue: nœud d'exécution injoignable", maintenant);
+            if (expirees > 0) {
+                log.warn("{} tâche(s) sans pulsation marquée(s) en échec", expirees);
+            }
+        } catch (Exception e) {
+            log.error("Erreur de pulsation des tâches: {}", e.getMessage());
+        }
+    }
+
+    private LocalDateTime limitePulsation(LocalDateTime maintenant) {
+        long expiration = environment.getProperty("gestion.taches.pulsation-expiration-ms", Long.class, 120_000L);
+        return maintenant.minusNanos(expiration * 1_000_000L);
+    }
+
+    @PreDestroy
+    void arreter() {
+        executeurs.values().forEach(ThreadPoolExecutor::shutdown);
+        for (Map.Entry<TypeTache, ThreadPoolExecutor> entry : executeurs.entrySet()) {
+            try {
+                if (!entry.getValue().awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Arrêt forcé du pool de tâches {}", entry.getKey());
+                    entry.getValue().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                entry.getValue().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Soumettre un traitement en arrière-plan.
+     *
+     * @return la tâche persistée (statut EN_ATTENTE), dont l'id sert au suivi
+     */
+    public TacheAsynchrone soumettre(TypeTache type, UUID referenceId, UUID utilisateurId, Travail travail) {
+        String correlationId = Optional.ofNullable(MDC.get(MDC_CORRELATION))
+                .orElseGet(() -> UUID.randomUUID().toString());
+
+        // Persistée hors de la transaction appelante pour rester visible pendant le suivi
+        TacheAsynchrone tache = nouvelleTransaction().execute(status -> tacheRepository.save(TacheAsynchrone.builder()
+                .type(type)
+                .statut(StatutTache.EN_ATTENTE)
+                .referenceId(referenceId)
+                .utilisateurId(utilisateurId)
+                .correlationId(correlationId)
+                .progression(0)
+                .dateCreation(LocalDateTime.now())
+                .noeud(noeud)
+                .datePulsation(LocalDateTime.now())
+                .build()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        planifier(tache, travail);
+                    } else {
+                        terminer(tache.getId(), StatutTache.ECHEC, 0, "Transaction d'origine annulée", null);
+                    }
+                }
+            });
+        } else {
+            planifier(tache, travail);
+        }
+
+        log.info("Tâche {} soumise: {} (référence {}, corrélation {})",
+                tache.getId(), type, referenceId, correlationId);
+        return tache;
+    }
+
+    public Optional<TacheAsynchrone> getTache(UUID tacheId) {
+        return tacheRepository.findById(tacheId);
+    }
+
+    public Optional<TacheAsynchrone> getDerniereTache(UUID referenceId) {
+        return tacheRepository.findFirstByReferenceIdOrderByDateCreationDesc(referenceId);
+    }
+
+    /**
+     * État d'une tâche tel que rendu par les API (suivi et soumission)
+     */
+    public Map<String, Object> etat(TacheAsynchrone tache) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", tache.getId());
+        map.put("type", tache.getType().name());
+        map.put("typeLibelle", tache.getType().getLibelle());
+        map.put("statut", tache.getStatut().name());
+        map.put("terminee", tache.isTerminee());
+        map.put("progression", tache.getProgression());
+        map.put("message", tache.getMessage());
+        map.put("resultat", tache.getResultat());
+        map.put("referenceId", tache.getReferenceId());
+        map.put("correlationId", tache.getCorrelationId());
+        map.put("dateCreation", tache.getDateCreation());
+        map.put("dateDebut", tache.getDateDebut());
+        map.put("dateFin", tache.getDateFin());
+        return map;
+    }
+
+    private void planifier(TacheAsynchrone tache, Travail travail) {
+        try {
+            executeurs.get(tache.getType()).execute(() -> executer(tache, travail));
+        } catch (RejectedExecutionException e) {
+            log.error("File d'attente {} pleine, tâche {} rejetée", tache.getType(), tache.getId());
+            terminer(tache.getId(), StatutTache.ECHEC, 0, "File d'attente pleine", null);
+        }
+    }
+
+    private void executer(TacheAsynchrone tache, Travail travail) {
+        MDC.put(MDC_CORRELATION, tache.getCorrelationId());
+        MDC.put(MDC_TACHE, tache.getId().toString());
+        if (tache.getUtilisateurId() != null) {
+            MDC.put(MDC_UTILISATEUR, tache.getUtilisateurId().toString());
+        }
+        try {
+            if (tacheRepository.demarrer(tache.getId(), LocalDateTime.now()) == 0) {
+                log.warn("Tâche {} n'est plus en attente, exécution ignorée", tache.getId());
+                return;
+            }
+            long debut = System.currentTimeMillis();
+            String resultat = travail.executer(new ContexteTache(tache));
+            terminer(tache.getId(), StatutTache.TERMINEE, 100, "Terminée", resultat);
+            log.info("Tâche {} {} terminée en {} ms", tache.getType(), tache.getId(),
+                    System.currentTimeMillis() - debut);
+        } catch (Exception e) {
+            log.error("Échec de la tâche {} {}: {}", tache.getType(), tache.getId(), e.getMessage(), e);
+            terminer(tache.getId(), StatutTache.ECHEC, null, e.getMessage(), null);
+        } finally {
+            MDC.remove(MDC_CORRELATION);
+            MDC.remove(MDC_TACHE);
+            MDC.remove(MDC_UTILISATEUR);
+        }
+    }
+
+    private void terminer(UUID tacheId, StatutTache statut, Integer progression, String message, String resultat) {
+        try {
+            // Appelé aussi depuis afterCompletion : transaction distincte obligatoire
+            nouvelleTransaction().executeWithoutResult(status -> {
+                Integer valeur = progression != null ? progression
+                        : tacheRepository.findById(tacheId).map(TacheAsynchrone::getProgression).orElse(0);
+                tacheRepository.terminer(tacheId, statut, valeur, message, resultat, LocalDateTime.now());
+            });
+        } catch (Exception e) {
+            log.error("Impossible d'enregistrer la fin de la tâche {}: {}", tacheId, e.getMessage());
+        }
+    }
+
+    private TransactionTemplate nouvelleTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private static ThreadFactory fabriqueThreads(TypeTache type) {
+        AtomicInteger compteur = new AtomicInteger();
+        String prefixe = "tache-" + type.name().toLowerCase().replace('_', '-') + "-";
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefixe + compteur.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        };
+    }
+}
@@ -14,6 +14,7 @@ import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +29,163 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransfertService {
     
+    /** Verrouille les stocks source (ordre des id) et retourne les articles dont le disponible ne couvre pas les lignes */
+    private static final String SQL_CONTROLER_SOURCE = """
+            WITH besoins AS (
+                SELECT article_id, SUM(quantite_demandee) AS quantite
+                FROM lignes_transfert
+                WHERE transfert_id = ?
+                GROUP BY article_id
+            ), verrous AS (
+                SELECT s.article_id, s.quantite_disponible
+                FROM stocks s
+                JOIN besoins b ON b.article_id = s.article_id
+                WHERE s.depot_id = ?
+                ORDER BY s.id
+                FOR UPDATE OF s
+            )
+            SELECT a.code_article, b.quantite, COALESCE(v.quantite_disponible, 0) AS disponible
+            FROM besoins b
+            JOIN articles a ON a.id = b.article_id
+            LEFT JOIN verrous v ON v.article_id = b.article_id
+            WHERE COALESCE(v.quantite_disponible, 0) < b.quantite
+            ORDER BY a.code_article
+            """;
+    
+    /**
+     * Mouvements de sortie (coût moyen source avant sortie), décrément des stocks source,
+     * quantités expédiées, lots et stock en transit, en une instruction.
+     * Paramètres : utilisateur, date d'arrivée prévue, transfert.
+     */
+    private static final String SQL_EXPEDIER = """
+            WITH lignes AS (
+                SELECT l.id, l.article_id, l.lot_id, l.quantite_demandee AS quantite,
+                       t.id AS transfert_id, t.depot_source_id AS depot_id, t.depot_destination_id,
+                       t.reference, CAST(? AS UUID) AS utilisateur_id, CAST(? AS DATE) AS date_prevue
+                FROM lignes_transfert l
+                JOIN transferts t ON t.id = l.transfert_id
+                WHERE l.transfert_id = ?
+            ), numerotees AS (
+                SELECT l.*, tm.id AS type_id, COALESCE(s.cout_unitaire_moyen, 0) AS cout_unitaire,
+                       nextval('seq_mouvement_stock') AS sequence
+                FROM (SELECT * FROM lignes ORDER BY id) l
+                JOIN types_mouvement tm ON tm.code = 'TRANSFERT_SORTANT'
+                LEFT JOIN stocks s ON s.article_id = l.article_id AND s.depot_id = l.depot_id
+            ), mouvements AS (
+                INSERT INTO mouvements_stock (reference, type_mouvement_id, article_id, depot_id, quantite,
+                                              cout_unitaire, lot_id, transfert_id, date_mouvement, date_comptable,
+                                              utilisateur_id, motif, statut)
+                SELECT 'MVT-' || EXTRACT(YEAR FROM CURRENT_DATE)::INT || '-' || LPAD(sequence::TEXT, GREATEST(6, LENGTH(sequence::TEXT)), '0'),
+                       type_id, article_id, depot_id, quantite, cout_unitaire, lot_id, transfert_id,
+                       CURRENT_TIMESTAMP, CURRENT_DATE, utilisateur_id, 'Expédition transfert ' || reference, 'VALIDE'
+                FROM numerotees
+                RETURNING article_id, depot_id, quantite, valeur_mouvement
+            ), stocks_source AS (
+                UPDATE stocks s SET
+                    quantite_theorique = s.quantite_theorique - x.quantite,
+                    quantite_physique = GREATEST(s.quantite_physique - x.quantite, 0),
+                    valeur_stock_cump = CASE WHEN s.quantite_theorique = x.quantite THEN 0
+                                             ELSE GREATEST(s.valeur_stock_cump - x.valeur, 0) END,
+                    date_dernier_mouvement = CURRENT_TIMESTAMP,
+                    updated_at = CURRENT_TIMESTAMP
+                FROM (SELECT article_id, depot_id, SUM(quantite) AS quantite, SUM(valeur_mouvement) AS valeur
+                      FROM mouvements GROUP BY article_id, depot_id) x
+                WHERE s.article_id = x.article_id AND s.depot_id = x.depot_id
+                RETURNING 1
+            ), lignes_maj AS (
+                UPDATE lignes_transfert l SET quantite_expedie = l.quantite_demandee
+                WHERE l.id IN (SELECT id FROM lignes)
+                RETURNING 1
+            ), lots_maj AS (
+                UPDATE lots lo SET
+                    quantite_actuelle = lo.quantite_actuelle - x.quantite,
+                    statut = CASE WHEN lo.quantite_actuelle = x.quantite THEN 'EPUISE' ELSE lo.statut END
+                FROM (SELECT lot_id, SUM(quantite) AS quantite FROM numerotees
+                      WHERE lot_id IS NOT NULL GROUP BY lot_id) x
+                WHERE lo.id = x.lot_id
+                RETURNING 1
+            ), transit AS (
+                INSERT INTO stock_en_transit AS e (article_id, depot_id, date_prevue, quantite, valeur)
+                SELECT article_id, depot_destination_id, date_prevue, SUM(quantite),
+                       ROUND(SUM(quantite * cout_unitaire), 2)
+                FROM numerotees
+                GROUP BY article_id, depot_destination_id, date_prevue
+                ON CONFLICT (article_id, depot_id, date_prevue) DO UPDATE SET
+                    quantite = e.quantite + EXCLUDED.quantite,
+                    valeur = e.valeur + EXCLUDED.valeur,
+                    nombre_transferts = e.nombre_transferts + 1,
+                    date_maj = CURRENT_TIMESTAMP
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM lignes) AS lignes,
+                   (SELECT COUNT(*) FROM mouvements) AS mouvements,
+                   (SELECT COUNT(*) FROM stocks_source) AS stocks,
+                   (SELECT COUNT(*) FROM lignes_maj) AS lignes_maj,
+                   (SELECT COUNT(*) FROM lots_maj) AS lots,
+                   (SELECT COUNT(*) FROM transit) AS transit
+            """;
+    
+    /**
+     * Mouvements d'entrée au coût de la sortie correspondante (à défaut coût moyen source),
+     * upsert des stocks destination et quantités reçues. Paramètres : utilisateur, transfert.
+     */
+    private static final String SQL_RECEPTIONNER = """
+            WITH lignes AS (
+                SELECT l.id, l.article_id, l.lot_id, l.quantite_expedie AS quantite,
+                       t.id AS transfert_id, t.depot_source_id, t.depot_destination_id AS depot_id,
+                       t.reference, t.date_expedition, CAST(? AS UUID) AS utilisateur_id
+                FROM lignes_transfert l
+                JOIN transferts t ON t.id = l.transfert_id
+                WHERE l.transfert_id = ? AND l.quantite_expedie > 0
+            ), numerotees AS (
+                SELECT l.*, tm.id AS type_id,
+                       COALESCE(sortie.cout_unitaire, s.cout_unitaire_moyen, 0) AS cout_unitaire,
+                       nextval('seq_mouvement_stock') AS sequence
+                FROM (SELECT * FROM lignes ORDER BY id) l
+                JOIN types_mouvement tm ON tm.code = 'TRANSFERT_ENTRANT'
+                LEFT JOIN LATERAL (
+                    SELECT m.cout_unitaire
+                    FROM mouvements_stock m
+                    WHERE m.transfert_id = l.transfert_id AND m.article_id = l.article_id
+                      AND m.depot_id = l.depot_source_id AND m.statut = 'VALIDE'
+                      AND m.date_comptable >= COALESCE(l.date_expedition, DATE '1900-01-01')
+                    LIMIT 1
+                ) sortie ON TRUE
+                LEFT JOIN stocks s ON s.article_id = l.article_id AND s.depot_id = l.depot_source_id
+            ), mouvements AS (
+                INSERT INTO mouvements_stock (reference, type_mouvement_id, article_id, depot_id, quantite,
+                                              cout_unitaire, lot_id, transfert_id, date_mouvement, date_comptable,
+                                              utilisateur_id, motif, statut)
+                SELECT 'MVT-' || EXTRACT(YEAR FROM CURRENT_DATE)::INT || '-' || LPAD(sequence::TEXT, GREATEST(6, LENGTH(sequence::TEXT)), '0'),
+                       type_id, article_id, depot_id, quantite, cout_unitaire, lot_id, transfert_id,
+                       CURRENT_TIMESTAMP, CURRENT_DATE, utilisateur_id, 'Réception transfert ' || reference, 'VALIDE'
+                FROM numerotees
+                RETURNING article_id, depot_id, quantite, valeur_mouvement
+            ), stocks_destination AS (
+                INSERT INTO stocks (article_id, depot_id, quantite_theorique, quantite_physique, quantite_reservee,
+                                    valeur_stock_cump, date_dernier_mouvement, updated_at)
+                SELECT article_id, depot_id, SUM(quantite), SUM(quantite), 0, SUM(valeur_mouvement),
+                       CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+                FROM mouvements
+                GROUP BY article_id, depot_id
+                ON CONFLICT (article_id, depot_id) DO UPDATE SET
+                    quantite_theorique = stocks.quantite_theorique + EXCLUDED.quantite_theorique,
+                    quantite_physique = stocks.quantite_physique + EXCLUDED.quantite_physique,
+                    valeur_stock_cump = stocks.valeur_stock_cump + EXCLUDED.valeur_stock_cump,
+                    date_dernier_mouvement = EXCLUDED.date_dernier_mouvement,
+                    updated_at = EXCLUDED.updated_at
+                RETURNING 1
+            ), lignes_maj AS (
+                UPDATE lignes_transfert l SET quantite_recue = l.quantite_expedie
+                WHERE l.id IN (SELECT id FROM lignes)
+                RETURNING 1
+            )
+            SELECT (SELECT COUNT(*) FROM lignes) AS lignes,
+                   (SELECT COUNT(*) FROM mouvements) AS mouvements,
+                   (SELECT COUNT(*) FROM stocks_destination) AS stocks,
+                   (SELECT COUNT(*) FROM lignes_maj) AS lignes_maj
+            """;
+    
     private final TransfertRepository transfertRepository;
     private final LigneTransfertRepository ligneTransfertRepository;
     private final DepotRepository depotRepository;
@@ -35,9 +193,10 @@ public class TransfertService {
     private final LotRepository lotRepository;
     private final StockRepository stockRepository;
     private final StockMovementRepository stockMovementRepository;
-    private final MovementTypeRepository movementTypeRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
     private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final StockEnTransitService stockEnTransitService;
     
     public Transfert findById(UUID id) {
         return transfertRepository.findById(id)
@@ -162,6 +321,10 @@ public class TransfertService {
     
     /**
      * Expédier un transfert (sortie du dépôt source)
+     *
+     * Toutes les lignes sont passées en une transaction : verrouillage et contrôle du
+     * disponible source, puis une seule instruction insère les mouvements, décrémente les
+     * stocks source, met à jour les lignes et les lots.
      */
     @Transactional
     public Transfert expedierTransfert(UUID transfertId, UUID expediteurId) {
@@ -173,73 +336,36 @@ public class TransfertService {
             throw new RuntimeException("Le transfert doit être validé avant expédition");
         }
         
-        List<LigneTransfert> lignes = ligneTransfertRepository.findByTransfertId(transfertId);
-        
-        // Pour chaque ligne, créer un mouvement de sortie
-        for (LigneTransfert ligne : lignes) {
-            expedierLigne(ligne, expediteurId);
+        List<Map<String, Object>> manquants = jdbcTemplate.queryForList(SQL_CONTROLER_SOURCE,
+            transfertId, transfert.getDepotSource().getId());
+        if (!manquants.isEmpty()) {
+            throw new RuntimeException("Stock insuffisant dans le dépôt source : " + manquants.stream()
+                .map(m -> String.format("%s (disponible %s, demandé %s)",
+                    m.get("code_article"), m.get("disponible"), m.get("quantite")))
+                .collect(Collectors.joining(", ")));
         }
         
+        // Date d'arrivée prévue : clé du stock en transit, conservée pour la réception
+        LocalDate datePrevue = stockEnTransitService.datePrevue(transfert.getDateReceptionPrevue());
+        Map<String, Object> bilan = passer(SQL_EXPEDIER, expediteurId, datePrevue, transfertId);
+        verifierPassation(bilan, "TRANSFERT_SORTANT", transfertId);
+        
         // Mettre à jour le transfert
         transfert.setStatut(Transfert.TransfertStatut.EXPEDIE);
         // transfert.setExpediteurId(expediteurId);
         transfert.setDateExpedition(LocalDate.now());
+        transfert.setDateReceptionPrevue(datePrevue);
         
-        log.info("Transfert {} expédié par {}", transfert.getReference(), expediteurId);
+        log.info("Transfert {} expédié par {} : {} mouvement(s), {} stock(s) source", transfert.getReference(),
+            expediteurId, bilan.get("mouvements"), bilan.get("stocks"));
         return transfertRepository.save(transfert);
     }
     
-    /**
-     * Expédier une ligne spécifique
-     */
-    private void expedierLigne(LigneTransfert ligne, UUID expediteurId) {
-        // Créer mouvement de sortie
-        MovementType typeSortie = movementTypeRepository.findByCode("TRANSFERT_SORTANT")
-            .orElseThrow(() -> new RuntimeException("Type mouvement TRANSFERT_SORTANT non trouvé"));
-        
-        // Utiliser le coût moyen du stock source
-        Stock stockSource = stockRepository.findByArticleIdAndDepotId(
-            ligne.getArticle().getId(), 
-            ligne.getTransfert().getDepotSource().getId())
-            .orElseThrow(() -> new RuntimeException("Stock source non trouvé"));
-        
-        StockMovement mouvementSortie = StockMovement.builder()
-            .reference(genererReferenceMouvement())
-            .type(typeSortie)
-            .article(ligne.getArticle())
-            .depot(ligne.getTransfert().getDepotSource())
-            .quantite(ligne.getQuantiteDemandee())
-            .coutUnitaire(stockSource.getCoutUnitaireMoyen())
-            .lot(ligne.getLot())
-            .transfert(ligne.getTransfert())
-            .dateMouvement(LocalDateTime.now())
-            .dateComptable(LocalDate.now())
-            .utilisateurId(expediteurId)
-            .motif("Expédition transfert " + ligne.getTransfert().getReference())
-            .statut(StockMovement.MovementStatus.VALIDE)
-            .build();
-        
-        stockMovementRepository.save(mouvementSortie);
-        
-        // Mettre à jour la quantité expédiée
-        ligne.setQuantiteExpediee(ligne.getQuantiteDemandee());
-        ligneTransfertRepository.save(ligne);
-        
-        // Mettre à jour le lot si spécifié
-        if (ligne.getLot() != null) {
-            Lot lot = ligne.getLot();
-            lot.setQuantiteActuelle(lot.getQuantiteActuelle() - ligne.getQuantiteDemandee());
-            if (lot.getQuantiteActuelle() == 0) {
-                lot.setStatut(Lot.LotStatus.EPUISE);
-            }
-            lotRepository.save(lot);
-        }
-        
-        log.info("Ligne {} expédiée : {} unités", ligne.getId(), ligne.getQuantiteDemandee());
-    }
-    
     /**
      * Réceptionner un transfert (entrée dans le dépôt destination)
+     *
+     * Les mouvements d'entrée reprennent le coût des sorties correspondantes ; les stocks
+     * destination sont créés ou incrémentés par un upsert unique.
      */
     @Transactional
     public Transfert receptionnerTransfert(UUID transfertId, UUID receptionnaireId) {
@@ -251,71 +377,41 @@ public class TransfertService {
             throw new RuntimeException("Le transfert doit être expédié avant réception");
         }
         
-        List<LigneTransfert> lignes = ligneTransfertRepository.findByTransfertId(transfertId);
-        
-        // Pour chaque ligne, créer un mouvement d'entrée
-        for (LigneTransfert ligne : lignes) {
-            receptionnerLigne(ligne, receptionnaireId);
-        }
+        Map<String, Object> bilan = passer(SQL_RECEPTIONNER, receptionnaireId, transfertId);
+        verifierPassation(bilan, "TRANSFERT_ENTRANT", transfertId);
+        stockEnTransitService.sortir(transfertId);
         
         // Mettre à jour le transfert
         transfert.setStatut(Transfert.TransfertStatut.RECEPTIONNE);
         // transfert.setReceptionnaireId(receptionnaireId);
         transfert.setDateReceptionReelle(LocalDateTime.now());
         
-        log.info("Transfert {} réceptionné par {}", transfert.getReference(), receptionnaireId);
+        log.info("Transfert {} réceptionné par {} : {} mouvement(s), {} stock(s) destination", transfert.getReference(),
+            receptionnaireId, bilan.get("mouvements"), bilan.get("stocks"));
         return transfertRepository.save(transfert);
     }
     
     /**
-     * Réceptionner une ligne spécifique
+     * Exécuter une passation ensembliste : les triggers de mouvement ne réappliquent pas
+     * les deltas de stock et de lot, déjà portés par l'instruction (le temps de la transaction).
      */
-    private void receptionnerLigne(LigneTransfert ligne, UUID receptionnaireId) {
-        // Récupérer le coût du mouvement de sortie correspondant
-        Optional<StockMovement> mouvementSortie = stockMovementRepository
-            .findByTransfertIdAndArticleIdAndDepotId(
-                ligne.getTransfert().getId(),
-                ligne.getArticle().getId(),
-                ligne.getTransfert().getDepotSource().getId());
-        
-        BigDecimal coutUnitaire = mouvementSortie
-            .map(StockMovement::getCoutUnitaire)
-            .orElseGet(() -> {
-                // Fallback : coût moyen du stock source
-                Stock stockSource = stockRepository.findByArticleIdAndDepotId(
-                    ligne.getArticle().getId(),
-                    ligne.getTransfert().getDepotSource().getId())
-                    .orElseThrow(() -> new RuntimeException("Stock source non trouvé"));
-                return stockSource.getCoutUnitaireMoyen();
-            });
-        
-        // Créer mouvement d'entrée
-        MovementType typeEntree = movementTypeRepository.findByCode("TRANSFERT_ENTRANT")
-            .orElseThrow(() -> new RuntimeException("Type mouvement TRANSFERT_ENTRANT non trouvé"));
-        
-        StockMovement mouvementEntree = StockMovement.builder()
-            .reference(genererReferenceMouvement())
-            .type(typeEntree)
-            .article(ligne.getArticle())
-            .depot(ligne.getTransfert().getDepotDestination())
-            .quantite(ligne.getQuantiteExpediee())
-            .coutUnitaire(coutUnitaire)
-            .lot(ligne.getLot())
-            .transfert(ligne.getTransfert())
-            .dateMouvement(LocalDateTime.now())
-            .dateComptable(LocalDate.now())
-            .utilisateurId(receptionnaireId)
-            .motif("Réception transfert " + ligne.getTransfert().getReference())
-            .statut(StockMovement.MovementStatus.VALIDE)
-            .build();
-        
-        stockMovementRepository.save(mouvementEntree);
-        
-        // Mettre à jour la quantité reçue
-        ligne.setQuantiteRecue(ligne.getQuantiteExpediee());
-        ligneTransfertRepository.save(ligne);
-        
-        log.info("Ligne {} réceptionnée : {} unités", ligne.getId(), ligne.getQuantiteExpediee());
+    private Map<String, Object> passer(String sql, Object... parametres) {
+        jdbcTemplate.queryForObject("SELECT set_config('gestion.deltas_stock_appliques', 'on', true)", String.class);
+        Map<String, Object> bilan = jdbcTemplate.queryForMap(sql, parametres);
+        jdbcTemplate.queryForObject("SELECT set_config('gestion.deltas_stock_appliques', 'off', true)", String.class);
+        return bilan;
+    }
+    
+    private void verifierPassation(Map<String, Object> bilan, String typeMouvement, UUID transfertId) {
+        long lignes = ((Number) bilan.get("lignes")).longValue();
+        long mouvements = ((Number) bilan.get("mouvements")).longValue();
+        if (lignes == 0) {
+            throw new RuntimeException("Le transfert ne contient aucune ligne à passer");
+        }
+        if (mouvements != lignes) {
+            // Seule cause possible : type de mouvement absent du référentiel
+            throw new RuntimeException("Type mouvement " + typeMouvement + " non trouvé (transfert " + transfertId + ")");
+        }
     }
     
     /**
@@ -332,8 +428,9 @@ public class TransfertService {
         }
         
         if (transfert.getStatut() == Transfert.TransfertStatut.EXPEDIE) {
-            // Si déjà expédié, on doit annuler les mouvements de sortie
+            // Si déjà expédié, on doit annuler les mouvements de sortie et solder le transit
             annulerMouvementsTransfert(transfertId);
+            stockEnTransitService.sortir(transfertId);
         }
         
         // Mettre à jour le transfert
@@ -553,20 +650,6 @@ public class TransfertService {
         return String.format("%s-%d-%04d", prefix, year, sequence);
     }
     
-    /**
-     * Générer une référence unique pour les mouvements
-     */
-    private String genererReferenceMouvement() {
-        String prefix = "MVT";
-        LocalDate now = LocalDate.now();
-        int year = now.getYear();
-        
-        Long sequence = sequenceGeneratorService.getNextMovementSequence();
-        if (sequence == null) sequence = 1L;
-        
-        return String.format("%s-%d-%06d", prefix, year, sequence);
-    }
-
     public List<Transfert> getAll(){
         return transfertRepository.findAll();
     }
@@ -242,6 +242,7 @@ public class ValorisationDetailService {
     /**
      * Obtenir les détails complets d'un article
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getDetailsArticle(UUID articleId, UUID depotId) {
         Map<String, Object> details = new HashMap<>();
         
@@ -285,6 +286,7 @@ public class ValorisationDetailService {
     /**
      * Obtenir les statistiques globales pour les cartes
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getStatistiquesGlobales() {
         Map<String, Object> stats = new HashMap<>();
         
@@ -25,6 +25,8 @@ public class ValorisationService {
     private final HistoriqueCoutRepository historiqueRepository;
     private final ClotureMensuelleRepository clotureRepository;
     private final DepotRepository depotRepository; 
+    private final ClassificationStockService classificationStockService;
+    private final PositionStockService positionStockService;
 
     /**
      * Calcul du CUMP (Coût Unitaire Moyen Pondéré) depuis l'historique complet des mouvements.
@@ -355,90 +357,20 @@ public class ValorisationService {
     }
 
     /**
-     * Calculer la rotation de stock (turnover)
+     * Calculer la rotation de stock (turnover) sur le stock moyen réel de la période
      */
     public Map<String, Object> calculerRotationStock(UUID articleId, UUID depotId, Integer periodeMois) {
-        Map<String, Object> result = new HashMap<>();
-
-        // Calculer les sorties sur la période
-        LocalDate dateDebut = LocalDate.now().minusMonths(periodeMois);
-
-        Long totalSorties = mouvementRepository.sumSortiesByArticleAndDepot(articleId, depotId);
-        if (totalSorties == null)
-            totalSorties = 0L;
-
-        // Récupérer le stock moyen sur la période
-        Optional<Stock> stockOpt = stockRepository.findByArticleIdAndDepotId(articleId, depotId);
-        if (stockOpt.isPresent()) {
-            Stock stock = stockOpt.get();
-            Integer stockMoyen = stock.getQuantiteTheorique(); // Simplifié
-
-            BigDecimal rotation = stockMoyen > 0
-                    ? BigDecimal.valueOf(totalSorties).divide(BigDecimal.valueOf(stockMoyen), 2, RoundingMode.HALF_UP)
-                    : BigDecimal.ZERO;
-
-            result.put("totalSorties", totalSorties);
-            result.put("stockMoyen", stockMoyen);
-            result.put("rotation", rotation);
-            result.put("periodeMois", periodeMois);
-        }
-
-        return result;
+        return positionStockService.getRotation(articleId, depotId, periodeMois != null ? periodeMois : 12);
     }
 
     /**
      * Analyse ABC (Pareto) des articles
      */
     public List<Map<String, Object>> analyserABC(UUID depotId) {
-        List<Map<String, Object>> analyse = new ArrayList<>();
-
-        // Récupérer tous les stocks du dépôt
-        List<Stock> stocks = stockRepository.findByDepotId(depotId);
-
-        // Calculer la valeur totale
-        BigDecimal valeurTotale = stocks.stream()
-                .map(Stock::getValeurStockCump)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Trier par valeur décroissante
-        stocks.sort((s1, s2) -> s2.getValeurStockCump().compareTo(s1.getValeurStockCump()));
-
-        BigDecimal valeurCumulee = BigDecimal.ZERO;
-
-        for (Stock stock : stocks) {
-            BigDecimal pourcentageValeur = stock.getValeurStockCump()
-                    .divide(valeurTotale, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-
-            valeurCumulee = valeurCumulee.add(stock.getValeurStockCump());
-            BigDecimal pourcentageCumule = valeurCumulee
-                    .divide(valeurTotale, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-
-            // Déterminer classe ABC
-            String classeABC = "C";
-            if (pourcentageCumule.compareTo(new BigDecimal("80")) <= 0) {
-                classeABC = "A";
-            } else if (pourcentageCumule.compareTo(new BigDecimal("95")) <= 0) {
-                classeABC = "B";
-            }
-
-            Map<String, Object> item = new HashMap<>();
-            item.put("articleCode", stock.getArticle().getCodeArticle());
-            item.put("articleLibelle", stock.getArticle().getLibelle());
-            item.put("valeurStock", stock.getValeurStockCump());
-            item.put("pourcentageValeur", pourcentageValeur);
-            item.put("pourcentageCumule", pourcentageCumule);
-            item.put("classeABC", classeABC);
-            item.put("quantite", stock.getQuantiteTheorique());
-
-            analyse.add(item);
-        }
-
-        return analyse;
+        return classificationStockService.getClassification(depotId);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getSyntheseValorisation() {
         Map<String, Object> synthese = new HashMap<>();
 
@@ -512,6 +444,7 @@ public class ValorisationService {
         return synthese;
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getCoutMoyenSortiesFIFO() {
         log.info("Calcul coût moyen sorties FIFO");
         
@@ -569,6 +502,7 @@ public class ValorisationService {
     /**
      * Calculer le coût moyen des sorties FEFO
      */
+    @Transactional(readOnly = true)
     public BigDecimal getCoutMoyenSortiesFEFO() {
         log.info("Calcul coût moyen sorties FEFO");
         
@@ -633,6 +567,7 @@ public class ValorisationService {
         return coutFefo.subtract(coutFifo);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getDetailValorisationParMethode(String methode) {
         Map<String, Object> detail = new HashMap<>();
 
@@ -767,6 +702,7 @@ public class ValorisationService {
         return detail;
     }
 
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getTopArticlesParValeur(int limit) {
         List<Map<String, Object>> topArticles = new ArrayList<>();
 
@@ -790,23 +726,17 @@ public class ValorisationService {
     }
 
     /**
-     * Get évolution de la valorisation
+     * Get évolution de la valorisation (positions de stock quotidiennes, fin de chaque mois)
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getEvolutionValorisation(int mois) {
         Map<String, Object> evolution = new HashMap<>();
 
         LocalDate dateDebut = LocalDate.now().minusMonths(mois);
 
-        // Pour chaque mois, calculer la valorisation totale
         Map<String, BigDecimal> valorisationParMois = new TreeMap<>();
-
-        for (int i = 0; i <= mois; i++) {
-            LocalDate dateMois = dateDebut.plusMonths(i);
-            String cleMois = dateMois.getYear() + "-" + String.format("%02d", dateMois.getMonthValue());
-
-            // Simuler le calcul (dans un système réel, utiliser l'historique)
-            BigDecimal valorisationMois = calculerValorisationMois(dateMois);
-            valorisationParMois.put(cleMois, valorisationMois);
+        for (Map<String, Object> point : positionStockService.getEvolutionMensuelle(mois + 1, null)) {
+            valorisationParMois.put((String) point.get("periode"), (BigDecimal) point.get("valeur"));
         }
 
         evolution.put("mois", mois);
@@ -817,19 +747,10 @@ public class ValorisationService {
         return evolution;
     }
 
-    private BigDecimal calculerValorisationMois(LocalDate dateMois) {
-        // Méthode simplifiée - dans un système réel, utiliser l'historique des coûts
-        List<Stock> stocks = stockRepository.findAll();
-
-        return stocks.stream()
-                .map(Stock::getValeurStockCump)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
     /**
      * Get détail valorisation d'un article
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getDetailValorisationArticle(UUID articleId) {
         Map<String, Object> detail = new HashMap<>();
 
@@ -867,6 +788,7 @@ public class ValorisationService {
         return detail;
     }
 
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getValorisationDetailForDashboard() {
         List<Map<String, Object>> details = new ArrayList<>();
     
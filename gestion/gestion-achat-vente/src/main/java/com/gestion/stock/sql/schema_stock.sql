@@ -309,9 +309,12 @@ INSERT INTO types_mouvement (id, code, libelle, sens, impact_valorisation) VALUE
 ON CONFLICT (code) DO NOTHING;
 
 -- 5.2 Table des Mouvements de stock (journal des mouvements)
+-- Partitionnée par mois sur date_comptable (voir PARTIE 16) : la clé de partition
+-- fait partie de la clé primaire et des contraintes d'unicité. L'unicité globale de
+-- la référence est portée par references_mouvements (5.3).
 CREATE TABLE mouvements_stock (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
-    reference VARCHAR(100) UNIQUE NOT NULL, -- MVT-2026-000001 (auto-généré)
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    reference VARCHAR(100) NOT NULL, -- MVT-2026-000001 (auto-généré, séquence)
     
     -- Identification
     type_mouvement_id UUID NOT NULL REFERENCES types_mouvement(id),
@@ -352,14 +355,57 @@ CREATE TABLE mouvements_stock (
     
     -- Audit (immuable une fois validé)
     modifiable BOOLEAN DEFAULT TRUE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (id, date_comptable),
+    UNIQUE (reference, date_comptable)
+) PARTITION BY RANGE (date_comptable);
+
+-- Partition par défaut : reçoit les dates sans partition mensuelle (ne doit rester vide)
+CREATE TABLE mouvements_stock_defaut PARTITION OF mouvements_stock DEFAULT;
+
+-- 5.3 Registre des références de mouvement
+-- UNIQUE (reference, date_comptable) laisserait passer la même référence sur deux mois :
+-- chaque mouvement inscrit ici sa référence (clé primaire), à l'insertion. Le registre
+-- sert aussi de cible aux clés étrangères vers un mouvement (historique_couts,
+-- ajustements_inventaire), impossibles sur l'id seul de la table partitionnée.
+-- Les lignes restent quand une partition est détachée vers l'archive (PARTIE 17) :
+-- une référence archivée reste prise et les liens vers ses mouvements restent valides.
+CREATE TABLE references_mouvements (
+    reference VARCHAR(100) PRIMARY KEY,
+    mouvement_id UUID NOT NULL UNIQUE,
+    date_comptable DATE NOT NULL
 );
 
--- Index pour performances et recherches
+-- Inscription au registre : une référence déjà prise par un autre mouvement lève
+-- unique_violation et annule l'insertion. Le même id réinscrit (changement de référence
+-- ou de date comptable, déplacement entre partitions) met sa ligne à jour.
+CREATE OR REPLACE FUNCTION enregistrer_reference_mouvement()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO references_mouvements (reference, mouvement_id, date_comptable)
+    VALUES (NEW.reference, NEW.id, NEW.date_comptable)
+    ON CONFLICT (mouvement_id) DO UPDATE
+        SET reference = EXCLUDED.reference, date_comptable = EXCLUDED.date_comptable;
+    RETURN NULL;
+EXCEPTION WHEN unique_violation THEN
+    RAISE EXCEPTION 'Référence de mouvement déjà utilisée: %', NEW.reference
+        USING ERRCODE = 'unique_violation';
+END;
+$$ LANGUAGE plpgsql;
+
+-- Pas de trigger de suppression : le déplacement des lignes de la partition par défaut
+-- (creer_partition_mouvements) passe par un DELETE et doit garder le registre intact.
+CREATE TRIGGER trg_reference_mouvement
+AFTER INSERT OR UPDATE OF reference, date_comptable ON mouvements_stock
+FOR EACH ROW EXECUTE FUNCTION enregistrer_reference_mouvement();
+
+-- Index pour performances et recherches (déclarés sur la table mère, créés sur chaque partition)
 CREATE INDEX idx_mvt_article ON mouvements_stock(article_id);
 CREATE INDEX idx_mvt_depot ON mouvements_stock(depot_id);
 CREATE INDEX idx_mvt_date ON mouvements_stock(date_mouvement);
 CREATE INDEX idx_mvt_date_comptable ON mouvements_stock(date_comptable);
+CREATE INDEX idx_mvt_article_depot_date_comptable ON mouvements_stock(article_id, depot_id, date_comptable) WHERE statut = 'VALIDE';
 CREATE INDEX idx_mvt_type ON mouvements_stock(type_mouvement_id);
 CREATE INDEX idx_mvt_bc ON mouvements_stock(bon_commande_id);
 CREATE INDEX idx_mvt_br ON mouvements_stock(bon_reception_id);
@@ -530,7 +576,7 @@ CREATE TABLE lignes_inventaire (
 CREATE TABLE ajustements_inventaire (
     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
     ligne_inventaire_id UUID NOT NULL REFERENCES lignes_inventaire(id),
-    mouvement_stock_id UUID REFERENCES mouvements_stock(id), -- Mouvement créé
+    mouvement_stock_id UUID REFERENCES references_mouvements(mouvement_id), -- Mouvement créé (via le registre, 5.3)
     
     quantite_ajustee INTEGER NOT NULL, -- Positif ou négatif
     valeur_ajustement DECIMAL(15, 2) NOT NULL,
@@ -603,7 +649,7 @@ CREATE TABLE historique_couts (
     valeur_stock DECIMAL(15, 2) NOT NULL,
     methode_valorisation VARCHAR(20) NOT NULL,
     
-    mouvement_stock_id UUID REFERENCES mouvements_stock(id),
+    mouvement_stock_id UUID REFERENCES references_mouvements(mouvement_id), -- via le registre (5.3)
     cloture_mensuelle_id UUID REFERENCES clotures_mensuelles(id),
     
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -621,6 +667,7 @@ CREATE INDEX idx_historique_annee_mois ON historique_couts(annee, mois);
 CREATE INDEX idx_historique_cloture ON historique_couts(cloture_mensuelle_id);
 
 CREATE INDEX idx_cloture_statut ON clotures_mensuelles(statut);
+CREATE INDEX idx_cloture_fin_periode ON clotures_mensuelles(date_fin_periode DESC) WHERE statut IN ('CLOTUREE', 'VALIDEE');
 CREATE INDEX idx_cloture_annee ON clotures_mensuelles(annee);
 CREATE INDEX idx_cloture_cloture_par ON clotures_mensuelles(cloture_par_id);
 
@@ -723,6 +770,11 @@ DECLARE
     v_existing_theorique INTEGER;
     v_existing_physique INTEGER;
 BEGIN
+    -- Passations ensemblistes (transferts) : les deltas de stock sont appliqués par l'appelant
+    IF current_setting('gestion.deltas_stock_appliques', true) = 'on' THEN
+        RETURN NEW;
+    END IF;
+
     -- Récupérer le sens du mouvement
     SELECT sens INTO v_sens 
     FROM types_mouvement 
@@ -793,6 +845,10 @@ RETURNS TRIGGER AS $$
 DECLARE
     v_sens VARCHAR(10);
 BEGIN
+    IF current_setting('gestion.deltas_stock_appliques', true) = 'on' THEN
+        RETURN NEW;
+    END IF;
+
     IF NEW.lot_id IS NOT NULL THEN
         SELECT sens INTO v_sens 
         FROM types_mouvement 
@@ -826,6 +882,7 @@ CREATE INDEX idx_articles_actif ON articles(actif) WHERE actif = TRUE;
 CREATE INDEX idx_lots_article ON lots(article_id);
 CREATE INDEX idx_lots_statut ON lots(statut);
 CREATE INDEX idx_lots_peremption ON lots(date_peremption) WHERE date_peremption IS NOT NULL;
+CREATE INDEX idx_lots_disponibles_peremption ON lots(date_peremption, id) WHERE statut = 'DISPONIBLE';
 
 CREATE INDEX idx_series_article ON series(article_id);
 CREATE INDEX idx_series_statut ON series(statut);
@@ -837,6 +894,585 @@ CREATE INDEX idx_transferts_depot_dest ON transferts(depot_destination_id);
 CREATE INDEX idx_inventaires_statut ON inventaires(statut);
 CREATE INDEX idx_inventaires_depot ON inventaires(depot_id);
 
+-- ============================================================================
+-- PARTIE 13 : TÂCHES DE FOND
+-- ============================================================================
+
+-- Suivi des traitements exécutés hors du thread de requête (rapports, vérifications, maintenance)
+CREATE TABLE taches_asynchrones (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    type VARCHAR(50) NOT NULL, -- RAPPORTS_CLOTURE, VERIFICATIONS_STOCK, RECONSTRUCTION_PROJECTIONS, ARCHIVAGE_MOUVEMENTS, CLASSIFICATION_STOCK
+    statut VARCHAR(20) NOT NULL DEFAULT 'EN_ATTENTE', -- EN_ATTENTE, EN_COURS, TERMINEE, ECHEC
+    reference_id UUID, -- Objet métier concerné (clôture, ...)
+    utilisateur_id UUID,
+    correlation_id VARCHAR(64) NOT NULL,
+    progression INTEGER NOT NULL DEFAULT 0 CHECK (progression BETWEEN 0 AND 100),
+    message TEXT,
+    resultat TEXT,
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_debut TIMESTAMP,
+    date_fin TIMESTAMP,
+    noeud VARCHAR(255), -- Nœud qui exécute la tâche (pool local)
+    date_pulsation TIMESTAMP -- Dernier signe de vie du nœud ; expirée = nœud disparu
+);
+
+CREATE INDEX idx_taches_statut ON taches_asynchrones(statut) WHERE statut IN ('EN_ATTENTE', 'EN_COURS');
+CREATE INDEX idx_taches_reference ON taches_asynchrones(reference_id);
+CREATE INDEX idx_taches_utilisateur ON taches_asynchrones(utilisateur_id, date_creation DESC);
+
+-- ============================================================================
+-- PARTIE 14 : ÉVÉNEMENTS DE STOCK (OUTBOX) ET PROJECTIONS
+-- ============================================================================
+
+-- Outbox alimentée par triggers, dans la transaction qui modifie le stock :
+-- tous les chemins (mouvements, transferts, livraisons, inventaires, réservations, lots)
+-- émettent sans code applicatif. xid = transaction émettrice, pour une lecture sans trou.
+CREATE TABLE evenements_stock (
+    id BIGSERIAL PRIMARY KEY,
+    xid BIGINT NOT NULL DEFAULT (pg_current_xact_id()::text::bigint),
+    type_evenement VARCHAR(50) NOT NULL, -- MOUVEMENT_VALIDE, MOUVEMENT_ANNULE, LOT_STATUT_MODIFIE, RESERVATION_CREEE, RESERVATION_LIBEREE
+    article_id UUID,
+    depot_id UUID,
+    lot_id UUID,
+    reference_id UUID, -- Mouvement, lot ou réservation source
+    sens VARCHAR(10), -- ENTREE, SORTIE (mouvements)
+    quantite INTEGER,
+    valeur DECIMAL(15, 2),
+    statut VARCHAR(50), -- Nouveau statut (lots, réservations)
+    date_evenement TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_evenements_stock_xid ON evenements_stock(xid);
+
+CREATE OR REPLACE FUNCTION outbox_mouvement_stock()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' AND NEW.statut = 'VALIDE' THEN
+        INSERT INTO evenements_stock (type_evenement, article_id, depot_id, lot_id, reference_id,
+                                      sens, quantite, valeur, date_evenement)
+        SELECT 'MOUVEMENT_VALIDE', NEW.article_id, NEW.depot_id, NEW.lot_id, NEW.id,
+               t.sens, NEW.quantite, NEW.quantite * NEW.cout_unitaire, NEW.date_mouvement
+        FROM types_mouvement t WHERE t.id = NEW.type_mouvement_id;
+    ELSIF TG_OP = 'UPDATE' AND OLD.statut = 'VALIDE' AND NEW.statut = 'ANNULE' THEN
+        INSERT INTO evenements_stock (type_evenement, article_id, depot_id, lot_id, reference_id,
+                                      sens, quantite, valeur, date_evenement)
+        SELECT 'MOUVEMENT_ANNULE', NEW.article_id, NEW.depot_id, NEW.lot_id, NEW.id,
+               t.sens, NEW.quantite, NEW.quantite * NEW.cout_unitaire, NEW.date_mouvement
+        FROM types_mouvement t WHERE t.id = NEW.type_mouvement_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_outbox_mouvement
+AFTER INSERT OR UPDATE OF statut ON mouvements_stock
+FOR EACH ROW
+EXECUTE FUNCTION outbox_mouvement_stock();
+
+CREATE OR REPLACE FUNCTION outbox_lot_statut()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO evenements_stock (type_evenement, article_id, depot_id, lot_id, reference_id,
+                                  quantite, statut, date_evenement)
+    SELECT 'LOT_STATUT_MODIFIE', NEW.article_id, z.depot_id, NEW.id, NEW.id,
+           NEW.quantite_actuelle, NEW.statut, CURRENT_TIMESTAMP
+    FROM (SELECT 1) x
+    LEFT JOIN emplacements e ON e.id = NEW.emplacement_id
+    LEFT JOIN zones_stockage z ON z.id = e.zone_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_outbox_lot
+AFTER UPDATE OF statut ON lots
+FOR EACH ROW
+WHEN (OLD.statut IS DISTINCT FROM NEW.statut)
+EXECUTE FUNCTION outbox_lot_statut();
+
+CREATE OR REPLACE FUNCTION outbox_reservation_stock()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' AND NEW.statut = 'ACTIVE' THEN
+        INSERT INTO evenements_stock (type_evenement, article_id, depot_id, lot_id, reference_id,
+                                      quantite, statut, date_evenement)
+        VALUES ('RESERVATION_CREEE', NEW.article_id, NEW.depot_id, NEW.lot_id, NEW.id,
+                NEW.quantite_reservee, NEW.statut, NEW.date_reservation);
+    ELSIF TG_OP = 'UPDATE' AND OLD.statut = 'ACTIVE' AND NEW.statut <> 'ACTIVE' THEN
+        INSERT INTO evenements_stock (type_evenement, article_id, depot_id, lot_id, reference_id,
+                                      quantite, statut, date_evenement)
+        VALUES ('RESERVATION_LIBEREE', NEW.article_id, NEW.depot_id, NEW.lot_id, NEW.id,
+                NEW.quantite_reservee - NEW.quantite_prelevee, NEW.statut, CURRENT_TIMESTAMP);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_outbox_reservation
+AFTER INSERT OR UPDATE OF statut ON reservations_stock
+FOR EACH ROW
+EXECUTE FUNCTION outbox_reservation_stock();
+
+-- Position de lecture de chaque projection (xmin déjà intégralement traité)
+CREATE TABLE projections_checkpoint (
+    nom VARCHAR(50) PRIMARY KEY,
+    xid_traite BIGINT NOT NULL,
+    date_maj TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Projection : état courant par article / dépôt (alertes seuil minimum)
+CREATE TABLE projection_stock (
+    article_id UUID NOT NULL,
+    depot_id UUID NOT NULL,
+    quantite_theorique INTEGER NOT NULL DEFAULT 0,
+    quantite_reservee INTEGER NOT NULL DEFAULT 0,
+    quantite_disponible INTEGER NOT NULL DEFAULT 0,
+    valeur_stock DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    stock_minimum INTEGER,
+    en_alerte BOOLEAN NOT NULL DEFAULT FALSE,
+    date_maj TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (article_id, depot_id)
+);
+
+CREATE INDEX idx_projection_stock_alerte ON projection_stock(depot_id) WHERE en_alerte;
+
+-- Projection : synthèse de valorisation par dépôt
+CREATE TABLE projection_valorisation_depot (
+    depot_id UUID PRIMARY KEY,
+    valeur_totale DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    quantite_totale BIGINT NOT NULL DEFAULT 0,
+    nombre_articles_en_stock INTEGER NOT NULL DEFAULT 0,
+    nombre_alertes INTEGER NOT NULL DEFAULT 0,
+    date_maj TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Projection : activité journalière par sens
+CREATE TABLE projection_mouvements_jour (
+    jour DATE NOT NULL,
+    sens VARCHAR(10) NOT NULL,
+    nombre_mouvements INTEGER NOT NULL DEFAULT 0,
+    quantite BIGINT NOT NULL DEFAULT 0,
+    valeur DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (jour, sens)
+);
+
+-- ============================================================================
+-- PARTIE 15 : NOTIFICATIONS (FILE DÉDUPLIQUÉE ET DIGESTS)
+-- ============================================================================
+
+-- File des notifications : une ligne par utilisateur et clé de déduplication
+-- (type + article + dépôt + jour). Une condition déjà signalée le même jour
+-- incrémente occurrences au lieu de créer une nouvelle ligne.
+CREATE TABLE notifications (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    utilisateur_id UUID NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    niveau VARCHAR(20) NOT NULL, -- info, warning, danger
+    cle_deduplication VARCHAR(255) NOT NULL,
+    jour DATE NOT NULL DEFAULT CURRENT_DATE,
+    article_id UUID,
+    depot_id UUID,
+    message TEXT NOT NULL,
+    occurrences INTEGER NOT NULL DEFAULT 1,
+    statut VARCHAR(20) NOT NULL DEFAULT 'EN_ATTENTE', -- EN_ATTENTE, DIFFUSEE
+    digest_id UUID,
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_derniere_occurrence TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_diffusion TIMESTAMP,
+    UNIQUE (utilisateur_id, cle_deduplication)
+);
+
+CREATE INDEX idx_notifications_attente ON notifications(date_creation) WHERE statut = 'EN_ATTENTE';
+CREATE INDEX idx_notifications_jour ON notifications(jour);
+
+-- Digest : regroupement par utilisateur des notifications diffusées lors d'un passage
+CREATE TABLE notifications_digests (
+    id UUID PRIMARY KEY,
+    utilisateur_id UUID NOT NULL,
+    niveau VARCHAR(20) NOT NULL,
+    nombre_notifications INTEGER NOT NULL,
+    contenu TEXT NOT NULL,
+    lu BOOLEAN NOT NULL DEFAULT FALSE,
+    date_creation TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_digests_utilisateur ON notifications_digests(utilisateur_id, date_creation DESC);
+
+-- ============================================================================
+-- PARTIE 16 : PARTITIONNEMENT MENSUEL DES MOUVEMENTS
+-- ============================================================================
+
+-- Schéma recevant les partitions détachées des périodes clôturées et validées
+CREATE SCHEMA IF NOT EXISTS archives_stock;
+
+-- Créer la partition du mois contenant p_mois (idempotent)
+CREATE OR REPLACE FUNCTION creer_partition_mouvements(p_mois DATE)
+RETURNS TEXT AS $$
+DECLARE
+    v_debut DATE := date_trunc('month', p_mois)::DATE;
+    v_fin DATE := (date_trunc('month', p_mois) + INTERVAL '1 month')::DATE;
+    v_nom TEXT := 'mouvements_stock_' || to_char(v_debut, 'YYYY_MM');
+    v_colonnes TEXT;
+BEGIN
+    IF to_regclass('public.' || v_nom) IS NOT NULL
+       OR to_regclass('archives_stock.' || v_nom) IS NOT NULL THEN
+        RETURN NULL;
+    END IF;
+
+    -- Des lignes de cette période tombées dans la partition par défaut empêcheraient
+    -- l'attachement : elles sont déplacées dans la nouvelle partition avant son
+    -- rattachement (table encore autonome : les triggers de stock ne sont pas rejoués).
+    SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position) INTO v_colonnes
+    FROM information_schema.columns
+    WHERE table_schema = 'public' AND table_name = 'mouvements_stock' AND is_generated = 'NEVER';
+
+    EXECUTE format('CREATE TABLE %I (LIKE mouvements_stock INCLUDING DEFAULTS INCLUDING GENERATED)', v_nom);
+    EXECUTE format('WITH deplaces AS (DELETE FROM mouvements_stock_defaut
+                        WHERE date_comptable >= %L AND date_comptable < %L RETURNING *)
+                    INSERT INTO %I (%s) SELECT %s FROM deplaces',
+                   v_debut, v_fin, v_nom, v_colonnes, v_colonnes);
+    EXECUTE format('ALTER TABLE mouvements_stock ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   v_nom, v_debut, v_fin);
+    RETURN v_nom;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Créer les partitions du mois courant et des p_mois_avance mois suivants
+CREATE OR REPLACE FUNCTION creer_partitions_mouvements(p_mois_avance INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    v_creees INTEGER := 0;
+    i INTEGER;
+BEGIN
+    FOR i IN 0..p_mois_avance LOOP
+        IF creer_partition_mouvements((CURRENT_DATE + make_interval(months => i))::DATE) IS NOT NULL THEN
+            v_creees := v_creees + 1;
+        END IF;
+    END LOOP;
+    RETURN v_creees;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Détacher la partition d'une période couverte par une clôture VALIDEE et la
+-- déplacer dans archives_stock. Refuse toute autre période.
+CREATE OR REPLACE FUNCTION detacher_partition_mouvements(p_annee INTEGER, p_mois INTEGER)
+RETURNS TEXT AS $$
+DECLARE
+    v_debut DATE := make_date(p_annee, p_mois, 1);
+    v_nom TEXT := 'mouvements_stock_' || to_char(make_date(p_annee, p_mois, 1), 'YYYY_MM');
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM clotures_mensuelles
+                   WHERE annee = p_annee AND mois = p_mois AND statut = 'VALIDEE') THEN
+        RAISE EXCEPTION 'Période %/% non couverte par une clôture validée', p_mois, p_annee;
+    END IF;
+    IF EXISTS (SELECT 1 FROM mouvements_stock_defaut
+               WHERE date_comptable >= v_debut AND date_comptable < (v_debut + INTERVAL '1 month')::DATE) THEN
+        RAISE EXCEPTION 'Mouvements de %/% présents dans la partition par défaut', p_mois, p_annee;
+    END IF;
+    IF to_regclass('public.' || v_nom) IS NULL THEN
+        RETURN NULL;
+    END IF;
+
+    EXECUTE format('ALTER TABLE mouvements_stock DETACH PARTITION %I', v_nom);
+    PERFORM archiver_table_mouvements(v_nom, v_debut);
+    RETURN 'archives_stock.' || v_nom;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions initiales : 12 mois d'historique et 3 mois d'avance
+DO $$
+DECLARE
+    i INTEGER;
+BEGIN
+    FOR i IN -12..3 LOOP
+        PERFORM creer_partition_mouvements((CURRENT_DATE + make_interval(months => i))::DATE);
+    END LOOP;
+END $$;
+
+-- ============================================================================
+-- PARTIE 17 : ARCHIVE FROIDE DES MOUVEMENTS
+-- ============================================================================
+
+-- Archive des mouvements des périodes clôturées et validées : mêmes colonnes que
+-- mouvements_stock, sans trigger, partitionnée par mois. Chaque partition est réécrite
+-- triée par article et date (lecture séquentielle du journal d'un article), sans
+-- espace libre (fillfactor 100, lignes immuables), textes compressés en lz4
+-- (PostgreSQL 14+) et avec des index réduits.
+CREATE TABLE archives_stock.mouvements_stock (
+    LIKE public.mouvements_stock INCLUDING DEFAULTS INCLUDING GENERATED
+) PARTITION BY RANGE (date_comptable);
+
+CREATE INDEX idx_archive_mvt_article ON archives_stock.mouvements_stock(article_id, date_mouvement);
+CREATE INDEX idx_archive_mvt_lot ON archives_stock.mouvements_stock(lot_id) WHERE lot_id IS NOT NULL;
+CREATE INDEX idx_archive_mvt_reference ON archives_stock.mouvements_stock(reference);
+CREATE INDEX idx_archive_mvt_utilisateur ON archives_stock.mouvements_stock(utilisateur_id);
+CREATE INDEX idx_archive_mvt_date ON archives_stock.mouvements_stock USING BRIN (date_mouvement);
+
+-- Réécrire une partition détachée dans l'archive puis supprimer l'originale
+CREATE OR REPLACE FUNCTION archiver_table_mouvements(p_nom TEXT, p_mois DATE)
+RETURNS BIGINT AS $$
+DECLARE
+    v_debut DATE := date_trunc('month', p_mois)::DATE;
+    v_fin DATE := (date_trunc('month', p_mois) + INTERVAL '1 month')::DATE;
+    v_colonnes TEXT;
+    v_lignes BIGINT;
+BEGIN
+    SELECT string_agg(quote_ident(column_name), ', ' ORDER BY ordinal_position) INTO v_colonnes
+    FROM information_schema.columns
+    WHERE table_schema = 'public' AND table_name = 'mouvements_stock' AND is_generated = 'NEVER';
+
+    EXECUTE format('CREATE TABLE archives_stock.%I (LIKE archives_stock.mouvements_stock
+                        INCLUDING DEFAULTS INCLUDING GENERATED) WITH (fillfactor = 100)', p_nom);
+    EXECUTE format('ALTER TABLE archives_stock.%I ALTER COLUMN motif SET COMPRESSION lz4,
+                        ALTER COLUMN notes SET COMPRESSION lz4', p_nom);
+    EXECUTE format('INSERT INTO archives_stock.%I (%s) SELECT %s FROM public.%I ORDER BY article_id, date_mouvement',
+                   p_nom, v_colonnes, v_colonnes, p_nom);
+    GET DIAGNOSTICS v_lignes = ROW_COUNT;
+
+    EXECUTE format('DROP TABLE public.%I', p_nom);
+    EXECUTE format('ALTER TABLE archives_stock.mouvements_stock ATTACH PARTITION archives_stock.%I
+                        FOR VALUES FROM (%L) TO (%L)', p_nom, v_debut, v_fin);
+    EXECUTE format('ANALYZE archives_stock.%I', p_nom);
+    RETURN v_lignes;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Journal complet : mouvements chauds et archivés (historique article, traçabilité lot, audit).
+-- Les filtres sur date_comptable éliminent les partitions non concernées des deux côtés.
+CREATE OR REPLACE VIEW mouvements_stock_journal AS
+SELECT m.*, FALSE AS archive FROM public.mouvements_stock m
+UNION ALL
+SELECT a.*, TRUE AS archive FROM archives_stock.mouvements_stock a;
+
+-- ============================================================================
+-- PARTIE 18 : CLASSIFICATION ABC / XYZ
+-- ============================================================================
+
+-- Classe par article et dépôt, recalculée en SQL (fonctions de fenêtrage) :
+-- ABC sur la valeur du stock (Pareto 80 / 95 %), XYZ sur la variabilité de la
+-- demande hebdomadaire (coefficient de variation des sorties).
+CREATE TABLE classification_stock (
+    article_id UUID NOT NULL REFERENCES articles(id) ON DELETE CASCADE,
+    depot_id UUID NOT NULL REFERENCES depots(id) ON DELETE CASCADE,
+    classe_abc CHAR(1) NOT NULL,
+    classe_xyz CHAR(1) NOT NULL,
+    rang INTEGER NOT NULL,
+    quantite INTEGER NOT NULL DEFAULT 0,
+    valeur_stock DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    part_valeur DECIMAL(7, 4) NOT NULL DEFAULT 0,
+    part_cumulee DECIMAL(7, 4) NOT NULL DEFAULT 0,
+    sorties_periode BIGINT NOT NULL DEFAULT 0,
+    demande_moyenne DECIMAL(15, 4) NOT NULL DEFAULT 0,
+    ecart_type DECIMAL(15, 4) NOT NULL DEFAULT 0,
+    coefficient_variation DECIMAL(10, 4),
+    date_calcul TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (article_id, depot_id)
+);
+
+CREATE INDEX idx_classification_depot_classe ON classification_stock(depot_id, classe_abc, classe_xyz);
+
+-- ============================================================================
+-- PARTIE 19 : POSITIONS DE STOCK QUOTIDIENNES
+-- ============================================================================
+
+-- Position (quantité, valeur) par article et dépôt, une ligne uniquement les jours
+-- où elle change : la position d'un jour est la dernière ligne à cette date ou avant.
+-- Stock moyen, rotation et couverture se calculent sur ces intervalles sans relire
+-- le journal des mouvements.
+CREATE TABLE positions_stock_jour (
+    article_id UUID NOT NULL REFERENCES articles(id) ON DELETE CASCADE,
+    depot_id UUID NOT NULL REFERENCES depots(id) ON DELETE CASCADE,
+    jour DATE NOT NULL,
+    quantite INTEGER NOT NULL,
+    valeur DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (article_id, depot_id, jour)
+);
+
+-- Totaux quotidiens par dépôt (courbes d'évolution)
+CREATE TABLE positions_stock_totaux_jour (
+    jour DATE NOT NULL,
+    depot_id UUID NOT NULL REFERENCES depots(id) ON DELETE CASCADE,
+    quantite BIGINT NOT NULL,
+    valeur DECIMAL(18, 2) NOT NULL,
+    nombre_articles INTEGER NOT NULL,
+    PRIMARY KEY (jour, depot_id)
+);
+
+-- ============================================================================
+-- PARTIE 20 : SURVEILLANCE DU POINT DE COMMANDE
+-- ============================================================================
+
+-- Ensemble vivant des couples article / dépôt dont le disponible est sous le point de
+-- commande (max(stock minimum, stock de sécurité)). Maintenu à partir des événements
+-- de stock (PARTIE 14) : seuls les couples touchés sont réévalués.
+CREATE TABLE reappro_sous_seuil (
+    article_id UUID NOT NULL REFERENCES articles(id) ON DELETE CASCADE,
+    depot_id UUID NOT NULL REFERENCES depots(id) ON DELETE CASCADE,
+    quantite_disponible INTEGER NOT NULL,
+    point_commande INTEGER NOT NULL,
+    quantite_cible INTEGER NOT NULL, -- stock maximum, sinon deux fois le point de commande
+    quantite_a_commander INTEGER NOT NULL,
+    demande_achat_id UUID, -- Proposition consolidée par article (module achat)
+    depuis TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_maj TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (article_id, depot_id)
+);
+
+CREATE INDEX idx_reappro_sans_demande ON reappro_sous_seuil(article_id) WHERE demande_achat_id IS NULL;
+
+-- ============================================================================
+-- PARTIE 21 : STOCK EN TRANSIT
+-- ============================================================================
+
+-- Quantités expédiées non encore réceptionnées, par article, dépôt destination et date
+-- d'arrivée prévue. Incrémenté à l'expédition et décrémenté à la réception ou à
+-- l'annulation d'un transfert (TransfertService) ; ne contient que le transit en cours.
+CREATE TABLE stock_en_transit (
+    article_id UUID NOT NULL REFERENCES articles(id),
+    depot_id UUID NOT NULL REFERENCES depots(id), -- Dépôt destination
+    date_prevue DATE NOT NULL, -- Réception prévue, sinon expédition + délai par défaut
+    quantite INTEGER NOT NULL CHECK (quantite > 0),
+    valeur DECIMAL(15, 2) NOT NULL DEFAULT 0,
+    nombre_transferts INTEGER NOT NULL DEFAULT 1,
+    date_maj TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (article_id, depot_id, date_prevue)
+);
+
+-- Retards : date prévue dépassée
+CREATE INDEX idx_stock_en_transit_date ON stock_en_transit(date_prevue);
+
+-- Passations ensemblistes des transferts (lignes et sorties d'un transfert)
+CREATE INDEX IF NOT EXISTS idx_lignes_transfert_transfert ON lignes_transfert(transfert_id);
+CREATE INDEX IF NOT EXISTS idx_mvt_transfert ON mouvements_stock(transfert_id) WHERE transfert_id IS NOT NULL;
+
+-- Amorçage avec les transferts déjà expédiés (délai par défaut : 7 jours, cf. gestion.transit.delai-jours)
+INSERT INTO stock_en_transit (article_id, depot_id, date_prevue, quantite, valeur, nombre_transferts)
+SELECT l.article_id, t.depot_destination_id,
+       COALESCE(t.date_reception_prevue, t.date_expedition + 7),
+       SUM(l.quantite_expedie), 0, COUNT(DISTINCT t.id)
+FROM transferts t
+JOIN lignes_transfert l ON l.transfert_id = t.id
+WHERE t.statut = 'EXPEDIE' AND l.quantite_expedie > 0
+  AND COALESCE(t.date_reception_prevue, t.date_expedition) IS NOT NULL
+GROUP BY 1, 2, 3
+ON CONFLICT (article_id, depot_id, date_prevue) DO NOTHING;
+
+-- ============================================================================
+-- PARTIE 22 : BAUX DES TRAITEMENTS PLANIFIÉS (EXÉCUTION UNIQUE EN CLUSTER)
+-- ============================================================================
+
+-- Un bail par traitement et par fragment : un seul nœud exécute un créneau donné
+-- (heure de déclenchement cron). Le bail expire si le nœud disparaît en cours d'exécution.
+CREATE TABLE jobs_baux (
+    nom VARCHAR(100) NOT NULL,
+    fragment INTEGER NOT NULL DEFAULT 0, -- 0..n-1 pour un traitement fragmenté
+    detenteur VARCHAR(200), -- Nœud détenteur (hôte:pid)
+    expire_le TIMESTAMP,
+    creneau TIMESTAMP, -- Créneau en cours ou dernier créneau pris
+    creneau_termine TIMESTAMP, -- Dernier créneau exécuté avec succès
+    date_maj TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (nom, fragment)
+);
+
+-- Historique des exécutions : durée et lignes traitées
+CREATE TABLE jobs_executions (
+    id BIGSERIAL PRIMARY KEY,
+    nom VARCHAR(100) NOT NULL,
+    fragment INTEGER NOT NULL DEFAULT 0,
+    nombre_fragments INTEGER NOT NULL DEFAULT 1,
+    noeud VARCHAR(200) NOT NULL,
+    creneau TIMESTAMP NOT NULL,
+    statut VARCHAR(20) NOT NULL DEFAULT 'EN_COURS', -- EN_COURS, TERMINEE, ECHEC
+    lignes_traitees INTEGER,
+    duree_ms BIGINT,
+    message TEXT,
+    date_debut TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    date_fin TIMESTAMP
+);
+
+CREATE INDEX idx_jobs_executions_nom ON jobs_executions(nom, date_debut DESC);
+
+-- ============================================================================
+-- PARTIE 23 : SESSIONS UTILISATEURS PARTAGÉES
+-- ============================================================================
+
+-- Sessions HTTP persistées (SessionStore) : tout nœud sert toute session, sans affinité.
+-- Attributs sérialisés, écrits à chaque modification ; dernier accès écrit par lots.
+-- version : verrou optimiste des écritures d'attributs (une copie périmée du cache d'un nœud
+-- ne peut ni écraser des attributs plus récents, ni recréer une session supprimée).
+CREATE TABLE sessions_utilisateurs (
+    id VARCHAR(64) PRIMARY KEY,
+    utilisateur_id UUID,
+    username VARCHAR(100),
+    attributs BYTEA NOT NULL,
+    inactivite_max INTEGER NOT NULL, -- secondes
+    date_creation TIMESTAMP NOT NULL,
+    dernier_acces TIMESTAMP NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Session unique par utilisateur (remplace la connexion précédente) et purge des sessions expirées
+CREATE INDEX idx_sessions_username ON sessions_utilisateurs(username);
+CREATE INDEX idx_sessions_dernier_acces ON sessions_utilisateurs(dernier_acces);
+
+-- ============================================================================
+-- PARTIE 24 : VERSIONS DES DONNÉES DE RÉFÉRENCE (ETAG DES API DE CATALOGUE)
+-- ============================================================================
+
+-- Un compteur par groupe de tables, incrémenté à chaque écriture (trigger par instruction :
+-- un import de 10 000 articles ne coûte qu'une incrémentation). La version sert d'ETag aux
+-- API de référentiel (VersionsReferentiel) : tant qu'elle ne bouge pas, les nœuds répondent
+-- 304 sans toucher aux tables.
+CREATE TABLE versions_referentiel (
+    groupe VARCHAR(50) PRIMARY KEY, -- articles, emplacements, clients
+    version BIGINT NOT NULL DEFAULT 1,
+    date_maj TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO versions_referentiel (groupe) VALUES ('articles'), ('emplacements'), ('clients');
+
+CREATE OR REPLACE FUNCTION incrementer_version_referentiel()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE versions_referentiel
+    SET version = version + 1, date_maj = CURRENT_TIMESTAMP
+    WHERE groupe = TG_ARGV[0];
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Articles : fiche, catégorie et unité sont sérialisées ensemble
+CREATE TRIGGER trg_version_articles
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON articles
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('articles');
+
+CREATE TRIGGER trg_version_categories_articles
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON categories_articles
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('articles');
+
+CREATE TRIGGER trg_version_unites_mesure
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON unites_mesure
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('articles');
+
+-- Emplacements : hiérarchie site > dépôt > zone > emplacement
+CREATE TRIGGER trg_version_sites
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON sites
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('emplacements');
+
+CREATE TRIGGER trg_version_depots
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON depots
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('emplacements');
+
+CREATE TRIGGER trg_version_zones_stockage
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON zones_stockage
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('emplacements');
+
+CREATE TRIGGER trg_version_emplacements
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON emplacements
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('emplacements');
+
+-- Le groupe 'clients' est alimenté par le trigger de la table clients (schéma vente)
+
 -- ============================================================================
 -- FIN DU SCHÉMA STOCK
 -- ============================================================================
@@ -0,0 +1,32 @@
+package com.gestion.vente.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import com.gestion.login.config.VersionsReferentiel;
+import com.gestion.vente.dto.ClientReferentielDTO;
+import com.gestion.vente.repository.ClientRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Référentiel clients des formulaires de vente, avec ETag sur la version du groupe
+ * {@link VersionsReferentiel#CLIENTS}
+ */
+@RestController
+@RequestMapping("/api/clients")
+@RequiredArgsConstructor
+public class ClientApiController {
+
+    private final ClientRepository clientRepository;
+    private final VersionsReferentiel versionsReferentiel;
+
+    @GetMapping("/referentiel")
+    public ResponseEntity<List<ClientReferentielDTO>> getReferentiel(WebRequest requete) {
+        return versionsReferentiel.reponse(requete, "clients/referentiel",
+                clientRepository::findReferentiel, VersionsReferentiel.CLIENTS);
+    }
+}
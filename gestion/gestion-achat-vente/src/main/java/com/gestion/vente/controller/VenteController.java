@@ -11,7 +11,7 @@ import com.gestion.vente.dto.CreateCommandeFromDevisRequest;
 import com.gestion.vente.dto.CreateDevisRequest;
 import com.gestion.vente.dto.CreateLivraisonRequest;
 import com.gestion.vente.dto.CreatePaiementRequest;
-import com.gestion.vente.entity.*;
+import com.gestion.vente.dto.DocumentVenteDTO;
 import com.gestion.vente.service.VenteService;
 
 import jakarta.validation.Valid;
@@ -39,54 +39,54 @@ public class VenteController {
     }
 
     @PostMapping("/devis")
-    public ResponseEntity<DevisVente> creerDevis(@Valid @RequestBody CreateDevisRequest request, HttpSession session) {
+    public ResponseEntity<DocumentVenteDTO> creerDevis(@Valid @RequestBody CreateDevisRequest request, HttpSession session) {
         requireRole(session, "ADMIN", "COMMERCIAL", "RESPONSABLE_VENTES");
-        return ResponseEntity.status(HttpStatus.CREATED).body(venteService.creerDevis(request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(DocumentVenteDTO.from(venteService.creerDevis(request)));
     }
 
     @PostMapping("/devis/{id}/valider")
-    public ResponseEntity<DevisVente> validerDevis(@PathVariable UUID id, @RequestParam UUID validePar, HttpSession session) {
+    public ResponseEntity<DocumentVenteDTO> validerDevis(@PathVariable UUID id, @RequestParam UUID validePar, HttpSession session) {
         requireRole(session, "ADMIN", "RESPONSABLE_VENTES");
-        return ResponseEntity.ok(venteService.validerDevis(id, validePar));
+        return ResponseEntity.ok(DocumentVenteDTO.from(venteService.validerDevis(id, validePar)));
     }
 
     @PostMapping("/devis/{id}/commande")
-    public ResponseEntity<CommandeClient> creerCommande(@PathVariable UUID id,
+    public ResponseEntity<DocumentVenteDTO> creerCommande(@PathVariable UUID id,
                                                         @RequestBody CreateCommandeFromDevisRequest request,
                                                         HttpSession session) {
         requireRole(session, "ADMIN", "COMMERCIAL", "RESPONSABLE_VENTES");
-        return ResponseEntity.status(HttpStatus.CREATED).body(venteService.creerCommandeDepuisDevis(id, request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(DocumentVenteDTO.from(venteService.creerCommandeDepuisDevis(id, request)));
     }
 
     @PostMapping("/commandes/{id}/livrer")
-    public ResponseEntity<LivraisonClient> livrerCommande(@PathVariable UUID id,
+    public ResponseEntity<DocumentVenteDTO> livrerCommande(@PathVariable UUID id,
                                                           @RequestBody CreateLivraisonRequest request,
                                                           HttpSession session) {
         requireRole(session, "ADMIN", "MAGASINIER_SORTIE");
-        return ResponseEntity.ok(venteService.creerLivraison(id, request));
+        return ResponseEntity.ok(DocumentVenteDTO.from(venteService.creerLivraison(id, request)));
     }
 
     @PostMapping("/commandes/{id}/facturer")
-    public ResponseEntity<FactureVente> facturerCommande(@PathVariable UUID id,
+    public ResponseEntity<DocumentVenteDTO> facturerCommande(@PathVariable UUID id,
                                                          @RequestParam(required = false) UUID livraisonId,
                                                          HttpSession session) {
         requireRole(session, "ADMIN", "COMPTABLE_CLIENT");
-        return ResponseEntity.ok(venteService.genererFacture(id, livraisonId));
+        return ResponseEntity.ok(DocumentVenteDTO.from(venteService.genererFacture(id, livraisonId)));
     }
 
     @PostMapping("/factures/{id}/paiements")
-    public ResponseEntity<PaiementClient> payerFacture(@PathVariable UUID id,
+    public ResponseEntity<DocumentVenteDTO> payerFacture(@PathVariable UUID id,
                                                        @RequestBody CreatePaiementRequest request,
                                                        HttpSession session) {
         requireRole(session, "ADMIN", "COMPTABLE_CLIENT");
-        return ResponseEntity.ok(venteService.enregistrerPaiement(id, request));
+        return ResponseEntity.ok(DocumentVenteDTO.from(venteService.enregistrerPaiement(id, request)));
     }
 
     @PostMapping("/factures/{id}/avoirs")
-    public ResponseEntity<AvoirClient> creerAvoir(@PathVariable UUID id,
+    public ResponseEntity<DocumentVenteDTO> creerAvoir(@PathVariable UUID id,
                                                   @RequestBody CreateAvoirRequest request,
                                                   HttpSession session) {
         requireRole(session, "ADMIN", "COMPTABLE_CLIENT");
-        return ResponseEntity.ok(venteService.creerAvoir(id, request));
+        return ResponseEntity.ok(DocumentVenteDTO.from(venteService.creerAvoir(id, request)));
     }
 }
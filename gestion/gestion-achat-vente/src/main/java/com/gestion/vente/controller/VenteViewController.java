@@ -14,6 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Value;
 import jakarta.servlet.http.HttpSession;
 
+import com.gestion.login.config.Pagination;
 import com.gestion.vente.dto.CreateDevisRequest;
 import com.gestion.vente.dto.CreateCommandeFromDevisRequest;
 import com.gestion.vente.dto.CreateLivraisonRequest;
@@ -168,8 +169,10 @@ public class VenteViewController {
     }
 
     @GetMapping("/devis/liste")
-    public String listDevis(Model model, HttpSession session) {
-        model.addAttribute("devis", devisRepository.findAllByOrderByDateDevisDesc());
+    public String listDevis(Model model, HttpSession session,
+                            @RequestParam(defaultValue = "0") int page,
+                            @RequestParam(defaultValue = "50") int size) {
+        model.addAttribute("devis", devisRepository.findAllByOrderByDateDevisDesc(Pagination.page(page, size)));
         Object flashError = session.getAttribute("flashError");
         if (flashError != null) {
             model.addAttribute("flashError", flashError.toString());
@@ -373,8 +376,6 @@ public class VenteViewController {
 
     @GetMapping("/devis/nouveau")
     public String nouveauDevis(Model model) {
-        model.addAttribute("clients", clientRepository.findAll());
-        model.addAttribute("articles", articleRepository.findAll());
         model.addAttribute("activePage", "vente-devis");
         return "vente/devis-nouveau";
     }
@@ -391,8 +392,6 @@ public class VenteViewController {
         LigneDevisVente ligne = devis.getLignes().isEmpty() ? null : devis.getLignes().get(0);
         model.addAttribute("devis", devis);
         model.addAttribute("ligne", ligne);
-        model.addAttribute("clients", clientRepository.findAll());
-        model.addAttribute("articles", articleRepository.findAll());
         model.addAttribute("activePage", "vente-devis");
         return "vente/devis-modifier";
     }
@@ -544,8 +543,10 @@ public class VenteViewController {
     }
 
     @GetMapping("/commandes/liste")
-    public String listCommandes(Model model, HttpSession session) {
-        model.addAttribute("commandes", commandeRepository.findAllByOrderByDateCommandeDesc());
+    public String listCommandes(Model model, HttpSession session,
+                                @RequestParam(defaultValue = "0") int page,
+                                @RequestParam(defaultValue = "50") int size) {
+        model.addAttribute("commandes", commandeRepository.findAllByOrderByDateCommandeDesc(Pagination.page(page, size)));
         Object flashError = session.getAttribute("flashError");
         if (flashError != null) {
             model.addAttribute("flashError", flashError.toString());
@@ -619,18 +620,14 @@ public class VenteViewController {
     }
 
     @GetMapping("/factures/liste")
-    public String listFactures(Model model) {
-        List<FactureVente> factures = factureRepository.findAllByOrderByDateFactureDesc();
-        BigDecimal montantPaye = factures.stream()
-            .filter(f -> f.getStatut() == com.gestion.vente.enums.StatutFactureVente.PAYEE)
-            .map(FactureVente::getTotalTtc)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal montantRestant = factures.stream()
-            .filter(f -> f.getStatut() != com.gestion.vente.enums.StatutFactureVente.PAYEE)
-            .map(FactureVente::getTotalTtc)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        model.addAttribute("factures", factures);
+    public String listFactures(Model model,
+                               @RequestParam(defaultValue = "0") int page,
+                               @RequestParam(defaultValue = "50") int size) {
+        // Totaux calculés en base sur toutes les factures, la liste n'en charge qu'une page
+        BigDecimal montantPaye = factureRepository.sumTotalTtcByStatut(com.gestion.vente.enums.StatutFactureVente.PAYEE);
+        BigDecimal montantRestant = factureRepository.sumTotalTtcByStatutNot(com.gestion.vente.enums.StatutFactureVente.PAYEE);
+
+        model.addAttribute("factures", factureRepository.findAllByOrderByDateFactureDesc(Pagination.page(page, size)));
         model.addAttribute("montantPaye", montantPaye);
         model.addAttribute("montantRestant", montantRestant);
         model.addAttribute("activePage", "vente-factures");
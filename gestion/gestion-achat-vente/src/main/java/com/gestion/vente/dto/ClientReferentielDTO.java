@@ -0,0 +1,14 @@
+package com.gestion.vente.dto;
+
+import java.util.UUID;
+
+/**
+ * Client tel qu'affiché dans les listes de choix des formulaires de vente,
+ * servi par {@code GET /api/clients/referentiel} avec ETag
+ */
+public record ClientReferentielDTO(
+    UUID id,
+    String code,
+    String nom,
+    boolean actif
+) {}
@@ -0,0 +1,76 @@
+package com.gestion.vente.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.gestion.vente.entity.AvoirClient;
+import com.gestion.vente.entity.CommandeClient;
+import com.gestion.vente.entity.DevisVente;
+import com.gestion.vente.entity.FactureVente;
+import com.gestion.vente.entity.LivraisonClient;
+import com.gestion.vente.entity.PaiementClient;
+
+/**
+ * Réponse des API de vente (devis, commande, livraison, facture, paiement, avoir).
+ *
+ * Seuls les champs simples et les identifiants des associations sont lus : ni les lignes
+ * ni le client ne sont chargés pour sérialiser la réponse. {@code origineId} désigne le
+ * document précédent dans la chaîne (devis d'une commande, commande d'une livraison ou
+ * d'une facture, facture d'un paiement ou d'un avoir).
+ */
+public record DocumentVenteDTO(
+    UUID id,
+    String reference,
+    String statut,
+    UUID clientId,
+    UUID origineId,
+    BigDecimal totalHt,
+    BigDecimal totalTva,
+    BigDecimal totalTtc,
+    LocalDateTime createdAt
+) {
+    public static DocumentVenteDTO from(DevisVente d) {
+        return new DocumentVenteDTO(d.getId(), d.getReference(), nom(d.getStatut()),
+            d.getClient() != null ? d.getClient().getId() : null, null,
+            d.getTotalHt(), d.getTotalTva(), d.getTotalTtc(), d.getCreatedAt());
+    }
+
+    public static DocumentVenteDTO from(CommandeClient c) {
+        return new DocumentVenteDTO(c.getId(), c.getReference(), nom(c.getStatut()),
+            c.getClient() != null ? c.getClient().getId() : null,
+            c.getDevis() != null ? c.getDevis().getId() : null,
+            c.getTotalHt(), c.getTotalTva(), c.getTotalTtc(), c.getCreatedAt());
+    }
+
+    public static DocumentVenteDTO from(LivraisonClient l) {
+        return new DocumentVenteDTO(l.getId(), l.getReference(), nom(l.getStatut()), null,
+            l.getCommande() != null ? l.getCommande().getId() : null,
+            null, null, null, l.getCreatedAt());
+    }
+
+    public static DocumentVenteDTO from(FactureVente f) {
+        return new DocumentVenteDTO(f.getId(), f.getReference(), nom(f.getStatut()),
+            f.getClient() != null ? f.getClient().getId() : null,
+            f.getCommande() != null ? f.getCommande().getId() : null,
+            f.getTotalHt(), f.getTotalTva(), f.getTotalTtc(), f.getCreatedAt());
+    }
+
+    public static DocumentVenteDTO from(PaiementClient p) {
+        return new DocumentVenteDTO(p.getId(), p.getReference(), nom(p.getStatut()),
+            p.getClient() != null ? p.getClient().getId() : null,
+            p.getFacture() != null ? p.getFacture().getId() : null,
+            null, null, p.getMontant(), p.getCreatedAt());
+    }
+
+    public static DocumentVenteDTO from(AvoirClient a) {
+        return new DocumentVenteDTO(a.getId(), a.getReference(), nom(a.getStatut()),
+            a.getClient() != null ? a.getClient().getId() : null,
+            a.getFacture() != null ? a.getFacture().getId() : null,
+            null, null, a.getMontant(), a.getCreatedAt());
+    }
+
+    private static String nom(Enum<?> statut) {
+        return statut != null ? statut.name() : null;
+    }
+}
@@ -40,6 +40,8 @@ public class LigneCommandeClient {
     @Column(nullable = false)
     private BigDecimal totalTtc;
 
+    private UUID depotId;
+
     private UUID reservationStockId;
 
     @Enumerated(EnumType.STRING)
@@ -1,12 +1,19 @@
 package com.gestion.vente.repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import com.gestion.vente.dto.ClientReferentielDTO;
 import com.gestion.vente.entity.Client;
 
 public interface ClientRepository extends JpaRepository<Client, UUID> {
     Optional<Client> findByCode(String code);
+
+    @Query("SELECT new com.gestion.vente.dto.ClientReferentielDTO(c.id, c.code, c.nom, c.actif) " +
+            "FROM Client c ORDER BY c.nom")
+    List<ClientReferentielDTO> findReferentiel();
 }
@@ -1,13 +1,16 @@
 package com.gestion.vente.repository;
 
-import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.gestion.vente.entity.CommandeClient;
 
 public interface CommandeClientRepository extends JpaRepository<CommandeClient, UUID> {
-    List<CommandeClient> findAllByOrderByDateCommandeDesc();
+    @EntityGraph(attributePaths = "client")
+    Page<CommandeClient> findAllByOrderByDateCommandeDesc(Pageable pageable);
     boolean existsByDevisId(UUID devisId);
 }
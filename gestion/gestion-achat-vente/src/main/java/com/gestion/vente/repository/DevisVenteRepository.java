@@ -1,12 +1,15 @@
 package com.gestion.vente.repository;
 
-import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.gestion.vente.entity.DevisVente;
 
 public interface DevisVenteRepository extends JpaRepository<DevisVente, UUID> {
-    List<DevisVente> findAllByOrderByDateDevisDesc();
+    @EntityGraph(attributePaths = "client")
+    Page<DevisVente> findAllByOrderByDateDevisDesc(Pageable pageable);
 }
@@ -1,13 +1,26 @@
 package com.gestion.vente.repository;
 
-import java.util.List;
+import java.math.BigDecimal;
 import java.util.UUID;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.gestion.vente.entity.FactureVente;
+import com.gestion.vente.enums.StatutFactureVente;
 
 public interface FactureVenteRepository extends JpaRepository<FactureVente, UUID> {
-    List<FactureVente> findAllByOrderByDateFactureDesc();
+    @EntityGraph(attributePaths = "client")
+    Page<FactureVente> findAllByOrderByDateFactureDesc(Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(f.totalTtc), 0) FROM FactureVente f WHERE f.statut = :statut")
+    BigDecimal sumTotalTtcByStatut(@Param("statut") StatutFactureVente statut);
+
+    @Query("SELECT COALESCE(SUM(f.totalTtc), 0) FROM FactureVente f WHERE f.statut IS NULL OR f.statut <> :statut")
+    BigDecimal sumTotalTtcByStatutNot(@Param("statut") StatutFactureVente statut);
     boolean existsByCommandeId(UUID commandeId);
 }
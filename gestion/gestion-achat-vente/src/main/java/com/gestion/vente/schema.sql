@@ -100,6 +100,7 @@ CREATE TABLE lignes_commandes_clients (
     total_ht DECIMAL(15, 2) NOT NULL,
     total_ttc DECIMAL(15, 2) NOT NULL,
 
+    depot_id UUID REFERENCES depots(id), -- dépôt expéditeur (une ligne peut être fractionnée entre dépôts)
     reservation_stock_id UUID,
     statut VARCHAR(50) DEFAULT 'EN_ATTENTE' -- EN_ATTENTE, RESERVEE, LIVREE, ANNULEE
 );
@@ -227,3 +228,8 @@ CREATE INDEX idx_liv_cmd ON livraisons_clients(commande_id);
 CREATE INDEX idx_fac_client ON factures_vente(client_id);
 CREATE INDEX idx_pay_fac ON paiements_clients(facture_id);
 CREATE INDEX idx_avo_fac ON avoirs_clients(facture_id);
+
+-- Version du référentiel clients (table versions_referentiel, schéma stock PARTIE 24)
+CREATE TRIGGER trg_version_clients
+AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON clients
+FOR EACH STATEMENT EXECUTE FUNCTION incrementer_version_referentiel('clients');
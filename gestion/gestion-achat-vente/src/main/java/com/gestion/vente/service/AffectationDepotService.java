@@ -0,0 +1,178 @@
+package com.gestion.vente.service;
+
+import java.util.*;
+
+import org.springframework.stereotype.Service;
+
+import com.gestion.stock.repository.StockRepository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Affectation des lignes d'une commande aux dépôts expéditeurs.
+ *
+ * Les disponibilités de tous les articles sont chargées en une requête. Les lignes
+ * sont ensuite couvertes de façon gloutonne (couverture d'ensemble) : à chaque tour,
+ * le dépôt qui sert entièrement le plus de lignes restantes est retenu, le dépôt
+ * préféré départageant les égalités. Les lignes qu'aucun dépôt ne sert seul sont
+ * fractionnées, en puisant d'abord dans les dépôts déjà retenus. Le plan minimise
+ * ainsi le nombre de dépôts expéditeurs sans exiger qu'un seul dépôt serve tout.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AffectationDepotService {
+
+    private final StockRepository stockRepository;
+
+    /** Ligne à servir : article et quantité, dans l'ordre de la commande */
+    public record Besoin(UUID articleId, int quantite) {
+    }
+
+    /** Quantité d'une ligne ({@code indexLigne}) prélevée dans un dépôt */
+    public record Affectation(int indexLigne, UUID articleId, UUID depotId, int quantite) {
+    }
+
+    /**
+     * Plan d'expédition : affectations par ligne, dépôts retenus (dans l'ordre de
+     * sélection) et quantités manquantes par article.
+     */
+    public record PlanAffectation(List<Affectation> affectations, List<UUID> depots,
+                                  Map<UUID, Integer> manquants) {
+
+        public boolean complet() {
+            return manquants.isEmpty();
+        }
+
+        /** Dépôt retenu en premier : celui qui sert le plus de lignes */
+        public UUID depotPrincipal() {
+            return depots.isEmpty() ? null : depots.get(0);
+        }
+
+        public List<Affectation> affectationsLigne(int indexLigne) {
+            return affectations.stream().filter(a -> a.indexLigne() == indexLigne).toList();
+        }
+    }
+
+    /**
+     * Calculer le plan d'expédition des lignes.
+     *
+     * @param besoins        lignes à servir
+     * @param depotPrefere   dépôt favorisé à égalité de couverture (facultatif)
+     */
+    @Timed(value = "gestion.operation", extraTags = {"operation", "allocation.depots"}, histogram = true)
+    public PlanAffectation planifier(List<Besoin> besoins, UUID depotPrefere) {
+        if (besoins == null || besoins.isEmpty()) {
+            throw new RuntimeException("Aucune ligne à affecter à un dépôt");
+        }
+
+        // Disponible restant : dépôt -> article -> quantité
+        Map<UUID, Map<UUID, Integer>> disponibles = new LinkedHashMap<>();
+        Set<UUID> articleIds = new HashSet<>();
+        besoins.forEach(besoin -> articleIds.add(besoin.articleId()));
+        for (Object[] ligne : stockRepository.findDisponibilitesByArticleIdIn(articleIds)) {
+            disponibles.computeIfAbsent((UUID) ligne[1], d -> new HashMap<>())
+                    .merge((UUID) ligne[0], ((Number) ligne[2]).intValue(), Integer::sum);
+        }
+
+        List<Affectation> affectations = new ArrayList<>();
+        List<UUID> depotsRetenus = new ArrayList<>();
+        Set<Integer> restantes = new LinkedHashSet<>();
+        for (int i = 0; i < besoins.size(); i++) {
+            restantes.add(i);
+        }
+
+        // 1. Couverture gloutonne par lignes entièrement servies
+        while (!restantes.isEmpty()) {
+            UUID meilleur = null;
+            List<Integer> meilleuresLignes = List.of();
+            long meilleureQuantite = 0;
+            for (Map.Entry<UUID, Map<UUID, Integer>> depot : disponibles.entrySet()) {
+                if (depotsRetenus.contains(depot.getKey())) {
+                    continue;
+                }
+                List<Integer> servies = lignesServies(besoins, restantes, depot.getValue());
+                long quantite = servies.stream().mapToLong(i -> besoins.get(i).quantite()).sum();
+                int comparaison = Integer.compare(servies.size(), meilleuresLignes.size());
+                if (comparaison == 0 && !servies.isEmpty()) {
+                    boolean prefere = depot.getKey().equals(depotPrefere);
+                    boolean meilleurPrefere = meilleur != null && meilleur.equals(depotPrefere);
+                    comparaison = prefere != meilleurPrefere ? (prefere ? 1 : -1)
+                            : Long.compare(quantite, meilleureQuantite);
+                }
+                if (comparaison > 0) {
+                    meilleur = depot.getKey();
+                    meilleuresLignes = servies;
+                    meilleureQuantite = quantite;
+                }
+            }
+            if (meilleur == null) {
+                break;
+            }
+            Map<UUID, Integer> stockDepot = disponibles.get(meilleur);
+            for (Integer index : meilleuresLignes) {
+                Besoin besoin = besoins.get(index);
+                stockDepot.merge(besoin.articleId(), -besoin.quantite(), Integer::sum);
+                affectations.add(new Affectation(index, besoin.articleId(), meilleur, besoin.quantite()));
+                restantes.remove(index);
+            }
+            depotsRetenus.add(meilleur);
+        }
+
+        // 2. Fractionnement des lignes restantes : dépôts retenus d'abord, puis plus gros disponible
+        Map<UUID, Integer> manquants = new LinkedHashMap<>();
+        for (Integer index : restantes) {
+            Besoin besoin = besoins.get(index);
+            int reste = besoin.quantite();
+            List<UUID> sources = new ArrayList<>(disponibles.keySet());
+            sources.sort(Comparator
+                    .comparing((UUID depot) -> !depotsRetenus.contains(depot))
+                    .thenComparing(depot -> -disponibles.get(depot).getOrDefault(besoin.articleId(), 0)));
+            for (UUID depot : sources) {
+                if (reste == 0) {
+                    break;
+                }
+                Map<UUID, Integer> stockDepot = disponibles.get(depot);
+                int preleve = Math.min(reste, stockDepot.getOrDefault(besoin.articleId(), 0));
+                if (preleve <= 0) {
+                    continue;
+                }
+                stockDepot.merge(besoin.articleId(), -preleve, Integer::sum);
+                affectations.add(new Affectation(index, besoin.articleId(), depot, preleve));
+                if (!depotsRetenus.contains(depot)) {
+                    depotsRetenus.add(depot);
+                }
+                reste -= preleve;
+            }
+            if (reste > 0) {
+                manquants.merge(besoin.articleId(), reste, Integer::sum);
+            }
+        }
+
+        affectations.sort(Comparator.comparingInt(Affectation::indexLigne));
+        log.debug("Plan d'expédition: {} ligne(s), {} dépôt(s), {} article(s) manquant(s)",
+                besoins.size(), depotsRetenus.size(), manquants.size());
+        return new PlanAffectation(affectations, depotsRetenus, manquants);
+    }
+
+    /**
+     * Lignes restantes qu'un dépôt sert entièrement, en tenant compte des lignes
+     * répétées d'un même article.
+     */
+    private static List<Integer> lignesServies(List<Besoin> besoins, Set<Integer> restantes,
+                                               Map<UUID, Integer> stockDepot) {
+        Map<UUID, Integer> consomme = new HashMap<>();
+        List<Integer> servies = new ArrayList<>();
+        for (Integer index : restantes) {
+            Besoin besoin = besoins.get(index);
+            int deja = consomme.getOrDefault(besoin.articleId(), 0);
+            if (stockDepot.getOrDefault(besoin.articleId(), 0) - deja >= besoin.quantite()) {
+                consomme.put(besoin.articleId(), deja + besoin.quantite());
+                servies.add(index);
+            }
+        }
+        return servies;
+    }
+}
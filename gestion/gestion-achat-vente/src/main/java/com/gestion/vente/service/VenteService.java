@@ -5,7 +5,10 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.stereotype.Service;
@@ -14,7 +17,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.transaction.TransactionDefinition;
 
-import com.gestion.stock.entity.Stock;
+import com.gestion.stock.entity.ReservationStock;
 import com.gestion.stock.repository.DepotRepository;
 import com.gestion.stock.repository.StockRepository;
 import com.gestion.stock.service.LivraisonService;
@@ -33,6 +36,7 @@ import com.gestion.vente.entity.*;
 import com.gestion.vente.enums.*;
 import com.gestion.vente.repository.*;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -51,6 +55,7 @@ public class VenteService {
     private final AvoirClientRepository avoirRepository;
 
     private final ReservationService reservationService;
+    private final AffectationDepotService affectationDepotService;
     private final LivraisonService livraisonService;
     private final StockRepository stockRepository;
     private final DepotRepository depotRepository;
@@ -207,17 +212,23 @@ public class VenteService {
         }
 
         String modeReservation = request.getModeReservation() != null ? request.getModeReservation() : "IMMEDIATE";
-        UUID depotId = request.getDepotLivraisonId();
-        if (depotId == null && "IMMEDIATE".equalsIgnoreCase(modeReservation)) {
-            try {
-                depotId = resolveDepotIdForReservation(devis.getLignes());
-            } catch (RuntimeException ex) {
+        AffectationDepotService.PlanAffectation plan = null;
+        if ("IMMEDIATE".equalsIgnoreCase(modeReservation)) {
+            plan = affectationDepotService.planifier(devis.getLignes().stream()
+                .map(ligne -> new AffectationDepotService.Besoin(ligne.getArticleId(), ligne.getQuantite()))
+                .toList(), request.getDepotLivraisonId());
+            if (!plan.complet()) {
                 verifierStockOuCreerBacklogEtDemande(devis, null);
-                throw ex;
+                throw new RuntimeException("Aucune combinaison de dépôts ne dispose du stock suffisant pour cette commande");
             }
+        } else {
+            verifierStockOuCreerBacklogEtDemande(devis, request.getDepotLivraisonId());
         }
-        verifierStockOuCreerBacklogEtDemande(devis, depotId);
 
+        UUID depotId = request.getDepotLivraisonId();
+        if (depotId == null && plan != null) {
+            depotId = plan.depotPrincipal();
+        }
         if (depotId == null) {
             depotId = resolveDepotId(null);
         }
@@ -233,18 +244,33 @@ public class VenteService {
         commande.setStatut(StatutCommandeClient.CONFIRMEE);
 
         List<LigneCommandeClient> lignesCommande = new ArrayList<>();
-        for (LigneDevisVente ligneDevis : devis.getLignes()) {
-            LigneCommandeClient ligne = new LigneCommandeClient();
-            ligne.setCommande(commande);
-            ligne.setArticleId(ligneDevis.getArticleId());
-            ligne.setQuantite(ligneDevis.getQuantite());
-            ligne.setPrixUnitaireHt(ligneDevis.getPrixUnitaireHt());
-            ligne.setRemisePourcentage(ligneDevis.getRemisePourcentage());
-            ligne.setTvaPourcentage(ligneDevis.getTvaPourcentage());
-            ligne.setTotalHt(ligneDevis.getTotalHt());
-            ligne.setTotalTtc(ligneDevis.getTotalTtc());
-            ligne.setStatut(StatutLigneCommande.EN_ATTENTE);
-            lignesCommande.add(ligne);
+        List<LigneDevisVente> lignesDevis = devis.getLignes();
+        for (int i = 0; i < lignesDevis.size(); i++) {
+            LigneDevisVente ligneDevis = lignesDevis.get(i);
+            if (plan == null) {
+                lignesCommande.add(creerLigneCommande(commande, ligneDevis, null,
+                    ligneDevis.getQuantite(), ligneDevis.getTotalHt(), ligneDevis.getTotalTtc()));
+                continue;
+            }
+            // Une ligne de commande par dépôt expéditeur ; totaux répartis au prorata, reliquat sur la dernière
+            List<AffectationDepotService.Affectation> affectations = plan.affectationsLigne(i);
+            BigDecimal resteHt = ligneDevis.getTotalHt();
+            BigDecimal resteTtc = ligneDevis.getTotalTtc();
+            for (int j = 0; j < affectations.size(); j++) {
+                AffectationDepotService.Affectation affectation = affectations.get(j);
+                BigDecimal totalHt = resteHt;
+                BigDecimal totalTtc = resteTtc;
+                if (j < affectations.size() - 1) {
+                    BigDecimal part = BigDecimal.valueOf(affectation.quantite())
+                        .divide(BigDecimal.valueOf(ligneDevis.getQuantite()), 6, RoundingMode.HALF_UP);
+                    totalHt = money(ligneDevis.getTotalHt().multiply(part));
+                    totalTtc = money(ligneDevis.getTotalTtc().multiply(part));
+                    resteHt = resteHt.subtract(totalHt);
+                    resteTtc = resteTtc.subtract(totalTtc);
+                }
+                lignesCommande.add(creerLigneCommande(commande, ligneDevis, affectation.depotId(),
+                    affectation.quantite(), totalHt, totalTtc));
+            }
         }
 
         commande.setTotalHt(devis.getTotalHt());
@@ -256,21 +282,19 @@ public class VenteService {
         CommandeClient saved = commandeRepository.save(commande);
 
         if ("IMMEDIATE".equalsIgnoreCase(saved.getModeReservation())) {
-            for (LigneCommandeClient ligne : saved.getLignes()) {
-                verifierStockDisponible(ligne.getArticleId(), depotId, ligne.getQuantite());
-                var reservation = reservationService.reserverStock(
-                    ligne.getArticleId(),
-                    depotId,
-                    ligne.getQuantite(),
-                    saved.getId(),
-                    ligne.getId(),
-                    request.getCreePar()
-                );
-                ligne.setReservationStockId(reservation.getId());
-                ligne.setStatut(StatutLigneCommande.RESERVEE);
-                stockRepository.incrementerQuantiteReservee(ligne.getArticleId(), depotId, ligne.getQuantite());
+            List<LigneCommandeClient> lignes = saved.getLignes();
+            List<ReservationStock> reservations = reservationService.reserverCommande(saved.getId(),
+                lignes.stream()
+                    .map(ligne -> new ReservationService.LigneReservation(ligne.getArticleId(), ligne.getDepotId(),
+                        ligne.getQuantite(), ligne.getId()))
+                    .toList(),
+                request.getCreePar());
+            for (int i = 0; i < lignes.size(); i++) {
+                lignes.get(i).setReservationStockId(reservations.get(i).getId());
+                lignes.get(i).setStatut(StatutLigneCommande.RESERVEE);
             }
             saved = commandeRepository.save(saved);
+            log.info("Commande {} réservée sur {} dépôt(s)", saved.getReference(), plan.depots().size());
         }
 
         devis.setStatut(StatutDevis.TRANSFORME);
@@ -279,22 +303,44 @@ public class VenteService {
         return saved;
     }
 
+    private static LigneCommandeClient creerLigneCommande(CommandeClient commande, LigneDevisVente ligneDevis,
+                                                          UUID depotId, int quantite,
+                                                          BigDecimal totalHt, BigDecimal totalTtc) {
+        LigneCommandeClient ligne = new LigneCommandeClient();
+        ligne.setCommande(commande);
+        ligne.setArticleId(ligneDevis.getArticleId());
+        ligne.setDepotId(depotId);
+        ligne.setQuantite(quantite);
+        ligne.setPrixUnitaireHt(ligneDevis.getPrixUnitaireHt());
+        ligne.setRemisePourcentage(ligneDevis.getRemisePourcentage());
+        ligne.setTvaPourcentage(ligneDevis.getTvaPourcentage());
+        ligne.setTotalHt(totalHt);
+        ligne.setTotalTtc(totalTtc);
+        ligne.setStatut(StatutLigneCommande.EN_ATTENTE);
+        return ligne;
+    }
+
     private void verifierStockOuCreerBacklogEtDemande(DevisVente devis, UUID depotId) {
-        List<Shortage> shortages = new ArrayList<>();
+        // Quantité demandée par article, lignes répétées cumulées
+        Map<UUID, Integer> demandes = new LinkedHashMap<>();
         for (LigneDevisVente ligne : devis.getLignes()) {
-            int disponible;
-            if (depotId != null) {
-                disponible = stockRepository.findByArticleIdAndDepotId(ligne.getArticleId(), depotId)
-                    .map(Stock::getQuantiteDisponible)
-                    .orElse(0);
-            } else {
-                disponible = stockRepository.findByArticleId(ligne.getArticleId()).stream()
-                    .mapToInt(Stock::getQuantiteDisponible)
-                    .sum();
+            demandes.merge(ligne.getArticleId(), ligne.getQuantite(), Integer::sum);
+        }
+
+        // Disponible de tous les articles du devis en une requête (dépôt donné ou tous dépôts)
+        Map<UUID, Integer> disponibles = new HashMap<>();
+        for (Object[] stock : stockRepository.findDisponibilitesByArticleIdIn(demandes.keySet())) {
+            if (depotId == null || depotId.equals(stock[1])) {
+                disponibles.merge((UUID) stock[0], ((Number) stock[2]).intValue(), Integer::sum);
             }
-            if (disponible < ligne.getQuantite()) {
-                int manquant = ligne.getQuantite() - disponible;
-                shortages.add(new Shortage(ligne.getArticleId(), ligne.getQuantite(), disponible, manquant));
+        }
+
+        List<Shortage> shortages = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> demande : demandes.entrySet()) {
+            int disponible = disponibles.getOrDefault(demande.getKey(), 0);
+            if (disponible < demande.getValue()) {
+                shortages.add(new Shortage(demande.getKey(), demande.getValue(), disponible,
+                    demande.getValue() - disponible));
             }
         }
 
@@ -305,7 +351,20 @@ public class VenteService {
         TransactionTemplate template = new TransactionTemplate(transactionManager);
         template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
         template.execute(status -> {
+            List<DemandeAchat> demandesAchat = new ArrayList<>(shortages.size());
             for (Shortage shortage : shortages) {
+                DemandeAchat demande = new DemandeAchat();
+                demande.setProduitId(shortage.articleId);
+                demande.setQuantiteDemandee(shortage.quantiteManquante);
+                demande.setMotif("Demande auto: rupture pour devis " + devis.getReference());
+                demandesAchat.add(demande);
+            }
+            // Identifiants attribués à la persistance : insertions regroupées en batch au flush
+            List<DemandeAchat> savedDemandes = demandeAchatRepository.saveAll(demandesAchat);
+
+            List<BacklogStockVente> backlogs = new ArrayList<>(shortages.size());
+            for (int i = 0; i < shortages.size(); i++) {
+                Shortage shortage = shortages.get(i);
                 BacklogStockVente backlog = new BacklogStockVente();
                 backlog.setDevisId(devis.getId());
                 backlog.setArticleId(shortage.articleId);
@@ -313,16 +372,12 @@ public class VenteService {
                 backlog.setQuantiteDisponible(shortage.quantiteDisponible);
                 backlog.setQuantiteManquante(shortage.quantiteManquante);
                 backlog.setNotes("Insuffisance stock pour devis " + devis.getReference());
-                DemandeAchat demande = new DemandeAchat();
-                demande.setProduitId(shortage.articleId);
-                demande.setQuantiteDemandee(shortage.quantiteManquante);
-                demande.setMotif("Demande auto: rupture pour devis " + devis.getReference());
-                DemandeAchat savedDemande = demandeAchatRepository.save(demande);
-
-                backlog.setDemandeAchatId(savedDemande.getId());
-                backlogRepository.save(backlog);
-
+                backlog.setDemandeAchatId(savedDemandes.get(i).getId());
+                backlogs.add(backlog);
             }
+            backlogRepository.saveAll(backlogs);
+            log.info("Devis {}: {} article(s) en rupture, demandes d'achat et backlog créés",
+                devis.getReference(), shortages.size());
             return null;
         });
 
@@ -373,10 +428,11 @@ public class VenteService {
             ligne.setQuantiteLivree(ligneCommande.getQuantite());
             lignes.add(ligne);
 
-            log.info("Préparation sortie stock - cmd: {} - ligne: {} - article: {} - quantite: {} - reservation: {}",
+            log.info("Préparation sortie stock - cmd: {} - ligne: {} - article: {} - dépôt: {} - quantite: {} - reservation: {}",
                 commande.getReference(),
                 ligneCommande.getId(),
                 ligneCommande.getArticleId(),
+                ligneCommande.getDepotId(),
                 ligneCommande.getQuantite(),
                 ligneCommande.getReservationStockId());
 
@@ -397,6 +453,7 @@ public class VenteService {
         return livraison;
     }
 
+    @Timed(value = "gestion.operation", extraTags = {"operation", "facturation"}, histogram = true)
     public FactureVente genererFacture(UUID commandeId, UUID livraisonId) {
         if (factureRepository.existsByCommandeId(commandeId)) {
             throw new RuntimeException("Cette commande est déjà facturée");
@@ -475,6 +532,7 @@ public class VenteService {
         return saved;
     }
 
+    @Timed(value = "gestion.operation", extraTags = {"operation", "facturation.avoir"}, histogram = true)
     public AvoirClient creerAvoir(UUID factureId, CreateAvoirRequest request) {
         FactureVente facture = factureRepository.findById(factureId)
             .orElseThrow(() -> new RuntimeException("Facture introuvable"));
@@ -563,41 +621,7 @@ public class VenteService {
             .getId();
     }
 
-    private UUID resolveDepotIdForReservation(List<LigneDevisVente> lignes) {
-        if (lignes == null || lignes.isEmpty()) {
-            throw new RuntimeException("Aucune ligne devis pour sélectionner un dépôt");
-        }
-
-        List<UUID> depotsCompatibles = null;
-        for (LigneDevisVente ligne : lignes) {
-            List<UUID> depotsPourLigne = stockRepository.findByArticleId(ligne.getArticleId()).stream()
-                .filter(stock -> stock.getQuantiteDisponible() >= ligne.getQuantite())
-                .map(stock -> stock.getDepot().getId())
-                .toList();
-
-            if (depotsCompatibles == null) {
-                depotsCompatibles = new ArrayList<>(depotsPourLigne);
-            } else {
-                depotsCompatibles.retainAll(depotsPourLigne);
-            }
-        }
-
-        if (depotsCompatibles == null || depotsCompatibles.isEmpty()) {
-            throw new RuntimeException("Aucun dépôt ne dispose du stock suffisant pour cette commande");
-        }
-
-        return depotsCompatibles.get(0);
-    }
-
-    private void verifierStockDisponible(UUID articleId, UUID depotId, Integer quantite) {
-        com.gestion.stock.entity.Stock stock = stockRepository.findByArticleIdAndDepotId(articleId, depotId)
-            .orElseThrow(() -> new RuntimeException("Stock non trouvé pour cet article/dépôt"));
-        if (stock.getQuantiteDisponible() < quantite) {
-            throw new RuntimeException("Stock insuffisant pour cet article/dépôt");
-        }
-    }
-
-    private VenteTotals calculerLigne(LigneVenteRequest ligne) {
+    static VenteTotals calculerLigne(LigneVenteRequest ligne) {
         BigDecimal quantite = BigDecimal.valueOf(ligne.getQuantite());
         BigDecimal prix = ligne.getPrixUnitaireHt();
         BigDecimal remise = nz(ligne.getRemisePourcentage()).divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP);
@@ -610,7 +634,7 @@ public class VenteService {
         return new VenteTotals(money(totalHt), money(totalTva), money(totalTtc));
     }
 
-    private VenteTotals calculerTotauxGlobaux(List<LigneVenteRequest> lignes, BigDecimal remiseGlobale) {
+    static VenteTotals calculerTotauxGlobaux(List<LigneVenteRequest> lignes, BigDecimal remiseGlobale) {
         BigDecimal totalHt = BigDecimal.ZERO;
         BigDecimal totalTva = BigDecimal.ZERO;
         BigDecimal totalTtc = BigDecimal.ZERO;
@@ -632,11 +656,11 @@ public class VenteService {
         return new VenteTotals(money(totalHt), money(totalTva), money(totalTtc));
     }
 
-    private BigDecimal nz(BigDecimal value) {
+    private static BigDecimal nz(BigDecimal value) {
         return value == null ? BigDecimal.ZERO : value;
     }
 
-    private BigDecimal money(BigDecimal value) {
+    private static BigDecimal money(BigDecimal value) {
         return value.setScale(2, RoundingMode.HALF_UP);
     }
 
@@ -0,0 +1,45 @@
+package com.gestion.login.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PaginationTest {
+
+    @Test
+    void page_valeursValides_inchangees() {
+        PageRequest page = Pagination.page(3, 50);
+
+        assertEquals(3, page.getPageNumber());
+        assertEquals(50, page.getPageSize());
+        assertEquals(Sort.unsorted(), page.getSort());
+    }
+
+    @Test
+    void page_tailleBorneeATailleMax() {
+        assertEquals(Pagination.TAILLE_MAX, Pagination.page(0, 100_000).getPageSize());
+        assertEquals(Pagination.TAILLE_MAX, Pagination.page(0, Pagination.TAILLE_MAX).getPageSize());
+    }
+
+    @Test
+    void page_valeursNegativesOuNulles_rameneesAuMinimum() {
+        PageRequest page = Pagination.page(-2, 0);
+
+        assertEquals(0, page.getPageNumber());
+        assertEquals(1, page.getPageSize());
+        assertEquals(1, Pagination.page(0, -10).getPageSize());
+    }
+
+    @Test
+    void page_avecTri_conserveLeTriEtLaBorne() {
+        Sort tri = Sort.by(Sort.Direction.DESC, "dateEmission");
+
+        PageRequest page = Pagination.page(1, 500, tri);
+
+        assertEquals(1, page.getPageNumber());
+        assertEquals(Pagination.TAILLE_MAX, page.getPageSize());
+        assertEquals(tri, page.getSort());
+    }
+}
@@ -0,0 +1,83 @@
+package com.gestion.login.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequeteLenteDataSourceTest {
+
+    private final Connection connexion = mock(Connection.class);
+    private final PreparedStatement prepare = mock(PreparedStatement.class);
+    private final Statement statement = mock(Statement.class);
+
+    private RequetesLentes requetesLentes;
+    private RequeteLenteDataSource dataSource;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void initialiser() throws SQLException {
+        DataSource cible = mock(DataSource.class);
+        when(cible.getConnection()).thenReturn(connexion);
+        when(connexion.prepareStatement(anyString())).thenReturn(prepare);
+        when(connexion.createStatement()).thenReturn(statement);
+        when(prepare.getConnection()).thenReturn(connexion);
+        when(statement.getConnection()).thenReturn(connexion);
+
+        requetesLentes = new RequetesLentes(new MockEnvironment().withProperty("gestion.requetes-lentes.explain", "false"));
+        ObjectProvider<RequetesLentes> fournisseur = mock(ObjectProvider.class);
+        when(fournisseur.getObject()).thenReturn(requetesLentes);
+        // Seuil nul : toute exécution est capturée
+        dataSource = new RequeteLenteDataSource(cible, 0, fournisseur);
+    }
+
+    @Test
+    void parametresLies_seulsTypeEtLongueurConserves() throws SQLException {
+        try (Connection instrumentee = dataSource.getConnection();
+             PreparedStatement ps = instrumentee.prepareStatement(
+                     "UPDATE sessions_utilisateurs SET attributs = ? WHERE session_id = ? AND version = ?")) {
+            ps.setBytes(1, new byte[] {1, 2, 3});
+            ps.setString(2, "secret-session-id");
+            ps.setObject(3, 7L);
+            ps.executeUpdate();
+        }
+
+        List<Map<String, Object>> captures = requetesLentes.getRequetesLentes(10);
+        assertEquals(1, captures.size());
+        assertEquals(List.of("byte[3]", "String(17)", "Long"), captures.get(0).get("parametres"));
+        assertFalse(captures.toString().contains("secret-session-id"));
+    }
+
+    @Test
+    void decrire_valeurJamaisRestituee() {
+        assertEquals("null", RequetesLentes.decrire(null));
+        assertEquals("String(8)", RequetesLentes.decrire("$2a$10$x"));
+        assertEquals("UUID", RequetesLentes.decrire(UUID.randomUUID()));
+    }
+
+    @Test
+    void getConnectionDUnStatement_rendLaConnexionInstrumentee() throws SQLException {
+        try (Connection instrumentee = dataSource.getConnection()) {
+            assertSame(instrumentee, instrumentee.prepareStatement("SELECT 1").getConnection());
+            assertSame(instrumentee, instrumentee.createStatement().getConnection());
+
+            // Un statement créé depuis cette connexion est chronométré lui aussi
+            instrumentee.createStatement().getConnection().createStatement().executeQuery("SELECT 2");
+        }
+        assertEquals("SELECT 2", requetesLentes.getRequetesLentes(1).get(0).get("sql"));
+    }
+}
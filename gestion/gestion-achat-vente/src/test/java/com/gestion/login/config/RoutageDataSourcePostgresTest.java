@@ -0,0 +1,119 @@
+package com.gestion.login.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aiguillage et retour sur la base principale avec un vrai réplica en streaming
+ * ({@code docker-compose.replica.yml}). Le retard est provoqué en suspendant le rejeu du WAL
+ * sur le réplica (superutilisateur requis). Ignoré sans {@code GESTION_TEST_PG_REPLICA_URL}.
+ */
+@EnabledIfEnvironmentVariable(named = "GESTION_TEST_PG_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = "GESTION_TEST_PG_REPLICA_URL", matches = ".+")
+class RoutageDataSourcePostgresTest {
+
+    private static final String SERVICE = "com.gestion.stock.service.ReportingService.getTableauDeBord";
+
+    private JdbcTemplate primaire;
+    private JdbcTemplate replica;
+    private RoutageDataSource routage;
+    private String table;
+
+    @BeforeEach
+    void initialiser() {
+        String utilisateur = System.getenv().getOrDefault("GESTION_TEST_PG_USER", "postgres");
+        String motDePasse = System.getenv().getOrDefault("GESTION_TEST_PG_PASSWORD", "postgres");
+        DriverManagerDataSource basePrincipale = new DriverManagerDataSource(
+                System.getenv("GESTION_TEST_PG_URL"), utilisateur, motDePasse);
+        DriverManagerDataSource baseReplica = new DriverManagerDataSource(
+                System.getenv("GESTION_TEST_PG_REPLICA_URL"), utilisateur, motDePasse);
+        primaire = new JdbcTemplate(basePrincipale);
+        replica = new JdbcTemplate(baseReplica);
+        routage = new RoutageDataSource(basePrincipale, baseReplica, 500, 1000);
+        table = "test_replica_" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @AfterEach
+    void nettoyer() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+        replica.execute("SELECT pg_wal_replay_resume()");
+        primaire.execute("DROP TABLE IF EXISTS " + table);
+    }
+
+    @Test
+    void replicaAJour_lecturesDesServicesSurLeReplica() throws Exception {
+        attendre(this::replicaUtilisable, "réplica jamais utilisable");
+
+        assertFalse(enRecuperation(), "hors transaction : base principale");
+
+        TransactionSynchronizationManager.setCurrentTransactionName(SERVICE);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(enRecuperation(), "lecture d'un service : réplica");
+    }
+
+    @Test
+    void rejeuSuspendu_retourSurLaBasePrincipalePuisRetourAuReplica() throws Exception {
+        attendre(this::replicaUtilisable, "réplica jamais utilisable");
+        TransactionSynchronizationManager.setCurrentTransactionName(SERVICE);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Une transaction rejouée d'abord : le retard se mesure depuis son horodatage
+        primaire.execute("CREATE TABLE " + table + " (id INTEGER)");
+        attendre(() -> replica.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table),
+                "table jamais répliquée");
+
+        replica.execute("SELECT pg_wal_replay_pause()");
+        primaire.update("INSERT INTO " + table + " VALUES (1)");
+
+        // WAL reçu mais non rejoué : retard croissant, au-delà des 500 ms tolérées
+        attendre(() -> !replicaUtilisable(), "retard du réplica non détecté");
+        assertFalse(enRecuperation(), "réplica en retard : base principale");
+
+        replica.execute("SELECT pg_wal_replay_resume()");
+        attendre(this::replicaUtilisable, "réplica jamais rattrapé");
+        assertTrue(enRecuperation(), "réplica rattrapé : lectures de nouveau sur le réplica");
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class));
+    }
+
+    private boolean replicaUtilisable() {
+        routage.verifier();
+        return Boolean.TRUE.equals(routage.getEtat().get("utilisable"));
+    }
+
+    /**
+     * La connexion aiguillée est-elle celle du réplica (serveur en hot standby) ?
+     */
+    private boolean enRecuperation() throws SQLException {
+        try (Connection connexion = routage.getConnection();
+             Statement statement = connexion.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_is_in_recovery()")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private static void attendre(BooleanSupplier condition, String message) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail(message);
+            }
+            Thread.sleep(200);
+        }
+    }
+}
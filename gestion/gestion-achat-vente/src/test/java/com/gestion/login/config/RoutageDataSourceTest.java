@@ -0,0 +1,126 @@
+package com.gestion.login.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoutageDataSourceTest {
+
+    private static final String SERVICE = "com.gestion.stock.service.ReportingService.getTableauDeBord";
+    private static final String REPOSITORY = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findAll";
+
+    private final Connection connexionPrimaire = mock(Connection.class);
+    private final Connection connexionReplica = mock(Connection.class);
+    private final Connection connexionMesure = mock(Connection.class);
+    private final ResultSet mesure = mock(ResultSet.class);
+
+    private DataSource replica;
+    private RoutageDataSource routage;
+
+    @BeforeEach
+    void initialiser() throws SQLException {
+        DataSource primaire = mock(DataSource.class);
+        when(primaire.getConnection()).thenReturn(connexionPrimaire);
+
+        Statement statement = mock(Statement.class);
+        when(connexionMesure.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(mesure);
+        when(mesure.next()).thenReturn(true);
+
+        replica = mock(DataSource.class);
+        // Première connexion : mesure du retard, suivantes : lectures aiguillées
+        when(replica.getConnection()).thenReturn(connexionMesure, connexionReplica);
+
+        routage = new RoutageDataSource(primaire, replica, 2000, 2000);
+    }
+
+    @AfterEach
+    void nettoyer() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setCurrentTransactionName(null);
+        RoutageDataSource.terminerLecture();
+    }
+
+    @Test
+    void replicaAJour_lectureDUnService_servieParLeReplica() throws SQLException {
+        mesurer(150);
+
+        transaction(SERVICE, true);
+
+        assertSame(connexionReplica, routage.getConnection());
+        assertEquals(true, routage.getEtat().get("utilisable"));
+        assertEquals(150L, routage.getEtat().get("retardMs"));
+    }
+
+    @Test
+    void ecritureOuHorsTransaction_toujoursSurLaBasePrincipale() throws SQLException {
+        mesurer(0);
+
+        assertSame(connexionPrimaire, routage.getConnection());
+
+        transaction(SERVICE, false);
+        assertSame(connexionPrimaire, routage.getConnection());
+    }
+
+    @Test
+    void lectureDUnRepository_principaleSaufEndpointLectureReplica() throws SQLException {
+        mesurer(0);
+        transaction(REPOSITORY, true);
+
+        assertSame(connexionPrimaire, routage.getConnection());
+
+        RoutageDataSource.debuterLecture();
+        assertSame(connexionReplica, routage.getConnection());
+    }
+
+    @Test
+    void retardAuDelaDuMaximum_retourSurLaBasePrincipalePuisRetourAuReplica() throws SQLException {
+        transaction(SERVICE, true);
+
+        mesurer(5000);
+        assertSame(connexionPrimaire, routage.getConnection());
+        assertEquals(false, routage.getEtat().get("utilisable"));
+
+        when(replica.getConnection()).thenReturn(connexionMesure, connexionReplica);
+        mesurer(300);
+        assertSame(connexionReplica, routage.getConnection());
+    }
+
+    @Test
+    void replicaInjoignable_lecturesSurLaBasePrincipale() throws SQLException {
+        mesurer(0);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        transaction(SERVICE, true);
+        // Échec à l'ouverture : la lecture bascule sur la base principale sans erreur
+        assertSame(connexionPrimaire, routage.getConnection());
+        assertEquals(false, routage.getEtat().get("utilisable"));
+        assertEquals("Connection refused", routage.getEtat().get("derniereErreur"));
+
+        // Mesure suivante en échec : le réplica reste écarté
+        routage.verifier();
+        assertSame(connexionPrimaire, routage.getConnection());
+    }
+
+    private void mesurer(long retardMs) throws SQLException {
+        when(mesure.getLong(1)).thenReturn(retardMs);
+        routage.verifier();
+    }
+
+    private static void transaction(String nom, boolean lectureSeule) {
+        TransactionSynchronizationManager.setCurrentTransactionName(nom);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(lectureSeule);
+    }
+}
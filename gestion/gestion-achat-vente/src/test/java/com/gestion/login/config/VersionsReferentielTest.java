@@ -0,0 +1,130 @@
+package com.gestion.login.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VersionsReferentielTest {
+
+    private static final String ETAG = "W/\"articles.3-clients.5\"";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AtomicInteger chargements = new AtomicInteger();
+
+    private VersionsReferentiel referentiel;
+    private long versionArticles;
+
+    @BeforeEach
+    void initialiser() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("groupe")).thenReturn(VersionsReferentiel.ARTICLES);
+        when(rs.getLong("version")).thenAnswer(invocation -> versionArticles);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        referentiel = new VersionsReferentiel(jdbcTemplate, new MockEnvironment());
+    }
+
+    @Test
+    void nonModifie_enTeteAbsentOuVide_faux() {
+        assertFalse(VersionsReferentiel.nonModifie(null, ETAG));
+        assertFalse(VersionsReferentiel.nonModifie("", ETAG));
+        assertFalse(VersionsReferentiel.nonModifie("   ", ETAG));
+    }
+
+    @Test
+    void nonModifie_etagFaibleIdentique_vrai() {
+        assertTrue(VersionsReferentiel.nonModifie(ETAG, ETAG));
+    }
+
+    @Test
+    void nonModifie_comparaisonFaible_prefixeWIgnore() {
+        assertTrue(VersionsReferentiel.nonModifie("\"articles.3-clients.5\"", ETAG));
+    }
+
+    @Test
+    void nonModifie_listeDEtags_unSeulSuffit() {
+        assertTrue(VersionsReferentiel.nonModifie("W/\"articles.2-clients.5\", " + ETAG, ETAG));
+        assertTrue(VersionsReferentiel.nonModifie("\"x\",W/\"articles.3-clients.5\"", ETAG));
+    }
+
+    @Test
+    void nonModifie_etoile_vrai() {
+        assertTrue(VersionsReferentiel.nonModifie("*", ETAG));
+    }
+
+    @Test
+    void nonModifie_versionDifferente_faux() {
+        assertFalse(VersionsReferentiel.nonModifie("W/\"articles.2-clients.5\"", ETAG));
+        assertFalse(VersionsReferentiel.nonModifie("W/\"articles.3\"", ETAG));
+    }
+
+    @Test
+    void reponse_versionInconnue_chargeeSansEtag() {
+        ResponseEntity<String> reponse = referentiel.reponse(requete(null), "liste", this::charger,
+                VersionsReferentiel.ARTICLES);
+
+        assertEquals(HttpStatus.OK, reponse.getStatusCode());
+        assertNull(reponse.getHeaders().getETag());
+        assertEquals(1, chargements.get());
+    }
+
+    @Test
+    void reponse_etagAJour_304SansChargement_puisNouvelleVersionApresEcriture() {
+        versionArticles = 3;
+        referentiel.signalerEcriture();
+
+        ResponseEntity<String> premiere = referentiel.reponse(requete(null), "liste", this::charger,
+                VersionsReferentiel.ARTICLES);
+        String etag = premiere.getHeaders().getETag();
+        assertEquals("W/\"articles.3\"", etag);
+        assertEquals(1, chargements.get());
+
+        ResponseEntity<String> revalidation = referentiel.reponse(requete(etag), "liste", this::charger,
+                VersionsReferentiel.ARTICLES);
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidation.getStatusCode());
+        assertEquals(1, chargements.get());
+
+        // Autre client sans ETag : servi depuis le cache local à version égale
+        referentiel.reponse(requete(null), "liste", this::charger, VersionsReferentiel.ARTICLES);
+        assertEquals(1, chargements.get());
+
+        versionArticles = 4;
+        referentiel.signalerEcriture();
+        ResponseEntity<String> apresEcriture = referentiel.reponse(requete(etag), "liste", this::charger,
+                VersionsReferentiel.ARTICLES);
+        assertEquals(HttpStatus.OK, apresEcriture.getStatusCode());
+        assertEquals("W/\"articles.4\"", apresEcriture.getHeaders().getETag());
+        assertEquals(2, chargements.get());
+    }
+
+    private String charger() {
+        return "corps-" + chargements.incrementAndGet();
+    }
+
+    private static ServletWebRequest requete(String ifNoneMatch) {
+        MockHttpServletRequest requete = new MockHttpServletRequest("GET", "/api/articles");
+        if (ifNoneMatch != null) {
+            requete.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(requete);
+    }
+}
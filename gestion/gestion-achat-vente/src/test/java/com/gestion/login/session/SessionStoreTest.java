@@ -0,0 +1,171 @@
+package com.gestion.login.session;
+
+import com.gestion.stock.service.BailJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionStoreTest {
+
+    private SessionsEnMemoire base;
+    private SessionStore store;
+
+    @BeforeEach
+    void initialiser() {
+        base = new SessionsEnMemoire();
+        store = new SessionStore(base, new MockEnvironment(), mock(BailJobService.class));
+    }
+
+    @Test
+    void creationPuisModification_insertPuisUpdateVersionne() {
+        SessionPersistante session = store.creer(null);
+
+        session.setAttribute("username", "alice");
+        assertEquals(1, base.inserts);
+        assertEquals(0L, base.version(session.getId()));
+
+        session.setAttribute("userRole", "ADMIN");
+        assertEquals(1, base.inserts);
+        assertEquals(1L, base.version(session.getId()));
+        assertEquals(1L, session.getVersion());
+        assertEquals(Map.of("username", "alice", "userRole", "ADMIN"), base.attributs(session.getId()));
+    }
+
+    @Test
+    void sessionSupprimeeAilleurs_nEstPasRecreee() {
+        SessionPersistante session = store.creer(null);
+        session.setAttribute("username", "alice");
+
+        // Déconnexion traitée par un autre nœud : la copie en cache est périmée
+        base.lignes.remove(session.getId());
+        session.setAttribute("flashError", "message");
+
+        assertFalse(base.lignes.containsKey(session.getId()));
+        assertEquals(1, base.inserts);
+        assertTrue(session.isInvalide());
+        assertNull(store.charger(session.getId(), null));
+    }
+
+    @Test
+    void attributsEcritsAilleurs_sontConserves() {
+        SessionPersistante session = store.creer(null);
+        session.setAttribute("username", "alice");
+
+        base.ecrireAilleurs(session.getId(), Map.of("username", "alice", "panier", "p1"), 5L);
+        session.setAttribute("flashError", "message");
+
+        assertEquals(Map.of("username", "alice", "panier", "p1", "flashError", "message"),
+                base.attributs(session.getId()));
+        assertEquals(6L, base.version(session.getId()));
+        assertEquals("p1", session.getAttribute("panier"));
+    }
+
+    @Test
+    void suppressionLocale_reappliqueeSurLaVersionEnBase() {
+        SessionPersistante session = store.creer(null);
+        session.setAttribute("username", "alice");
+        session.setAttribute("flashError", "message");
+
+        base.ecrireAilleurs(session.getId(), Map.of("username", "alice", "flashError", "message", "panier", "p1"), 9L);
+        session.removeAttribute("flashError");
+
+        assertEquals(Map.of("username", "alice", "panier", "p1"), base.attributs(session.getId()));
+        assertNull(session.getAttribute("flashError"));
+    }
+
+    @Test
+    void suppression_invalideLaSessionSansRecreerLaLigne() {
+        SessionPersistante session = store.creer(null);
+        session.setAttribute("username", "alice");
+
+        store.supprimer(session.getId());
+
+        assertFalse(base.lignes.containsKey(session.getId()));
+        assertThrows(IllegalStateException.class, () -> session.setAttribute("flashError", "message"));
+        assertFalse(base.lignes.containsKey(session.getId()));
+    }
+
+    @Test
+    void deserialisation_limiteeAuxClassesAdmises() {
+        Map<String, Object> admis = Map.of("userId", UUID.randomUUID(), "jour", LocalDate.of(2024, 3, 1),
+                "montant", new BigDecimal("12.50"), "roles", new ArrayList<>(List.of("ADMIN")));
+        assertEquals(admis, SessionStore.deserialiser(SessionStore.serialiser(admis)));
+
+        Map<String, Object> refuse = Map.of("lien", URI.create("http://exemple.org"));
+        assertTrue(SessionStore.deserialiser(SessionStore.serialiser(refuse)).isEmpty());
+    }
+
+    /**
+     * sessions_utilisateurs réduite à (id, attributs, version), pour les requêtes de SessionStore
+     */
+    static class SessionsEnMemoire extends JdbcTemplate {
+
+        final Map<String, Object[]> lignes = new HashMap<>();
+        int inserts;
+
+        void ecrireAilleurs(String id, Map<String, Object> attributs, long version) {
+            lignes.put(id, new Object[] {SessionStore.serialiser(attributs), version});
+        }
+
+        long version(String id) {
+            return (Long) lignes.get(id)[1];
+        }
+
+        Map<String, Object> attributs(String id) {
+            return SessionStore.deserialiser((byte[]) lignes.get(id)[0]);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT INTO sessions_utilisateurs")) {
+                inserts++;
+                lignes.put((String) args[0], new Object[] {args[3], 0L});
+                return 1;
+            }
+            if (sql.startsWith("UPDATE sessions_utilisateurs SET")) {
+                Object[] ligne = lignes.get((String) args[5]);
+                if (ligne == null || !ligne[1].equals(args[6])) {
+                    return 0;
+                }
+                lignes.put((String) args[5], new Object[] {args[2], (Long) args[6] + 1});
+                return 1;
+            }
+            if (sql.startsWith("DELETE FROM sessions_utilisateurs WHERE id = ?")) {
+                return lignes.remove((String) args[0]) != null ? 1 : 0;
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            Object[] ligne = lignes.get((String) args[0]);
+            if (ligne == null) {
+                return List.of();
+            }
+            if (!sql.startsWith("SELECT attributs, version")) {
+                throw new UnsupportedOperationException(sql);
+            }
+            try {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getBytes(1)).thenReturn((byte[]) ligne[0]);
+                when(rs.getLong(2)).thenReturn((Long) ligne[1]);
+                return List.of(rowMapper.mapRow(rs, 0));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
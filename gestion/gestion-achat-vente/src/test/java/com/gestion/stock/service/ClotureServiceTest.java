@@ -0,0 +1,75 @@
+package com.gestion.stock.service;
+
+import com.gestion.stock.entity.*;
+import com.gestion.stock.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClotureServiceTest {
+
+    @Mock private ClotureMensuelleRepository clotureRepository;
+    @Mock private HistoriqueCoutRepository historiqueRepository;
+    @Mock private StockRepository stockRepository;
+    @Mock private StockMovementRepository mouvementRepository;
+    @Mock private ArticleRepository articleRepository;
+    @Mock private DepotRepository depotRepository;
+    @Mock private ValorisationService valorisationService;
+    @Mock private ReportingService reportingService;
+    @Mock private UtilisateurRepository utilisateurRepository;
+    @Mock private TacheAsynchroneService tacheService;
+    @Mock private EtatStockADateService etatStockADateService;
+
+    @InjectMocks
+    private ClotureService clotureService;
+
+    @Test
+    void instantane_retrancheLesMouvementsDatesApresLaFinDePeriode() {
+        LocalDate finJanvier = LocalDate.of(2024, 1, 31);
+        ClotureMensuelle cloture = ClotureMensuelle.builder()
+                .id(UUID.randomUUID()).annee(2024).mois(1)
+                .dateDebutPeriode(LocalDate.of(2024, 1, 1)).dateFinPeriode(finJanvier)
+                .statut(ClotureMensuelle.StatutCloture.OUVERTE)
+                .build();
+        Article article = Article.builder().id(UUID.randomUUID()).codeArticle("ART-1").methodeValorisation("CUMP").build();
+        Depot depot = Depot.builder().id(UUID.randomUUID()).code("D1").build();
+        // Stock au moment où la clôture est exécutée (3 février) : 80 fin janvier + 20 reçus le 2 février
+        Stock stock = Stock.builder().article(article).depot(depot)
+                .quantiteTheorique(100).quantiteReservee(0).valeurStockCump(new BigDecimal("1000.00"))
+                .build();
+
+        when(clotureRepository.findById(cloture.getId())).thenReturn(Optional.of(cloture));
+        when(clotureRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(stockRepository.findAll()).thenReturn(List.of(stock));
+        when(articleRepository.findById(article.getId())).thenReturn(Optional.of(article));
+        when(etatStockADateService.getMouvementsPosterieurs(finJanvier)).thenReturn(Map.of(
+                List.of(article.getId(), depot.getId()),
+                new EtatStockADateService.Solde(20, new BigDecimal("200.00"))));
+
+        clotureService.executerCloture(cloture.getId(), UUID.randomUUID());
+
+        ArgumentCaptor<HistoriqueCout> historique = ArgumentCaptor.forClass(HistoriqueCout.class);
+        verify(historiqueRepository).save(historique.capture());
+        assertEquals(80, historique.getValue().getQuantiteStock());
+        assertEquals(new BigDecimal("800.00"), historique.getValue().getValeurStock());
+        assertEquals(finJanvier, historique.getValue().getDateEffet());
+        assertEquals(new BigDecimal("800.00"), cloture.getValeurStockTotal());
+        assertEquals(ClotureMensuelle.StatutCloture.CLOTUREE, cloture.getStatut());
+    }
+}
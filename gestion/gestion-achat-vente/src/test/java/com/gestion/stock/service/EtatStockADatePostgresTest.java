@@ -0,0 +1,115 @@
+package com.gestion.stock.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Requêtes « à date » sur une vraie base PostgreSQL ({@code docker-compose.test.yml}), dans un
+ * schéma jetable réduit aux colonnes lues. Ignoré sans {@code GESTION_TEST_PG_URL}.
+ */
+@EnabledIfEnvironmentVariable(named = "GESTION_TEST_PG_URL", matches = ".+")
+class EtatStockADatePostgresTest {
+
+    private static final LocalDate FIN_JANVIER = LocalDate.of(2024, 1, 31);
+
+    private final UUID article = UUID.randomUUID();
+    private final UUID depot = UUID.randomUUID();
+    private final UUID entree = UUID.randomUUID();
+    private final UUID sortie = UUID.randomUUID();
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private EtatStockADateService service;
+    private String schema;
+
+    @BeforeEach
+    void creerSchema() {
+        dataSource = new SingleConnectionDataSource(System.getenv("GESTION_TEST_PG_URL"),
+                System.getenv().getOrDefault("GESTION_TEST_PG_USER", "postgres"),
+                System.getenv().getOrDefault("GESTION_TEST_PG_PASSWORD", "postgres"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        schema = "test_etat_" + UUID.randomUUID().toString().replace("-", "");
+        jdbcTemplate.execute("CREATE SCHEMA " + schema);
+        jdbcTemplate.execute("SET search_path TO " + schema);
+        jdbcTemplate.execute("""
+                CREATE TABLE articles (id UUID PRIMARY KEY, code_article VARCHAR(50), libelle VARCHAR(200));
+                CREATE TABLE depots (id UUID PRIMARY KEY, nom VARCHAR(100));
+                CREATE TABLE types_mouvement (id UUID PRIMARY KEY, sens VARCHAR(10));
+                CREATE TABLE clotures_mensuelles (id UUID PRIMARY KEY, statut VARCHAR(20), date_fin_periode DATE);
+                CREATE TABLE historique_couts (article_id UUID, depot_id UUID, quantite_stock INTEGER,
+                                               valeur_stock NUMERIC(15,2), cout_unitaire_moyen NUMERIC(15,4),
+                                               cloture_mensuelle_id UUID);
+                CREATE TABLE mouvements_stock_journal (article_id UUID, depot_id UUID, type_mouvement_id UUID,
+                                                       quantite INTEGER, valeur_mouvement NUMERIC(15,2),
+                                                       statut VARCHAR(20), date_comptable DATE);
+                """);
+        jdbcTemplate.update("INSERT INTO articles VALUES (?, 'ART-1', 'Article 1')", article);
+        jdbcTemplate.update("INSERT INTO depots VALUES (?, 'Dépôt 1')", depot);
+        jdbcTemplate.update("INSERT INTO types_mouvement VALUES (?, 'ENTREE'), (?, 'SORTIE')", entree, sortie);
+        service = new EtatStockADateService(new NamedParameterJdbcTemplate(dataSource));
+    }
+
+    @AfterEach
+    void supprimerSchema() {
+        jdbcTemplate.execute("DROP SCHEMA " + schema + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void clotureExecuteeApresLaFinDePeriode_neCompteQuUneFoisLesMouvementsPosterieurs() {
+        mouvement(entree, 80, "800.00", "2024-01-10");
+        mouvement(entree, 20, "200.00", "2024-02-02"); // saisi avant l'exécution de la clôture (3 février)
+        mouvement(sortie, 5, "50.00", "2024-02-10"); // saisi après
+
+        // Clôture de janvier exécutée le 3 février, comme ClotureService : stock courant - mouvements postérieurs
+        Map<List<UUID>, EtatStockADateService.Solde> posterieurs = service.getMouvementsPosterieurs(FIN_JANVIER);
+        EtatStockADateService.Solde apres = posterieurs.get(List.of(article, depot));
+        assertEquals(20, apres.quantite());
+        UUID cloture = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO clotures_mensuelles VALUES (?, 'CLOTUREE', ?)", cloture, FIN_JANVIER);
+        jdbcTemplate.update("INSERT INTO historique_couts VALUES (?, ?, ?, ?, 10, ?)",
+                article, depot, 100 - apres.quantite(), new BigDecimal("1000.00").subtract(apres.valeur()), cloture);
+
+        assertEtat(FIN_JANVIER, 80, "800.00");
+        assertEtat(LocalDate.of(2024, 2, 2), 100, "1000.00");
+        assertEtat(LocalDate.of(2024, 2, 10), 95, "950.00");
+    }
+
+    @Test
+    void sansCloture_journalDepuisLOrigine() {
+        mouvement(entree, 10, "100.00", "2023-12-01");
+        mouvement(sortie, 4, "40.00", "2024-01-05");
+        mouvement(sortie, 1, "10.00", "2024-01-06", "BROUILLON");
+
+        assertEtat(LocalDate.of(2023, 12, 31), 10, "100.00");
+        assertEtat(LocalDate.of(2024, 1, 31), 6, "60.00");
+    }
+
+    private void mouvement(UUID type, int quantite, String valeur, String jour) {
+        mouvement(type, quantite, valeur, jour, "VALIDE");
+    }
+
+    private void mouvement(UUID type, int quantite, String valeur, String jour, String statut) {
+        jdbcTemplate.update("INSERT INTO mouvements_stock_journal VALUES (?, ?, ?, ?, ?, ?, ?)",
+                article, depot, type, quantite, new BigDecimal(valeur), statut, LocalDate.parse(jour));
+    }
+
+    private void assertEtat(LocalDate date, int quantite, String valeur) {
+        Map<String, Object> etat = service.getEtatArticle(article, depot, date).orElseThrow();
+        assertEquals(quantite, etat.get("quantite"), "quantité au " + date);
+        assertEquals(new BigDecimal(valeur), etat.get("valeur"), "valeur au " + date);
+    }
+}
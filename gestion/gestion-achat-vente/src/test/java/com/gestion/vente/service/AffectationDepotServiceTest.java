@@ -0,0 +1,127 @@
+package com.gestion.vente.service;
+
+import com.gestion.stock.repository.StockRepository;
+import com.gestion.vente.service.AffectationDepotService.Affectation;
+import com.gestion.vente.service.AffectationDepotService.Besoin;
+import com.gestion.vente.service.AffectationDepotService.PlanAffectation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AffectationDepotServiceTest {
+
+    private static final UUID A = UUID.randomUUID();
+    private static final UUID B = UUID.randomUUID();
+    private static final UUID C = UUID.randomUUID();
+    private static final UUID D1 = UUID.randomUUID();
+    private static final UUID D2 = UUID.randomUUID();
+    private static final UUID D3 = UUID.randomUUID();
+    private static final UUID D4 = UUID.randomUUID();
+
+    @Mock private StockRepository stockRepository;
+
+    @InjectMocks
+    private AffectationDepotService service;
+
+    private final List<Object[]> disponibilites = new ArrayList<>();
+
+    @Test
+    void couvertureGloutonne_retientLeDepotQuiSertLePlusDeLignes() {
+        // Servir par article (D1 puis D2) demanderait trois dépôts ; D3 sert A et B à lui seul
+        disponible(D1, A, 10);
+        disponible(D2, B, 10);
+        disponible(D3, A, 10);
+        disponible(D3, B, 10);
+        disponible(D4, C, 10);
+
+        PlanAffectation plan = planifier(null, new Besoin(A, 5), new Besoin(B, 5), new Besoin(C, 5));
+
+        assertEquals(List.of(D3, D4), plan.depots());
+        assertEquals(D3, plan.depotPrincipal());
+        assertTrue(plan.complet());
+        assertEquals(List.of(new Affectation(0, A, D3, 5)), plan.affectationsLigne(0));
+        assertEquals(List.of(new Affectation(2, C, D4, 5)), plan.affectationsLigne(2));
+    }
+
+    @Test
+    void egaliteDeCouverture_departageeParLeDepotPrefere() {
+        disponible(D1, A, 10);
+        disponible(D2, A, 10);
+
+        assertEquals(List.of(D2), planifier(D2, new Besoin(A, 5)).depots());
+        assertEquals(List.of(D1), planifier(D1, new Besoin(A, 5)).depots());
+    }
+
+    @Test
+    void lignesRepeteesDUnArticle_leStockDuDepotEstDecompte() {
+        disponible(D1, A, 9);
+        disponible(D2, A, 10);
+
+        PlanAffectation plan = planifier(null, new Besoin(A, 5), new Besoin(A, 5));
+
+        // D1 ne sert qu'une des deux lignes (9 < 10), D2 sert les deux
+        assertEquals(List.of(D2), plan.depots());
+        assertEquals(2, plan.affectations().size());
+    }
+
+    @Test
+    void ligneServieParAucunDepotSeul_fractionneeDuPlusGrosDisponibleAuPlusPetit() {
+        disponible(D1, A, 6);
+        disponible(D2, A, 7);
+
+        PlanAffectation plan = planifier(null, new Besoin(A, 10));
+
+        assertEquals(List.of(new Affectation(0, A, D2, 7), new Affectation(0, A, D1, 3)), plan.affectations());
+        assertEquals(List.of(D2, D1), plan.depots());
+        assertTrue(plan.complet());
+    }
+
+    @Test
+    void fractionnement_puiseDAbordDansLesDepotsDejaRetenus() {
+        disponible(D1, B, 5);
+        disponible(D1, A, 4);
+        disponible(D2, A, 8);
+
+        PlanAffectation plan = planifier(null, new Besoin(B, 5), new Besoin(A, 10));
+
+        assertEquals(List.of(new Affectation(1, A, D1, 4), new Affectation(1, A, D2, 6)), plan.affectationsLigne(1));
+        assertEquals(List.of(D1, D2), plan.depots());
+    }
+
+    @Test
+    void stockInsuffisant_quantiteManquanteParArticle() {
+        disponible(D1, A, 3);
+
+        PlanAffectation plan = planifier(null, new Besoin(A, 10));
+
+        assertFalse(plan.complet());
+        assertEquals(Map.of(A, 7), plan.manquants());
+        assertEquals(List.of(new Affectation(0, A, D1, 3)), plan.affectations());
+    }
+
+    @Test
+    void aucuneLigne_refusee() {
+        assertThrows(RuntimeException.class, () -> service.planifier(List.of(), null));
+    }
+
+    private void disponible(UUID depot, UUID article, int quantite) {
+        disponibilites.add(new Object[] {article, depot, quantite});
+    }
+
+    private PlanAffectation planifier(UUID depotPrefere, Besoin... besoins) {
+        when(stockRepository.findDisponibilitesByArticleIdIn(any())).thenReturn(disponibilites);
+        return service.planifier(List.of(besoins), depotPrefere);
+    }
+}